@@ -17,11 +17,111 @@ package jetbrains.exodus.benchmark.dataStructures;
 
 import jetbrains.exodus.core.dataStructures.ConcurrentObjectCache;
 import jetbrains.exodus.core.dataStructures.ObjectCacheBase;
+import jetbrains.exodus.core.dataStructures.StripedObjectCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
 
 public class JMHConcurrentObjectCacheBenchmark extends JMHObjectCacheBenchmark {
 
+    private static final int KEYS_COUNT = 1 << 16;
+
     @Override
     protected ObjectCacheBase<Integer, String> createCache() {
         return new ConcurrentObjectCache<>();
     }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(iterations = 4, time = 1)
+    @Measurement(iterations = 6, time = 1)
+    @Fork(5)
+    public String sharedCacheTryKey1Thread(final SharedCache cache, final Keys keys) {
+        return cache.tryKeyOrCache(keys.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    @Warmup(iterations = 4, time = 1)
+    @Measurement(iterations = 6, time = 1)
+    @Fork(5)
+    public String sharedCacheTryKey4Threads(final SharedCache cache, final Keys keys) {
+        return cache.tryKeyOrCache(keys.next());
+    }
+
+    @Benchmark
+    @Threads(16)
+    @Warmup(iterations = 4, time = 1)
+    @Measurement(iterations = 6, time = 1)
+    @Fork(5)
+    public String sharedCacheTryKey16Threads(final SharedCache cache, final Keys keys) {
+        return cache.tryKeyOrCache(keys.next());
+    }
+
+    @Benchmark
+    @Threads(64)
+    @Warmup(iterations = 4, time = 1)
+    @Measurement(iterations = 6, time = 1)
+    @Fork(5)
+    public String sharedCacheTryKey64Threads(final SharedCache cache, final Keys keys) {
+        return cache.tryKeyOrCache(keys.next());
+    }
+
+    /**
+     * Cache shared by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedCache {
+
+        @Param({"ConcurrentObjectCache", "StripedObjectCache"})
+        public String cacheType;
+
+        ObjectCacheBase<Integer, String> cache;
+
+        @Setup
+        public void prepare() {
+            cache = "StripedObjectCache".equals(cacheType) ?
+                new StripedObjectCache<Integer, String>(CACHE_SIZE) :
+                new ConcurrentObjectCache<Integer, String>(CACHE_SIZE);
+            for (int i = 0; i < CACHE_SIZE; ++i) {
+                cache.cacheObject(i, Integer.toString(i));
+            }
+        }
+
+        String tryKeyOrCache(final int key) {
+            final String result = cache.tryKey(key);
+            if (result != null) {
+                return result;
+            }
+            final String value = Integer.toString(key);
+            cache.cacheObject(key, value);
+            return value;
+        }
+    }
+
+    /**
+     * Keys requested by a benchmark thread, {@code hitPercentage} of them are initially cached.
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+
+        @Param({"50", "90", "99"})
+        public int hitPercentage;
+
+        final int[] keys = new int[KEYS_COUNT];
+        int index = 0;
+
+        @Setup
+        public void prepare() {
+            final Random random = new Random();
+            for (int i = 0; i < KEYS_COUNT; ++i) {
+                keys[i] = random.nextInt(100) < hitPercentage ?
+                    random.nextInt(CACHE_SIZE) : CACHE_SIZE + random.nextInt(CACHE_SIZE * 100);
+            }
+        }
+
+        int next() {
+            return keys[index++ & (KEYS_COUNT - 1)];
+        }
+    }
 }
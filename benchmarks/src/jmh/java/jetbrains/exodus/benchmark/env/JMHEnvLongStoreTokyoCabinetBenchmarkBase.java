@@ -0,0 +1,88 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.benchmark.env;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.bindings.LongBinding;
+import jetbrains.exodus.env.LongStore;
+import jetbrains.exodus.env.StoreConfig;
+import jetbrains.exodus.env.Transaction;
+import jetbrains.exodus.env.TransactionalExecutable;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Param;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static jetbrains.exodus.benchmark.TokyoCabinetBenchmark.KEYS_COUNT;
+
+/**
+ * Compares access to a store with {@code long} keys using {@link LongBinding} and {@link LongStore}. The results
+ * are expected to be the same since {@code LongStore} encodes keys with {@code LongBinding}, so the benchmark
+ * guards against overhead of the facade.
+ */
+abstract class JMHEnvLongStoreTokyoCabinetBenchmarkBase extends JMHEnvTokyoCabinetBenchmarkBase {
+
+    static final long[] successiveLongKeys = new long[KEYS_COUNT];
+    static final long[] randomLongKeys = new long[KEYS_COUNT];
+    static final ByteIterable VALUE = LongBinding.longToEntry(0);
+
+    static {
+        for (int i = 0; i < KEYS_COUNT; ++i) {
+            successiveLongKeys[i] = randomLongKeys[i] = i;
+        }
+    }
+
+    @Param({"false", "true"})
+    public boolean useLongStore;
+
+    LongStore longStore;
+
+    @Override
+    public void setup() throws IOException {
+        super.setup();
+        longStore = new LongStore(store);
+        final Random random = new Random();
+        for (int i = KEYS_COUNT - 1; i > 0; --i) {
+            final int j = random.nextInt(i + 1);
+            final long key = randomLongKeys[i];
+            randomLongKeys[i] = randomLongKeys[j];
+            randomLongKeys[j] = key;
+        }
+    }
+
+    void writeLongKeys(@NotNull final long[] keys) {
+        env.executeInTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                if (useLongStore) {
+                    for (final long key : keys) {
+                        longStore.add(txn, key, VALUE);
+                    }
+                } else {
+                    for (final long key : keys) {
+                        store.add(txn, LongBinding.longToEntry(key), VALUE);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    protected StoreConfig getConfig() {
+        return StoreConfig.WITHOUT_DUPLICATES;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.benchmark.env;
+
+import jetbrains.exodus.bindings.LongBinding;
+import jetbrains.exodus.env.Cursor;
+import jetbrains.exodus.env.LongCursor;
+import jetbrains.exodus.env.Transaction;
+import jetbrains.exodus.env.TransactionalExecutable;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static jetbrains.exodus.benchmark.TokyoCabinetBenchmark.*;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JMHEnvLongStoreTokyoCabinetReadBenchmark extends JMHEnvLongStoreTokyoCabinetBenchmarkBase {
+
+    @Setup(Level.Invocation)
+    public void beforeBenchmark() throws IOException {
+        setup();
+        writeLongKeys(successiveLongKeys);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_ITERATIONS)
+    @Measurement(iterations = MEASUREMENT_ITERATIONS)
+    @Fork(FORKS)
+    public void successiveRead(final Blackhole bh) {
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                if (useLongStore) {
+                    try (LongCursor c = longStore.openCursor(txn)) {
+                        while (c.getNext()) {
+                            bh.consume(c.getLongKey());
+                        }
+                    }
+                } else {
+                    try (Cursor c = store.openCursor(txn)) {
+                        while (c.getNext()) {
+                            bh.consume(LongBinding.entryToLong(c.getKey()));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_ITERATIONS)
+    @Measurement(iterations = MEASUREMENT_ITERATIONS)
+    @Fork(FORKS)
+    public void randomRead(final Blackhole bh) {
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                if (useLongStore) {
+                    for (final long key : randomLongKeys) {
+                        bh.consume(longStore.get(txn, key));
+                    }
+                } else {
+                    for (final long key : randomLongKeys) {
+                        bh.consume(store.get(txn, LongBinding.longToEntry(key)));
+                    }
+                }
+            }
+        });
+    }
+}
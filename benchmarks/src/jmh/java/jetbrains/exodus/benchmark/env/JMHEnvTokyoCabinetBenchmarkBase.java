@@ -45,7 +45,7 @@ abstract class JMHEnvTokyoCabinetBenchmarkBase {
         temporaryFolder = new TemporaryFolder();
         temporaryFolder.create();
         final File testsDirectory = temporaryFolder.newFolder("data");
-        env = Environments.newInstance(LogConfig.create(new FileDataReader(testsDirectory, 16), new FileDataWriter(testsDirectory)));
+        env = Environments.newInstance(LogConfig.create(new FileDataReader(testsDirectory, 16), new FileDataWriter(testsDirectory)), createEnvironmentConfig());
         store = env.computeInTransaction(new TransactionalComputable<Store>() {
             @Override
             public Store compute(@NotNull Transaction txn) {
@@ -76,5 +76,9 @@ abstract class JMHEnvTokyoCabinetBenchmarkBase {
         });
     }
 
+    protected EnvironmentConfig createEnvironmentConfig() {
+        return new EnvironmentConfig();
+    }
+
     protected abstract StoreConfig getConfig();
 }
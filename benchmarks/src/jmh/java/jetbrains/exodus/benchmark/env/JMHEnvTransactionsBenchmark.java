@@ -0,0 +1,100 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.benchmark.env;
+
+import jetbrains.exodus.env.Environment;
+import jetbrains.exodus.env.Environments;
+import jetbrains.exodus.env.Transaction;
+import jetbrains.exodus.io.FileDataReader;
+import jetbrains.exodus.io.FileDataWriter;
+import jetbrains.exodus.log.Log;
+import jetbrains.exodus.log.LogConfig;
+import org.junit.rules.TemporaryFolder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of beginning and aborting read-only transactions depending on the number of concurrent threads.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JMHEnvTransactionsBenchmark {
+
+    private TemporaryFolder temporaryFolder;
+    private Environment env;
+
+    @Setup
+    public void setup() throws IOException {
+        Log.invalidateSharedCache();
+        temporaryFolder = new TemporaryFolder();
+        temporaryFolder.create();
+        final File testsDirectory = temporaryFolder.newFolder("data");
+        env = Environments.newInstance(LogConfig.create(new FileDataReader(testsDirectory, 16), new FileDataWriter(testsDirectory)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (env != null) {
+            env.close();
+            env = null;
+        }
+        if (temporaryFolder != null) {
+            temporaryFolder.delete();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 4, time = 1)
+    @Measurement(iterations = 6, time = 1)
+    @Fork(1)
+    @Threads(1)
+    public long beginAbort1Thread() {
+        return beginAbort();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 4, time = 1)
+    @Measurement(iterations = 6, time = 1)
+    @Fork(1)
+    @Threads(4)
+    public long beginAbort4Threads() {
+        return beginAbort();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 4, time = 1)
+    @Measurement(iterations = 6, time = 1)
+    @Fork(1)
+    @Threads(Threads.MAX)
+    public long beginAbortMaxThreads() {
+        return beginAbort();
+    }
+
+    private long beginAbort() {
+        final Transaction txn = env.beginReadonlyTransaction();
+        try {
+            return txn.getStartTime();
+        } finally {
+            txn.abort();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.benchmark.env;
+
+import jetbrains.exodus.env.EnvironmentConfig;
+import org.openjdk.jmh.annotations.Param;
+
+public class JMHEnvWithPageChecksumsTokyoCabinetReadBenchmark extends JMHEnvTokyoCabinetReadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean pageChecksums;
+
+    @Override
+    protected EnvironmentConfig createEnvironmentConfig() {
+        // small separate cache in order to make pages be read from the storage and verified
+        return new EnvironmentConfig().setLogCacheShared(false).setMemoryUsage(4 * 1024 * 1024).
+            setLogPageChecksums(pageChecksums);
+    }
+}
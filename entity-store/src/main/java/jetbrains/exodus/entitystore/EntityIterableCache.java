@@ -21,13 +21,21 @@ import jetbrains.exodus.core.dataStructures.ObjectCacheBase;
 import jetbrains.exodus.core.dataStructures.Priority;
 import jetbrains.exodus.core.execution.Job;
 import jetbrains.exodus.core.execution.SharedTimer;
+import jetbrains.exodus.entitystore.iterate.CachedInstanceIterable;
 import jetbrains.exodus.entitystore.iterate.EntityIterableBase;
+import jetbrains.exodus.entitystore.iterate.binop.BinaryOperatorEntityIterable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class EntityIterableCache {
 
@@ -43,6 +51,8 @@ public final class EntityIterableCache {
     private ObjectCacheBase<Object, Long> deferredIterablesCache;
     @NotNull
     private ObjectCacheBase<Object, Long> iterableCountsCache;
+    @Nullable
+    private volatile EntityIterableCacheStore persistentCache;
     @NotNull
     final EntityStoreSharedAsyncProcessor processor;
 
@@ -69,6 +79,10 @@ public final class EntityIterableCache {
         final int cacheSize = config.getEntityIterableCacheSize();
         deferredIterablesCache = new ConcurrentObjectCache<>(cacheSize);
         iterableCountsCache = new ConcurrentObjectCache<>(cacheSize * 2);
+        final EntityIterableCacheStore persistentCache = this.persistentCache;
+        if (persistentCache != null) {
+            persistentCache.clear();
+        }
     }
 
     /**
@@ -99,6 +113,11 @@ public final class EntityIterableCache {
             return it;
         }
 
+        final CachedInstanceIterable persisted = loadPersistentCachedInstance(txn, it);
+        if (persisted != null) {
+            return persisted;
+        }
+
         // if cache is enough full, then cache iterables after they live some time in deferred cache
         if (!localCache.isSparse()) {
             final long currentMillis = System.currentTimeMillis();
@@ -147,6 +166,59 @@ public final class EntityIterableCache {
         iterableCountsCache.cacheObject(handle.getIdentity(), count);
     }
 
+    /**
+     * Opens the store of cached instances saved on previous closing of the {@linkplain PersistentEntityStore}
+     * if {@linkplain PersistentEntityStoreConfig#ENTITY_ITERABLE_CACHE_PERSISTENT} is on, otherwise discards
+     * saved instances.
+     */
+    void openPersistentCache() {
+        if (store.getEnvironment().getEnvironmentConfig().getEnvIsReadonly()) {
+            return;
+        }
+        if (config.getEntityIterableCachePersistent()) {
+            persistentCache = new EntityIterableCacheStore(store);
+        } else {
+            EntityIterableCacheStore.discard(store);
+        }
+    }
+
+    /**
+     * Saves current cached instances to the store of cached instances, if it's open.
+     */
+    void closePersistentCache() {
+        final EntityIterableCacheStore persistentCache = this.persistentCache;
+        if (persistentCache != null) {
+            this.persistentCache = null;
+            persistentCache.save(cacheAdapter);
+        }
+    }
+
+    /**
+     * Loads saved cached instance of the iterable and puts it to the cache.
+     *
+     * @return {@code null} if there is no valid saved instance
+     */
+    @Nullable
+    CachedInstanceIterable loadPersistentCachedInstance(@NotNull final PersistentStoreTransaction txn,
+                                                        @NotNull final EntityIterableBase it) {
+        final EntityIterableCacheStore persistentCache = this.persistentCache;
+        if (persistentCache == null) {
+            return null;
+        }
+        final CachedInstanceIterable result = persistentCache.load(txn, it);
+        if (result != null) {
+            txn.addCachedInstance(result);
+        }
+        return result;
+    }
+
+    void invalidatePersistentCache(@NotNull final PersistentStoreTransaction.HandleCheckerAdapter checker) {
+        final EntityIterableCacheStore persistentCache = this.persistentCache;
+        if (persistentCache != null) {
+            persistentCache.invalidate(checker);
+        }
+    }
+
     public boolean isDispatcherThread() {
         return processor.isDispatcherThread();
     }
@@ -226,6 +298,9 @@ public final class EntityIterableCache {
                     cancellingPolicy.setLocalCache(txn.getLocalCache());
                     txn.setQueryCancellingPolicy(cancellingPolicy);
                     try {
+                        if (config.getEntityIterableCacheParallelInstantiation() && processor.getThreadCount() > 1) {
+                            instantiateOperandsInParallel(txn, it, cancellingPolicy);
+                        }
                         if (!logger.isInfoEnabled()) {
                             it.getOrCreateCachedInstance(txn);
                         } else {
@@ -247,6 +322,153 @@ public final class EntityIterableCache {
         }
     }
 
+    /**
+     * Instantiates cacheable operands of the tree of binary operators level by level starting from the deepest one.
+     * Operands of a level are independent, so they are instantiated in parallel by other threads of the processor,
+     * each one in a snapshot of {@code txn}. The current thread instantiates the operands which are not yet started
+     * by other threads, so it never waits for a job which is still queued. Cached operands of a level are then
+     * combined while instantiating the next one.
+     */
+    private void instantiateOperandsInParallel(@NotNull final PersistentStoreTransaction txn,
+                                               @NotNull final EntityIterableBase it,
+                                               @NotNull final CachingCancellingPolicy cancellingPolicy) {
+        final List<List<EntityIterableBase>> levels = new ArrayList<>();
+        collectOperands(txn, it, 0, levels, new HashSet<EntityIterableHandle>());
+        for (int i = levels.size() - 1; i >= 0; --i) {
+            final List<EntityIterableBase> level = levels.get(i);
+            final List<OperandInstantiation> jobs = new ArrayList<>(level.size());
+            for (final EntityIterableBase operand : level) {
+                final OperandInstantiation job = new OperandInstantiation(txn, operand, cancellingPolicy);
+                // the first job is certainly executed by the current thread
+                if (!jobs.isEmpty()) {
+                    job.queue(Priority.above_normal);
+                }
+                jobs.add(job);
+            }
+            try {
+                for (final OperandInstantiation job : jobs) {
+                    if (cancellingPolicy.needToCancel()) {
+                        cancellingPolicy.doCancel();
+                    }
+                    job.instantiate(txn);
+                }
+            } finally {
+                // txn is not finished until all started jobs are finished, since they use its snapshots
+                for (final OperandInstantiation job : jobs) {
+                    job.cancel();
+                    job.await();
+                }
+            }
+        }
+    }
+
+    private static void collectOperands(@NotNull final PersistentStoreTransaction txn,
+                                        @NotNull final EntityIterableBase it,
+                                        final int depth,
+                                        @NotNull final List<List<EntityIterableBase>> levels,
+                                        @NotNull final Set<EntityIterableHandle> handles) {
+        if (!(it instanceof BinaryOperatorEntityIterable)) {
+            return;
+        }
+        final BinaryOperatorEntityIterable binaryOperator = (BinaryOperatorEntityIterable) it;
+        for (final EntityIterableBase operand : new EntityIterableBase[]{binaryOperator.getLeft(), binaryOperator.getRight()}) {
+            if (operand.isCachedInstance() || !operand.canBeCached() ||
+                    txn.getCachedInstanceFast(operand) != null || !handles.add(operand.getHandle())) {
+                continue;
+            }
+            if (levels.size() == depth) {
+                levels.add(new ArrayList<EntityIterableBase>());
+            }
+            levels.get(depth).add(operand);
+            collectOperands(txn, operand, depth + 1, levels, handles);
+        }
+    }
+
+    private final class OperandInstantiation extends Job {
+
+        @NotNull
+        private final PersistentStoreTransaction sourceTxn;
+        @NotNull
+        private final EntityIterableBase it;
+        @NotNull
+        private final CachingCancellingPolicy cancellingPolicy;
+        @NotNull
+        private final AtomicBoolean started;
+        @NotNull
+        private final CountDownLatch finished;
+
+        private OperandInstantiation(@NotNull final PersistentStoreTransaction sourceTxn,
+                                     @NotNull final EntityIterableBase it,
+                                     @NotNull final CachingCancellingPolicy cancellingPolicy) {
+            this.sourceTxn = sourceTxn;
+            this.it = it;
+            this.cancellingPolicy = cancellingPolicy;
+            started = new AtomicBoolean(false);
+            finished = new CountDownLatch(1);
+            setProcessor(processor);
+        }
+
+        @Override
+        public String getName() {
+            return "Caching job for operand " + it.getHandle();
+        }
+
+        @Override
+        public String getGroup() {
+            return store.getLocation();
+        }
+
+        @Override
+        protected void execute() throws Throwable {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                // operands expect current transaction to be set, so the snapshot is registered in this thread
+                final PersistentStoreTransaction txn = new PersistentStoreTransaction(sourceTxn, PersistentStoreTransaction.TransactionType.Readonly);
+                store.registerTransaction(txn);
+                try {
+                    txn.setQueryCancellingPolicy(cancellingPolicy);
+                    it.getOrCreateCachedInstance(txn);
+                } catch (TooLongEntityIterableInstantiationException ignore) {
+                    // the source job is cancelled as well
+                } finally {
+                    txn.abort();
+                }
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        /**
+         * Instantiates the operand in the source transaction if it's not yet started by another thread.
+         */
+        private void instantiate(@NotNull final PersistentStoreTransaction txn) {
+            if (started.compareAndSet(false, true)) {
+                try {
+                    it.getOrCreateCachedInstance(txn);
+                } finally {
+                    finished.countDown();
+                }
+            }
+        }
+
+        private void cancel() {
+            if (started.compareAndSet(false, true)) {
+                finished.countDown();
+            }
+        }
+
+        private void await() {
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExodusException(e);
+            }
+        }
+    }
+
     private final class CachingCancellingPolicy implements QueryCancellingPolicy {
 
         private final boolean cachingRoughCount;
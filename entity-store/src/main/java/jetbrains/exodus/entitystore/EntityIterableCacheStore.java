@@ -0,0 +1,297 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.entitystore;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.ByteIterator;
+import jetbrains.exodus.bindings.IntegerBinding;
+import jetbrains.exodus.bindings.StringBinding;
+import jetbrains.exodus.core.dataStructures.hash.HashMap;
+import jetbrains.exodus.core.dataStructures.hash.IntHashMap;
+import jetbrains.exodus.core.dataStructures.hash.ObjectProcedure;
+import jetbrains.exodus.entitystore.iterate.CachedInstanceIterable;
+import jetbrains.exodus.entitystore.iterate.EntityIdArrayCachedInstanceIterable;
+import jetbrains.exodus.entitystore.iterate.EntityIterableBase;
+import jetbrains.exodus.entitystore.iterate.EntityIterableHandleBase.EntityIterableHandleHash;
+import jetbrains.exodus.env.*;
+import jetbrains.exodus.util.LightOutputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dedicated store of cached instances which lets {@linkplain EntityIterableCache} survive restarts. On closing of
+ * the {@linkplain PersistentEntityStore}, ids of cached instances are saved keyed by {@linkplain
+ * EntityIterableHandle#getIdentity() identities} of their handles. After reopening, the ids are loaded lazily on
+ * first access. Each change made since reopening invalidates saved instances whose handles
+ * {@linkplain EntityIterableCacheAdapterMutable#update} would check, without checking them, since original handles
+ * are not available. If the store was not closed properly or was opened with persistent cache off, saved instances
+ * are discarded.
+ */
+final class EntityIterableCacheStore {
+
+    private static final int VERSION = 2;
+    private static final ByteIterable VERSION_KEY = StringBinding.stringToEntry("v");
+    private static final String HANDLE_PREFIX = "h";
+    private static final String IDS_PREFIX = "i";
+
+    @NotNull
+    private final PersistentEntityStoreImpl store;
+    @NotNull
+    private final Store cacheStore;
+    @NotNull
+    private final Set<EntityIterableHandleHash> handles;
+    @NotNull
+    private final IntHashMap<List<EntityIterableHandleHash>> byLink;
+    @NotNull
+    private final IntHashMap<List<EntityIterableHandleHash>> byProp;
+    @NotNull
+    private final IntHashMap<List<EntityIterableHandleHash>> byTypeId;
+    @NotNull
+    private final IntHashMap<List<EntityIterableHandleHash>> byTypeIdAffectingCreation;
+
+    EntityIterableCacheStore(@NotNull final PersistentEntityStoreImpl store) {
+        this.store = store;
+        // is read without locking on each cache miss
+        handles = Collections.newSetFromMap(new ConcurrentHashMap<EntityIterableHandleHash, Boolean>());
+        byLink = new IntHashMap<>();
+        byProp = new IntHashMap<>();
+        byTypeId = new IntHashMap<>();
+        byTypeIdAffectingCreation = new IntHashMap<>();
+        final Environment environment = store.getEnvironment();
+        cacheStore = environment.computeInTransaction(new TransactionalComputable<Store>() {
+            @Override
+            public Store compute(@NotNull final Transaction txn) {
+                final Store result = environment.openStore(
+                        store.getNamingRules().getEntityIterableCacheName(), StoreConfig.WITHOUT_DUPLICATES, txn);
+                final ByteIterable version = result.get(txn, VERSION_KEY);
+                try (Cursor cursor = result.openCursor(txn)) {
+                    if (version != null && IntegerBinding.compressedEntryToInt(version) == VERSION) {
+                        readHandles(cursor);
+                        // saved instances are valid until the first change, which can't be tracked after a crash
+                        result.delete(txn, VERSION_KEY);
+                    } else {
+                        while (cursor.getNext()) {
+                            cursor.deleteCurrent();
+                        }
+                    }
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Discards instances saved on previous closing of the entity store. Should be called on opening of the entity
+     * store with persistent cache off, since changes made in such a session don't invalidate saved instances.
+     */
+    static void discard(@NotNull final PersistentEntityStoreImpl store) {
+        final Environment environment = store.getEnvironment();
+        environment.executeInTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                final String name = store.getNamingRules().getEntityIterableCacheName();
+                if (environment.storeExists(name, txn)) {
+                    environment.removeStore(name, txn);
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads saved instance of the iterable if it's not invalidated by changes made since reopening.
+     */
+    @Nullable
+    CachedInstanceIterable load(@NotNull final PersistentStoreTransaction txn, @NotNull final EntityIterableBase it) {
+        if (handles.isEmpty()) {
+            return null;
+        }
+        final EntityIterableHandle handle = it.getHandle();
+        if (!handles.contains(handle.getIdentity())) {
+            return null;
+        }
+        final ByteIterable ids = cacheStore.get(txn.getEnvironmentTransaction(),
+                StringBinding.stringToEntry(IDS_PREFIX + handle.getIdentity().toString()));
+        return ids == null ? null : EntityIdArrayCachedInstanceIterable.read(txn, it, ids.iterator());
+    }
+
+    synchronized void invalidate(@NotNull final PersistentStoreTransaction.HandleCheckerAdapter checker) {
+        if (handles.isEmpty()) {
+            return;
+        }
+        final int linkId;
+        final int propertyId;
+        final int typeId;
+        final int typeIdAffectingCreation;
+
+        if ((linkId = checker.getLinkId()) >= 0) {
+            invalidate(byLink, linkId);
+        } else if ((propertyId = checker.getPropertyId()) >= 0) {
+            invalidate(byProp, propertyId);
+        } else if ((typeIdAffectingCreation = checker.getTypeIdAffectingCreation()) >= 0) {
+            invalidate(byTypeIdAffectingCreation, typeIdAffectingCreation);
+        } else if ((typeId = checker.getTypeId()) >= 0) {
+            invalidate(byTypeId, typeId);
+            invalidate(byTypeId, EntityIterableBase.NULL_TYPE_ID);
+        } else {
+            clear();
+        }
+    }
+
+    synchronized void clear() {
+        handles.clear();
+        byLink.clear();
+        byProp.clear();
+        byTypeId.clear();
+        byTypeIdAffectingCreation.clear();
+    }
+
+    /**
+     * Saves instances of the cache, keeps saved instances which are not invalidated and discards invalidated ones.
+     * Should be called on closing of the store when no changes can be made.
+     */
+    void save(@NotNull final EntityIterableCacheAdapter cache) {
+        final List<EntityIterableHandle> keys = new ArrayList<>();
+        cache.forEachKey(new ObjectProcedure<EntityIterableHandle>() {
+            @Override
+            public boolean execute(EntityIterableHandle object) {
+                keys.add(object);
+                return true;
+            }
+        });
+        final Map<EntityIterableHandle, EntityIdArrayCachedInstanceIterable> cached = new HashMap<>();
+        for (final EntityIterableHandle handle : keys) {
+            final CachedInstanceIterable it = cache.tryKey(handle);
+            // updatable instances and instances of custom subclasses hold more than ids
+            if (it != null && it.getClass() == EntityIdArrayCachedInstanceIterable.class && !handle.isExpired()) {
+                cached.put(handle, (EntityIdArrayCachedInstanceIterable) it);
+            }
+        }
+        store.getEnvironment().executeInTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                synchronized (EntityIterableCacheStore.this) {
+                    try (Cursor cursor = cacheStore.openCursor(txn)) {
+                        while (cursor.getNext()) {
+                            final String key = StringBinding.entryToString(cursor.getKey());
+                            if ((key.startsWith(HANDLE_PREFIX) || key.startsWith(IDS_PREFIX)) &&
+                                    !handles.contains(toIdentity(key.substring(1)))) {
+                                cursor.deleteCurrent();
+                            }
+                        }
+                    }
+                    int count = handles.size();
+                    final int maxCount = store.getConfig().getEntityIterableCacheSize();
+                    for (final Map.Entry<EntityIterableHandle, EntityIdArrayCachedInstanceIterable> entry : cached.entrySet()) {
+                        if (count >= maxCount) {
+                            break;
+                        }
+                        final EntityIterableHandle handle = entry.getKey();
+                        if (!handles.contains(handle.getIdentity())) {
+                            final String key = handle.getIdentity().toString();
+                            cacheStore.put(txn, StringBinding.stringToEntry(HANDLE_PREFIX + key), writeHandle(handle));
+                            final LightOutputStream output = new LightOutputStream();
+                            entry.getValue().write(output);
+                            cacheStore.put(txn, StringBinding.stringToEntry(IDS_PREFIX + key), output.asArrayByteIterable());
+                            ++count;
+                        }
+                    }
+                    cacheStore.put(txn, VERSION_KEY, IntegerBinding.intToCompressedEntry(VERSION));
+                }
+            }
+        });
+    }
+
+    private void readHandles(@NotNull final Cursor cursor) {
+        if (cursor.getSearchKeyRange(StringBinding.stringToEntry(HANDLE_PREFIX)) == null) {
+            return;
+        }
+        do {
+            final String name = StringBinding.entryToString(cursor.getKey());
+            if (!name.startsWith(HANDLE_PREFIX)) {
+                break;
+            }
+            final EntityIterableHandleHash handle = toIdentity(name.substring(HANDLE_PREFIX.length()));
+            final ByteIterator value = cursor.getValue().iterator();
+            handles.add(handle);
+            // it is allowed to add EntityIterableBase.NULL_TYPE_ID
+            add(byTypeId, handle, IntegerBinding.readCompressed(value));
+            addAll(byLink, handle, value);
+            addAll(byProp, handle, value);
+            addAll(byTypeIdAffectingCreation, handle, value);
+        } while (cursor.getNext());
+    }
+
+    private void invalidate(@NotNull final IntHashMap<List<EntityIterableHandleHash>> group, final int fieldId) {
+        final List<EntityIterableHandleHash> invalidated = group.remove(fieldId);
+        if (invalidated != null) {
+            handles.removeAll(invalidated);
+        }
+    }
+
+    /**
+     * Restores handle identity by its string presentation which contains all bytes of the hash.
+     */
+    @NotNull
+    private EntityIterableHandleHash toIdentity(@NotNull final String key) {
+        final EntityIterableHandleHash result = new EntityIterableHandleHash(store);
+        for (int i = 0; i < key.length(); ++i) {
+            result.apply((byte) key.charAt(i));
+        }
+        result.computeHashCode();
+        return result;
+    }
+
+    private static ByteIterable writeHandle(@NotNull final EntityIterableHandle handle) {
+        final LightOutputStream output = new LightOutputStream();
+        IntegerBinding.writeCompressed(output, handle.getEntityTypeId());
+        writeFieldIds(output, handle.getLinkIds());
+        writeFieldIds(output, handle.getPropertyIds());
+        writeFieldIds(output, handle.getTypeIdsAffectingCreation());
+        return output.asArrayByteIterable();
+    }
+
+    private static void writeFieldIds(@NotNull final LightOutputStream output, @NotNull final int[] fieldIds) {
+        IntegerBinding.writeCompressed(output, fieldIds.length);
+        for (final int fieldId : fieldIds) {
+            IntegerBinding.writeCompressed(output, fieldId);
+        }
+    }
+
+    private static void add(@NotNull final IntHashMap<List<EntityIterableHandleHash>> group,
+                            @NotNull final EntityIterableHandleHash handle,
+                            final int fieldId) {
+        List<EntityIterableHandleHash> handles = group.get(fieldId);
+        if (handles == null) {
+            handles = new ArrayList<>(4);
+            group.put(fieldId, handles);
+        }
+        handles.add(handle);
+    }
+
+    private static void addAll(@NotNull final IntHashMap<List<EntityIterableHandleHash>> group,
+                               @NotNull final EntityIterableHandleHash handle,
+                               @NotNull final ByteIterator value) {
+        for (int i = IntegerBinding.readCompressed(value); i > 0; --i) {
+            final int fieldId = IntegerBinding.readCompressed(value);
+            if (fieldId >= 0) {
+                add(group, handle, fieldId);
+            }
+        }
+    }
+}
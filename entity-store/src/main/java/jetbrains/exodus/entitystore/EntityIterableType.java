@@ -49,7 +49,9 @@ public enum EntityIterableType {
     EXCLUDE_NULL("Exclude null", 27),
     FILTER_ENTITY_TYPE("Filter source iterable by entity type", 28),
     FILTER_LINKS("Filter source iterable by links set", 29),
-    ALL_ENTITIES_RANGE("Entities of specific type within id range", 30);
+    ALL_ENTITIES_RANGE("Entities of specific type within id range", 30),
+    FILTER_PROPERTY_VALUE("Filter source iterable by property value", 31),
+    COMPOSITE_INDEX("Entities found by composite index of properties", 32);
 
     private final String description;
     private final int type;
@@ -18,8 +18,8 @@ package jetbrains.exodus.entitystore;
 import jetbrains.exodus.*;
 import jetbrains.exodus.backup.BackupStrategy;
 import jetbrains.exodus.bindings.*;
-import jetbrains.exodus.core.dataStructures.ConcurrentObjectCache;
 import jetbrains.exodus.core.dataStructures.Pair;
+import jetbrains.exodus.core.dataStructures.StripedObjectCache;
 import jetbrains.exodus.core.dataStructures.hash.HashMap;
 import jetbrains.exodus.core.dataStructures.hash.HashSet;
 import jetbrains.exodus.core.dataStructures.hash.IntHashMap;
@@ -59,6 +59,8 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
     static final String BLOB_HANDLES_SEQUENCE = "blob.handles.sequence";
     @NonNls
     private static final String SEQUENCES_STORE = "sequences";
+    @NonNls
+    private static final String COMPOSITE_INDEX_SETTING_PREFIX = "Composite index ";
     private static final long EMPTY_BLOB_HANDLE = Long.MAX_VALUE;
     private static final long IN_PLACE_BLOB_HANDLE = EMPTY_BLOB_HANDLE - 1;
     private static final int ENTITY_ID_CACHE_SIZE = 2047;
@@ -78,7 +80,7 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
     @NotNull
     private final String location;
     @NotNull
-    private final Map<Thread, Deque<PersistentStoreTransaction>> txns = new ConcurrentHashMap<>(4, 0.75f, 4);
+    private final Map<TransactionContext, Deque<PersistentStoreTransaction>> txns = new ConcurrentHashMap<>(4, 0.75f, 4);
 
     @NotNull
     private final StoreNamingRules namingRulez;
@@ -111,6 +113,8 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
     @NotNull
     private OpenTablesCache blobsTables;
     @NotNull
+    private final Map<Integer, CompositeIndex[]> compositeIndices = new ConcurrentHashMap<>();
+    @NotNull
     private Store internalSettings;
     @NotNull
     private Store sequences;
@@ -118,7 +122,7 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
     @NotNull
     private final EntityIterableCache iterableCache;
     @NotNull
-    private final ConcurrentObjectCache<String, EntityId> entityIdCache; // this cache doesn't need snapshot isolation
+    private final StripedObjectCache<String, EntityId> entityIdCache; // this cache doesn't need snapshot isolation
     private Explainer explainer;
 
     private final DataGetter propertyDataGetter;
@@ -169,7 +173,7 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
         location = environment.getLocation();
         namingRulez = new StoreNamingRules(name);
         iterableCache = new EntityIterableCache(this);
-        entityIdCache = new ConcurrentObjectCache<>(ENTITY_ID_CACHE_SIZE);
+        entityIdCache = new StripedObjectCache<>(ENTITY_ID_CACHE_SIZE);
         explainer = new Explainer(config.isExplainOn());
         propertyDataGetter = new PropertyDataGetter();
         linkDataGetter = config.isDebugLinkDataGetter() ? new DebugLinkDataGetter() : new LinkDataGetter();
@@ -276,8 +280,10 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
             @Override
             public void execute(@NotNull StoreTransaction txn) {
                 preloadTables((PersistentStoreTransaction) txn); // pre-load tables for all entity types to avoid lazy load of the tables
+                loadCompositeIndices((PersistentStoreTransaction) txn);
             }
         });
+        iterableCache.openPersistentCache();
     }
 
     private void applyRefactorings(final boolean fromScratch) {
@@ -404,8 +410,7 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
     @Override
     @Nullable
     public PersistentStoreTransaction getCurrentTransaction() {
-        final Thread thread = Thread.currentThread();
-        final Deque<PersistentStoreTransaction> stack = txns.get(thread);
+        final Deque<PersistentStoreTransaction> stack = txns.get(TransactionContext.current());
         return stack == null ? null : stack.peek();
     }
 
@@ -419,18 +424,18 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
     }
 
     void registerTransaction(@NotNull final PersistentStoreTransaction txn) {
-        final Thread thread = Thread.currentThread();
-        Deque<PersistentStoreTransaction> stack = txns.get(thread);
+        final TransactionContext context = TransactionContext.current();
+        Deque<PersistentStoreTransaction> stack = txns.get(context);
         if (stack == null) {
             stack = new ArrayDeque<>(4);
-            txns.put(thread, stack);
+            txns.put(context, stack);
         }
         stack.push(txn);
     }
 
     void unregisterTransaction(@NotNull final PersistentStoreTransaction txn) {
-        final Thread thread = Thread.currentThread();
-        final Deque<PersistentStoreTransaction> stack = txns.get(thread);
+        final TransactionContext context = TransactionContext.current();
+        final Deque<PersistentStoreTransaction> stack = txns.get(context);
         if (stack == null) {
             throw new EntityStoreException("Transaction was already finished");
         }
@@ -439,7 +444,7 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
         }
         stack.pop();
         if (stack.isEmpty()) {
-            txns.remove(thread);
+            txns.remove(context);
         }
         txn.closeCaches();
     }
@@ -453,6 +458,7 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
 
         // fix of XD-536
         iterableCache.clear();
+        compositeIndices.clear();
 
         init();
 
@@ -658,6 +664,7 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
         final PersistentEntityId entityId = entity.getId();
         getPropertiesTable(txn, entityId.getTypeId()).put(
                 txn, entityId.getLocalId(), PropertyTypes.propertyValueToEntry(propValue), oldValueEntry, propertyId, valueType);
+        updateCompositeIndices(txn, entity, propertyId, oldValue, value);
         txn.propertyChanged(entityId, propertyId, oldValue, value);
         return true;
 
@@ -676,6 +683,7 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
         final PropertyValue propValue = propertyTypes.entryToPropertyValue(oldValue);
         getPropertiesTable(txn, id.getTypeId()).delete(txn, id.getLocalId(),
                 oldValue, propertyId, propValue.getType());
+        updateCompositeIndices(txn, entity, propertyId, propValue.getData(), null);
         txn.propertyChanged((PersistentEntityId) id, propertyId, propValue.getData(), null);
 
         return true;
@@ -784,6 +792,7 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
         final long entityLocalId = id.getLocalId();
         final PropertiesTable properties = getPropertiesTable(txn, entityTypeId);
         final PropertyKey propertyKey = new PropertyKey(entityLocalId, 0);
+        deleteFromCompositeIndices(txn, (PersistentEntity) entity);
         try (Cursor cursor = getPrimaryPropertyIndexCursor(txn, properties)) {
             for (boolean success = cursor.getSearchKeyRange(PropertyKey.propertyKeyToEntry(propertyKey)) != null;
                  success; success = cursor.getNext()) {
@@ -801,6 +810,219 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
         }
     }
 
+    /**
+     * Creates composite index of values of specified properties of entities of specified type, or returns
+     * already created one. New index is filled in by existing entities. Index declaration is saved in the
+     * entity store, so the index is maintained in subsequent sessions as well. Other transactions see the index
+     * after the transaction creating it is committed.
+     *
+     * @param txn           transaction
+     * @param entityType    entity type
+     * @param propertyNames names of indexed properties, the order of properties is the order of index key components
+     * @return composite index
+     * @see CompositeIndex
+     */
+    @NotNull
+    public CompositeIndex createCompositeIndex(@NotNull final PersistentStoreTransaction txn,
+                                               @NotNull final String entityType,
+                                               @NotNull final String... propertyNames) {
+        if (propertyNames.length == 0) {
+            throw new EntityStoreException("Can't create composite index on empty list of properties");
+        }
+        final int entityTypeId = getEntityTypeId(txn, entityType, true);
+        final int[] propertyIds = new int[propertyNames.length];
+        for (int i = 0; i < propertyNames.length; ++i) {
+            propertyIds[i] = getPropertyId(txn, propertyNames[i], true);
+        }
+        final CompositeIndex[] indices = getCompositeIndices(txn, entityTypeId);
+        for (final CompositeIndex index : indices) {
+            if (Arrays.equals(index.getPropertyIds(), propertyIds)) {
+                return index;
+            }
+        }
+        final Transaction envTxn = txn.getEnvironmentTransaction();
+        final String name = CompositeIndex.getIndexName(namingRulez.getPropertiesTableName(entityTypeId), propertyIds);
+        if (environment.storeExists(name, envTxn)) {
+            // the store of undeclared index isn't maintained, so it's filled in from scratch
+            environment.truncateStore(name, envTxn);
+        }
+        // the store is not tracked as created since the index is published only if the txn is committed
+        final Store store = environment.openStore(name, StoreConfig.WITH_DUPLICATES_WITH_PREFIXING, envTxn);
+        final CompositeIndex result = new CompositeIndex(entityTypeId, propertyIds, store);
+        for (final Entity entity : txn.getAll(entityType)) {
+            final ByteIterable localId = LongBinding.longToCompressedEntry(entity.getId().getLocalId());
+            for (final ByteIterable key : CompositeIndex.createKeys(propertyTypes,
+                    getCompositeIndexValues(txn, (PersistentEntity) entity, result))) {
+                result.put(envTxn, key, localId);
+            }
+        }
+        internalSettings.put(envTxn, getCompositeIndexSettingName(name),
+                StringBinding.stringToEntry(getCompositeIndexDeclaration(entityTypeId, propertyIds)));
+        final CompositeIndex[] newIndices = Arrays.copyOf(indices, indices.length + 1);
+        newIndices[indices.length] = result;
+        txn.setCompositeIndices(entityTypeId, newIndices);
+        return result;
+    }
+
+    /**
+     * Deletes composite index, so it's no longer maintained and its data is removed.
+     */
+    public void deleteCompositeIndex(@NotNull final PersistentStoreTransaction txn, @NotNull final CompositeIndex index) {
+        final int entityTypeId = index.getEntityTypeId();
+        final List<CompositeIndex> indices = new ArrayList<>(Arrays.asList(getCompositeIndices(txn, entityTypeId)));
+        if (indices.remove(index)) {
+            txn.setCompositeIndices(entityTypeId, indices.toArray(new CompositeIndex[indices.size()]));
+            final Transaction envTxn = txn.getEnvironmentTransaction();
+            internalSettings.delete(envTxn, getCompositeIndexSettingName(index.getName()));
+            environment.removeStore(index.getName(), envTxn);
+        }
+    }
+
+    /**
+     * @return composite indices of specified entity type including ones created or deleted in specified transaction
+     */
+    @NotNull
+    public CompositeIndex[] getCompositeIndices(@NotNull final PersistentStoreTransaction txn, final int entityTypeId) {
+        final CompositeIndex[] result = txn.getCompositeIndices(entityTypeId);
+        return result == null ? getCompositeIndices(entityTypeId) : result;
+    }
+
+    /**
+     * @return committed composite indices of specified entity type
+     */
+    @NotNull
+    public CompositeIndex[] getCompositeIndices(final int entityTypeId) {
+        final CompositeIndex[] result = compositeIndices.get(entityTypeId);
+        return result == null ? CompositeIndex.EMPTY_ARRAY : result;
+    }
+
+    /**
+     * @return all committed composite indices
+     */
+    @NotNull
+    public List<CompositeIndex> getCompositeIndices() {
+        final List<CompositeIndex> result = new ArrayList<>();
+        for (final CompositeIndex[] indices : compositeIndices.values()) {
+            result.addAll(Arrays.asList(indices));
+        }
+        return result;
+    }
+
+    /**
+     * Makes composite indices changed by a transaction visible to other transactions, called on commit.
+     */
+    void publishCompositeIndices(@NotNull final IntHashMap<CompositeIndex[]> indices) {
+        for (final Map.Entry<Integer, CompositeIndex[]> entry : indices.entrySet()) {
+            final CompositeIndex[] entityTypeIndices = entry.getValue();
+            if (entityTypeIndices.length == 0) {
+                compositeIndices.remove(entry.getKey());
+            } else {
+                compositeIndices.put(entry.getKey(), entityTypeIndices);
+            }
+        }
+    }
+
+    private void loadCompositeIndices(@NotNull final PersistentStoreTransaction txn) {
+        final Transaction envTxn = txn.getEnvironmentTransaction();
+        try (Cursor cursor = internalSettings.openCursor(envTxn)) {
+            while (cursor.getNext()) {
+                final String settingName = StringBinding.entryToString(cursor.getKey());
+                if (!settingName.startsWith(COMPOSITE_INDEX_SETTING_PREFIX)) {
+                    continue;
+                }
+                final String name = settingName.substring(COMPOSITE_INDEX_SETTING_PREFIX.length());
+                final Store store = environment.openStore(name, StoreConfig.WITH_DUPLICATES_WITH_PREFIXING, envTxn, false);
+                if (store == null) {
+                    logger.error("Store of composite index not found: " + name);
+                    continue;
+                }
+                final String[] ids = StringBinding.entryToString(cursor.getValue()).split(" ");
+                final int entityTypeId = Integer.parseInt(ids[0]);
+                final int[] propertyIds = new int[ids.length - 1];
+                for (int i = 0; i < propertyIds.length; ++i) {
+                    propertyIds[i] = Integer.parseInt(ids[i + 1]);
+                }
+                final CompositeIndex[] indices = getCompositeIndices(entityTypeId);
+                final CompositeIndex[] newIndices = Arrays.copyOf(indices, indices.length + 1);
+                newIndices[indices.length] = new CompositeIndex(entityTypeId, propertyIds, store);
+                compositeIndices.put(entityTypeId, newIndices);
+            }
+        }
+    }
+
+    private static ByteIterable getCompositeIndexSettingName(@NotNull final String indexName) {
+        return StringBinding.stringToEntry(COMPOSITE_INDEX_SETTING_PREFIX + indexName);
+    }
+
+    /**
+     * @return entity type id followed by property ids separated by spaces
+     */
+    private static String getCompositeIndexDeclaration(final int entityTypeId, @NotNull final int[] propertyIds) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(entityTypeId);
+        for (final int propertyId : propertyIds) {
+            builder.append(' ');
+            builder.append(propertyId);
+        }
+        return builder.toString();
+    }
+
+    private void updateCompositeIndices(@NotNull final PersistentStoreTransaction txn,
+                                        @NotNull final PersistentEntity entity,
+                                        final int propertyId,
+                                        @Nullable final Comparable oldValue,
+                                        @Nullable final Comparable newValue) {
+        final PersistentEntityId id = entity.getId();
+        final CompositeIndex[] indices = getCompositeIndices(txn, id.getTypeId());
+        if (indices.length == 0) {
+            return;
+        }
+        final Transaction envTxn = txn.getEnvironmentTransaction();
+        final ByteIterable localId = LongBinding.longToCompressedEntry(id.getLocalId());
+        for (final CompositeIndex index : indices) {
+            final int i = index.indexOf(propertyId);
+            if (i >= 0) {
+                final Comparable<?>[] values = getCompositeIndexValues(txn, entity, index);
+                values[i] = oldValue;
+                for (final ByteIterable oldKey : CompositeIndex.createKeys(propertyTypes, values)) {
+                    index.delete(envTxn, oldKey, localId);
+                }
+                values[i] = newValue;
+                for (final ByteIterable newKey : CompositeIndex.createKeys(propertyTypes, values)) {
+                    index.put(envTxn, newKey, localId);
+                }
+            }
+        }
+    }
+
+    private void deleteFromCompositeIndices(@NotNull final PersistentStoreTransaction txn, @NotNull final PersistentEntity entity) {
+        final PersistentEntityId id = entity.getId();
+        final CompositeIndex[] indices = getCompositeIndices(txn, id.getTypeId());
+        if (indices.length == 0) {
+            return;
+        }
+        final Transaction envTxn = txn.getEnvironmentTransaction();
+        final ByteIterable localId = LongBinding.longToCompressedEntry(id.getLocalId());
+        for (final CompositeIndex index : indices) {
+            for (final ByteIterable key : CompositeIndex.createKeys(propertyTypes, getCompositeIndexValues(txn, entity, index))) {
+                index.delete(envTxn, key, localId);
+            }
+        }
+    }
+
+    @NotNull
+    private Comparable<?>[] getCompositeIndexValues(@NotNull final PersistentStoreTransaction txn,
+                                                 @NotNull final PersistentEntity entity,
+                                                 @NotNull final CompositeIndex index) {
+        final int[] propertyIds = index.getPropertyIds();
+        final Comparable<?>[] result = new Comparable<?>[propertyIds.length];
+        for (int i = 0; i < propertyIds.length; ++i) {
+            final ByteIterable value = getRawProperty(txn, entity, propertyIds[i]);
+            result[i] = value == null ? null : propertyTypes.entryToPropertyValue(value).getData();
+        }
+        return result;
+    }
+
     public long getBlobSize(@NotNull final PersistentStoreTransaction txn, @NotNull final PersistentEntity entity, @NotNull final String blobName) throws IOException {
         final Pair<Long, ByteIterator> blobInfo = getBlobHandleAndValue(txn, entity, blobName);
         if (blobInfo == null) {
@@ -1413,6 +1635,13 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
         propertiesTables.remove(entityTypeId);
         linksTables.remove(entityTypeId);
         blobsTables.remove(entityTypeId);
+        final CompositeIndex[] indices = getCompositeIndices(txn, entityTypeId);
+        if (indices.length > 0) {
+            txn.setCompositeIndices(entityTypeId, CompositeIndex.EMPTY_ARRAY);
+            for (final CompositeIndex index : indices) {
+                internalSettings.delete(txn.getEnvironmentTransaction(), getCompositeIndexSettingName(index.getName()));
+            }
+        }
 
         final String entityTableName = namingRulez.getEntitiesTableName(entityTypeId);
         final String propertiesTableName = namingRulez.getPropertiesTableName(entityTypeId);
@@ -1420,8 +1649,12 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
         final String secondLinksTableName = TwoColumnTable.secondColumnDatabaseName(linksTableName);
         final String blobsTableName = namingRulez.getBlobsTableName(entityTypeId);
 
-        truncateStores(txn, Arrays.<String>asList(
-                entityTableName, linksTableName, secondLinksTableName, propertiesTableName, blobsTableName),
+        final List<String> tableNames = new ArrayList<>(Arrays.asList(
+                entityTableName, linksTableName, secondLinksTableName, propertiesTableName, blobsTableName));
+        for (final CompositeIndex index : indices) {
+            tableNames.add(index.getName());
+        }
+        truncateStores(txn, tableNames,
                 new Iterable<String>() {
                     @Override
                     public Iterator<String> iterator() {
@@ -1640,6 +1873,7 @@ public class PersistentEntityStoreImpl implements PersistentEntityStore, FlushLo
         try {
             getAsyncProcessor().finish();
             synchronized (this) {
+                iterableCache.closePersistentCache();
                 blobVault.close();
                 environment.close();
             }
@@ -25,11 +25,13 @@ import jetbrains.exodus.core.dataStructures.FakeObjectCache;
 import jetbrains.exodus.core.dataStructures.ObjectCacheBase;
 import jetbrains.exodus.core.dataStructures.ObjectCacheDecorator;
 import jetbrains.exodus.core.dataStructures.decorators.HashSetDecorator;
+import jetbrains.exodus.core.dataStructures.hash.IntHashMap;
 import jetbrains.exodus.core.dataStructures.hash.LongHashMap;
 import jetbrains.exodus.core.dataStructures.hash.LongHashSet;
 import jetbrains.exodus.core.dataStructures.hash.LongSet;
 import jetbrains.exodus.core.execution.SharedTimer;
 import jetbrains.exodus.entitystore.iterate.*;
+import jetbrains.exodus.entitystore.tables.CompositeIndex;
 import jetbrains.exodus.env.Environment;
 import jetbrains.exodus.env.EnvironmentImpl;
 import jetbrains.exodus.env.Store;
@@ -83,6 +85,8 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
     @Nullable
     private LongSet preservedBlobs;
     private LongSet deferredBlobsToDelete;
+    @Nullable
+    private IntHashMap<CompositeIndex[]> compositeIndices; // composite indices of entity types changed in the txn
     private QueryCancellingPolicy queryCancellingPolicy;
 
     PersistentStoreTransaction(@NotNull final PersistentEntityStoreImpl store) {
@@ -225,6 +229,7 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
         txn.revert();
         mutableCache = null;
         mutatedInTxn = new ArrayList<>();
+        compositeIndices = null;
     }
 
     public PersistentStoreTransaction getSnapshot() {
@@ -242,7 +247,7 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
                     txn, LongBinding.longToCompressedEntry(entityLocalId), ZERO_VERSION_ENTRY);
             final PersistentEntityId id = new PersistentEntityId(entityTypeId, entityLocalId);
             // update iterables' cache
-            new EntityAddedHandleCheckerImpl(id, mutableCache(), mutatedInTxn).updateCache();
+            updateCache(new EntityAddedHandleCheckerImpl(id, mutableCache(), mutatedInTxn));
             return new PersistentEntity(store, id);
         } catch (Exception e) {
             throw ExodusException.toEntityStoreException(e);
@@ -255,7 +260,7 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
             final EntityId entityId = entity.getId();
             final Store entitiesTable = store.getEntitiesTable(this, entityId.getTypeId());
             entitiesTable.put(txn, LongBinding.longToCompressedEntry(entityId.getLocalId()), ZERO_VERSION_ENTRY);
-            new EntityAddedHandleCheckerImpl(entityId, mutableCache(), mutatedInTxn).updateCache();
+            updateCache(new EntityAddedHandleCheckerImpl(entityId, mutableCache(), mutatedInTxn));
         } catch (Exception e) {
             throw ExodusException.toEntityStoreException(e);
         }
@@ -360,6 +365,19 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
         return new PropertiesIterable(this, entityTypeId, propertyId);
     }
 
+    /**
+     * Finds entities having values of leading properties of the composite index equal to specified values,
+     * and if the range is specified, the value of the next property in the range [minValue, maxValue].
+     *
+     * @see PersistentEntityStoreImpl#createCompositeIndex(PersistentStoreTransaction, String, String...)
+     */
+    public EntityIterableBase findByCompositeIndex(@NotNull final CompositeIndex index,
+                                                   @NotNull final Comparable<?>[] values,
+                                                   @Nullable final Comparable<?> minValue,
+                                                   @Nullable final Comparable<?> maxValue) {
+        return new CompositeIndexIterable(this, index, values, minValue, maxValue);
+    }
+
     @Override
     @NotNull
     public EntityIterable findStartingWith(@NotNull final String entityType,
@@ -606,7 +624,11 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
     public CachedInstanceIterable getCachedInstance(@NotNull final EntityIterableBase sample) {
         final EntityIterableHandle handle = sample.getHandle();
         final EntityIterableCacheAdapter localCache = getLocalCache();
-        return localCache.tryKey(handle);
+        final CachedInstanceIterable result = localCache.tryKey(handle);
+        if (result == null && !isMutable()) {
+            return store.getEntityIterableCache().loadPersistentCachedInstance(this, sample);
+        }
+        return result;
     }
 
     @Nullable
@@ -654,6 +676,25 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
         }
     }
 
+    /**
+     * @return composite indices of specified entity type created or deleted in the txn, or {@code null} if
+     * they weren't changed
+     */
+    @Nullable
+    CompositeIndex[] getCompositeIndices(final int entityTypeId) {
+        final IntHashMap<CompositeIndex[]> compositeIndices = this.compositeIndices;
+        return compositeIndices == null ? null : compositeIndices.get(entityTypeId);
+    }
+
+    void setCompositeIndices(final int entityTypeId, @NotNull final CompositeIndex[] indices) {
+        IntHashMap<CompositeIndex[]> compositeIndices = this.compositeIndices;
+        if (compositeIndices == null) {
+            compositeIndices = new IntHashMap<>();
+            this.compositeIndices = compositeIndices;
+        }
+        compositeIndices.put(entityTypeId, indices);
+    }
+
     void cacheProperty(@NotNull final PersistentEntityId fromId, final int propId, @NotNull final Comparable value) {
         final PropertyId fromEnd = new PropertyId(fromId, propId);
         if (propsCache.getObject(fromEnd) == null) {
@@ -698,7 +739,7 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
     }
 
     void entityDeleted(@NotNull final PersistentEntityId id) {
-        new EntityDeletedHandleCheckerImpl(id, mutableCache(), mutatedInTxn).updateCache();
+        updateCache(new EntityDeletedHandleCheckerImpl(id, mutableCache(), mutatedInTxn));
     }
 
     void propertyChanged(@NotNull final PersistentEntityId id,
@@ -707,8 +748,8 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
                          @Nullable final Comparable newValue) {
         final PropertyId propId = new PropertyId(id, propertyId);
         propsCache.remove(propId);
-        new PropertyChangedHandleCheckerImpl(id.getTypeId(), id.getLocalId(), propertyId,
-                oldValue, newValue, mutableCache(), mutatedInTxn).updateCache();
+        updateCache(new PropertyChangedHandleCheckerImpl(id.getTypeId(), id.getLocalId(), propertyId,
+                oldValue, newValue, mutableCache(), mutatedInTxn));
     }
 
     void linkAdded(@NotNull final PersistentEntityId sourceId,
@@ -716,7 +757,7 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
                    final int linkId) {
         final PropertyId propId = new PropertyId(sourceId, linkId);
         linksCache.remove(propId);
-        new LinkAddedHandleChecker(sourceId, targetId, linkId, mutableCache(), mutatedInTxn).updateCache();
+        updateCache(new LinkAddedHandleChecker(sourceId, targetId, linkId, mutableCache(), mutatedInTxn));
     }
 
     void linkDeleted(@NotNull final PersistentEntityId sourceId,
@@ -724,7 +765,7 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
                      final int linkId) {
         final PropertyId propId = new PropertyId(sourceId, linkId);
         linksCache.remove(propId);
-        new LinkDeletedHandleChecker(sourceId, targetId, linkId, mutableCache(), mutatedInTxn).updateCache();
+        updateCache(new LinkDeletedHandleChecker(sourceId, targetId, linkId, mutableCache(), mutatedInTxn));
     }
 
     void addBlob(final long blobHandle, @NotNull final InputStream stream) throws IOException {
@@ -838,6 +879,7 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
         blobFiles = null;
         preservedBlobs = null;
         deferredBlobsToDelete = null;
+        compositeIndices = null;
     }
 
     // exposed only for tests
@@ -845,6 +887,15 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
         disposeCreatedIterators();
         final FlushLog log = new FlushLog();
         store.logOperations(txn, log);
+        final IntHashMap<CompositeIndex[]> compositeIndices = this.compositeIndices;
+        if (compositeIndices != null) {
+            log.add(new FlushLog.Operation() {
+                @Override
+                public void flushed() {
+                    store.publishCompositeIndices(compositeIndices);
+                }
+            });
+        }
         final BlobVault blobVault = store.getBlobVault();
         if (blobVault.requiresTxn()) {
             try {
@@ -896,6 +947,11 @@ public class PersistentStoreTransaction implements StoreTransaction, TxnGetterSt
         }
     }
 
+    private void updateCache(@NotNull final HandleCheckerAdapter checker) {
+        checker.updateCache();
+        store.getEntityIterableCache().invalidatePersistentCache(checker);
+    }
+
     private EntityIterableCacheAdapterMutable mutableCache() {
         EntityIterableCacheAdapterMutable cache = mutableCache;
         if (mutableCache == null) {
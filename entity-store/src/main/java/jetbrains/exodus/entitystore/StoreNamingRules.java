@@ -50,6 +50,8 @@ final class StoreNamingRules {
     private static final String BLOBS_TABLE_PREFIX = "blobs";
     @NonNls
     private static final String INTERNAL_SETTINGS = "----internal.settings----";
+    @NonNls
+    private static final String ENTITY_ITERABLE_CACHE = "----entity.iterable.cache----";
 
     @NotNull
     private final String storeName;
@@ -128,6 +130,11 @@ final class StoreNamingRules {
         return getFQName(INTERNAL_SETTINGS);
     }
 
+    @NotNull
+    String getEntityIterableCacheName() {
+        return getFQName(ENTITY_ITERABLE_CACHE);
+    }
+
     /**
      * Gets fully-qualified name of a table or sequence.
      *
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.entitystore.iterate;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.bindings.LongBinding;
+import jetbrains.exodus.core.dataStructures.hash.LongHashSet;
+import jetbrains.exodus.entitystore.*;
+import jetbrains.exodus.entitystore.tables.CompositeIndex;
+import jetbrains.exodus.env.Cursor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Iterates entities having values of leading properties of a composite index equal to specified values,
+ * and optionally the value of the next property in a range, using single cursor range scan. Since an entity
+ * with set values has several index keys, the iterator skips entities it has already returned.
+ */
+public final class CompositeIndexIterable extends EntityIterableBase {
+
+    @NotNull
+    private final CompositeIndex index;
+    @NotNull
+    private final Comparable<?>[] values;
+    @Nullable
+    private final Comparable<?> min;
+    @Nullable
+    private final Comparable<?> max;
+    @Nullable
+    private final ByteIterable minKey;
+    @Nullable
+    private final ByteIterable maxKey;
+
+    public CompositeIndexIterable(@NotNull final PersistentStoreTransaction txn,
+                                  @NotNull final CompositeIndex index,
+                                  @NotNull final Comparable<?>[] values,
+                                  @Nullable final Comparable<?> min,
+                                  @Nullable final Comparable<?> max) {
+        super(txn);
+        final int rangeLength = min == null ? 0 : 1;
+        if ((min == null) != (max == null) || values.length + rangeLength == 0 ||
+                values.length + rangeLength > index.getPropertyIds().length) {
+            throw new IllegalArgumentException("Invalid composite index lookup: " + index);
+        }
+        this.index = index;
+        this.values = values;
+        this.min = min;
+        this.max = max;
+        final boolean isRangeValid = min == null || min.getClass() == max.getClass();
+        minKey = isRangeValid ? createKey(txn, values, min) : null;
+        maxKey = isRangeValid ? createKey(txn, values, max) : null;
+    }
+
+    public static EntityIterableType getType() {
+        return EntityIterableType.COMPOSITE_INDEX;
+    }
+
+    @Override
+    public boolean isSortedById() {
+        return false;
+    }
+
+    @Override
+    public boolean canBeCached() {
+        return false;
+    }
+
+    @NotNull
+    @Override
+    public EntityIteratorBase getIteratorImpl(@NotNull final PersistentStoreTransaction txn) {
+        if (minKey == null || maxKey == null) {
+            return EntityIteratorBase.EMPTY;
+        }
+        return new CompositeIndexIterator(index.getStore().openCursor(txn.getEnvironmentTransaction()));
+    }
+
+    @NotNull
+    @Override
+    protected EntityIterableHandle getHandleImpl() {
+        return new ConstantEntityIterableHandle(getStore(), getType()) {
+
+            @NotNull
+            @Override
+            public int[] getPropertyIds() {
+                return index.getPropertyIds();
+            }
+
+            @Override
+            public int getEntityTypeId() {
+                return index.getEntityTypeId();
+            }
+
+            @Override
+            public void toString(@NotNull final StringBuilder builder) {
+                super.toString(builder);
+                builder.append(index.getName());
+                builder.append('-');
+                builder.append(Arrays.toString(values));
+                builder.append('-');
+                builder.append(min);
+                builder.append('-');
+                builder.append(max);
+            }
+
+            @Override
+            public void hashCode(@NotNull final EntityIterableHandleHash hash) {
+                hash.apply(index.getName());
+                hash.applyDelimiter();
+                hash.apply(Arrays.toString(values));
+                hash.applyDelimiter();
+                hash.apply(String.valueOf(min));
+                hash.applyDelimiter();
+                hash.apply(String.valueOf(max));
+            }
+        };
+    }
+
+    @Nullable
+    private static ByteIterable createKey(@NotNull final PersistentStoreTransaction txn,
+                                          @NotNull final Comparable<?>[] values,
+                                          @Nullable final Comparable<?> rangeBound) {
+        if (rangeBound == null) {
+            return CompositeIndex.createKey(txn.getStore().getPropertyTypes(), values);
+        }
+        final Comparable<?>[] keyValues = Arrays.copyOf(values, values.length + 1);
+        keyValues[values.length] = rangeBound;
+        return CompositeIndex.createKey(txn.getStore().getPropertyTypes(), keyValues);
+    }
+
+    private final class CompositeIndexIterator extends EntityIteratorBase {
+
+        @NotNull
+        private final LongHashSet returnedIds = new LongHashSet();
+        private boolean hasNext;
+
+        private CompositeIndexIterator(@NotNull final Cursor cursor) {
+            super(CompositeIndexIterable.this);
+            setCursor(cursor);
+            //noinspection ConstantConditions
+            checkHasNext(cursor.getSearchKeyRange(minKey) != null);
+        }
+
+        @Override
+        public boolean hasNextImpl() {
+            return hasNext;
+        }
+
+        @Override
+        @Nullable
+        public EntityId nextIdImpl() {
+            if (hasNextImpl()) {
+                explain(getType());
+                final Cursor cursor = getCursor();
+                final long localId = LongBinding.compressedEntryToLong(cursor.getValue());
+                returnedIds.add(localId);
+                do {
+                    checkHasNext(cursor.getNext());
+                } while (hasNext && returnedIds.contains(LongBinding.compressedEntryToLong(cursor.getValue())));
+                return new PersistentEntityId(index.getEntityTypeId(), localId);
+            }
+            return null;
+        }
+
+        private void checkHasNext(final boolean success) {
+            hasNext = success && isKeyInRange(getCursor().getKey());
+        }
+
+        /**
+         * Key is in range if it's not greater than maximum key or starts with it, i.e. has more property values.
+         */
+        private boolean isKeyInRange(@NotNull final ByteIterable key) {
+            //noinspection ConstantConditions
+            final ByteIterable maxKey = CompositeIndexIterable.this.maxKey;
+            if (key.compareTo(maxKey) <= 0) {
+                return true;
+            }
+            final int length = maxKey.getLength();
+            return key.getLength() > length && key.subIterable(0, length).compareTo(maxKey) == 0;
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package jetbrains.exodus.entitystore.iterate;
 
+import jetbrains.exodus.ByteIterator;
+import jetbrains.exodus.bindings.IntegerBinding;
+import jetbrains.exodus.bindings.LongBinding;
 import jetbrains.exodus.core.dataStructures.IntArrayList;
 import jetbrains.exodus.core.dataStructures.LongArrayList;
 import jetbrains.exodus.entitystore.EntityId;
@@ -22,9 +25,10 @@ import jetbrains.exodus.entitystore.EntityIterator;
 import jetbrains.exodus.entitystore.PersistentEntityId;
 import jetbrains.exodus.entitystore.PersistentStoreTransaction;
 import jetbrains.exodus.entitystore.util.EntityIdSetFactory;
-import jetbrains.exodus.entitystore.util.ImmutableSingleTypeEntityIdBitSet;
 import jetbrains.exodus.entitystore.util.IntArrayListSpinAllocator;
 import jetbrains.exodus.entitystore.util.LongArrayListSpinAllocator;
+import jetbrains.exodus.entitystore.util.RoaringEntityIdSet;
+import jetbrains.exodus.util.LightOutputStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -32,9 +36,10 @@ import java.util.Arrays;
 
 public class EntityIdArrayCachedInstanceIterable extends CachedInstanceIterable {
 
-    private static final int MAX_COMPRESSED_SET_LOAD_FACTOR = 64;
     private static final int[] EMPTY_TYPE_IDS = new int[0];
     private static final long[] EMPTY_LOCAL_IDS = new long[0];
+    private static final int SINGLE_TYPE_ID_FLAG = 1;
+    private static final int SORTED_BY_ID_FLAG = 2;
 
     private final boolean singleTypeId;
     @NotNull
@@ -194,6 +199,67 @@ public class EntityIdArrayCachedInstanceIterable extends CachedInstanceIterable
         }
     }
 
+    private EntityIdArrayCachedInstanceIterable(@NotNull final PersistentStoreTransaction txn,
+                                                @NotNull final EntityIterableBase source,
+                                                final boolean singleTypeId,
+                                                @NotNull final int[] typeIds,
+                                                @NotNull final long[] localIds,
+                                                final boolean isSortedById) {
+        super(txn, source);
+        this.singleTypeId = singleTypeId;
+        this.typeIds = typeIds;
+        this.localIds = localIds;
+        this.isSortedById = isSortedById;
+    }
+
+    /**
+     * Writes ids of the instance so that it can be restored by {@linkplain #read(PersistentStoreTransaction,
+     * EntityIterableBase, ByteIterator)}. Local ids of single type sorted instance are written as deltas.
+     */
+    public void write(@NotNull final LightOutputStream output) {
+        output.writeByte((singleTypeId ? SINGLE_TYPE_ID_FLAG : 0) | (isSortedById ? SORTED_BY_ID_FLAG : 0));
+        IntegerBinding.writeCompressed(output, typeIds.length);
+        for (final int typeId : typeIds) {
+            IntegerBinding.writeCompressed(output, typeId);
+        }
+        IntegerBinding.writeCompressed(output, localIds.length);
+        final boolean deltas = singleTypeId && isSortedById;
+        long prevLocalId = 0;
+        for (final long localId : localIds) {
+            LongBinding.writeCompressed(output, localId - prevLocalId);
+            if (deltas) {
+                prevLocalId = localId;
+            }
+        }
+    }
+
+    /**
+     * Restores the instance written by {@linkplain #write(LightOutputStream)} as cached instance of the source.
+     */
+    @NotNull
+    public static EntityIdArrayCachedInstanceIterable read(@NotNull final PersistentStoreTransaction txn,
+                                                           @NotNull final EntityIterableBase source,
+                                                           @NotNull final ByteIterator input) {
+        final int flags = input.next();
+        final boolean singleTypeId = (flags & SINGLE_TYPE_ID_FLAG) != 0;
+        final boolean isSortedById = (flags & SORTED_BY_ID_FLAG) != 0;
+        final int[] typeIds = new int[IntegerBinding.readCompressed(input)];
+        for (int i = 0; i < typeIds.length; ++i) {
+            typeIds[i] = IntegerBinding.readCompressed(input);
+        }
+        final long[] localIds = new long[IntegerBinding.readCompressed(input)];
+        final boolean deltas = singleTypeId && isSortedById;
+        long prevLocalId = 0;
+        for (int i = 0; i < localIds.length; ++i) {
+            final long localId = prevLocalId + LongBinding.readCompressed(input);
+            localIds[i] = localId;
+            if (deltas) {
+                prevLocalId = localId;
+            }
+        }
+        return new EntityIdArrayCachedInstanceIterable(txn, source, singleTypeId, typeIds, localIds, isSortedById);
+    }
+
     @Override
     public int getEntityTypeId() {
         if (singleTypeId && typeIds.length > 0) {
@@ -334,15 +400,12 @@ public class EntityIdArrayCachedInstanceIterable extends CachedInstanceIterable
     }
 
     private EntityIdSet toSingleTypeIdSet(int typeId) {
-        if (USE_BIT_SETS && isSortedById) {
+        if (isSortedById) {
             final int length = localIds.length;
             if (length > 1) {
-                final long min = localIds[0];
-                if (min >= 0) {
-                    final long range = localIds[length - 1] - min + 1;
-                    if (range < Integer.MAX_VALUE && range <= ((long) MAX_COMPRESSED_SET_LOAD_FACTOR * length)) {
-                        return new ImmutableSingleTypeEntityIdBitSet(typeId, localIds);
-                    }
+                if (localIds[0] >= 0) {
+                    // compressed bitmap can be combined with bitmaps of other cached iterables by binary operators
+                    return new RoaringEntityIdSet(typeId, localIds);
                 }
             } else if (length == 1) {
                 return EntityIdSetFactory.newSet().add(typeId, localIds[0]);
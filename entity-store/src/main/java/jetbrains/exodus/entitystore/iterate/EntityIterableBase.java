@@ -86,9 +86,9 @@ public abstract class EntityIterableBase implements EntityIterable {
 
     private static final String INDENT = "|   ";
     // amount of fields appended to iterable string handle
-    static final int[] fields = {0, 1, 2, 3, 4, 2, 2, 2, 3, 4, 2, 0, 0, 0, 0, 0, 2, 2, 0, 0, 0, 0, 1, 1, 2, 2, 0, 0, 1, 1, 3};
+    static final int[] fields = {0, 1, 2, 3, 4, 2, 2, 2, 3, 4, 2, 0, 0, 0, 0, 0, 2, 2, 0, 0, 0, 0, 1, 1, 2, 2, 0, 0, 1, 1, 3, 3, 4};
     // amount of children recursively appended to iterable string handle
-    static final int[] children = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 2, 2, 2, 1, 1, 2, 0, 1, 1, 1, 1, 1, 0, 0, 2, 1, 1, 2, 0};
+    static final int[] children = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 2, 2, 2, 1, 1, 2, 0, 1, 1, 1, 1, 1, 0, 0, 2, 1, 1, 2, 0, 1, 0};
 
     @Nullable
     private final PersistentEntityStoreImpl store;
@@ -468,6 +468,30 @@ public abstract class EntityIterableBase implements EntityIterable {
         return ((EntityIterableBase) entities).store == null ? EMPTY : new FilterLinksIterable(txn, linkId, this, entities);
     }
 
+    /**
+     * Filters entities of specified type having specified property equal to a value by reading the property
+     * of each source entity. Unlike {@linkplain PersistentStoreTransaction#find(String, String, Comparable)},
+     * it doesn't scan the property value index, so it's cheaper if the source is small compared to the number
+     * of entities having the property equal to the value.
+     */
+    public EntityIterable filterByPropertyValue(@NotNull final String entityType,
+                                                @NotNull final String propertyName,
+                                                @NotNull final Comparable value) {
+        if (store == null) {
+            return EMPTY;
+        }
+        final PersistentStoreTransaction txn = getTransaction();
+        final int entityTypeId = store.getEntityTypeId(txn, entityType, false);
+        if (entityTypeId < 0) {
+            return EMPTY;
+        }
+        final int propertyId = store.getPropertyId(txn, propertyName, false);
+        if (propertyId < 0) {
+            return EMPTY;
+        }
+        return new FilterPropertyValueIterable(txn, entityTypeId, propertyId, value, this);
+    }
+
     public final CachedInstanceIterable getOrCreateCachedInstance(@NotNull final PersistentStoreTransaction txn) {
         if (store == null) {
             throw new NullPointerException("Can't create cached instance for EMPTY iterable");
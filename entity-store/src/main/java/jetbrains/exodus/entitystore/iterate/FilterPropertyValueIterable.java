@@ -0,0 +1,161 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.entitystore.iterate;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.bindings.ComparableSet;
+import jetbrains.exodus.entitystore.*;
+import jetbrains.exodus.entitystore.tables.PropertyTypes;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Filters source iterable leaving entities of specified type having specified property equal to a value.
+ */
+public class FilterPropertyValueIterable extends EntityIterableDecoratorBase {
+
+    static {
+        registerType(getType(), new EntityIterableInstantiator() {
+            @Override
+            public EntityIterableBase instantiate(PersistentStoreTransaction txn, PersistentEntityStoreImpl store, Object[] parameters) {
+                return new FilterPropertyValueIterable(txn,
+                        Integer.valueOf((String) parameters[0]), Integer.valueOf((String) parameters[1]),
+                        (Comparable<?>) parameters[2], (EntityIterableBase) parameters[3]);
+            }
+        });
+    }
+
+    private final int entityTypeId;
+    private final int propertyId;
+    @NotNull
+    private final Comparable<?> value;
+
+    public FilterPropertyValueIterable(@NotNull final PersistentStoreTransaction txn,
+                                       final int entityTypeId,
+                                       final int propertyId,
+                                       @NotNull final Comparable<?> value,
+                                       @NotNull final EntityIterableBase source) {
+        super(txn, source);
+        this.entityTypeId = entityTypeId;
+        this.propertyId = propertyId;
+        this.value = PropertyTypes.toLowerCase(value);
+    }
+
+    public static EntityIterableType getType() {
+        return EntityIterableType.FILTER_PROPERTY_VALUE;
+    }
+
+    @NotNull
+    @Override
+    public EntityIterator getIteratorImpl(@NotNull final PersistentStoreTransaction txn) {
+        return new EntityIteratorFixingDecorator(this, new NonDisposableEntityIterator(this) {
+
+            @NotNull
+            private final EntityIteratorBase sourceIt = (EntityIteratorBase) source.iterator();
+            @Nullable
+            private EntityId nextId = PersistentEntityId.EMPTY_ID;
+            @NotNull
+            private final PersistentEntityStoreImpl store = FilterPropertyValueIterable.this.getStore();
+
+            @Override
+            protected boolean hasNextImpl() {
+                if (nextId != PersistentEntityId.EMPTY_ID) {
+                    return true;
+                }
+                while (sourceIt.hasNext()) {
+                    nextId = sourceIt.nextId();
+                    if (nextId != null && nextId.getTypeId() == entityTypeId) {
+                        final ByteIterable entry = store.getRawProperty(txn, store.getEntity(nextId), propertyId);
+                        if (entry != null && isValueMatched(store.getPropertyTypes().entryToPropertyValue(entry).getData())) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            protected EntityId nextIdImpl() {
+                final EntityId result = nextId;
+                nextId = PersistentEntityId.EMPTY_ID;
+                return result;
+            }
+        });
+    }
+
+    @NotNull
+    @Override
+    protected EntityIterableHandle getHandleImpl() {
+        return new EntityIterableHandleDecorator(getStore(), getType(), source.getHandle()) {
+
+            @NotNull
+            private final int[] propertyIds = mergeFieldIds(new int[]{propertyId}, decorated.getPropertyIds());
+
+            @NotNull
+            @Override
+            public int[] getPropertyIds() {
+                return propertyIds;
+            }
+
+            @Override
+            public void toString(@NotNull final StringBuilder builder) {
+                super.toString(builder);
+                builder.append(entityTypeId);
+                builder.append('-');
+                builder.append(propertyId);
+                builder.append('-');
+                builder.append(value.toString());
+                builder.append('-');
+                applyDecoratedToBuilder(builder);
+            }
+
+            @Override
+            public void hashCode(@NotNull final EntityIterableHandleHash hash) {
+                hash.apply(entityTypeId);
+                hash.applyDelimiter();
+                hash.apply(propertyId);
+                hash.applyDelimiter();
+                hash.apply(value.toString());
+                hash.applyDelimiter();
+                super.hashCode(hash);
+            }
+        };
+    }
+
+    @Override
+    public boolean isSortedById() {
+        return source.isSortedById();
+    }
+
+    @Override
+    public boolean canBeCached() {
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isValueMatched(@Nullable final Comparable<?> data) {
+        if (data instanceof ComparableSet) {
+            for (final Object item : (ComparableSet) data) {
+                if (isValueMatched((Comparable<?>) item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return data != null && data.getClass() == value.getClass() &&
+                ((Comparable<Object>) value).compareTo(PropertyTypes.toLowerCase(data)) == 0;
+    }
+}
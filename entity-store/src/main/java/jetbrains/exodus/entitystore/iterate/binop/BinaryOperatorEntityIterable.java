@@ -19,13 +19,15 @@ import jetbrains.exodus.entitystore.EntityId;
 import jetbrains.exodus.entitystore.EntityIterableHandle;
 import jetbrains.exodus.entitystore.EntityIterableType;
 import jetbrains.exodus.entitystore.PersistentStoreTransaction;
-import jetbrains.exodus.entitystore.iterate.EntityIterableBase;
-import jetbrains.exodus.entitystore.iterate.EntityIterableHandleBase;
+import jetbrains.exodus.entitystore.iterate.*;
+import jetbrains.exodus.entitystore.util.RoaringEntityIdSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Iterator;
+
 @SuppressWarnings({"ProtectedField", "RawUseOfParameterizedType", "MethodOnlyUsedFromInnerClass"})
-abstract class BinaryOperatorEntityIterable extends EntityIterableBase {
+public abstract class BinaryOperatorEntityIterable extends EntityIterableBase {
 
     private static final int MAXIMUM_DEPTH_TO_ALLOW_CACHING = 200;
     private static final int COMMUTATIVE_FLAG = 1 << 30;
@@ -250,6 +252,45 @@ abstract class BinaryOperatorEntityIterable extends EntityIterableBase {
         };
     }
 
+    /**
+     * Returns compressed bitmaps of both operands if they both are cached and hold ids of entities of the same type
+     * sorted by id, so the result of the operation can be computed with bitmaps at once.
+     *
+     * @return array of two bitmaps, or {@code null} if any of the operands cannot be represented as a bitmap
+     */
+    @Nullable
+    protected RoaringEntityIdSet[] getCachedBitmaps(@NotNull final PersistentStoreTransaction txn) {
+        final RoaringEntityIdSet bitmap1 = getCachedBitmap(txn, iterable1);
+        if (bitmap1 == null) {
+            return null;
+        }
+        final RoaringEntityIdSet bitmap2 = getCachedBitmap(txn, iterable2);
+        if (bitmap2 == null || bitmap1.getTypeId() != bitmap2.getTypeId()) {
+            return null;
+        }
+        return new RoaringEntityIdSet[]{bitmap1, bitmap2};
+    }
+
+    @Nullable
+    private static RoaringEntityIdSet getCachedBitmap(@NotNull final PersistentStoreTransaction txn,
+                                                      @NotNull final EntityIterableBase iterable) {
+        final EntityIterableBase cached;
+        if (iterable.isCachedInstance()) {
+            cached = iterable;
+        } else {
+            if (!iterable.canBeCached()) {
+                return null;
+            }
+            cached = txn.getCachedInstanceFast(iterable);
+        }
+        // other kinds of cached instances would build hash sets
+        if (!(cached instanceof EntityIdArrayCachedInstanceIterable) || !cached.isSortedById() || cached.getEntityTypeId() < 0) {
+            return null;
+        }
+        final EntityIdSet result = cached.toSet(txn);
+        return result instanceof RoaringEntityIdSet ? (RoaringEntityIdSet) result : null;
+    }
+
     private static boolean shouldBinaryOperationBeCached(@NotNull EntityIterableBase iterable1, @NotNull EntityIterableBase iterable2) {
         return (iterable1.canBeCached() || iterable1.getHandle().getType() == EntityIterableType.ENTITIES_WITH_PROPERTY_SORTED_BY_VALUE) &&
             (iterable2.canBeCached() || iterable2.getHandle().getType() == EntityIterableType.ENTITIES_WITH_PROPERTY_SORTED_BY_VALUE);
@@ -259,4 +300,40 @@ abstract class BinaryOperatorEntityIterable extends EntityIterableBase {
                                      @NotNull final EntityIterableHandle handle2) {
         return handle1.hashCode() < handle2.hashCode();
     }
+
+    /**
+     * Iterates ids of the result of the operation computed with bitmaps. The result is sorted by id.
+     * The iterator allows to call hasNext() several times successively, so it doesn't need fixing decorator.
+     */
+    protected static final class BitmapIterator extends NonDisposableEntityIterator {
+
+        @NotNull
+        private final RoaringEntityIdSet bitmap;
+        @NotNull
+        private final Iterator<EntityId> iterator;
+
+        protected BitmapIterator(@NotNull final EntityIterableBase iterable, @NotNull final RoaringEntityIdSet bitmap) {
+            super(iterable);
+            this.bitmap = bitmap;
+            iterator = bitmap.iterator();
+        }
+
+        @Override
+        protected boolean hasNextImpl() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        @Nullable
+        public EntityId nextIdImpl() {
+            return iterator.next();
+        }
+
+        @NotNull
+        @Override
+        protected EntityIdSet toSet() {
+            // cached instance of the result gets the bitmap as well
+            return bitmap;
+        }
+    }
 }
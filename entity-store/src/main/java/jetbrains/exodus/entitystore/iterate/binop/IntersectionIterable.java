@@ -17,6 +17,7 @@ package jetbrains.exodus.entitystore.iterate.binop;
 
 import jetbrains.exodus.entitystore.*;
 import jetbrains.exodus.entitystore.iterate.*;
+import jetbrains.exodus.entitystore.util.RoaringEntityIdSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -62,6 +63,10 @@ public final class IntersectionIterable extends BinaryOperatorEntityIterable {
     @Override
     @NotNull
     public EntityIteratorBase getIteratorImpl(@NotNull final PersistentStoreTransaction txn) {
+        final RoaringEntityIdSet[] bitmaps = getCachedBitmaps(txn);
+        if (bitmaps != null) {
+            return new BitmapIterator(this, bitmaps[0].and(bitmaps[1]));
+        }
         final EntityIterableBase iterable1 = this.iterable1;
         final EntityIterableBase iterable2 = this.iterable2;
         final EntityIteratorBase iterator;
@@ -17,6 +17,7 @@ package jetbrains.exodus.entitystore.iterate.binop;
 
 import jetbrains.exodus.entitystore.*;
 import jetbrains.exodus.entitystore.iterate.*;
+import jetbrains.exodus.entitystore.util.RoaringEntityIdSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -52,6 +53,10 @@ public final class MinusIterable extends BinaryOperatorEntityIterable {
     public EntityIteratorBase getIteratorImpl(@NotNull final PersistentStoreTransaction txn) {
         final EntityIterableBase iterable1 = this.iterable1;
         final EntityIterableBase iterable2 = this.iterable2;
+        final RoaringEntityIdSet[] bitmaps = getCachedBitmaps(txn);
+        if (bitmaps != null) {
+            return new BitmapIterator(this, bitmaps[0].andNot(bitmaps[1]));
+        }
         return new EntityIteratorFixingDecorator(this, isSortedById() && iterable2.isSortedById() ?
                 new SortedIterator(this, iterable1, iterable2) : new UnsortedIterator(this, txn, iterable1, iterable2));
     }
@@ -18,6 +18,7 @@ package jetbrains.exodus.entitystore.iterate.binop;
 import jetbrains.exodus.entitystore.*;
 import jetbrains.exodus.entitystore.iterate.*;
 import jetbrains.exodus.entitystore.util.EntityIdSetFactory;
+import jetbrains.exodus.entitystore.util.RoaringEntityIdSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -54,6 +55,10 @@ public final class UnionIterable extends BinaryOperatorEntityIterable {
     public EntityIteratorBase getIteratorImpl(@NotNull final PersistentStoreTransaction txn) {
         EntityIterableBase iterable1 = this.iterable1;
         EntityIterableBase iterable2 = this.iterable2;
+        final RoaringEntityIdSet[] bitmaps = getCachedBitmaps(txn);
+        if (bitmaps != null) {
+            return new BitmapIterator(this, bitmaps[0].or(bitmaps[1]));
+        }
         if (isSortedById()) {
             return new EntityIteratorFixingDecorator(this, new SortedIterator(this, iterable1, iterable2));
         }
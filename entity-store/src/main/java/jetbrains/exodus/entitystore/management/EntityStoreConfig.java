@@ -178,6 +178,31 @@ public class EntityStoreConfig extends MBeanBase implements EntityStoreConfigMBe
         config.setEntityIterableCacheUseHumanReadable(useHumanReadable);
     }
 
+    @Override
+    public boolean getEntityIterableCacheParallelInstantiation() {
+        return config.getEntityIterableCacheParallelInstantiation();
+    }
+
+    @Override
+    public void setEntityIterableCacheParallelInstantiation(boolean parallelInstantiation) {
+        config.setEntityIterableCacheParallelInstantiation(parallelInstantiation);
+    }
+
+    @Override
+    public boolean getEntityIterableCachePersistent() {
+        return config.getEntityIterableCachePersistent();
+    }
+
+    @Override
+    public boolean isQueryPlannerEnabled() {
+        return config.isQueryPlannerEnabled();
+    }
+
+    @Override
+    public void setQueryPlannerEnabled(boolean enabled) {
+        config.setQueryPlannerEnabled(enabled);
+    }
+
     @Override
     public int getTransactionPropsCacheSize() {
         return config.getTransactionPropsCacheSize();
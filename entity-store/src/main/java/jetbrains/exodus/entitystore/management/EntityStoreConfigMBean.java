@@ -77,6 +77,16 @@ public interface EntityStoreConfigMBean {
 
     void setEntityIterableCacheUseHumanReadable(boolean useHumanReadable);
 
+    boolean getEntityIterableCacheParallelInstantiation();
+
+    void setEntityIterableCacheParallelInstantiation(boolean parallelInstantiation);
+
+    boolean getEntityIterableCachePersistent();
+
+    boolean isQueryPlannerEnabled();
+
+    void setQueryPlannerEnabled(boolean enabled);
+
     int getTransactionPropsCacheSize();
 
     void setTransactionPropsCacheSize(int transactionPropsCacheSize);
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.entitystore.tables;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.bindings.ComparableSet;
+import jetbrains.exodus.env.Cursor;
+import jetbrains.exodus.env.Store;
+import jetbrains.exodus.env.Transaction;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Secondary index of values of several properties of entities of a type. Its key is the concatenation of
+ * property values, its value is entity local id. If a property is not set, the key contains values of only
+ * preceding properties, so the entity can be found by a prefix of property values not including the property.
+ * An entity with the first property not set is not indexed. If a property value is a {@linkplain ComparableSet},
+ * the entity has a key per each item of the set, so a lookup can find it several times. String values are
+ * indexed lower-cased.
+ */
+public final class CompositeIndex {
+
+    public static final CompositeIndex[] EMPTY_ARRAY = new CompositeIndex[0];
+
+    @NonNls
+    private static final String COMPOSITE_IDX = "#composite_idx";
+
+    private final int entityTypeId;
+    @NotNull
+    private final int[] propertyIds;
+    @NotNull
+    private final Store store;
+
+    public CompositeIndex(final int entityTypeId, @NotNull final int[] propertyIds, @NotNull final Store store) {
+        this.entityTypeId = entityTypeId;
+        this.propertyIds = propertyIds;
+        this.store = store;
+    }
+
+    public int getEntityTypeId() {
+        return entityTypeId;
+    }
+
+    @NotNull
+    public int[] getPropertyIds() {
+        return propertyIds;
+    }
+
+    @NotNull
+    public Store getStore() {
+        return store;
+    }
+
+    @NotNull
+    public String getName() {
+        return store.getName();
+    }
+
+    public int indexOf(final int propertyId) {
+        for (int i = 0; i < propertyIds.length; ++i) {
+            if (propertyIds[i] == propertyId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index key for specified lookup values, or {@code null} if values are not indexed
+     */
+    @Nullable
+    public static ByteIterable createKey(@NotNull final PropertyTypes propertyTypes, @NotNull final Comparable<?>[] values) {
+        final int length = getKeyLength(values);
+        if (length == 0) {
+            return null;
+        }
+        return propertyTypes.dataArrayToEntry(length == values.length ? values : Arrays.copyOf(values, length));
+    }
+
+    /**
+     * @return index keys for specified property values of an entity, empty if the entity is not indexed
+     */
+    @NotNull
+    public static List<ByteIterable> createKeys(@NotNull final PropertyTypes propertyTypes, @NotNull final Comparable<?>[] values) {
+        final int length = getKeyLength(values);
+        if (length == 0) {
+            return Collections.emptyList();
+        }
+        final List<ByteIterable> result = new ArrayList<>();
+        addKeys(propertyTypes, Arrays.copyOf(values, length), 0, result);
+        return result;
+    }
+
+    public void put(@NotNull final Transaction txn, @NotNull final ByteIterable key, @NotNull final ByteIterable localId) {
+        store.put(txn, key, localId);
+    }
+
+    public void delete(@NotNull final Transaction txn, @NotNull final ByteIterable key, @NotNull final ByteIterable localId) {
+        try (Cursor cursor = store.openCursor(txn)) {
+            if (cursor.getSearchBoth(key, localId)) {
+                cursor.deleteCurrent();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+    private static int getKeyLength(@NotNull final Comparable<?>[] values) {
+        int result = 0;
+        while (result < values.length && values[result] != null) {
+            ++result;
+        }
+        return result;
+    }
+
+    /**
+     * Adds keys for each combination of items of sets starting from the value with specified index.
+     */
+    private static void addKeys(@NotNull final PropertyTypes propertyTypes,
+                                @NotNull final Comparable<?>[] values,
+                                final int from,
+                                @NotNull final List<ByteIterable> keys) {
+        for (int i = from; i < values.length; ++i) {
+            final Comparable<?> value = values[i];
+            if (value instanceof ComparableSet) {
+                final ComparableSet<?> set = (ComparableSet<?>) value;
+                if (set.isEmpty()) {
+                    if (i > 0) {
+                        keys.add(propertyTypes.dataArrayToEntry(Arrays.copyOf(values, i)));
+                    }
+                } else {
+                    for (final Object item : set) {
+                        values[i] = (Comparable<?>) item;
+                        addKeys(propertyTypes, values, i + 1, keys);
+                    }
+                    values[i] = value;
+                }
+                return;
+            }
+        }
+        keys.add(propertyTypes.dataArrayToEntry(values));
+    }
+
+    public static String getIndexName(@NotNull final String propertiesTableName, @NotNull final int[] propertyIds) {
+        final StringBuilder builder = new StringBuilder(propertiesTableName);
+        builder.append(COMPOSITE_IDX);
+        for (int i = 0; i < propertyIds.length; ++i) {
+            if (i > 0) {
+                builder.append('_');
+            }
+            builder.append(propertyIds[i]);
+        }
+        return builder.toString();
+    }
+
+    public static boolean isIndexName(@NotNull final String storeName) {
+        return storeName.contains(COMPOSITE_IDX);
+    }
+}
@@ -0,0 +1,537 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.entitystore.util;
+
+import jetbrains.exodus.core.dataStructures.hash.LongHashSet;
+import jetbrains.exodus.core.dataStructures.hash.LongSet;
+import jetbrains.exodus.entitystore.EntityId;
+import jetbrains.exodus.entitystore.PersistentEntityId;
+import jetbrains.exodus.entitystore.iterate.EntityIdSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable compressed set of ids of entities of a single type. Local ids are split into chunks of 2^16 values
+ * by their high bits, each chunk is kept either as a sorted array of low 16 bits (if it has not more than 4096
+ * values) or as a bitmap. Intersection, union and difference of two such sets are computed chunk by chunk,
+ * bitmaps are combined word by word.
+ */
+public class RoaringEntityIdSet implements EntityIdSet {
+
+    private static final int LOW_BITS = 16;
+    private static final int LOW_MASK = (1 << LOW_BITS) - 1;
+    private static final int BITMAP_WORDS = 1 << (LOW_BITS - 6);
+    // array container having more values would take more memory than bitmap container
+    private static final int MAX_ARRAY_CARDINALITY = 4096;
+    private static final long[] EMPTY_KEYS = new long[0];
+    private static final Object[] EMPTY_CONTAINERS = new Object[0];
+
+    private final int singleTypeId;
+    // sorted high bits of local ids, one per container
+    @NotNull
+    private final long[] keys;
+    // either char[] or long[]
+    @NotNull
+    private final Object[] containers;
+    private final int size;
+
+    /**
+     * @param singleTypeId   entity type id
+     * @param sortedLocalIds local ids sorted in ascending order, all ids should be non-negative
+     */
+    public RoaringEntityIdSet(final int singleTypeId, @NotNull final long[] sortedLocalIds) {
+        final Builder builder = new Builder(singleTypeId);
+        final int length = sortedLocalIds.length;
+        int i = 0;
+        while (i < length) {
+            final long key = getKey(sortedLocalIds[i]);
+            int j = i + 1;
+            while (j < length && getKey(sortedLocalIds[j]) == key) {
+                ++j;
+            }
+            final char[] values = new char[j - i];
+            int count = 0;
+            for (int k = i; k < j; ++k) {
+                final long localId = sortedLocalIds[k];
+                if (localId < 0 || (k > 0 && localId < sortedLocalIds[k - 1])) {
+                    throw new IllegalArgumentException("Local ids should be non-negative and sorted");
+                }
+                final char value = (char) (localId & LOW_MASK);
+                if (count == 0 || values[count - 1] != value) {
+                    values[count++] = value;
+                }
+            }
+            builder.add(key, count == values.length ? values : Arrays.copyOf(values, count));
+            i = j;
+        }
+        this.singleTypeId = singleTypeId;
+        keys = Arrays.copyOf(builder.keys, builder.count);
+        containers = Arrays.copyOf(builder.containers, builder.count);
+        size = builder.size;
+    }
+
+    private RoaringEntityIdSet(final int singleTypeId,
+                               @NotNull final long[] keys,
+                               @NotNull final Object[] containers,
+                               final int size) {
+        this.singleTypeId = singleTypeId;
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    public int getTypeId() {
+        return singleTypeId;
+    }
+
+    /**
+     * @return ids contained both in this set and in {@code other}
+     */
+    public RoaringEntityIdSet and(@NotNull final RoaringEntityIdSet other) {
+        final Builder builder = new Builder(singleTypeId);
+        if (singleTypeId == other.singleTypeId) {
+            final long[] keys1 = keys;
+            final long[] keys2 = other.keys;
+            int i = 0;
+            int j = 0;
+            while (i < keys1.length && j < keys2.length) {
+                final long key1 = keys1[i];
+                final long key2 = keys2[j];
+                if (key1 < key2) {
+                    ++i;
+                } else if (key1 > key2) {
+                    ++j;
+                } else {
+                    builder.add(key1, and(containers[i++], other.containers[j++]));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return ids contained in this set or in {@code other}
+     * @throws IllegalArgumentException if sets hold ids of different entity types
+     */
+    public RoaringEntityIdSet or(@NotNull final RoaringEntityIdSet other) {
+        if (singleTypeId != other.singleTypeId) {
+            throw new IllegalArgumentException("Can't unite ids of different entity types");
+        }
+        final Builder builder = new Builder(singleTypeId);
+        final long[] keys1 = keys;
+        final long[] keys2 = other.keys;
+        int i = 0;
+        int j = 0;
+        while (i < keys1.length || j < keys2.length) {
+            if (j == keys2.length || (i < keys1.length && keys1[i] < keys2[j])) {
+                builder.add(keys1[i], containers[i++]);
+            } else if (i == keys1.length || keys1[i] > keys2[j]) {
+                builder.add(keys2[j], other.containers[j++]);
+            } else {
+                builder.add(keys1[i], or(containers[i++], other.containers[j++]));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return ids contained in this set and not contained in {@code other}
+     */
+    public RoaringEntityIdSet andNot(@NotNull final RoaringEntityIdSet other) {
+        if (singleTypeId != other.singleTypeId) {
+            return this;
+        }
+        final Builder builder = new Builder(singleTypeId);
+        final long[] keys1 = keys;
+        final long[] keys2 = other.keys;
+        int j = 0;
+        for (int i = 0; i < keys1.length; ++i) {
+            final long key = keys1[i];
+            while (j < keys2.length && keys2[j] < key) {
+                ++j;
+            }
+            if (j < keys2.length && keys2[j] == key) {
+                builder.add(key, andNot(containers[i], other.containers[j++]));
+            } else {
+                builder.add(key, containers[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public EntityIdSet add(@Nullable EntityId id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public EntityIdSet add(int typeId, long localId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean contains(@Nullable EntityId id) {
+        return id != null && contains(id.getTypeId(), id.getLocalId());
+    }
+
+    @Override
+    public boolean contains(int typeId, long localId) {
+        if (typeId != singleTypeId || localId < 0) {
+            return false;
+        }
+        final int index = Arrays.binarySearch(keys, getKey(localId));
+        if (index < 0) {
+            return false;
+        }
+        final Object container = containers[index];
+        final int value = (int) (localId & LOW_MASK);
+        return container instanceof char[] ?
+                Arrays.binarySearch((char[]) container, (char) value) >= 0 :
+                containsBit((long[]) container, value);
+    }
+
+    @Override
+    public boolean remove(@Nullable EntityId id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(int typeId, long localId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int count() {
+        return size;
+    }
+
+    /**
+     * @return iterator over ids in ascending order
+     */
+    @Override
+    public Iterator<EntityId> iterator() {
+        return new IdIterator();
+    }
+
+    @NotNull
+    @Override
+    public LongSet getTypeSetSnapshot(int typeId) {
+        if (typeId == singleTypeId) {
+            final LongHashSet result = new LongHashSet(size);
+            final IdIterator it = new IdIterator();
+            long localId;
+            while ((localId = it.nextLocalId()) >= 0) {
+                result.add(localId);
+            }
+            return result;
+        }
+        return LongSet.EMPTY;
+    }
+
+    private static long getKey(final long localId) {
+        return localId >>> LOW_BITS;
+    }
+
+    private static boolean containsBit(@NotNull final long[] bitmap, final int value) {
+        return (bitmap[value >>> 6] & (1L << value)) != 0;
+    }
+
+    private static int nextSetBit(@NotNull final long[] bitmap, final int fromIndex) {
+        if (fromIndex > LOW_MASK) {
+            return -1;
+        }
+        int i = fromIndex >>> 6;
+        long word = bitmap[i] & (-1L << fromIndex);
+        while (word == 0) {
+            if (++i == BITMAP_WORDS) {
+                return -1;
+            }
+            word = bitmap[i];
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static long[] toBitmap(@NotNull final char[] values) {
+        final long[] result = new long[BITMAP_WORDS];
+        for (final char value : values) {
+            result[value >>> 6] |= 1L << value;
+        }
+        return result;
+    }
+
+    private static char[] toArray(@NotNull final long[] bitmap, final int cardinality) {
+        final char[] result = new char[cardinality];
+        int count = 0;
+        for (int i = 0; i < BITMAP_WORDS; ++i) {
+            long word = bitmap[i];
+            while (word != 0) {
+                result[count++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    private static int cardinality(@NotNull final long[] bitmap) {
+        int result = 0;
+        for (final long word : bitmap) {
+            result += Long.bitCount(word);
+        }
+        return result;
+    }
+
+    private static Object and(@NotNull final Object container1, @NotNull final Object container2) {
+        if (container1 instanceof char[]) {
+            return container2 instanceof char[] ?
+                    intersect((char[]) container1, (char[]) container2) :
+                    filter((char[]) container1, (long[]) container2, true);
+        }
+        if (container2 instanceof char[]) {
+            return filter((char[]) container2, (long[]) container1, true);
+        }
+        final long[] bitmap1 = (long[]) container1;
+        final long[] bitmap2 = (long[]) container2;
+        final long[] result = new long[BITMAP_WORDS];
+        for (int i = 0; i < BITMAP_WORDS; ++i) {
+            result[i] = bitmap1[i] & bitmap2[i];
+        }
+        return result;
+    }
+
+    private static Object or(@NotNull final Object container1, @NotNull final Object container2) {
+        if (container1 instanceof char[]) {
+            return container2 instanceof char[] ?
+                    merge((char[]) container1, (char[]) container2) :
+                    setBits((long[]) container2, (char[]) container1);
+        }
+        if (container2 instanceof char[]) {
+            return setBits((long[]) container1, (char[]) container2);
+        }
+        final long[] bitmap1 = (long[]) container1;
+        final long[] bitmap2 = (long[]) container2;
+        final long[] result = new long[BITMAP_WORDS];
+        for (int i = 0; i < BITMAP_WORDS; ++i) {
+            result[i] = bitmap1[i] | bitmap2[i];
+        }
+        return result;
+    }
+
+    private static Object andNot(@NotNull final Object container1, @NotNull final Object container2) {
+        if (container1 instanceof char[]) {
+            return container2 instanceof char[] ?
+                    subtract((char[]) container1, (char[]) container2) :
+                    filter((char[]) container1, (long[]) container2, false);
+        }
+        final long[] result = ((long[]) container1).clone();
+        if (container2 instanceof char[]) {
+            for (final char value : (char[]) container2) {
+                result[value >>> 6] &= ~(1L << value);
+            }
+        } else {
+            final long[] bitmap2 = (long[]) container2;
+            for (int i = 0; i < BITMAP_WORDS; ++i) {
+                result[i] &= ~bitmap2[i];
+            }
+        }
+        return result;
+    }
+
+    private static char[] intersect(@NotNull final char[] values1, @NotNull final char[] values2) {
+        final char[] result = new char[Math.min(values1.length, values2.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < values1.length && j < values2.length) {
+            final char value1 = values1[i];
+            final char value2 = values2[j];
+            if (value1 < value2) {
+                ++i;
+            } else if (value1 > value2) {
+                ++j;
+            } else {
+                result[count++] = value1;
+                ++i;
+                ++j;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static char[] merge(@NotNull final char[] values1, @NotNull final char[] values2) {
+        final char[] result = new char[values1.length + values2.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < values1.length || j < values2.length) {
+            if (j == values2.length || (i < values1.length && values1[i] < values2[j])) {
+                result[count++] = values1[i++];
+            } else if (i == values1.length || values1[i] > values2[j]) {
+                result[count++] = values2[j++];
+            } else {
+                result[count++] = values1[i++];
+                ++j;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static char[] subtract(@NotNull final char[] values1, @NotNull final char[] values2) {
+        final char[] result = new char[values1.length];
+        int count = 0;
+        int j = 0;
+        for (final char value : values1) {
+            while (j < values2.length && values2[j] < value) {
+                ++j;
+            }
+            if (j == values2.length || values2[j] != value) {
+                result[count++] = value;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static char[] filter(@NotNull final char[] values, @NotNull final long[] bitmap, final boolean contained) {
+        final char[] result = new char[values.length];
+        int count = 0;
+        for (final char value : values) {
+            if (containsBit(bitmap, value) == contained) {
+                result[count++] = value;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static long[] setBits(@NotNull final long[] bitmap, @NotNull final char[] values) {
+        final long[] result = bitmap.clone();
+        for (final char value : values) {
+            result[value >>> 6] |= 1L << value;
+        }
+        return result;
+    }
+
+    /**
+     * Collects non-empty containers choosing their proper representation. Containers are never modified once
+     * they are added, so they can be shared by different sets.
+     */
+    private static final class Builder {
+
+        private final int singleTypeId;
+        private long[] keys;
+        private Object[] containers;
+        private int count;
+        private int size;
+
+        private Builder(final int singleTypeId) {
+            this.singleTypeId = singleTypeId;
+            keys = EMPTY_KEYS;
+            containers = EMPTY_CONTAINERS;
+        }
+
+        private void add(final long key, @NotNull Object container) {
+            final int cardinality;
+            if (container instanceof char[]) {
+                final char[] values = (char[]) container;
+                cardinality = values.length;
+                if (cardinality > MAX_ARRAY_CARDINALITY) {
+                    container = toBitmap(values);
+                }
+            } else {
+                final long[] bitmap = (long[]) container;
+                cardinality = cardinality(bitmap);
+                if (cardinality <= MAX_ARRAY_CARDINALITY) {
+                    container = toArray(bitmap, cardinality);
+                }
+            }
+            if (cardinality == 0) {
+                return;
+            }
+            if (count == keys.length) {
+                final int capacity = Math.max(count * 2, 4);
+                keys = Arrays.copyOf(keys, capacity);
+                containers = Arrays.copyOf(containers, capacity);
+            }
+            keys[count] = key;
+            containers[count++] = container;
+            size += cardinality;
+        }
+
+        private RoaringEntityIdSet build() {
+            return new RoaringEntityIdSet(singleTypeId,
+                    count == keys.length ? keys : Arrays.copyOf(keys, count),
+                    count == containers.length ? containers : Arrays.copyOf(containers, count), size);
+        }
+    }
+
+    private final class IdIterator implements Iterator<EntityId> {
+
+        private int containerIndex;
+        // index in array container or the least bit index to look for in bitmap container
+        private int position;
+        private long nextLocalId = -1;
+
+        @Override
+        public boolean hasNext() {
+            if (nextLocalId < 0) {
+                nextLocalId = nextLocalId();
+            }
+            return nextLocalId >= 0;
+        }
+
+        @Override
+        public EntityId next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final long localId = nextLocalId;
+            nextLocalId = -1;
+            return new PersistentEntityId(singleTypeId, localId);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @return next local id, or {@code -1} if there are no more ids
+         */
+        private long nextLocalId() {
+            while (containerIndex < keys.length) {
+                final Object container = containers[containerIndex];
+                final long high = keys[containerIndex] << LOW_BITS;
+                if (container instanceof char[]) {
+                    final char[] values = (char[]) container;
+                    if (position < values.length) {
+                        return high | values[position++];
+                    }
+                } else {
+                    final int bit = nextSetBit((long[]) container, position);
+                    if (bit >= 0) {
+                        position = bit + 1;
+                        return high | bit;
+                    }
+                }
+                ++containerIndex;
+                position = 0;
+            }
+            return -1;
+        }
+    }
+}
@@ -16,8 +16,10 @@
 package jetbrains.exodus.entitystore;
 
 import jetbrains.exodus.TestFor;
+import jetbrains.exodus.entitystore.iterate.CachedInstanceIterable;
 import jetbrains.exodus.entitystore.iterate.EntityIterableBase;
 import jetbrains.exodus.entitystore.iterate.EntityIteratorBase;
+import org.jetbrains.annotations.NotNull;
 import org.junit.Assert;
 
 import java.util.ArrayList;
@@ -222,6 +224,35 @@ public class BinaryOperatorsTests extends EntityStoreTestBase {
         Assert.assertEquals(0, (int) txn.getAll("Issue").minus(txn.find("Issue", "size", 0, 100)).size());
     }
 
+    public void testCachedOperands() {
+        getEntityStore().getConfig().setCachingDisabled(false);
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        final Entity tag = txn.newEntity("Tag");
+        for (int i = 0; i < 1000; ++i) {
+            final Entity issue = txn.newEntity("Issue");
+            if (i % 3 == 0) {
+                issue.setLink("mod3", tag);
+            }
+            if (i % 5 == 0) {
+                issue.setLink("mod5", tag);
+            }
+        }
+        txn.flush();
+        final EntityIterableBase mod3 = (EntityIterableBase) txn.findWithLinks("Issue", "mod3");
+        final EntityIterableBase mod5 = (EntityIterableBase) txn.findWithLinks("Issue", "mod5");
+        // keep cached instances strongly reachable, otherwise they can be collected
+        final CachedInstanceIterable cached3 = mod3.getOrCreateCachedInstance(txn);
+        final CachedInstanceIterable cached5 = mod5.getOrCreateCachedInstance(txn);
+        Assert.assertTrue(mod3.isCached());
+        Assert.assertTrue(mod5.isCached());
+        assertSortedIds(mod3.intersect(mod5), 67);
+        assertSortedIds(mod3.union(mod5), 467);
+        assertSortedIds(mod3.minus(mod5), 267);
+        assertSortedIds(mod5.minus(mod3), 133);
+        Assert.assertEquals(334, cached3.size());
+        Assert.assertEquals(200, cached5.size());
+    }
+
     public void testConcat() {
         final StoreTransaction txn = getStoreTransaction();
         for (int i = 0; i < 100; ++i) {
@@ -271,4 +302,16 @@ public class BinaryOperatorsTests extends EntityStoreTestBase {
         }
         return result;
     }
+
+    private static void assertSortedIds(@NotNull final EntityIterable it, final int expectedCount) {
+        long prevLocalId = -1;
+        int count = 0;
+        for (final Entity entity : it) {
+            final long localId = entity.getId().getLocalId();
+            Assert.assertTrue(localId > prevLocalId);
+            prevLocalId = localId;
+            ++count;
+        }
+        Assert.assertEquals(expectedCount, count);
+    }
 }
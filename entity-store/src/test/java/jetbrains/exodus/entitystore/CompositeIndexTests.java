@@ -0,0 +1,159 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.entitystore;
+
+import jetbrains.exodus.bindings.ComparableSet;
+import jetbrains.exodus.entitystore.tables.CompositeIndex;
+import org.junit.Assert;
+
+public class CompositeIndexTests extends EntityStoreTestBase {
+
+    public void testFindByEqualValues() {
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        createIssues(txn, 100);
+        final CompositeIndex index = getEntityStore().createCompositeIndex(txn, "Issue", "status", "priority", "size");
+        for (int status = 0; status < 3; ++status) {
+            Assert.assertEquals(txn.find("Issue", "status", "S" + status).size(),
+                    txn.findByCompositeIndex(index, new Comparable[]{"s" + status}, null, null).size());
+            for (int priority = 0; priority < 5; ++priority) {
+                Assert.assertEquals(txn.find("Issue", "status", "s" + status).intersect(txn.find("Issue", "priority", priority)).size(),
+                        txn.findByCompositeIndex(index, new Comparable[]{"S" + status, priority}, null, null).size());
+            }
+        }
+        Assert.assertEquals(1, txn.findByCompositeIndex(index, new Comparable[]{"s1", 2, 7}, null, null).size());
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{"s1", 2L}, null, null).size());
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{"s3"}, null, null).size());
+    }
+
+    public void testFindByRange() {
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        createIssues(txn, 100);
+        final CompositeIndex index = getEntityStore().createCompositeIndex(txn, "Issue", "status", "size");
+        Assert.assertEquals(txn.find("Issue", "status", "s0").intersect(txn.find("Issue", "size", 10, 50)).size(),
+                txn.findByCompositeIndex(index, new Comparable[]{"s0"}, 10, 50).size());
+        Assert.assertEquals(txn.find("Issue", "size", 10, 50).size(),
+                txn.findByCompositeIndex(getEntityStore().createCompositeIndex(txn, "Issue", "size", "status"), new Comparable[0], 10, 50).size());
+        for (final Entity issue : txn.findByCompositeIndex(index, new Comparable[]{"s0"}, 10, 50)) {
+            final int size = (Integer) issue.getProperty("size");
+            Assert.assertTrue(size >= 10 && size <= 50);
+        }
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{"s0"}, 10L, 50L).size());
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{"s0"}, 10, 50L).size());
+    }
+
+    public void testMaintenance() {
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        final CompositeIndex index = getEntityStore().createCompositeIndex(txn, "Issue", "status", "priority");
+        final Entity issue = txn.newEntity("Issue");
+        issue.setProperty("status", "Open");
+        Assert.assertEquals(issue, txn.findByCompositeIndex(index, new Comparable[]{"open"}, null, null).getFirst());
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{"open", 1}, null, null).size());
+        issue.setProperty("priority", 1);
+        Assert.assertEquals(issue, txn.findByCompositeIndex(index, new Comparable[]{"open", 1}, null, null).getFirst());
+        Assert.assertEquals(1, txn.findByCompositeIndex(index, new Comparable[]{"open"}, null, null).size());
+        issue.setProperty("status", "Closed");
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{"open"}, null, null).size());
+        Assert.assertEquals(issue, txn.findByCompositeIndex(index, new Comparable[]{"closed", 1}, null, null).getFirst());
+        issue.deleteProperty("priority");
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{"closed", 1}, null, null).size());
+        Assert.assertEquals(1, txn.findByCompositeIndex(index, new Comparable[]{"closed"}, null, null).size());
+        issue.setProperty("priority", 2);
+        Assert.assertEquals(1, txn.findByCompositeIndex(index, new Comparable[]{"closed", 2}, null, null).size());
+        issue.deleteProperty("status");
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{"closed"}, null, null).size());
+        final ComparableSet<String> set = new ComparableSet<>();
+        set.addItem("Open");
+        final Entity another = txn.newEntity("Issue");
+        another.setProperty("status", set);
+        another.setProperty("priority", 2);
+        Assert.assertEquals(another, txn.findByCompositeIndex(index, new Comparable[]{"open"}, null, null).getFirst());
+        issue.setProperty("status", "Open");
+        Assert.assertEquals(2, txn.findByCompositeIndex(index, new Comparable[]{"open", 2}, null, null).size());
+        another.delete();
+        issue.delete();
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{"open"}, null, null).size());
+        txn.flush();
+    }
+
+    public void testSetValues() {
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        final CompositeIndex index = getEntityStore().createCompositeIndex(txn, "Issue", "priority", "tag", "size");
+        final ComparableSet<String> tags = new ComparableSet<>();
+        tags.addItem("Bug");
+        tags.addItem("UI");
+        final Entity issue = txn.newEntity("Issue");
+        issue.setProperty("priority", 1);
+        issue.setProperty("tag", tags);
+        issue.setProperty("size", 10);
+        Assert.assertEquals(1, txn.findByCompositeIndex(index, new Comparable[]{1}, null, null).size());
+        Assert.assertEquals(1, txn.findByCompositeIndex(index, new Comparable[]{1, "bug", 10}, null, null).size());
+        Assert.assertEquals(1, txn.findByCompositeIndex(index, new Comparable[]{1, "ui"}, null, null).size());
+        Assert.assertEquals(1, txn.findByCompositeIndex(index, new Comparable[]{1}, "a", "z").size());
+        tags.removeItem("Bug");
+        issue.setProperty("tag", tags);
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{1, "bug"}, null, null).size());
+        Assert.assertEquals(1, txn.findByCompositeIndex(index, new Comparable[]{1, "ui", 10}, null, null).size());
+        issue.delete();
+        Assert.assertEquals(0, txn.findByCompositeIndex(index, new Comparable[]{1}, null, null).size());
+        txn.flush();
+    }
+
+    public void testReopen() throws Exception {
+        PersistentStoreTransaction txn = getStoreTransaction();
+        CompositeIndex index = getEntityStore().createCompositeIndex(txn, "Issue", "status", "priority");
+        createIssues(txn, 10);
+        txn.flush();
+        reinit();
+        txn = getStoreTransaction();
+        Assert.assertEquals(1, getEntityStore().getCompositeIndices().size());
+        // the index is maintained before it's created again
+        createIssues(txn, 10);
+        index = getEntityStore().createCompositeIndex(txn, "Issue", "status", "priority");
+        Assert.assertEquals(8, txn.findByCompositeIndex(index, new Comparable[]{"s0"}, null, null).size());
+        getEntityStore().deleteCompositeIndex(txn, index);
+        Assert.assertEquals(0, getEntityStore().getCompositeIndices(txn, index.getEntityTypeId()).length);
+        txn.flush();
+        reinit();
+        Assert.assertEquals(0, getEntityStore().getCompositeIndices().size());
+    }
+
+    public void testVisibleAfterCommit() throws Exception {
+        PersistentStoreTransaction txn = getStoreTransaction();
+        createIssues(txn, 10);
+        CompositeIndex index = getEntityStore().createCompositeIndex(txn, "Issue", "status", "priority");
+        Assert.assertEquals(1, getEntityStore().getCompositeIndices(txn, index.getEntityTypeId()).length);
+        Assert.assertEquals(0, getEntityStore().getCompositeIndices(index.getEntityTypeId()).length);
+        txn.revert();
+        Assert.assertEquals(0, getEntityStore().getCompositeIndices(txn, index.getEntityTypeId()).length);
+        index = getEntityStore().createCompositeIndex(txn, "Issue", "status", "priority");
+        txn.flush();
+        Assert.assertEquals(1, getEntityStore().getCompositeIndices(index.getEntityTypeId()).length);
+        reinit();
+        txn = getStoreTransaction();
+        index = getEntityStore().getCompositeIndices(index.getEntityTypeId())[0];
+        Assert.assertEquals(4, txn.findByCompositeIndex(index, new Comparable[]{"s0"}, null, null).size());
+    }
+
+    private static void createIssues(final PersistentStoreTransaction txn, final int count) {
+        for (int i = 0; i < count; ++i) {
+            final Entity issue = txn.newEntity("Issue");
+            issue.setProperty("status", "S" + i % 3);
+            issue.setProperty("priority", i % 5);
+            issue.setProperty("size", i);
+        }
+        txn.flush();
+    }
+}
@@ -18,9 +18,14 @@ package jetbrains.exodus.entitystore;
 import jetbrains.exodus.entitystore.iterate.EntityIdSet;
 import jetbrains.exodus.entitystore.util.EntityIdSetFactory;
 import jetbrains.exodus.entitystore.util.ImmutableSingleTypeEntityIdBitSet;
+import jetbrains.exodus.entitystore.util.RoaringEntityIdSet;
+import org.jetbrains.annotations.NotNull;
 import org.junit.Assert;
 
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
 
 public class EntityIdSetTest extends EntityStoreTestBase {
 
@@ -81,6 +86,89 @@ public class EntityIdSetTest extends EntityStoreTestBase {
         checkSet(4147483647L, 4147483648L, 4147483649L);
     }
 
+    public void testRoaringSet() {
+        checkRoaringSet(0, 2, 7, 11, 55, 78);
+        checkRoaringSet(4, 65535, 65536, 65537, 131072, 260);
+        checkRoaringSet(4147483647L, 4147483648L, 4147483649L);
+        final long[] dense = new long[70000];
+        for (int i = 0; i < dense.length; ++i) {
+            dense[i] = i * 2;
+        }
+        checkRoaringSet(dense);
+    }
+
+    public void testRoaringSetOperations() {
+        final Random random = new Random(239);
+        for (int i = 0; i < 20; ++i) {
+            // mix sparse and dense chunks
+            final long[] data1 = randomIds(random, 1 + random.nextInt(20000), 1 << (10 + random.nextInt(10)));
+            final long[] data2 = randomIds(random, 1 + random.nextInt(20000), 1 << (10 + random.nextInt(10)));
+            final RoaringEntityIdSet set1 = new RoaringEntityIdSet(7, data1);
+            final RoaringEntityIdSet set2 = new RoaringEntityIdSet(7, data2);
+            final TreeSet<Long> and = toTreeSet(data1);
+            and.retainAll(toTreeSet(data2));
+            final TreeSet<Long> or = toTreeSet(data1);
+            or.addAll(toTreeSet(data2));
+            final TreeSet<Long> andNot = toTreeSet(data1);
+            andNot.removeAll(toTreeSet(data2));
+            assertRoaringSetEquals(and, set1.and(set2));
+            assertRoaringSetEquals(or, set1.or(set2));
+            assertRoaringSetEquals(andNot, set1.andNot(set2));
+        }
+        final RoaringEntityIdSet set = new RoaringEntityIdSet(7, new long[]{1, 2, 3});
+        final RoaringEntityIdSet otherType = new RoaringEntityIdSet(8, new long[]{1, 2, 3});
+        assertEquals(0, set.and(otherType).count());
+        assertEquals(3, set.andNot(otherType).count());
+    }
+
+    private void checkRoaringSet(long... data) {
+        Arrays.sort(data);
+        final int typeId = 7;
+        final RoaringEntityIdSet set = new RoaringEntityIdSet(typeId, data);
+        assertEquals(data.length, set.count());
+        for (final long value : data) {
+            assertTrue(set.contains(typeId, value));
+            assertTrue(set.contains(new PersistentEntityId(typeId, value)));
+            assertFalse(set.contains(typeId, value + 1) && Arrays.binarySearch(data, value + 1) < 0);
+            assertFalse(set.contains(3, value));
+        }
+        assertFalse(set.contains(null));
+        final long[] actualData = new long[data.length];
+        int i = 0;
+        for (final EntityId id : set) {
+            assertEquals(typeId, id.getTypeId());
+            actualData[i++] = id.getLocalId();
+        }
+        Assert.assertArrayEquals(data, actualData);
+        assertEquals(data.length, set.getTypeSetSnapshot(typeId).size());
+    }
+
+    private static long[] randomIds(@NotNull final Random random, final int count, final int range) {
+        final long[] result = new long[count];
+        for (int i = 0; i < count; ++i) {
+            result[i] = random.nextInt(range);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static TreeSet<Long> toTreeSet(@NotNull final long[] data) {
+        final TreeSet<Long> result = new TreeSet<>();
+        for (final long value : data) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    private static void assertRoaringSetEquals(@NotNull final TreeSet<Long> expected, @NotNull final RoaringEntityIdSet actual) {
+        assertEquals(expected.size(), actual.count());
+        final Iterator<Long> it = expected.iterator();
+        for (final EntityId id : actual) {
+            assertEquals(it.next().longValue(), id.getLocalId());
+        }
+        assertFalse(it.hasNext());
+    }
+
     private void checkSet(long... data) {
         Arrays.sort(data);
         final int typeId = 7;
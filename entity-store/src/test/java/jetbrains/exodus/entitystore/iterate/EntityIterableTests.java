@@ -17,6 +17,7 @@ package jetbrains.exodus.entitystore.iterate;
 
 import jetbrains.exodus.TestFor;
 import jetbrains.exodus.entitystore.*;
+import jetbrains.exodus.env.Environments;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Assert;
 
@@ -516,6 +517,151 @@ public class EntityIterableTests extends EntityStoreTestBase {
         });
     }
 
+    public void testParallelInstantiation() throws Exception {
+        final PersistentEntityStoreConfig config = new PersistentEntityStoreConfig()
+                .setEntityIterableCacheThreadCount(2)
+                .setEntityIterableCacheParallelInstantiation(true);
+        final String location = initTempFolder();
+        final PersistentEntityStoreImpl store = PersistentEntityStores.newInstance(config,
+                Environments.newInstance(location), "persistentEntityStore");
+        try {
+            store.executeInTransaction(new StoreTransactionalExecutable() {
+                @Override
+                public void execute(@NotNull final StoreTransaction txn) {
+                    final Entity tag = txn.newEntity("Tag");
+                    for (int i = 0; i < 1000; ++i) {
+                        final Entity user = txn.newEntity("User");
+                        if (i % 2 == 0) {
+                            user.setLink("mod2", tag);
+                        }
+                        if (i % 3 == 0) {
+                            user.setLink("mod3", tag);
+                        }
+                        if (i % 5 == 0) {
+                            user.setLink("mod5", tag);
+                        }
+                    }
+                }
+            });
+            final PersistentStoreTransaction txn = store.beginReadonlyTransaction();
+            try {
+                // (mod2 & mod3) | (all - mod5)
+                final EntityIterableBase users = (EntityIterableBase) txn.findWithLinks("User", "mod2").intersect(
+                        txn.findWithLinks("User", "mod3")).union(txn.getAll("User").minus(txn.findWithLinks("User", "mod5")));
+                while (!store.getEntityIterableCache().putIfNotCached(users).isCachedInstance()) {
+                    Thread.sleep(100);
+                }
+                Assert.assertTrue(((EntityIterableBase) txn.findWithLinks("User", "mod2")).isCached());
+                Assert.assertTrue(((EntityIterableBase) txn.getAll("User").minus(txn.findWithLinks("User", "mod5"))).isCached());
+                int count = 0;
+                for (final Entity user : users) {
+                    final long i = user.getId().getLocalId();
+                    Assert.assertTrue(i % 6 == 0 || i % 5 != 0);
+                    ++count;
+                }
+                Assert.assertEquals(834, count);
+            } finally {
+                txn.abort();
+            }
+        } finally {
+            store.close();
+            cleanUp(location);
+        }
+    }
+
+    public void testPersistentCache() throws Exception {
+        final PersistentEntityStoreConfig config = new PersistentEntityStoreConfig().setEntityIterableCachePersistent(true);
+        final String location = initTempFolder();
+        try {
+            PersistentEntityStoreImpl store = PersistentEntityStores.newInstance(config,
+                    Environments.newInstance(location), "persistentEntityStore");
+            store.executeInTransaction(new StoreTransactionalExecutable() {
+                @Override
+                public void execute(@NotNull final StoreTransaction txn) {
+                    final Entity tag = txn.newEntity("Tag");
+                    for (int i = 0; i < 100; ++i) {
+                        final Entity user = txn.newEntity("User");
+                        if (i % 2 == 0) {
+                            user.setLink("mod2", tag);
+                        }
+                        if (i % 3 == 0) {
+                            user.setLink("mod3", tag);
+                        }
+                    }
+                }
+            });
+            PersistentStoreTransaction txn = store.beginReadonlyTransaction();
+            try {
+                for (final String linkName : new String[]{"mod2", "mod3"}) {
+                    while (!store.getEntityIterableCache().putIfNotCached((EntityIterableBase) txn.findWithLinks("User", linkName)).isCachedInstance()) {
+                        Thread.sleep(100);
+                    }
+                }
+            } finally {
+                txn.abort();
+            }
+            store.close();
+
+            store = PersistentEntityStores.newInstance(config, Environments.newInstance(location), "persistentEntityStore");
+            store.executeInTransaction(new StoreTransactionalExecutable() {
+                @Override
+                public void execute(@NotNull final StoreTransaction txn) {
+                    txn.getAll("User").skip(1).getFirst().setLink("mod3", txn.getAll("Tag").getFirst());
+                }
+            });
+            txn = store.beginReadonlyTransaction();
+            try {
+                final EntityIterableBase mod2 = store.getEntityIterableCache().putIfNotCached((EntityIterableBase) txn.findWithLinks("User", "mod2"));
+                Assert.assertTrue(mod2.isCachedInstance());
+                Assert.assertEquals(50, mod2.size());
+                for (final Entity user : mod2) {
+                    Assert.assertEquals(0, user.getId().getLocalId() % 2);
+                }
+                // mod3 is invalidated by the change
+                final EntityIterableBase mod3 = store.getEntityIterableCache().putIfNotCached((EntityIterableBase) txn.findWithLinks("User", "mod3"));
+                Assert.assertFalse(mod3.isCachedInstance());
+                Assert.assertEquals(35, mod3.size());
+            } finally {
+                txn.abort();
+            }
+            store.close();
+
+            store = PersistentEntityStores.newInstance(config, Environments.newInstance(location), "persistentEntityStore");
+            txn = store.beginReadonlyTransaction();
+            try {
+                Assert.assertTrue(store.getEntityIterableCache().putIfNotCached((EntityIterableBase) txn.findWithLinks("User", "mod2")).isCachedInstance());
+                Assert.assertEquals(35, txn.findWithLinks("User", "mod3").size());
+            } finally {
+                txn.abort();
+            }
+            store.close();
+
+            // changes made with persistent cache off discard saved instances
+            store = PersistentEntityStores.newInstance(new PersistentEntityStoreConfig().setEntityIterableCachePersistent(false),
+                    Environments.newInstance(location), "persistentEntityStore");
+            store.executeInTransaction(new StoreTransactionalExecutable() {
+                @Override
+                public void execute(@NotNull final StoreTransaction txn) {
+                    txn.getAll("User").skip(1).getFirst().setLink("mod2", txn.getAll("Tag").getFirst());
+                }
+            });
+            store.close();
+
+            store = PersistentEntityStores.newInstance(config, Environments.newInstance(location), "persistentEntityStore");
+            txn = store.beginReadonlyTransaction();
+            try {
+                final EntityIterableBase mod2 = store.getEntityIterableCache().putIfNotCached((EntityIterableBase) txn.findWithLinks("User", "mod2"));
+                Assert.assertFalse(mod2.isCachedInstance());
+                Assert.assertEquals(51, mod2.size());
+            } finally {
+                txn.abort();
+            }
+            store.close();
+        } finally {
+            cleanUp(location);
+        }
+    }
+
     /**
      * Should fail with OOME being run in JVM with Xmx256m without fix of XD-458
      */
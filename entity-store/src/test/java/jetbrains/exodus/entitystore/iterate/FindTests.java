@@ -580,4 +580,44 @@ public class FindTests extends EntityStoreTestBase {
         issue.setProperty("summary", "summary");
         Assert.assertEquals(1L, txn.findStartingWith("Issue", "summary", "summary").size());
     }
+
+    public void testFilterByPropertyValue() {
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        for (int i = 0; i < 100; ++i) {
+            final Entity issue = txn.newEntity("Issue");
+            issue.setProperty("size", i % 10);
+            issue.setProperty("summary", i % 2 == 0 ? "Even" : "odd");
+            if (i % 5 == 0) {
+                final ComparableSet<String> set = new ComparableSet<>();
+                set.addItem("Eugene");
+                set.addItem(Integer.toString(i));
+                issue.setProperty("commenters", set);
+            }
+            txn.newEntity("User").setProperty("size", i % 10);
+        }
+        txn.flush();
+        final EntityIterableBase all = (EntityIterableBase) txn.getAll("Issue");
+        assertEntitiesEqual(txn.find("Issue", "size", 3), all.filterByPropertyValue("Issue", "size", 3));
+        assertEntitiesEqual(txn.find("Issue", "summary", "even"), all.filterByPropertyValue("Issue", "summary", "EVEN"));
+        assertEntitiesEqual(txn.find("Issue", "commenters", "eugene"), all.filterByPropertyValue("Issue", "commenters", "eugene"));
+        assertEntitiesEqual(txn.find("Issue", "commenters", "15"), all.filterByPropertyValue("Issue", "commenters", "15"));
+        Assert.assertEquals(0, all.filterByPropertyValue("Issue", "size", "3").size());
+        Assert.assertEquals(0, all.filterByPropertyValue("Issue", "unknown", 3).size());
+        Assert.assertEquals(0, ((EntityIterableBase) txn.getAll("User")).filterByPropertyValue("Issue", "size", 3).size());
+        final EntityIterableBase odd = (EntityIterableBase) txn.find("Issue", "summary", "odd");
+        assertEntitiesEqual(txn.find("Issue", "size", 3), odd.filterByPropertyValue("Issue", "size", 3));
+        Assert.assertEquals(0, odd.filterByPropertyValue("Issue", "size", 4).size());
+    }
+
+    private static void assertEntitiesEqual(@NotNull final EntityIterable expected, @NotNull final EntityIterable actual) {
+        final List<Entity> expectedList = new ArrayList<>();
+        for (final Entity entity : expected) {
+            expectedList.add(entity);
+        }
+        final List<Entity> actualList = new ArrayList<>();
+        for (final Entity entity : actual) {
+            actualList.add(entity);
+        }
+        Assert.assertEquals(expectedList, actualList);
+    }
 }
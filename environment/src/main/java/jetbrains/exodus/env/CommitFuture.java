@@ -0,0 +1,126 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.ExodusException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Result of {@linkplain Transaction#commitAsync()}. Is done when the transaction is durable, i.e. its data is
+ * synced up to {@linkplain #getHighAddress()}, or if the transaction is not committed. The commit can't be cancelled.
+ */
+final class CommitFuture implements Future<Boolean> {
+
+    private final long highAddress;
+    @Nullable
+    private final Runnable onDurable;
+    private boolean done;
+    private boolean result;
+    @Nullable
+    private Throwable error;
+
+    CommitFuture(final long highAddress, @Nullable final Runnable onDurable) {
+        this.highAddress = highAddress;
+        this.onDurable = onDurable;
+    }
+
+    /**
+     * @return high address of the log which the log should be synced up to in order to complete the future
+     */
+    long getHighAddress() {
+        return highAddress;
+    }
+
+    void complete() {
+        try {
+            if (onDurable != null) {
+                onDurable.run();
+            }
+        } finally {
+            setDone(true, null);
+        }
+    }
+
+    void fail(@NotNull final Throwable t) {
+        setDone(false, t);
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public synchronized Boolean get() throws InterruptedException, ExecutionException {
+        while (!done) {
+            wait();
+        }
+        return getResult();
+    }
+
+    @Override
+    public synchronized Boolean get(final long timeout, @NotNull final TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!done) {
+            final long millisToWait = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (millisToWait <= 0) {
+                throw new TimeoutException();
+            }
+            wait(millisToWait);
+        }
+        return getResult();
+    }
+
+    static CommitFuture completed(final boolean result) {
+        final CommitFuture future = new CommitFuture(0, null);
+        future.setDone(result, null);
+        return future;
+    }
+
+    private synchronized void setDone(final boolean result, @Nullable final Throwable error) {
+        if (done) {
+            throw new ExodusException("Commit is already done");
+        }
+        this.result = result;
+        this.error = error;
+        done = true;
+        notifyAll();
+    }
+
+    private Boolean getResult() throws ExecutionException {
+        if (error != null) {
+            throw new ExecutionException(error);
+        }
+        return result;
+    }
+}
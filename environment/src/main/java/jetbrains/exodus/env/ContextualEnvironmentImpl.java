@@ -29,7 +29,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class ContextualEnvironmentImpl extends EnvironmentImpl implements ContextualEnvironment {
 
-    private final Map<Thread, Deque<TransactionBase>> threadTxns = new ConcurrentHashMap<>(4, 0.75f, 4);
+    private final Map<TransactionContext, Deque<TransactionBase>> contextTxns = new ConcurrentHashMap<>(4, 0.75f, 4);
 
     ContextualEnvironmentImpl(@NotNull Log log, @NotNull EnvironmentConfig ec) {
         super(log, ec);
@@ -38,8 +38,7 @@ public class ContextualEnvironmentImpl extends EnvironmentImpl implements Contex
     @Override
     @Nullable
     public TransactionBase getCurrentTransaction() {
-        final Thread thread = Thread.currentThread();
-        final Deque<TransactionBase> stack = threadTxns.get(thread);
+        final Deque<TransactionBase> stack = contextTxns.get(TransactionContext.current());
         return stack == null ? null : stack.peek();
     }
 
@@ -48,7 +47,7 @@ public class ContextualEnvironmentImpl extends EnvironmentImpl implements Contex
     public Transaction getAndCheckCurrentTransaction() {
         final Transaction txn = getCurrentTransaction();
         if (txn == null) {
-            throw new IllegalStateException("No transaction started in current thread");
+            throw new IllegalStateException("No transaction started in current context");
         }
         return txn;
     }
@@ -164,23 +163,22 @@ public class ContextualEnvironmentImpl extends EnvironmentImpl implements Contex
     }
 
     private void setCurrentTransaction(@NotNull final TransactionBase result) {
-        final Thread thread = result.getCreatingThread();
-        Deque<TransactionBase> stack = threadTxns.get(thread);
+        final TransactionContext context = result.getContext();
+        Deque<TransactionBase> stack = contextTxns.get(context);
         if (stack == null) {
             stack = new ArrayDeque<>(4);
-            threadTxns.put(thread, stack);
+            contextTxns.put(context, stack);
         }
         stack.push(result);
     }
 
     @Override
     protected void finishTransaction(@NotNull final TransactionBase txn) {
-        final Thread thread = txn.getCreatingThread();
-        // logging.info("finished txn " + System.identityHashCode(txn) + " in thread " + thread.getName(), new Throwable());
-        if (!Thread.currentThread().equals(thread)) {
-            throw new ExodusException("Can't finish transaction in a thread different from the one which it was created in");
+        final TransactionContext context = txn.getContext();
+        if (TransactionContext.current() != context) {
+            throw new ExodusException("Can't finish transaction in a context different from the one which it was created in");
         }
-        final Deque<TransactionBase> stack = threadTxns.get(thread);
+        final Deque<TransactionBase> stack = contextTxns.get(context);
         if (stack == null) {
             throw new ExodusException("Transaction was already finished");
         }
@@ -189,7 +187,7 @@ public class ContextualEnvironmentImpl extends EnvironmentImpl implements Contex
         }
         stack.pop();
         if (stack.isEmpty()) {
-            threadTxns.remove(thread);
+            contextTxns.remove(context);
         }
         super.finishTransaction(txn);
     }
@@ -41,6 +41,11 @@ public class ContextualStoreImpl extends StoreImpl implements ContextualStore {
         return get(environment.getAndCheckCurrentTransaction(), key);
     }
 
+    @NotNull
+    public ByteIterable[] getAll(@NotNull final ByteIterable[] sortedKeys) {
+        return getAll(environment.getAndCheckCurrentTransaction(), sortedKeys);
+    }
+
     public boolean exists(@NotNull final ByteIterable key, @NotNull final ByteIterable value) {
         return exists(environment.getAndCheckCurrentTransaction(), key, value);
     }
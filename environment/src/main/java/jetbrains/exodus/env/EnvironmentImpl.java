@@ -15,6 +15,7 @@
  */
 package jetbrains.exodus.env;
 
+import jetbrains.exodus.ByteIterable;
 import jetbrains.exodus.ConfigSettingChangeListener;
 import jetbrains.exodus.ExodusException;
 import jetbrains.exodus.backup.BackupStrategy;
@@ -23,9 +24,12 @@ import jetbrains.exodus.core.dataStructures.Pair;
 import jetbrains.exodus.gc.GarbageCollector;
 import jetbrains.exodus.gc.UtilizationProfile;
 import jetbrains.exodus.log.*;
+import jetbrains.exodus.tree.ITreeMutable;
 import jetbrains.exodus.tree.TreeMetaInfo;
 import jetbrains.exodus.tree.btree.BTree;
 import jetbrains.exodus.tree.btree.BTreeBalancePolicy;
+import jetbrains.exodus.tree.btree.BTreeBase;
+import jetbrains.exodus.tree.btree.BTreeBulkLoadMutable;
 import jetbrains.exodus.util.DeferredIO;
 import jetbrains.exodus.util.IOUtil;
 import org.jetbrains.annotations.NotNull;
@@ -62,6 +66,10 @@ public class EnvironmentImpl implements Environment {
     private final LinkedList<RunnableWithTxnRoot> txnSafeTasks;
     @Nullable
     private StoreGetCache storeGetCache;
+    private volatile int mappedValueMinLength;
+    @NotNull
+    private final GroupCommit groupCommit;
+    private final boolean isGroupCommit;
     private final EnvironmentSettingsListener envSettingsListener;
     private final GarbageCollector gc;
     private final Object commitLock = new Object();
@@ -98,10 +106,13 @@ public class EnvironmentImpl implements Environment {
         txns = new TransactionSet();
         txnSafeTasks = new LinkedList<>();
         invalidateStoreGetCache();
+        mappedValueMinLength = ec.getEnvMappedValueMinLength();
         envSettingsListener = new EnvironmentSettingsListener();
         ec.addChangedSettingsListener(envSettingsListener);
 
         gc = new GarbageCollector(this);
+        groupCommit = new GroupCommit(this);
+        isGroupCommit = ec.getEnvGroupCommit();
 
         txnDispatcher = new ReentrantTransactionDispatcher(ec.getEnvMaxParallelTxns());
         roTxnDispatcher = new ReentrantTransactionDispatcher(ec.getEnvMaxParallelReadonlyTxns());
@@ -286,9 +297,9 @@ public class EnvironmentImpl implements Environment {
 
     @Override
     public void clear() {
-        final Thread currentThread = Thread.currentThread();
-        if (txnDispatcher.getThreadPermits(currentThread) != 0 || roTxnDispatcher.getThreadPermits(currentThread) != 0) {
-            throw new ExodusException("Environment.clear() can't proceed if there is a transaction in current thread");
+        final TransactionContext context = TransactionContext.current();
+        if (txnDispatcher.getContextPermits(context) != 0 || roTxnDispatcher.getContextPermits(context) != 0) {
+            throw new ExodusException("Environment.clear() can't proceed if there is a transaction in current context");
         }
         runAllTransactionSafeTasks();
         synchronized (txnSafeTasks) {
@@ -296,9 +307,9 @@ public class EnvironmentImpl implements Environment {
         }
         suspendGC();
         try {
-            final int permits = txnDispatcher.acquireExclusiveTransaction(currentThread);// wait for and stop all writing transactions
+            final int permits = txnDispatcher.acquireExclusiveTransaction(context);// wait for and stop all writing transactions
             try {
-                final int roPermits = roTxnDispatcher.acquireExclusiveTransaction(currentThread);// wait for and stop all read-only transactions
+                final int roPermits = roTxnDispatcher.acquireExclusiveTransaction(context);// wait for and stop all read-only transactions
                 try {
                     synchronized (commitLock) {
                         synchronized (metaLock) {
@@ -309,13 +320,14 @@ public class EnvironmentImpl implements Environment {
                             final Pair<MetaTree, Integer> meta = MetaTree.create(this);
                             metaTree = meta.getFirst();
                             structureId.set(meta.getSecond());
+                            groupCommit.reset(log.getHighAddress());
                         }
                     }
                 } finally {
-                    roTxnDispatcher.releaseTransaction(currentThread, roPermits);
+                    roTxnDispatcher.releaseTransaction(context, roPermits);
                 }
             } finally {
-                txnDispatcher.releaseTransaction(currentThread, permits);
+                txnDispatcher.releaseTransaction(context, permits);
             }
         } finally {
             resumeGC();
@@ -341,6 +353,8 @@ public class EnvironmentImpl implements Environment {
         // in order to avoid deadlock, do not finish gc inside lock
         // it is safe to invoke gc.finish() several times
         gc.finish();
+        // wait for asynchronously committed transactions to be synced
+        groupCommit.finish();
         final float logCacheHitRate;
         final float storeGetCacheHitRate;
         synchronized (commitLock) {
@@ -414,6 +428,35 @@ public class EnvironmentImpl implements Environment {
         t.storeRemoved(store);
     }
 
+    @Override
+    public void bulkLoad(@NotNull final String storeName,
+                         @NotNull final StoreConfig config,
+                         @NotNull final Iterator<Pair<ByteIterable, ByteIterable>> sortedPairs) {
+        executeInExclusiveTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                final ReadWriteTransaction t = (ReadWriteTransaction) txn;
+                StoreImpl store = openStore(storeName, config, t);
+                if (!store.isNew(t)) {
+                    truncateStore(storeName, t);
+                    store = openStore(storeName, StoreConfig.USE_EXISTING, t);
+                }
+                final TreeMetaInfo metaInfo = store.getMetaInfo();
+                if (metaInfo.hasDuplicates() || metaInfo.isKeyPrefixing()) {
+                    final ITreeMutable tree = t.getMutableTree(store);
+                    while (sortedPairs.hasNext()) {
+                        final Pair<ByteIterable, ByteIterable> pair = sortedPairs.next();
+                        tree.putRight(pair.getFirst(), pair.getSecond());
+                    }
+                } else {
+                    // the tree is written on commit
+                    final BTreeBase emptyTree = (BTreeBase) store.openImmutableTree(t.getMetaTree());
+                    t.setMutableTree(store, new BTreeBulkLoadMutable(emptyTree, sortedPairs));
+                }
+            }
+        });
+    }
+
     @Override
     @NotNull
     public List<String> getAllStoreNames(@NotNull final Transaction txn) {
@@ -448,7 +491,7 @@ public class EnvironmentImpl implements Environment {
     public BTreeBalancePolicy getBTreeBalancePolicy() {
         // we don't care of possible race condition here
         if (balancePolicy == null) {
-            balancePolicy = new BTreeBalancePolicy(ec.getTreeMaxPageSize());
+            balancePolicy = new BTreeBalancePolicy(ec.getTreeMaxPageSize(), ec.getTreeKeyPrefixLength());
         }
         return balancePolicy;
     }
@@ -542,7 +585,28 @@ public class EnvironmentImpl implements Environment {
         return false;
     }
 
+    @NotNull
+    CommitFuture commitTransactionAsync(@NotNull final ReadWriteTransaction txn) {
+        final CommitFuture[] result = new CommitFuture[1];
+        if (flushTransaction(txn, false, result)) {
+            finishTransaction(txn);
+            // if the transaction was idempotent or not durable, the result is completed immediately
+            return result[0] == null ? CommitFuture.completed(true) : result[0];
+        }
+        return CommitFuture.completed(false);
+    }
+
     boolean flushTransaction(@NotNull final ReadWriteTransaction txn, final boolean forceCommit) {
+        return flushTransaction(txn, forceCommit, null);
+    }
+
+    /**
+     * @param asyncResult if not null, the transaction doesn't wait for sync of the log and its result is set to the
+     *                    future which is done when the transaction is durable
+     */
+    private boolean flushTransaction(@NotNull final ReadWriteTransaction txn,
+                                     final boolean forceCommit,
+                                     @Nullable final CommitFuture[] asyncResult) {
         checkIfTransactionCreatedAgainstThis(txn);
 
         if (!forceCommit && txn.isIdempotent()) {
@@ -553,12 +617,18 @@ public class EnvironmentImpl implements Environment {
         final long initialHighAddress;
         final long resultingHighAddress;
         final boolean isGcTransaction = txn.isGCTransaction();
+        final boolean syncInGroup;
 
         boolean wasUpSaved = false;
+        long[] upSavedFiles = null;
         final UtilizationProfile up = gc.getUtilizationProfile();
-        if (!isGcTransaction && up.isDirty()) {
-            up.save(txn);
-            wasUpSaved = true;
+        if (!isGcTransaction) {
+            if (up.isDirty()) {
+                up.save(txn);
+                wasUpSaved = true;
+            } else if (ec.getGcUtilizationIncremental()) {
+                upSavedFiles = up.saveChangedFiles(txn);
+            }
         }
 
         synchronized (commitLock) {
@@ -568,6 +638,9 @@ public class EnvironmentImpl implements Environment {
             checkIsOperative();
             if (!txn.checkVersion(metaTree.root)) {
                 // meta lock not needed 'cause write can only occur in another commit lock
+                if (upSavedFiles != null) {
+                    up.changedFilesNotSaved(upSavedFiles);
+                }
                 return false;
             }
             if (wasUpSaved) {
@@ -575,6 +648,7 @@ public class EnvironmentImpl implements Environment {
             }
             final LogConfig config = log.getConfig();
             config.setFsyncSuppressed(isGcTransaction);
+            syncInGroup = (isGroupCommit || asyncResult != null) && !isGcTransaction && config.isDurableWrite();
             try {
                 initialHighAddress = log.getHighAddress();
                 try {
@@ -583,7 +657,12 @@ public class EnvironmentImpl implements Environment {
                     // there is a temptation to postpone I/O in order to reduce number of writes to storage device,
                     // but it's quite difficult to resolve all possible inconsistencies afterwards,
                     // so think twice before removing the following line
-                    log.flush();
+                    if (syncInGroup) {
+                        // fsync is performed by GroupCommit on behalf of all concurrently flushed transactions
+                        log.flushWithoutSync();
+                    } else {
+                        log.flush();
+                    }
                     synchronized (metaLock) {
                         txn.setMetaTree(metaTree = tree[0]);
                         txn.executeCommitHook();
@@ -591,6 +670,9 @@ public class EnvironmentImpl implements Environment {
                     resultingHighAddress = log.approveHighAddress();
                 } catch (Throwable t) { // pokemon exception handling to decrease try/catch block overhead
                     loggerError("Failed to flush transaction", t);
+                    if (upSavedFiles != null) {
+                        up.changedFilesNotSaved(upSavedFiles);
+                    }
                     try {
                         log.setHighAddress(initialHighAddress);
                         //log.approveHighAddress();
@@ -605,7 +687,23 @@ public class EnvironmentImpl implements Environment {
                 config.setFsyncSuppressed(false);
             }
         }
-        gc.fetchExpiredLoggables(new ExpiredLoggableIterable(expiredLoggables));
+        if (syncInGroup && asyncResult != null) {
+            // expired loggables are fetched only after the transaction is durable
+            final CommitFuture future = new CommitFuture(resultingHighAddress, new Runnable() {
+                @Override
+                public void run() {
+                    gc.fetchExpiredLoggables(new ExpiredLoggableIterable(expiredLoggables));
+                }
+            });
+            asyncResult[0] = future;
+            groupCommit.syncAsync(future);
+        } else {
+            if (syncInGroup) {
+                // the transaction is acknowledged only after its data is synced
+                groupCommit.waitForSync(resultingHighAddress);
+            }
+            gc.fetchExpiredLoggables(new ExpiredLoggableIterable(expiredLoggables));
+        }
 
         // update statistics
         statistics.getStatisticsItem(BYTES_WRITTEN).setTotal(resultingHighAddress);
@@ -617,6 +715,45 @@ public class EnvironmentImpl implements Environment {
         return true;
     }
 
+    /**
+     * Syncs the log on behalf of transactions committed in group. Buffered data is flushed in commit lock,
+     * whereas fsync is performed outside of it, so next transactions can be flushed while it's in progress.
+     *
+     * @return high address of the log which the log is synced up to
+     */
+    long syncGroupCommit() {
+        final long highAddress;
+        synchronized (commitLock) {
+            checkIsOperative();
+            try {
+                log.flushWithoutSync();
+            } catch (Throwable t) {
+                throw groupCommitFailed(t);
+            }
+            highAddress = log.getHighAddress();
+        }
+        try {
+            log.syncFlushed();
+        } catch (Throwable t) {
+            throw groupCommitFailed(t);
+        }
+        return highAddress;
+    }
+
+    /**
+     * Transactions are already visible, so failure to sync makes the environment inoperative.
+     */
+    private RuntimeException groupCommitFailed(@NotNull final Throwable t) {
+        throwableOnCommit = t;
+        loggerError("Failed to sync log on group commit", t);
+        return ExodusException.toExodusException(t, "Failed to sync log on group commit");
+    }
+
+    @NotNull
+    GroupCommit getGroupCommit() {
+        return groupCommit;
+    }
+
     MetaTree holdNewestSnapshotBy(@NotNull final TransactionBase txn) {
         return holdNewestSnapshotBy(txn, true);
     }
@@ -756,6 +893,10 @@ public class EnvironmentImpl implements Environment {
         return storeGetCache;
     }
 
+    int getMappedValueMinLength() {
+        return mappedValueMinLength;
+    }
+
     void forEachActiveTransaction(@NotNull final TransactionalExecutable executable) {
         for (final Transaction txn : txns) {
             executable.execute(txn);
@@ -765,6 +906,7 @@ public class EnvironmentImpl implements Environment {
     void setHighAddress(final long highAddress) {
         synchronized (commitLock) {
             log.setHighAddress(highAddress);
+            groupCommit.reset(highAddress);
             final Pair<MetaTree, Integer> meta = MetaTree.create(this);
             synchronized (metaLock) {
                 metaTree = meta.getFirst();
@@ -896,8 +1038,10 @@ public class EnvironmentImpl implements Environment {
     }
 
     private void invalidateStoreGetCache() {
-        final int storeGetCacheSize = ec.getEnvStoreGetCacheSize();
-        storeGetCache = storeGetCacheSize == 0 ? null : new StoreGetCache(storeGetCacheSize);
+        final int memoryUsage = ec.getEnvStoreGetCacheMemoryUsage();
+        final int storeGetCacheSize = memoryUsage == 0 ? ec.getEnvStoreGetCacheSize() : memoryUsage;
+        storeGetCache = storeGetCacheSize == 0 ? null : new StoreGetCache(storeGetCacheSize,
+            memoryUsage != 0, ec.getEnvStoreGetCacheMaxValueSize(), ec.getEnvStoreGetCacheStores());
     }
 
     private static void applyEnvironmentSettings(@NotNull final String location,
@@ -985,8 +1129,13 @@ public class EnvironmentImpl implements Environment {
 
         @Override
         public void afterSettingChanged(@NotNull String key, @NotNull Object value, @NotNull Map<String, Object> context) {
-            if (key.equals(EnvironmentConfig.ENV_STOREGET_CACHE_SIZE)) {
+            if (key.equals(EnvironmentConfig.ENV_STOREGET_CACHE_SIZE) ||
+                key.equals(EnvironmentConfig.ENV_STOREGET_CACHE_MEMORY_USAGE) ||
+                key.equals(EnvironmentConfig.ENV_STOREGET_CACHE_MAX_VALUE_SIZE) ||
+                key.equals(EnvironmentConfig.ENV_STOREGET_CACHE_STORES)) {
                 invalidateStoreGetCache();
+            } else if (key.equals(EnvironmentConfig.ENV_MAPPED_VALUE_MIN_LENGTH)) {
+                mappedValueMinLength = ec.getEnvMappedValueMinLength();
             } else if (key.equals(EnvironmentConfig.LOG_SYNC_PERIOD)) {
                 log.getConfig().setSyncPeriod(ec.getLogSyncPeriod());
             } else if (key.equals(EnvironmentConfig.LOG_DURABLE_WRITE)) {
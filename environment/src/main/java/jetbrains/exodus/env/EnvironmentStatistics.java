@@ -37,6 +37,7 @@ public class EnvironmentStatistics extends Statistics<EnvironmentStatistics.Type
         DISK_USAGE("Disk usage"),
         UTILIZATION_PERCENT("Utilization percent"),
         LOG_CACHE_HIT_RATE("Log cache hit rate"),
+        LOG_CACHE_ADMISSION_REJECTS("Log cache admission rejects"),
         STORE_GET_CACHE_HIT_RATE("StoreGet cache hit rate");
 
         public final String id;
@@ -46,6 +47,8 @@ public class EnvironmentStatistics extends Statistics<EnvironmentStatistics.Type
         }
     }
 
+    private static final String STORE_GET_CACHE_HIT_RATE_PREFIX = Type.STORE_GET_CACHE_HIT_RATE.id + ": ";
+
     private static final int DISK_USAGE_FREQ = 10000; // calculate disk usage not more often than each 10 seconds
 
     @NotNull
@@ -85,6 +88,27 @@ public class EnvironmentStatistics extends Statistics<EnvironmentStatistics.Type
         return super.getStatisticsItem(statisticsName);
     }
 
+    /**
+     * Returns statistics item whose mean is the hit rate of the "store-get" cache for specified {@linkplain Store}.
+     *
+     * @param storeName name of the store
+     * @return statistics item of the store
+     * @see EnvironmentConfig#ENV_STOREGET_CACHE_STORES
+     */
+    @NotNull
+    public StatisticsItem getStoreGetCacheHitRate(@NotNull final String storeName) {
+        return getStatisticsItem(STORE_GET_CACHE_HIT_RATE_PREFIX + storeName);
+    }
+
+    @NotNull
+    @Override
+    protected StatisticsItem createNewItem(@NotNull final String statisticsName) {
+        if (statisticsName.startsWith(STORE_GET_CACHE_HIT_RATE_PREFIX)) {
+            return new StoreGetCacheHitRateStatisticsItem(this, statisticsName.substring(STORE_GET_CACHE_HIT_RATE_PREFIX.length()));
+        }
+        return super.createNewItem(statisticsName);
+    }
+
     @NotNull
     @Override
     protected StatisticsItem createNewBuiltInItem(@NotNull final Type key) {
@@ -97,8 +121,10 @@ public class EnvironmentStatistics extends Statistics<EnvironmentStatistics.Type
                 return new UtilizationPercentStatisticsItem(this);
             case LOG_CACHE_HIT_RATE:
                 return new LogCacheHitRateStatisticsItem(this);
+            case LOG_CACHE_ADMISSION_REJECTS:
+                return new LogCacheAdmissionRejectsStatisticsItem(this);
             case STORE_GET_CACHE_HIT_RATE:
-                return new StoreGetCacheHitRateStatisticsItem(this);
+                return new StoreGetCacheHitRateStatisticsItem(this, null);
 
             default:
                 return super.createNewBuiltInItem(key);
@@ -170,10 +196,28 @@ public class EnvironmentStatistics extends Statistics<EnvironmentStatistics.Type
         }
     }
 
+    private static class LogCacheAdmissionRejectsStatisticsItem extends StatisticsItem {
+
+        LogCacheAdmissionRejectsStatisticsItem(@NotNull final EnvironmentStatistics statistics) {
+            super(statistics);
+        }
+
+        @Nullable
+        @Override
+        protected Long getAutoUpdatedTotal() {
+            final EnvironmentStatistics statistics = (EnvironmentStatistics) getStatistics();
+            return statistics == null ? null : statistics.env.getLog().getCacheAdmissionRejects();
+        }
+    }
+
     private static class StoreGetCacheHitRateStatisticsItem extends StatisticsItem {
 
-        StoreGetCacheHitRateStatisticsItem(@NotNull final EnvironmentStatistics statistics) {
+        @Nullable
+        private final String storeName;
+
+        StoreGetCacheHitRateStatisticsItem(@NotNull final EnvironmentStatistics statistics, @Nullable final String storeName) {
             super(statistics);
+            this.storeName = storeName;
         }
 
         @Override
@@ -183,7 +227,10 @@ public class EnvironmentStatistics extends Statistics<EnvironmentStatistics.Type
                 return 0;
             }
             @Nullable final StoreGetCache storeGetCache = statistics.env.getStoreGetCache();
-            return storeGetCache == null ? 0 : storeGetCache.hitRate();
+            if (storeGetCache == null) {
+                return 0;
+            }
+            return storeName == null ? storeGetCache.hitRate() : storeGetCache.hitRate(storeName);
         }
     }
 }
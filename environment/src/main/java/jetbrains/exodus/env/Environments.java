@@ -115,9 +115,15 @@ public final class Environments {
                 setDurableWrite(ec.getLogDurableWrite()).
                 setSharedCache(ec.isLogCacheShared()).
                 setNonBlockingCache(ec.isLogCacheNonBlocking()).
+                setOffHeapCache(ec.isLogCacheOffHeap()).
+                setFrequencyAwareCache(EnvironmentConfig.LOG_CACHE_EVICTION_POLICY_TINY_LFU.equals(ec.getLogCacheEvictionPolicy())).
+                setDecodedLoggablesCacheSize(ec.getTreeNodesCacheSize()).
+                setPatriciaChildrenBitmap(ec.isTreePatriciaChildrenBitmap()).
                 setCleanDirectoryExpected(ec.isLogCleanDirectoryExpected()).
                 setClearInvalidLog(ec.isLogClearInvalid()).
                 setSyncPeriod(ec.getLogSyncPeriod()).
+                setTailCheckpointPeriod(ec.getLogTailCheckpointPeriod()).
+                setPageChecksums(ec.isLogPageChecksums()).
                 setFullFileReadonly(ec.isLogFullFileReadonly()));
     }
 
@@ -0,0 +1,291 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.core.execution.Job;
+import jetbrains.exodus.core.execution.ThreadJobProcessor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batches fsyncs of concurrently committed transactions. A transaction flushed with group commit enabled
+ * writes its data to the log without syncing it and then waits in {@linkplain #waitForSync(long)} until
+ * the log is synced up to the transaction's high address. The first waiting transaction becomes a leader
+ * and performs fsync on behalf of all transactions which are waiting for it, so the transactions flushed
+ * while an fsync is in progress are acknowledged together after the next single fsync.
+ * <p>Transactions committed {@linkplain #syncAsync(CommitFuture) asynchronously} don't wait for sync, their
+ * {@linkplain CommitFuture futures} are completed by a background job taking part in group commit on behalf of them.
+ */
+final class GroupCommit {
+
+    @NotNull
+    private final EnvironmentImpl env;
+    @NotNull
+    private final EnvironmentConfig ec;
+    private final Object lock = new Object();
+    private long syncedAddress;
+    private boolean syncInProgress;
+    private int waitingTxns;
+    private long syncs;
+    private long batchedTxns;
+    @NotNull
+    private final List<CommitFuture> pendingFutures;
+    @Nullable
+    private ThreadJobProcessor asyncProcessor;
+    private boolean asyncSyncQueued;
+
+    GroupCommit(@NotNull final EnvironmentImpl env) {
+        this.env = env;
+        ec = env.getEnvironmentConfig();
+        syncedAddress = env.getLog().getHighAddress();
+        syncInProgress = false;
+        waitingTxns = 0;
+        syncs = 0;
+        batchedTxns = 0;
+        pendingFutures = new ArrayList<>();
+        asyncProcessor = null;
+        asyncSyncQueued = false;
+    }
+
+    /**
+     * Waits until the log is synced at least up to specified address. If no sync is in progress, performs it.
+     *
+     * @param highAddress high address of the log after a transaction was flushed
+     */
+    void waitForSync(final long highAddress) {
+        waitForSync(highAddress, 1);
+    }
+
+    /**
+     * Completes the future as soon as the log is synced at least up to its high address. Doesn't wait for sync.
+     *
+     * @param future future of asynchronously committed transaction
+     */
+    void syncAsync(@NotNull final CommitFuture future) {
+        synchronized (lock) {
+            if (syncedAddress < future.getHighAddress()) {
+                pendingFutures.add(future);
+                if (!asyncSyncQueued) {
+                    asyncSyncQueued = true;
+                    new AsyncSyncJob(getAsyncProcessor());
+                }
+                return;
+            }
+        }
+        future.complete();
+    }
+
+    /**
+     * Waits until all asynchronously committed transactions are synced and finishes the background job processor.
+     */
+    void finish() {
+        final ThreadJobProcessor processor;
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (asyncSyncQueued) {
+                interrupted |= waitUninterruptibly(0);
+            }
+            processor = asyncProcessor;
+            asyncProcessor = null;
+        }
+        if (processor != null) {
+            processor.finish();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void waitForSync(final long highAddress, final int txnCount) {
+        synchronized (lock) {
+            waitingTxns += txnCount;
+            // wake up the leader possibly waiting for the batch to be gathered
+            lock.notifyAll();
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                final int batchSize;
+                synchronized (lock) {
+                    if (syncedAddress >= highAddress) {
+                        return;
+                    }
+                    if (syncInProgress) {
+                        interrupted |= waitUninterruptibly(0);
+                        continue;
+                    }
+                    syncInProgress = true;
+                    interrupted |= gatherBatch();
+                    batchSize = waitingTxns;
+                }
+                long synced = Long.MIN_VALUE;
+                try {
+                    synced = env.syncGroupCommit();
+                } finally {
+                    synchronized (lock) {
+                        syncInProgress = false;
+                        if (synced > syncedAddress) {
+                            syncedAddress = synced;
+                            ++syncs;
+                            batchedTxns += batchSize;
+                        }
+                        lock.notifyAll();
+                    }
+                }
+            }
+        } finally {
+            synchronized (lock) {
+                waitingTxns -= txnCount;
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Should be called in commit lock if high address of the log is moved backwards.
+     *
+     * @param highAddress new high address of the log
+     */
+    void reset(final long highAddress) {
+        synchronized (lock) {
+            syncedAddress = highAddress;
+        }
+    }
+
+    /**
+     * @return number of fsyncs performed on behalf of group commit
+     */
+    long getSyncs() {
+        synchronized (lock) {
+            return syncs;
+        }
+    }
+
+    /**
+     * @return average number of transactions acknowledged by a single fsync
+     */
+    float getAverageBatchSize() {
+        synchronized (lock) {
+            return syncs == 0 ? 0 : ((float) batchedTxns) / syncs;
+        }
+    }
+
+    @NotNull
+    private ThreadJobProcessor getAsyncProcessor() {
+        ThreadJobProcessor result = asyncProcessor;
+        if (result == null) {
+            result = new ThreadJobProcessor("Exodus group commit for " + env.getLocation());
+            result.start();
+            asyncProcessor = result;
+        }
+        return result;
+    }
+
+    private boolean gatherBatch() {
+        boolean interrupted = false;
+        final int maxDelay = ec.getEnvGroupCommitMaxDelay();
+        if (maxDelay > 0) {
+            final int maxBatchSize = ec.getEnvGroupCommitMaxBatchSize();
+            final long deadline = System.currentTimeMillis() + maxDelay;
+            while (waitingTxns < maxBatchSize) {
+                final long timeout = deadline - System.currentTimeMillis();
+                if (timeout <= 0) {
+                    break;
+                }
+                interrupted |= waitUninterruptibly(timeout);
+            }
+        }
+        return interrupted;
+    }
+
+    /**
+     * The transaction is already written to the log, so waiting for sync can't be interrupted.
+     *
+     * @return {@code true} if current thread was interrupted while waiting
+     */
+    private boolean waitUninterruptibly(final long timeout) {
+        try {
+            lock.wait(timeout);
+            return false;
+        } catch (InterruptedException e) {
+            return true;
+        }
+    }
+
+    private class AsyncSyncJob extends Job {
+
+        private AsyncSyncJob(@NotNull final ThreadJobProcessor processor) {
+            super(processor);
+        }
+
+        @Override
+        protected void execute() throws Throwable {
+            Throwable error = null;
+            boolean finished = false;
+            try {
+                while (true) {
+                    final List<CommitFuture> futures;
+                    synchronized (lock) {
+                        if (pendingFutures.isEmpty()) {
+                            asyncSyncQueued = false;
+                            finished = true;
+                            lock.notifyAll();
+                            break;
+                        }
+                        futures = new ArrayList<>(pendingFutures);
+                        pendingFutures.clear();
+                    }
+                    long highAddress = Long.MIN_VALUE;
+                    for (final CommitFuture future : futures) {
+                        highAddress = Math.max(highAddress, future.getHighAddress());
+                    }
+                    try {
+                        waitForSync(highAddress, futures.size());
+                    } catch (Throwable t) {
+                        for (final CommitFuture future : futures) {
+                            future.fail(t);
+                        }
+                        continue;
+                    }
+                    for (final CommitFuture future : futures) {
+                        try {
+                            future.complete();
+                        } catch (Throwable t) {
+                            if (error == null) {
+                                error = t;
+                            }
+                        }
+                    }
+                }
+            } finally {
+                if (!finished) {
+                    synchronized (lock) {
+                        asyncSyncQueued = false;
+                        lock.notifyAll();
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.Future;
 
 import static jetbrains.exodus.env.EnvironmentStatistics.Type.TRANSACTIONS;
 
@@ -102,6 +103,13 @@ public class ReadWriteTransaction extends TransactionBase {
         return getEnvironment().commitTransaction(this, false);
     }
 
+    @NotNull
+    @Override
+    public Future<Boolean> commitAsync() {
+        checkIsFinished();
+        return getEnvironment().commitTransactionAsync(this);
+    }
+
     @Override
     public boolean flush() {
         checkIsFinished();
@@ -263,9 +271,8 @@ public class ReadWriteTransaction extends TransactionBase {
     @NotNull
     ITreeMutable getMutableTree(@NotNull final StoreImpl store) {
         checkIsFinished();
-        final Thread creatingThread = getCreatingThread();
-        if (!creatingThread.equals(Thread.currentThread())) {
-            throw new ExodusException("Can't create mutable tree in a thread different from the one which transaction was created in");
+        if (getContext() != TransactionContext.current()) {
+            throw new ExodusException("Can't create mutable tree in a context different from the one which transaction was created in");
         }
         final int structureId = store.getStructureId();
         ITreeMutable result = mutableTrees.get(structureId);
@@ -276,6 +283,14 @@ public class ReadWriteTransaction extends TransactionBase {
         return result;
     }
 
+    /**
+     * Replaces mutable tree of specified store, e.g. with the one which is written to the log in a special way.
+     */
+    void setMutableTree(@NotNull final StoreImpl store, @NotNull final ITreeMutable tree) {
+        checkIsFinished();
+        mutableTrees.put(store.getStructureId(), tree);
+    }
+
     /**
      * @param store opened store.
      * @return whether a mutable tree is created for specified store.
@@ -18,6 +18,8 @@ package jetbrains.exodus.env;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.Future;
+
 import static jetbrains.exodus.env.EnvironmentStatistics.Type.READONLY_TRANSACTIONS;
 
 public class ReadonlyTransaction extends TransactionBase {
@@ -71,6 +73,12 @@ public class ReadonlyTransaction extends TransactionBase {
         throw new ReadonlyTransactionException();
     }
 
+    @NotNull
+    @Override
+    public Future<Boolean> commitAsync() {
+        throw new ReadonlyTransactionException();
+    }
+
     @Override
     public boolean flush() {
         throw new ReadonlyTransactionException();
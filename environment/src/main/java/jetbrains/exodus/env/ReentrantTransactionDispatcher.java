@@ -30,7 +30,7 @@ final class ReentrantTransactionDispatcher {
 
     private final int availablePermits;
     @NotNull
-    private final Map<Thread, Integer> threadPermits;
+    private final Map<TransactionContext, Integer> contextPermits;
     @NotNull
     private final NavigableMap<Long, Condition> regularQueue;
     @NotNull
@@ -45,7 +45,7 @@ final class ReentrantTransactionDispatcher {
             throw new IllegalArgumentException("maxSimultaneousTransactions < 1");
         }
         availablePermits = maxSimultaneousTransactions;
-        threadPermits = new HashMap<>();
+        contextPermits = new HashMap<>();
         regularQueue = new TreeMap<>();
         nestedQueue = new TreeMap<>();
         criticalSection = new CriticalSection(false /* we explicitly don't need fairness here */);
@@ -60,126 +60,129 @@ final class ReentrantTransactionDispatcher {
     }
 
     /**
-     * Acquire transaction with a single permit in a thread. Transactions are acquired reentrantly, i.e.
-     * with respect to transactions already acquired in the thread.
+     * Acquire transaction with a single permit in a context. Transactions are acquired reentrantly, i.e.
+     * with respect to transactions already acquired in the context.
      *
      * @return the number of acquired permits, identically equal to 1.
      */
-    int acquireTransaction(@NotNull final Thread thread) {
+    int acquireTransaction(@NotNull final TransactionContext context) {
         try (CriticalSection ignored = criticalSection.enter()) {
-            final int currentThreadPermits = getThreadPermitsToAcquire(thread);
-            waitForPermits(thread, currentThreadPermits > 0 ? nestedQueue : regularQueue, 1, currentThreadPermits);
+            final int currentContextPermits = getContextPermitsToAcquire(context);
+            waitForPermits(context, currentContextPermits > 0 ? nestedQueue : regularQueue, 1, currentContextPermits);
         }
         return 1;
     }
 
     /**
-     * Acquire exclusive transaction in a thread. Transactions are acquired reentrantly, i.e. with respect
-     * to transactions already acquired in the thread.
+     * Acquire exclusive transaction in a context. Transactions are acquired reentrantly, i.e. with respect
+     * to transactions already acquired in the context.
      * NB! Nested transaction is never acquired as exclusive.
      *
      * @return the number of acquired permits.
      */
-    int acquireExclusiveTransaction(@NotNull final Thread thread) {
+    int acquireExclusiveTransaction(@NotNull final TransactionContext context) {
         try (CriticalSection ignored = criticalSection.enter()) {
-            final int currentThreadPermits = getThreadPermitsToAcquire(thread);
-            // if there are no permits acquired in the thread then we can acquire exclusive txn, i.e. all available permits
-            if (currentThreadPermits == 0) {
-                waitForPermits(thread, regularQueue, availablePermits, 0);
+            final int currentContextPermits = getContextPermitsToAcquire(context);
+            // if there are no permits acquired in the context then we can acquire exclusive txn, i.e. all available permits
+            if (currentContextPermits == 0) {
+                waitForPermits(context, regularQueue, availablePermits, 0);
                 return availablePermits;
             }
-            waitForPermits(thread, nestedQueue, 1, currentThreadPermits);
+            waitForPermits(context, nestedQueue, 1, currentContextPermits);
         }
         return 1;
     }
 
     void acquireTransaction(@NotNull final TransactionBase txn, @NotNull final Environment env) {
-        final Thread creatingThread = txn.getCreatingThread();
+        final TransactionContext context = txn.getContext();
         int acquiredPermits;
         if (txn.isExclusive()) {
             if (txn.isGCTransaction()) {
                 final int gcTransactionAcquireTimeout = env.getEnvironmentConfig().getGcTransactionAcquireTimeout();
-                acquiredPermits = tryAcquireExclusiveTransaction(creatingThread, gcTransactionAcquireTimeout);
+                acquiredPermits = tryAcquireExclusiveTransaction(context, gcTransactionAcquireTimeout);
                 if (acquiredPermits == 0) {
                     throw new TransactionAcquireTimeoutException(gcTransactionAcquireTimeout);
                 }
             } else {
-                acquiredPermits = acquireExclusiveTransaction(creatingThread);
+                acquiredPermits = acquireExclusiveTransaction(context);
             }
             if (acquiredPermits == 1) {
                 txn.setExclusive(false);
             }
         } else {
-            acquiredPermits = acquireTransaction(creatingThread);
+            acquiredPermits = acquireTransaction(context);
         }
         txn.setAcquiredPermits(acquiredPermits);
     }
 
     /**
-     * Release transaction that was acquired in a thread with specified permits.
+     * Release transaction that was acquired in a context with specified permits.
      */
-    void releaseTransaction(@NotNull final Thread thread, final int permits) {
+    void releaseTransaction(@NotNull final TransactionContext context, final int permits) {
         try (CriticalSection ignored = criticalSection.enter()) {
-            int currentThreadPermits = getThreadPermits(thread);
-            if (permits > currentThreadPermits) {
+            int currentContextPermits = getContextPermits(context);
+            if (permits > currentContextPermits) {
                 throw new ExodusException("Can't release more permits than it was acquired");
             }
             acquiredPermits -= permits;
-            currentThreadPermits -= permits;
-            if (currentThreadPermits == 0) {
-                threadPermits.remove(thread);
+            currentContextPermits -= permits;
+            if (currentContextPermits == 0) {
+                contextPermits.remove(context);
             } else {
-                threadPermits.put(thread, currentThreadPermits);
+                contextPermits.put(context, currentContextPermits);
             }
             notifyNextWaiters();
         }
     }
 
     void releaseTransaction(@NotNull final TransactionBase txn) {
-        releaseTransaction(txn.getCreatingThread(), txn.getAcquiredPermits());
+        releaseTransaction(txn.getContext(), txn.getAcquiredPermits());
     }
 
     /**
-     * Downgrade transaction (making it holding only 1 permit) that was acquired in a thread with specified permits.
+     * Downgrade transaction (making it holding only 1 permit) that was acquired in a context with specified permits.
      */
-    void downgradeTransaction(@NotNull final Thread thread, final int permits) {
+    void downgradeTransaction(@NotNull final TransactionContext context, final int permits) {
         if (permits > 1) {
             try (CriticalSection ignored = criticalSection.enter()) {
-                int currentThreadPermits = getThreadPermits(thread);
-                if (permits > currentThreadPermits) {
+                int currentContextPermits = getContextPermits(context);
+                if (permits > currentContextPermits) {
                     throw new ExodusException("Can't release more permits than it was acquired");
                 }
                 acquiredPermits -= (permits - 1);
-                currentThreadPermits -= (permits - 1);
-                threadPermits.put(thread, currentThreadPermits);
+                currentContextPermits -= (permits - 1);
+                contextPermits.put(context, currentContextPermits);
                 notifyNextWaiters();
             }
         }
     }
 
     void downgradeTransaction(@NotNull final TransactionBase txn) {
-        downgradeTransaction(txn.getCreatingThread(), txn.getAcquiredPermits());
+        downgradeTransaction(txn.getContext(), txn.getAcquiredPermits());
         txn.setAcquiredPermits(1);
     }
 
-    int getThreadPermits(@NotNull final Thread thread) {
-        final Integer result = threadPermits.get(thread);
+    int getContextPermits(@NotNull final TransactionContext context) {
+        final Integer result = contextPermits.get(context);
         return result == null ? 0 : result;
     }
 
-    private void waitForPermits(@NotNull final Thread thread,
+    private void waitForPermits(@NotNull final TransactionContext context,
                                 @NotNull final NavigableMap<Long, Condition> queue,
                                 final int permits,
-                                final int currentThreadPermits) {
-        final Condition condition = criticalSection.newCondition();
-        final long currentOrder = acquireOrder++;
-        queue.put(currentOrder, condition);
-        while (acquiredPermits > availablePermits - permits || queue.firstKey() != currentOrder) {
-            condition.awaitUninterruptibly();
+                                final int currentContextPermits) {
+        // don't create condition if permits can be acquired immediately
+        if (acquiredPermits > availablePermits - permits || !queue.isEmpty()) {
+            final Condition condition = criticalSection.newCondition();
+            final long currentOrder = acquireOrder++;
+            queue.put(currentOrder, condition);
+            while (acquiredPermits > availablePermits - permits || queue.firstKey() != currentOrder) {
+                condition.awaitUninterruptibly();
+            }
+            queue.pollFirstEntry();
         }
-        queue.pollFirstEntry();
         acquiredPermits += permits;
-        threadPermits.put(thread, currentThreadPermits + permits);
+        contextPermits.put(context, currentContextPermits + permits);
         if (acquiredPermits < availablePermits) {
             notifyNextWaiters();
         }
@@ -190,10 +193,10 @@ final class ReentrantTransactionDispatcher {
      *
      * @return number of acquired permits if > 0
      */
-    private int tryAcquireExclusiveTransaction(@NotNull final Thread thread, final int timeout) {
+    private int tryAcquireExclusiveTransaction(@NotNull final TransactionContext context, final int timeout) {
         long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
         try (CriticalSection ignored = criticalSection.enter()) {
-            if (getThreadPermits(thread) > 0) {
+            if (getContextPermits(context) > 0) {
                 throw new ExodusException("Exclusive transaction can't be nested");
             }
             final Condition condition = criticalSection.newCondition();
@@ -212,7 +215,7 @@ final class ReentrantTransactionDispatcher {
             if (acquiredPermits == 0 && regularQueue.firstKey() == currentOrder) {
                 regularQueue.pollFirstEntry();
                 acquiredPermits = availablePermits;
-                threadPermits.put(thread, availablePermits);
+                contextPermits.put(context, availablePermits);
                 return availablePermits;
             }
             regularQueue.remove(currentOrder);
@@ -227,12 +230,12 @@ final class ReentrantTransactionDispatcher {
         }
     }
 
-    private int getThreadPermitsToAcquire(@NotNull Thread thread) {
-        final int currentThreadPermits = getThreadPermits(thread);
-        if (currentThreadPermits == availablePermits) {
+    private int getContextPermitsToAcquire(@NotNull final TransactionContext context) {
+        final int currentContextPermits = getContextPermits(context);
+        if (currentContextPermits == availablePermits) {
             throw new ExodusException("No more permits are available to acquire a transaction");
         }
-        return currentThreadPermits;
+        return currentContextPermits;
     }
 
     private static boolean notifyNextWaiter(@NotNull final NavigableMap<Long, Condition> queue) {
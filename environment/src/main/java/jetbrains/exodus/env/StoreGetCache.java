@@ -17,56 +17,216 @@ package jetbrains.exodus.env;
 
 import jetbrains.exodus.ArrayByteIterable;
 import jetbrains.exodus.ByteIterable;
-import jetbrains.exodus.core.dataStructures.SoftConcurrentLongObjectCache;
+import jetbrains.exodus.core.dataStructures.CacheHitRateable;
+import jetbrains.exodus.core.dataStructures.StripedObjectCache;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Caches Store.get() results retrieved from immutable trees.
  * For each key and tree address (KeyEntry), value is immutable, so lock-free caching is ok.
+ *
+ * The cache is bounded either by the number of entries or by the number of bytes occupied by keys and values.
+ * If {@code maxValueSize} is positive, larger values are never cached. Results can be cached only for stores whose
+ * names match {@code storeNames}, hit rate is counted per store as well. Like hit rate of the cache itself, hit rate
+ * of a store is periodically adjusted so that it reflects recent attempts.
  */
 class StoreGetCache {
 
-    private final SoftConcurrentLongObjectCache<ValueEntry> cache;
+    /**
+     * Cached value of a key which doesn't exist in a tree.
+     */
+    @NotNull
+    static final ArrayByteIterable NULL_CACHED_VALUE = new ArrayByteIterable(ByteIterable.EMPTY);
+
+    // approximate number of bytes occupied by a single cache entry in addition to its key and value
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final int MIN_ENTRIES_PER_STRIPE = 16;
 
-    StoreGetCache(final int cacheSize) {
-        cache = new SoftConcurrentLongObjectCache<>(cacheSize);
+    @NotNull
+    private final StripedObjectCache<KeyEntry, ArrayByteIterable> cache;
+    private final int maxValueSize;
+    @Nullable
+    private final String[] storeNames;
+    @Nullable
+    private final String[] storeNamePrefixes;
+    @NotNull
+    private final ConcurrentHashMap<String, CachedStore> stores;
+    // is put to stores for names of stores whose results are not cached
+    @NotNull
+    private final CachedStore notCachedStore;
+
+    StoreGetCache(final int cacheSize, final boolean sizeInBytes, final int maxValueSize, @NotNull final String storeNames) {
+        if (sizeInBytes) {
+            // each stripe should be able to hold at least several entries of maximum size,
+            // if value size is not limited then a value heavier than a stripe is not cached
+            final long maxStripesCount = cacheSize / MIN_ENTRIES_PER_STRIPE / ((long) ENTRY_OVERHEAD + maxValueSize);
+            cache = new StripedObjectCache<KeyEntry, ArrayByteIterable>(cacheSize,
+                (int) Math.max(1L, Math.min(maxStripesCount, Runtime.getRuntime().availableProcessors() * 4))) {
+                @Override
+                protected int weigh(@NotNull final KeyEntry key, @NotNull final ArrayByteIterable value) {
+                    return key.key.getLength() + value.getLength() + ENTRY_OVERHEAD;
+                }
+            };
+        } else {
+            cache = new StripedObjectCache<>(cacheSize);
+        }
+        this.maxValueSize = maxValueSize;
+        final List<String> names = new ArrayList<>();
+        final List<String> prefixes = new ArrayList<>();
+        for (final String name : storeNames.split(",")) {
+            final String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                if (trimmed.endsWith("*")) {
+                    prefixes.add(trimmed.substring(0, trimmed.length() - 1));
+                } else {
+                    names.add(trimmed);
+                }
+            }
+        }
+        if (names.isEmpty() && prefixes.isEmpty()) {
+            this.storeNames = null;
+            this.storeNamePrefixes = null;
+        } else {
+            this.storeNames = names.toArray(new String[names.size()]);
+            this.storeNamePrefixes = prefixes.toArray(new String[prefixes.size()]);
+        }
+        stores = new ConcurrentHashMap<>();
+        notCachedStore = new CachedStore();
     }
 
     void close() {
-        cache.close();
+        cache.clear();
+        for (final CachedStore store : stores.values()) {
+            store.close();
+        }
+        notCachedStore.close();
     }
 
+    /**
+     * @return {@code null} if results of specified store are not cached
+     */
     @Nullable
-    ByteIterable tryKey(final long treeRootAddress, @NotNull final ByteIterable key) {
-        final ValueEntry ve = cache.tryKey(cacheKey(treeRootAddress, key));
-        return ve == null || ve.treeRootAddress != treeRootAddress || !ve.key.equals(key) ? null : ve.value;
-    }
-
-    void cacheObject(final long treeRootAddress, @NotNull final ByteIterable key, @NotNull final ArrayByteIterable value) {
-        cache.cacheObject(cacheKey(treeRootAddress, key), new ValueEntry(treeRootAddress, key, value));
+    CachedStore getCachedStore(@NotNull final String storeName) {
+        CachedStore result = stores.get(storeName);
+        if (result == null) {
+            result = isCached(storeName) ? new CachedStore() : notCachedStore;
+            final CachedStore prev = stores.putIfAbsent(storeName, result);
+            if (prev != null) {
+                if (result != notCachedStore) {
+                    result.close();
+                }
+                result = prev;
+            }
+        }
+        return result == notCachedStore ? null : result;
     }
 
     float hitRate() {
         return cache.hitRate();
     }
 
-    private static long cacheKey(final long treeRootAddress, @NotNull final ByteIterable key) {
-        return treeRootAddress ^ key.hashCode();
+    float hitRate(@NotNull final String storeName) {
+        final CachedStore store = stores.get(storeName);
+        return store == null ? 0 : store.hitRate();
     }
 
-    private static class ValueEntry {
+    int count() {
+        return cache.count();
+    }
+
+    private boolean isCached(@NotNull final String storeName) {
+        final String[] storeNames = this.storeNames;
+        if (storeNames == null) {
+            return true;
+        }
+        for (final String name : storeNames) {
+            if (name.equals(storeName)) {
+                return true;
+            }
+        }
+        // noinspection ConstantConditions
+        for (final String prefix : storeNamePrefixes) {
+            if (storeName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    private static ArrayByteIterable copyOf(@NotNull final ByteIterable bi) {
+        final int length = bi.getLength();
+        return length == 0 ? new ArrayByteIterable(ByteIterable.EMPTY) : new ArrayByteIterable(Arrays.copyOf(bi.getBytesUnsafe(), length));
+    }
+
+    /**
+     * Caches results of a single store and counts hit rate of the store.
+     */
+    final class CachedStore extends CacheHitRateable {
+
+        @Nullable
+        ByteIterable tryKey(final long treeRootAddress, @NotNull final ByteIterable key) {
+            incAttempts();
+            final ArrayByteIterable result = cache.tryKey(new KeyEntry(treeRootAddress, key));
+            if (result != null) {
+                incHits();
+            }
+            return result;
+        }
+
+        /**
+         * @param value value of the key, {@code null} if the key doesn't exist in the tree
+         */
+        void cacheObject(final long treeRootAddress, @NotNull final ByteIterable key, @Nullable final ByteIterable value) {
+            if (value != null && maxValueSize > 0 && value.getLength() > maxValueSize) {
+                return;
+            }
+            cache.cacheObject(new KeyEntry(treeRootAddress, copyOf(key)), value == null ? NULL_CACHED_VALUE : copyOf(value));
+        }
+    }
+
+    private static final class KeyEntry {
 
         private final long treeRootAddress;
         @NotNull
         private final ByteIterable key;
-        @NotNull
-        private final ArrayByteIterable value;
+        private final int hashCode;
 
-        ValueEntry(final long treeRootAddress, @NotNull final ByteIterable key, @NotNull final ArrayByteIterable value) {
+        private KeyEntry(final long treeRootAddress, @NotNull final ByteIterable key) {
             this.treeRootAddress = treeRootAddress;
             this.key = key;
-            this.value = value;
+            int h = (int) (treeRootAddress ^ (treeRootAddress >>> 32));
+            final int length = key.getLength();
+            if (length > 0) {
+                final byte[] bytes = key.getBytesUnsafe();
+                for (int i = 0; i < length; ++i) {
+                    h = 31 * h + bytes[i];
+                }
+            }
+            hashCode = h;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof KeyEntry)) {
+                return false;
+            }
+            final KeyEntry right = (KeyEntry) obj;
+            return hashCode == right.hashCode && treeRootAddress == right.treeRootAddress && key.compareTo(right.key) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
         }
     }
 }
@@ -15,7 +15,6 @@
  */
 package jetbrains.exodus.env;
 
-import jetbrains.exodus.ArrayByteIterable;
 import jetbrains.exodus.ByteIterable;
 import jetbrains.exodus.log.Log;
 import jetbrains.exodus.log.Loggable;
@@ -37,9 +36,6 @@ import java.util.Iterator;
 @SuppressWarnings({"ClassNameSameAsAncestorName"})
 public class StoreImpl implements Store {
 
-    @NotNull
-    private static final ArrayByteIterable NULL_CACHED_VALUE = new ArrayByteIterable(ByteIterable.EMPTY);
-
     @NotNull
     private final EnvironmentImpl environment;
     @NotNull
@@ -66,17 +62,34 @@ public class StoreImpl implements Store {
         final ITree tree = ((TransactionBase) txn).getTree(this);
         final long treeRootAddress = tree.getRootAddress();
         final StoreGetCache storeGetCache;
-        // if neither tree is empty nor mutable and StoreGetCache is on
-        if (treeRootAddress != Loggable.NULL_ADDRESS && (storeGetCache = environment.getStoreGetCache()) != null) {
-            ByteIterable result = storeGetCache.tryKey(treeRootAddress, key);
+        final StoreGetCache.CachedStore cachedStore;
+        // if neither tree is empty nor mutable and StoreGetCache is on for this store
+        if (treeRootAddress != Loggable.NULL_ADDRESS && (storeGetCache = environment.getStoreGetCache()) != null &&
+            (cachedStore = storeGetCache.getCachedStore(name)) != null) {
+            ByteIterable result = cachedStore.tryKey(treeRootAddress, key);
             if (result != null) {
-                return result == NULL_CACHED_VALUE ? null : result;
+                return result == StoreGetCache.NULL_CACHED_VALUE ? null : result;
             }
             result = tree.get(key);
-            storeGetCache.cacheObject(treeRootAddress, key, result == null ? NULL_CACHED_VALUE : new ArrayByteIterable(result));
+            if (result != null) {
+                final ByteIterable mapped = getMappedValue(txn, result);
+                if (mapped != result) {
+                    // views of mapped files are not copied to the cache
+                    return mapped;
+                }
+            }
+            cachedStore.cacheObject(treeRootAddress, key, result);
             return result;
         }
-        return tree.get(key);
+        final ByteIterable result = tree.get(key);
+        return result == null ? null : getMappedValue(txn, result);
+    }
+
+    @Override
+    @NotNull
+    public ByteIterable[] getAll(@NotNull final Transaction txn, @NotNull final ByteIterable[] sortedKeys) {
+        checkSorted(sortedKeys);
+        return ((TransactionBase) txn).getTree(this).getAll(sortedKeys);
     }
 
     @Override
@@ -189,4 +202,25 @@ public class StoreImpl implements Store {
     int getStructureId() {
         return metaInfo.getStructureId();
     }
+
+    @NotNull
+    private ByteIterable getMappedValue(@NotNull final Transaction txn, @NotNull final ByteIterable value) {
+        final int minLength = environment.getMappedValueMinLength();
+        return minLength > 0 && value.getLength() >= minLength ? ((TransactionBase) txn).getMappedValue(value) : value;
+    }
+
+    /**
+     * @param unique if {@code true}, equal adjacent keys are not allowed
+     */
+    private static void checkSorted(@NotNull final ByteIterable[] keys) {
+        for (int i = 1; i < keys.length; ++i) {
+            final int cmp = keys[i - 1].compareTo(keys[i]);
+            if (cmp > 0) {
+                throw new IllegalArgumentException("Keys are not sorted, key at " + i + " is less than the previous one");
+            }
+            if (cmp == 0) {
+                throw new IllegalArgumentException("Keys are not unique, key at " + i + " equals the previous one");
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -46,6 +46,12 @@ class TemporaryEmptyStore extends StoreImpl {
         return null;
     }
 
+    @NotNull
+    @Override
+    public ByteIterable[] getAll(@NotNull final Transaction txn, @NotNull final ByteIterable[] sortedKeys) {
+        return new ByteIterable[sortedKeys.length];
+    }
+
     @Override
     public boolean exists(@NotNull final Transaction txn,
                           @NotNull final ByteIterable key,
@@ -15,13 +15,16 @@
  */
 package jetbrains.exodus.env;
 
+import jetbrains.exodus.ByteIterable;
 import jetbrains.exodus.ExodusException;
 import jetbrains.exodus.core.dataStructures.hash.IntHashMap;
+import jetbrains.exodus.io.MappedByteIterable;
 import jetbrains.exodus.tree.ITree;
 import jetbrains.exodus.tree.TreeMetaInfo;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -33,6 +36,8 @@ public abstract class TransactionBase implements Transaction {
     private final EnvironmentImpl env;
     @NotNull
     private final Thread creatingThread;
+    @NotNull
+    private final TransactionContext context;
     private MetaTree metaTree;
     @NotNull
     private final IntHashMap<ITree> immutableTrees;
@@ -44,10 +49,13 @@ public abstract class TransactionBase implements Transaction {
     private final boolean wasCreatedExclusive;
     private boolean isFinished;
     private int acquiredPermits;
+    @Nullable
+    private List<MappedByteIterable> mappedValues;
 
     public TransactionBase(@NotNull final EnvironmentImpl env, final boolean isExclusive) {
         this.env = env;
         this.creatingThread = Thread.currentThread();
+        context = TransactionContext.current();
         this.isExclusive = isExclusive;
         wasCreatedExclusive = isExclusive;
         immutableTrees = new IntHashMap<>();
@@ -119,6 +127,14 @@ public abstract class TransactionBase implements Transaction {
         return creatingThread;
     }
 
+    /**
+     * @return context which the transaction is owned by.
+     */
+    @NotNull
+    TransactionContext getContext() {
+        return context;
+    }
+
     @NotNull
     MetaTree getMetaTree() {
         return metaTree;
@@ -185,6 +201,31 @@ public abstract class TransactionBase implements Transaction {
         this.acquiredPermits = acquiredPermits;
     }
 
+    /**
+     * Replaces value read from the log with its view of memory mapped file which is valid until
+     * the transaction is finished.
+     *
+     * @return the view or the value itself if it can't be mapped
+     */
+    @NotNull
+    ByteIterable getMappedValue(@NotNull final ByteIterable value) {
+        final MappedByteIterable result = env.getLog().getMappedIterable(value);
+        if (result == null) {
+            return value;
+        }
+        synchronized (this) {
+            if (!isFinished) {
+                if (mappedValues == null) {
+                    mappedValues = new ArrayList<>();
+                }
+                mappedValues.add(result);
+                return result;
+            }
+        }
+        result.close();
+        return value;
+    }
+
     @Nullable
     abstract Runnable getBeginHook();
 
@@ -205,7 +246,17 @@ public abstract class TransactionBase implements Transaction {
     }
 
     protected void setIsFinished() {
-        isFinished = true;
+        final List<MappedByteIterable> mappedValues;
+        synchronized (this) {
+            isFinished = true;
+            mappedValues = this.mappedValues;
+            this.mappedValues = null;
+        }
+        if (mappedValues != null) {
+            for (final MappedByteIterable value : mappedValues) {
+                value.close();
+            }
+        }
     }
 
     protected Runnable getWrappedBeginHook(@Nullable final Runnable beginHook) {
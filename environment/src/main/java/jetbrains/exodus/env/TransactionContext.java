@@ -0,0 +1,84 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Owner of transactions. Transactions are acquired reentrantly with respect to transactions already acquired
+ * in the same context, and contextual transactions ({@linkplain ContextualEnvironment#getCurrentTransaction()},
+ * {@code PersistentEntityStore.getCurrentTransaction()}) are tracked per context. By default, each thread has
+ * its own context, so transactions are owned by the thread which they are created in.
+ *
+ * <p>A context can be explicitly bound to the current thread using {@linkplain #execute(Runnable)}. Then
+ * transactions created while the context is bound are owned by the context rather than by the thread. This allows
+ * to start a transaction in one thread and to continue and finish it in another one, as asynchronous request
+ * handlers do, and doesn't require dispatching of transactions to keep per-thread state.
+ */
+public final class TransactionContext {
+
+    private static final ThreadLocal<TransactionContext> currentContext = new ThreadLocal<>();
+
+    @NotNull
+    private final String name;
+
+    public TransactionContext(@NotNull final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return context bound to the current thread, or default context of the current thread if no context is bound.
+     */
+    @NotNull
+    public static TransactionContext current() {
+        TransactionContext result = currentContext.get();
+        if (result == null) {
+            result = new TransactionContext(Thread.currentThread().getName());
+            currentContext.set(result);
+        }
+        return result;
+    }
+
+    /**
+     * Executes {@code runnable} with this context bound to the current thread. Previously bound context
+     * is restored after {@code runnable} is executed.
+     *
+     * @param runnable code to execute with this context bound
+     */
+    public void execute(@NotNull final Runnable runnable) {
+        final TransactionContext prevContext = currentContext.get();
+        currentContext.set(this);
+        try {
+            runnable.run();
+        } finally {
+            if (prevContext == null) {
+                currentContext.remove();
+            } else {
+                currentContext.set(prevContext);
+            }
+        }
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionContext[" + name + ']';
+    }
+}
@@ -15,148 +15,232 @@
  */
 package jetbrains.exodus.env;
 
-import jetbrains.exodus.core.dataStructures.persistent.PersistentHashSet;
+import jetbrains.exodus.core.dataStructures.hash.HashSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.List;
 
+/**
+ * Registry of active transactions. Transactions are spread over several stripes by identity hash code,
+ * so beginning and finishing transactions in different threads rarely contend. Each stripe keeps its
+ * oldest and newest transactions, which are recalculated only if the stripe's oldest (newest) transaction
+ * is finished, so getting the oldest (newest) transaction of the whole set doesn't require locking.
+ */
 final class TransactionSet implements Iterable<TransactionBase> {
 
-    private final AtomicReference<MinMaxAwareTransactionSet> txns;
+    private static final int MAX_STRIPES = 256;
+
+    @NotNull
+    private final Stripe[] stripes;
+    private final int stripeMask;
 
     TransactionSet() {
-        txns = new AtomicReference<>(new MinMaxAwareTransactionSet());
+        this(Runtime.getRuntime().availableProcessors() * 2);
     }
 
+    TransactionSet(final int concurrencyLevel) {
+        int stripesCount = Integer.highestOneBit(Math.max(1, Math.min(concurrencyLevel, MAX_STRIPES)) * 2 - 1);
+        stripes = new Stripe[stripesCount];
+        for (int i = 0; i < stripesCount; ++i) {
+            stripes[i] = new Stripe();
+        }
+        stripeMask = stripesCount - 1;
+    }
+
+    /**
+     * @return snapshot of currently active transactions.
+     */
     @Override
     public Iterator<TransactionBase> iterator() {
-        return getCurrent().iterator();
+        final List<TransactionBase> result = new ArrayList<>();
+        for (final Stripe stripe : stripes) {
+            stripe.copyTo(result);
+        }
+        return result.iterator();
     }
 
+    /**
+     * Adds a transaction to the set. If the transaction is already in the set, its root could have changed
+     * (e.g., after {@code ReadWriteTransaction.revert()}), so the oldest and newest transactions are updated.
+     */
     void add(@NotNull final TransactionBase txn) {
-        final long root = txn.getRoot();
-        for (; ; ) {
-            final MinMaxAwareTransactionSet prevSet = txns.get();
-            final PersistentHashSet<TransactionBase> newSet = prevSet.set.getClone();
-            final TransactionBase prevMin = prevSet.min;
-            final TransactionBase newMin;
-            if (newSet.contains(txn)) {
-                newMin = prevMin == txn ? null : prevMin;
-            } else {
-                final PersistentHashSet.MutablePersistentHashSet<TransactionBase> mutableSet = newSet.beginWrite();
-                mutableSet.add(txn);
-                mutableSet.endWrite();
-                newMin = prevMin != null && prevMin.getRoot() > root ? txn : prevMin;
-            }
-            final TransactionBase prevMax = prevSet.max;
-            final TransactionBase newMax = prevMax != null && prevMax.getRoot() < root ? txn : prevMax;
-            if (this.txns.compareAndSet(prevSet, new MinMaxAwareTransactionSet(newSet, newMin, newMax))) {
-                break;
-            }
-        }
+        getStripe(txn).add(txn);
     }
 
     boolean contains(@NotNull final TransactionBase txn) {
-        return getCurrent().contains(txn);
+        return getStripe(txn).contains(txn);
     }
 
     void remove(@NotNull final TransactionBase txn) {
-        for (; ; ) {
-            final MinMaxAwareTransactionSet prevSet = txns.get();
-            final PersistentHashSet<TransactionBase> newSet = prevSet.set.getClone();
-            final PersistentHashSet.MutablePersistentHashSet<TransactionBase> mutableSet = newSet.beginWrite();
-            if (!mutableSet.remove(txn)) {
-                break;
-            }
-            mutableSet.endWrite();
-            // update min & max
-            final TransactionBase prevMin = prevSet.min;
-            final TransactionBase newMin = prevMin == txn ? null : prevMin;
-            final TransactionBase prevMax = prevSet.max;
-            final TransactionBase newMax = prevMax == txn ? null : prevMax;
-            if (this.txns.compareAndSet(prevSet, new MinMaxAwareTransactionSet(newSet, newMin, newMax))) {
-                break;
-            }
-        }
+        getStripe(txn).remove(txn);
     }
 
     boolean isEmpty() {
-        return getCurrent().isEmpty();
+        for (final Stripe stripe : stripes) {
+            if (stripe.size != 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     int size() {
-        return getCurrent().size();
+        int result = 0;
+        for (final Stripe stripe : stripes) {
+            result += stripe.size;
+        }
+        return result;
     }
 
     @Nullable
     TransactionBase getOldestTransaction() {
-        return txns.get().getMin();
+        TransactionBase result = null;
+        long resultRoot = Long.MAX_VALUE;
+        for (final Stripe stripe : stripes) {
+            final TransactionBase min = stripe.getMin();
+            if (min != null) {
+                final long root = min.getRoot();
+                if (result == null || root < resultRoot) {
+                    result = min;
+                    resultRoot = root;
+                }
+            }
+        }
+        return result;
     }
 
     @Nullable
     TransactionBase getNewestTransaction() {
-        return txns.get().getMax();
+        TransactionBase result = null;
+        long resultRoot = Long.MIN_VALUE;
+        for (final Stripe stripe : stripes) {
+            final TransactionBase max = stripe.getMax();
+            if (max != null) {
+                final long root = max.getRoot();
+                if (result == null || root > resultRoot) {
+                    result = max;
+                    resultRoot = root;
+                }
+            }
+        }
+        return result;
     }
 
     @NotNull
-    private PersistentHashSet<TransactionBase> getCurrent() {
-        return txns.get().set;
+    private Stripe getStripe(@NotNull final TransactionBase txn) {
+        final int h = System.identityHashCode(txn);
+        return stripes[(h ^ (h >>> 16)) & stripeMask];
     }
 
-    private static class MinMaxAwareTransactionSet {
+    private static final class Stripe {
 
         @NotNull
-        private final PersistentHashSet<TransactionBase> set;
+        private final HashSet<TransactionBase> txns;
+        private volatile int size;
+        // null if the stripe is empty or the value should be recalculated
         @Nullable
-        private TransactionBase min;
+        private volatile TransactionBase min;
         @Nullable
-        private TransactionBase max;
+        private volatile TransactionBase max;
 
-        private MinMaxAwareTransactionSet(@NotNull final PersistentHashSet<TransactionBase> set,
-                                          @Nullable final TransactionBase min, @Nullable final TransactionBase max) {
-            this.set = set;
-            this.min = min;
-            this.max = max;
+        private Stripe() {
+            txns = new HashSet<>();
         }
 
-        private MinMaxAwareTransactionSet() {
-            this(new PersistentHashSet<TransactionBase>(), null, null);
+        private synchronized void add(@NotNull final TransactionBase txn) {
+            final long root = txn.getRoot();
+            final TransactionBase min = this.min;
+            final TransactionBase max = this.max;
+            if (txns.add(txn)) {
+                if (size++ == 0) {
+                    this.min = txn;
+                    this.max = txn;
+                    return;
+                }
+            } else {
+                // root of the transaction could have changed
+                if (min == txn) {
+                    this.min = null;
+                }
+                if (max == txn) {
+                    this.max = null;
+                }
+            }
+            if (min != null && min != txn && min.getRoot() > root) {
+                this.min = txn;
+            }
+            if (max != null && max != txn && max.getRoot() < root) {
+                this.max = txn;
+            }
+        }
+
+        private synchronized boolean contains(@NotNull final TransactionBase txn) {
+            return txns.contains(txn);
+        }
+
+        private synchronized void remove(@NotNull final TransactionBase txn) {
+            if (txns.remove(txn)) {
+                --size;
+                if (min == txn) {
+                    min = null;
+                }
+                if (max == txn) {
+                    max = null;
+                }
+            }
+        }
+
+        private synchronized void copyTo(@NotNull final List<TransactionBase> list) {
+            list.addAll(txns);
         }
 
         @Nullable
         private TransactionBase getMin() {
-            if (min == null) {
-                TransactionBase min = null;
-                long minRoot = Long.MIN_VALUE;
-                for (final TransactionBase txn : set) {
-                    final long root = txn.getRoot();
-                    if (min == null || root < minRoot) {
-                        min = txn;
-                        minRoot = root;
+            final TransactionBase min = this.min;
+            if (min != null || size == 0) {
+                return min;
+            }
+            synchronized (this) {
+                if (this.min == null) {
+                    TransactionBase result = null;
+                    long resultRoot = Long.MAX_VALUE;
+                    for (final TransactionBase txn : txns) {
+                        final long root = txn.getRoot();
+                        if (result == null || root < resultRoot) {
+                            result = txn;
+                            resultRoot = root;
+                        }
                     }
+                    this.min = result;
                 }
-                this.min = min;
+                return this.min;
             }
-            return min;
         }
 
         @Nullable
         private TransactionBase getMax() {
-            if (max == null) {
-                TransactionBase max = null;
-                long maxRoot = Long.MAX_VALUE;
-                for (final TransactionBase txn : set) {
-                    final long root = txn.getRoot();
-                    if (max == null || root > maxRoot) {
-                        max = txn;
-                        maxRoot = root;
+            final TransactionBase max = this.max;
+            if (max != null || size == 0) {
+                return max;
+            }
+            synchronized (this) {
+                if (this.max == null) {
+                    TransactionBase result = null;
+                    long resultRoot = Long.MIN_VALUE;
+                    for (final TransactionBase txn : txns) {
+                        final long root = txn.getRoot();
+                        if (result == null || root > resultRoot) {
+                            result = txn;
+                            resultRoot = root;
+                        }
                     }
+                    this.max = result;
                 }
-                this.max = max;
+                return this.max;
             }
-            return max;
         }
     }
 }
@@ -93,6 +93,16 @@ public class EnvironmentConfig extends MBeanBase implements EnvironmentConfigMBe
         return config.isLogCacheNonBlocking();
     }
 
+    @Override
+    public boolean isLogCacheOffHeap() {
+        return config.isLogCacheOffHeap();
+    }
+
+    @Override
+    public String getLogCacheEvictionPolicy() {
+        return config.getLogCacheEvictionPolicy();
+    }
+
     @Override
     public boolean isLogCleanDirectoryExpected() {
         return config.isLogCleanDirectoryExpected();
@@ -113,6 +123,16 @@ public class EnvironmentConfig extends MBeanBase implements EnvironmentConfigMBe
         config.setLogSyncPeriod(millis);
     }
 
+    @Override
+    public long getLogTailCheckpointPeriod() {
+        return config.getLogTailCheckpointPeriod();
+    }
+
+    @Override
+    public boolean isLogPageChecksums() {
+        return config.isLogPageChecksums();
+    }
+
     @Override
     public boolean isLogFullFileReadonly() {
         return config.isLogFullFileReadonly();
@@ -138,6 +158,46 @@ public class EnvironmentConfig extends MBeanBase implements EnvironmentConfigMBe
         config.setEnvStoreGetCacheSize(storeGetCacheSize);
     }
 
+    @Override
+    public int getEnvStoreGetCacheMemoryUsage() {
+        return config.getEnvStoreGetCacheMemoryUsage();
+    }
+
+    @Override
+    public void setEnvStoreGetCacheMemoryUsage(int memoryUsage) {
+        config.setEnvStoreGetCacheMemoryUsage(memoryUsage);
+    }
+
+    @Override
+    public int getEnvStoreGetCacheMaxValueSize() {
+        return config.getEnvStoreGetCacheMaxValueSize();
+    }
+
+    @Override
+    public void setEnvStoreGetCacheMaxValueSize(int maxValueSize) {
+        config.setEnvStoreGetCacheMaxValueSize(maxValueSize);
+    }
+
+    @Override
+    public String getEnvStoreGetCacheStores() {
+        return config.getEnvStoreGetCacheStores();
+    }
+
+    @Override
+    public void setEnvStoreGetCacheStores(String storeNames) {
+        config.setEnvStoreGetCacheStores(storeNames);
+    }
+
+    @Override
+    public int getEnvMappedValueMinLength() {
+        return config.getEnvMappedValueMinLength();
+    }
+
+    @Override
+    public void setEnvMappedValueMinLength(int minLength) {
+        config.setEnvMappedValueMinLength(minLength);
+    }
+
     @Override
     public boolean getEnvCloseForcedly() {
         return config.getEnvCloseForcedly();
@@ -188,6 +248,31 @@ public class EnvironmentConfig extends MBeanBase implements EnvironmentConfigMBe
         return config.getEnvMaxParallelReadonlyTxns();
     }
 
+    @Override
+    public boolean getEnvGroupCommit() {
+        return config.getEnvGroupCommit();
+    }
+
+    @Override
+    public int getEnvGroupCommitMaxDelay() {
+        return config.getEnvGroupCommitMaxDelay();
+    }
+
+    @Override
+    public void setEnvGroupCommitMaxDelay(final int maxDelay) {
+        config.setEnvGroupCommitMaxDelay(maxDelay);
+    }
+
+    @Override
+    public int getEnvGroupCommitMaxBatchSize() {
+        return config.getEnvGroupCommitMaxBatchSize();
+    }
+
+    @Override
+    public void setEnvGroupCommitMaxBatchSize(final int maxBatchSize) {
+        config.setEnvGroupCommitMaxBatchSize(maxBatchSize);
+    }
+
     @Override
     public int getEnvMonitorTxnsTimeout() {
         return config.getEnvMonitorTxnsTimeout();
@@ -208,6 +293,21 @@ public class EnvironmentConfig extends MBeanBase implements EnvironmentConfigMBe
         return config.getTreeMaxPageSize();
     }
 
+    @Override
+    public int getTreeKeyPrefixLength() {
+        return config.getTreeKeyPrefixLength();
+    }
+
+    @Override
+    public int getTreeNodesCacheSize() {
+        return config.getTreeNodesCacheSize();
+    }
+
+    @Override
+    public boolean isTreePatriciaChildrenBitmap() {
+        return config.isTreePatriciaChildrenBitmap();
+    }
+
     @Override
     public boolean isGcEnabled() {
         return config.isGcEnabled();
@@ -293,6 +393,16 @@ public class EnvironmentConfig extends MBeanBase implements EnvironmentConfigMBe
         config.setGcUtilizationFromFile(file);
     }
 
+    @Override
+    public boolean getGcUtilizationIncremental() {
+        return config.getGcUtilizationIncremental();
+    }
+
+    @Override
+    public void setGcUtilizationIncremental(boolean incremental) {
+        config.setGcUtilizationIncremental(incremental);
+    }
+
     @Override
     public boolean getGcUseExclusiveTransaction() {
         return config.getGcUseExclusiveTransaction();
@@ -333,6 +443,16 @@ public class EnvironmentConfig extends MBeanBase implements EnvironmentConfigMBe
         config.setGcFilesDeletionDelay(delay);
     }
 
+    @Override
+    public int getGcReaderThreads() {
+        return config.getGcReaderThreads();
+    }
+
+    @Override
+    public void setGcReaderThreads(int threads) {
+        config.setGcReaderThreads(threads);
+    }
+
     @Override
     public void close() {
         env.close();
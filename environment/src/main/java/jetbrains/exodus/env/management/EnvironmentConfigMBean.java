@@ -43,6 +43,10 @@ public interface EnvironmentConfigMBean {
 
     boolean isLogCacheNonBlocking();
 
+    boolean isLogCacheOffHeap();
+
+    String getLogCacheEvictionPolicy();
+
     boolean isLogCleanDirectoryExpected();
 
     boolean isLogClearInvalid();
@@ -51,6 +55,10 @@ public interface EnvironmentConfigMBean {
 
     void setLogSyncPeriod(long millis);
 
+    long getLogTailCheckpointPeriod();
+
+    boolean isLogPageChecksums();
+
     boolean isLogFullFileReadonly();
 
     boolean getEnvIsReadonly();
@@ -61,6 +69,22 @@ public interface EnvironmentConfigMBean {
 
     void setEnvStoreGetCacheSize(int storeGetCacheSize);
 
+    int getEnvStoreGetCacheMemoryUsage();
+
+    void setEnvStoreGetCacheMemoryUsage(int memoryUsage);
+
+    int getEnvStoreGetCacheMaxValueSize();
+
+    void setEnvStoreGetCacheMaxValueSize(int maxValueSize);
+
+    String getEnvStoreGetCacheStores();
+
+    void setEnvStoreGetCacheStores(String storeNames);
+
+    int getEnvMappedValueMinLength();
+
+    void setEnvMappedValueMinLength(int minLength);
+
     boolean getEnvCloseForcedly();
 
     void setEnvCloseForcedly(boolean closeForcedly);
@@ -81,6 +105,16 @@ public interface EnvironmentConfigMBean {
 
     int getEnvMaxParallelReadonlyTxns();
 
+    boolean getEnvGroupCommit();
+
+    int getEnvGroupCommitMaxDelay();
+
+    void setEnvGroupCommitMaxDelay(final int maxDelay);
+
+    int getEnvGroupCommitMaxBatchSize();
+
+    void setEnvGroupCommitMaxBatchSize(final int maxBatchSize);
+
     int getEnvMonitorTxnsTimeout();
 
     int getEnvMonitorTxnsCheckFreq();
@@ -89,6 +123,12 @@ public interface EnvironmentConfigMBean {
 
     int getTreeMaxPageSize();
 
+    int getTreeKeyPrefixLength();
+
+    int getTreeNodesCacheSize();
+
+    boolean isTreePatriciaChildrenBitmap();
+
     boolean isGcEnabled();
 
     void setGcEnabled(boolean enabled);
@@ -123,6 +163,10 @@ public interface EnvironmentConfigMBean {
 
     void setGcUtilizationFromFile(String file);
 
+    boolean getGcUtilizationIncremental();
+
+    void setGcUtilizationIncremental(boolean incremental);
+
     boolean getGcUseExclusiveTransaction();
 
     void setGcUseExclusiveTransaction(boolean useExclusiveTransaction);
@@ -139,5 +183,9 @@ public interface EnvironmentConfigMBean {
 
     void setGcFilesDeletionDelay(int delay);
 
+    int getGcReaderThreads();
+
+    void setGcReaderThreads(int threads);
+
     void close();
 }
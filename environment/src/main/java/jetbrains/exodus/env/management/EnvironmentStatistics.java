@@ -78,6 +78,11 @@ public class EnvironmentStatistics extends MBeanBase implements EnvironmentStati
         return ObjectCacheBase.formatHitRate((float) getMean(LOG_CACHE_HIT_RATE));
     }
 
+    @Override
+    public long getLogCacheAdmissionRejects() {
+        return getTotal(LOG_CACHE_ADMISSION_REJECTS);
+    }
+
     @Override
     public long getNumberOfTransactions() {
         return getTotal(TRANSACTIONS);
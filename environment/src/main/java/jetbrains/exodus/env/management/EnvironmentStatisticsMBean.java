@@ -33,6 +33,8 @@ public interface EnvironmentStatisticsMBean {
 
     String getLogCacheHitRate();
 
+    long getLogCacheAdmissionRejects();
+
     long getNumberOfTransactions();
 
     double getNumberOfTransactionsPerSecond();
@@ -283,18 +283,40 @@ public final class GarbageCollector {
         try {
             final OOMGuard guard = new OOMGuard();
             final long started = System.currentTimeMillis();
-            while (fragmentedFiles.hasNext()) {
-                final long fileAddress = fragmentedFiles.next();
-                cleanSingleFile(fileAddress, txn);
-                cleanedFiles.add(fileAddress);
-                if (!isTxnExclusive) {
-                    break; // do not process more than one file in a non-exclusive txn
-                }
-                if (started + ec.getGcTransactionTimeout() < System.currentTimeMillis()) {
-                    break; // break by timeout
+            final int readerThreads = ec.getGcReaderThreads();
+            if (readerThreads > 1) {
+                // files are read ahead in parallel, reclaiming is batched in the single txn even if it's not exclusive
+                final ParallelFilesReader reader = new ParallelFilesReader(getLog(), fragmentedFiles, readerThreads);
+                try {
+                    while (reader.hasNext()) {
+                        final ParallelFilesReader.FileLoggables file = reader.next();
+                        final long fileAddress = file.getFileAddress();
+                        cleanSingleFile(fileAddress, txn, file.getLoggables());
+                        cleanedFiles.add(fileAddress);
+                        if (started + ec.getGcTransactionTimeout() < System.currentTimeMillis()) {
+                            break; // break by timeout
+                        }
+                        if (guard.isItCloseToOOM()) {
+                            break; // break because of the risk of OutOfMemoryError
+                        }
+                    }
+                } finally {
+                    reader.cancel();
                 }
-                if (guard.isItCloseToOOM()) {
-                    break; // break because of the risk of OutOfMemoryError
+            } else {
+                while (fragmentedFiles.hasNext()) {
+                    final long fileAddress = fragmentedFiles.next();
+                    cleanSingleFile(fileAddress, txn, getLog().getLoggableIterator(fileAddress));
+                    cleanedFiles.add(fileAddress);
+                    if (!isTxnExclusive) {
+                        break; // do not process more than one file in a non-exclusive txn
+                    }
+                    if (started + ec.getGcTransactionTimeout() < System.currentTimeMillis()) {
+                        break; // break by timeout
+                    }
+                    if (guard.isItCloseToOOM()) {
+                        break; // break because of the risk of OutOfMemoryError
+                    }
                 }
             }
             if (!txn.forceFlush()) {
@@ -342,8 +364,11 @@ public final class GarbageCollector {
     /**
      * @param fileAddress address of the file to clean
      * @param txn         transaction
+     * @param loggables   loggables starting from the beginning of the file
      */
-    private void cleanSingleFile(final long fileAddress, @NotNull final ReadWriteTransaction txn) {
+    private void cleanSingleFile(final long fileAddress,
+                                 @NotNull final ReadWriteTransaction txn,
+                                 @NotNull final Iterator<RandomAccessLoggable> loggables) {
         // the file can be already cleaned
         if (isFileCleaned(fileAddress)) {
             throw new ExodusException("Attempt to clean already cleaned file");
@@ -360,7 +385,6 @@ public final class GarbageCollector {
         }
         try {
             final long nextFileAddress = fileAddress + log.getFileLengthBound();
-            final Iterator<RandomAccessLoggable> loggables = log.getLoggableIterator(fileAddress);
             while (loggables.hasNext()) {
                 final RandomAccessLoggable loggable = loggables.next();
                 if (loggable.getAddress() >= nextFileAddress) {
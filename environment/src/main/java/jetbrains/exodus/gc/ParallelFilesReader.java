@@ -0,0 +1,223 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.gc;
+
+import jetbrains.exodus.ExodusException;
+import jetbrains.exodus.core.dataStructures.Priority;
+import jetbrains.exodus.core.execution.Job;
+import jetbrains.exodus.core.execution.JobProcessor;
+import jetbrains.exodus.core.execution.ThreadJobProcessorPool;
+import jetbrains.exodus.log.Log;
+import jetbrains.exodus.log.LoggableIterator;
+import jetbrains.exodus.log.RandomAccessLoggable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads loggables of several {@code Log} files ahead of the GC transaction using shared reader threads.
+ * Files are returned in the order they are supplied by the source iterator, at most {@code readerThreads}
+ * files are being read or kept read at a time. Reading doesn't require any transaction, so the GC transaction
+ * only has to apply {@code StoreImpl.reclaim()} to already loaded loggables.
+ */
+final class ParallelFilesReader {
+
+    private static final String READER_PROCESSOR_NAME = "Exodus shared GC reader ";
+
+    @NotNull
+    private final Log log;
+    @NotNull
+    private final Iterator<Long> files;
+    @NotNull
+    private final JobProcessor[] processors;
+    @NotNull
+    private final ArrayDeque<FileReadingJob> jobs;
+    private int nextProcessor;
+    private volatile boolean cancelled;
+
+    ParallelFilesReader(@NotNull final Log log, @NotNull final Iterator<Long> files, final int readerThreads) {
+        this.log = log;
+        this.files = files;
+        processors = new JobProcessor[readerThreads];
+        for (int i = 0; i < readerThreads; ++i) {
+            processors[i] = ThreadJobProcessorPool.getOrCreateJobProcessor(READER_PROCESSOR_NAME + i);
+        }
+        jobs = new ArrayDeque<>(readerThreads);
+        while (jobs.size() < readerThreads && files.hasNext()) {
+            queueNextFile();
+        }
+        cancelled = false;
+    }
+
+    boolean hasNext() {
+        return !jobs.isEmpty();
+    }
+
+    /**
+     * Waits for the next file to be read and queues reading of one more file if any.
+     *
+     * @return file address and iterator over all loggables of the file. The iterator continues reading
+     * beyond the end of the file if reclaiming requires that.
+     */
+    @NotNull
+    FileLoggables next() {
+        final FileReadingJob job = jobs.poll();
+        if (job == null) {
+            throw new NoSuchElementException();
+        }
+        if (files.hasNext()) {
+            queueNextFile();
+        }
+        return job.await();
+    }
+
+    /**
+     * Stops reading of queued files, should be called if the rest of the files won't be requested.
+     */
+    void cancel() {
+        cancelled = true;
+        jobs.clear();
+    }
+
+    private void queueNextFile() {
+        final FileReadingJob job = new FileReadingJob(files.next());
+        job.setProcessor(processors[nextProcessor]);
+        nextProcessor = (nextProcessor + 1) % processors.length;
+        jobs.add(job);
+        if (!job.queue(Priority.normal)) {
+            // processor is finished, so read in current thread
+            job.execute();
+        }
+    }
+
+    static final class FileLoggables {
+
+        private final long fileAddress;
+        @NotNull
+        private final Iterator<RandomAccessLoggable> loggables;
+
+        private FileLoggables(final long fileAddress, @NotNull final Iterator<RandomAccessLoggable> loggables) {
+            this.fileAddress = fileAddress;
+            this.loggables = loggables;
+        }
+
+        long getFileAddress() {
+            return fileAddress;
+        }
+
+        @NotNull
+        Iterator<RandomAccessLoggable> getLoggables() {
+            return loggables;
+        }
+    }
+
+    private final class FileReadingJob extends Job {
+
+        private final long fileAddress;
+        @NotNull
+        private final List<RandomAccessLoggable> loggables;
+        @Nullable
+        private RandomAccessLoggable firstLoggableOfNextFile;
+        @Nullable
+        private LoggableIterator rest;
+        @Nullable
+        private Throwable error;
+        private boolean done;
+
+        private FileReadingJob(final long fileAddress) {
+            this.fileAddress = fileAddress;
+            loggables = new ArrayList<>();
+        }
+
+        @Override
+        protected void execute() {
+            try {
+                final long nextFileAddress = fileAddress + log.getFileLengthBound();
+                final LoggableIterator it = log.getLoggableIterator(fileAddress);
+                while (!cancelled && it.hasNext()) {
+                    final RandomAccessLoggable loggable = it.next();
+                    if (loggable.getAddress() >= nextFileAddress) {
+                        firstLoggableOfNextFile = loggable;
+                        break;
+                    }
+                    loggables.add(loggable);
+                }
+                rest = it;
+            } catch (Throwable t) {
+                error = t;
+            } finally {
+                synchronized (this) {
+                    done = true;
+                    notifyAll();
+                }
+            }
+        }
+
+        @NotNull
+        private FileLoggables await() {
+            synchronized (this) {
+                while (!done) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw ExodusException.toExodusException(e);
+                    }
+                }
+            }
+            if (error != null) {
+                throw ExodusException.toExodusException(error);
+            }
+            return new FileLoggables(fileAddress, new Iterator<RandomAccessLoggable>() {
+
+                private final Iterator<RandomAccessLoggable> read = loggables.iterator();
+                @Nullable
+                private RandomAccessLoggable nextFile = firstLoggableOfNextFile;
+
+                @Override
+                public boolean hasNext() {
+                    return read.hasNext() || nextFile != null || (rest != null && rest.hasNext());
+                }
+
+                @Override
+                public RandomAccessLoggable next() {
+                    if (read.hasNext()) {
+                        return read.next();
+                    }
+                    if (nextFile != null) {
+                        final RandomAccessLoggable result = nextFile;
+                        nextFile = null;
+                        return result;
+                    }
+                    if (rest == null || !rest.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return rest.next();
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            });
+        }
+    }
+}
@@ -15,14 +15,18 @@
  */
 package jetbrains.exodus.gc;
 
+import jetbrains.exodus.ByteIterable;
 import jetbrains.exodus.bindings.LongBinding;
 import jetbrains.exodus.core.dataStructures.Pair;
 import jetbrains.exodus.core.dataStructures.hash.LongHashMap;
+import jetbrains.exodus.core.dataStructures.hash.LongHashSet;
+import jetbrains.exodus.core.dataStructures.hash.LongSet;
 import jetbrains.exodus.core.execution.Job;
 import jetbrains.exodus.env.*;
 import jetbrains.exodus.log.*;
 import jetbrains.exodus.tree.LongIterator;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.lang.ref.WeakReference;
@@ -39,6 +43,8 @@ public final class UtilizationProfile {
     private final long fileSize; // in bytes
     @NotNull
     private final LongHashMap<MutableLong> filesUtilization; // file address -> number of free bytes
+    @NotNull
+    private final LongSet changedFiles; // files changed since last saving, guarded by filesUtilization
     private long totalBytes;
     private long totalFreeBytes;
     private volatile boolean isDirty;
@@ -49,12 +55,14 @@ public final class UtilizationProfile {
         log = env.getLog();
         fileSize = log.getFileSize() * 1024L;
         filesUtilization = new LongHashMap<>();
+        changedFiles = new LongHashSet();
         log.addNewFileListener(new NewFileListener() {
             @Override
             @SuppressWarnings({"ConstantConditions"})
             public void fileCreated(long fileAddress) {
                 synchronized (filesUtilization) {
                     filesUtilization.put(fileAddress, new MutableLong(0L));
+                    changedFiles.add(fileAddress);
                 }
                 estimateTotalBytes();
             }
@@ -64,6 +72,7 @@ public final class UtilizationProfile {
     void clear() {
         synchronized (filesUtilization) {
             filesUtilization.clear();
+            changedFiles.clear();
         }
         estimateTotalBytes();
     }
@@ -131,6 +140,7 @@ public final class UtilizationProfile {
             final List<Map.Entry<Long, MutableLong>> filesUtilization;
             synchronized (UtilizationProfile.this.filesUtilization) {
                 filesUtilization = new ArrayList<>(UtilizationProfile.this.filesUtilization.entrySet());
+                changedFiles.clear();
             }
             for (final Map.Entry<Long, MutableLong> entry : filesUtilization) {
                 store.put(txn,
@@ -140,6 +150,58 @@ public final class UtilizationProfile {
         }
     }
 
+    /**
+     * Saves utilization of the files changed since previous saving in internal store within specified transaction.
+     * If the transaction is not flushed then {@linkplain #changedFilesNotSaved(long[])} should be called.
+     *
+     * @return addresses of saved files or {@code null} if nothing was changed
+     * @see EnvironmentConfig#getGcUtilizationIncremental()
+     */
+    @Nullable
+    public long[] saveChangedFiles(@NotNull final Transaction txn) {
+        final long[] files;
+        final long[] freeBytes;
+        synchronized (filesUtilization) {
+            if (changedFiles.isEmpty()) {
+                return null;
+            }
+            files = changedFiles.toLongArray();
+            changedFiles.clear();
+            freeBytes = new long[files.length];
+            for (int i = 0; i < files.length; ++i) {
+                final MutableLong fileFreeBytes = filesUtilization.get(files[i]);
+                freeBytes[i] = fileFreeBytes == null ? -1L : fileFreeBytes.value;
+            }
+        }
+        final StoreImpl store = env.openStore(GarbageCollector.UTILIZATION_PROFILE_STORE_NAME,
+            StoreConfig.WITHOUT_DUPLICATES, txn);
+        for (int i = 0; i < files.length; ++i) {
+            final ByteIterable key = LongBinding.longToCompressedEntry(files[i]);
+            final long fileFreeBytes = freeBytes[i];
+            if (fileFreeBytes < 0) {
+                // the file is already deleted
+                store.delete(txn, key);
+            } else {
+                store.put(txn, key, CompressedUnsignedLongByteIterable.getIterable(fileFreeBytes));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Should be called if the transaction which {@linkplain #saveChangedFiles(Transaction)} was called in
+     * isn't flushed, so utilization of the files would be saved by next transaction.
+     *
+     * @param files addresses of files returned by {@linkplain #saveChangedFiles(Transaction)}
+     */
+    public void changedFilesNotSaved(@NotNull final long[] files) {
+        synchronized (filesUtilization) {
+            for (final long file : files) {
+                changedFiles.add(file);
+            }
+        }
+    }
+
     public boolean isDirty() {
         return isDirty;
     }
@@ -181,6 +243,9 @@ public final class UtilizationProfile {
                     filesUtilization.put(fileAddress, freeBytes);
                 }
                 freeBytes.value += loggable.length;
+                if (prevFileAddress != fileAddress) {
+                    changedFiles.add(fileAddress);
+                }
                 prevFreeBytes = freeBytes;
                 prevFileAddress = fileAddress;
             }
@@ -190,6 +255,7 @@ public final class UtilizationProfile {
     void removeFile(final long fileAddress) {
         synchronized (filesUtilization) {
             filesUtilization.remove(fileAddress);
+            changedFiles.add(fileAddress);
         }
     }
 
@@ -311,6 +377,7 @@ public final class UtilizationProfile {
                 filesUtilization.put(entry.getKey(), new MutableLong(fileSize - entry.getValue()));
             }
         }
+        isDirty = true;
         estimateFreeBytesAndWakeGcIfNecessary();
     }
 
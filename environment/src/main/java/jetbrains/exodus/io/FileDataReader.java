@@ -138,6 +138,38 @@ public class FileDataReader implements DataReader {
         return new FileBlock(address);
     }
 
+    /**
+     * Returns a view of {@code length} bytes at {@code position} of the memory mapped immutable file
+     * without copying them. Returned iterable should be closed as soon as neither it nor its sub-iterables
+     * are used anymore.
+     *
+     * @return {@code null} if NIO is not used, or the file is not immutable, or it can't be mapped
+     */
+    @Nullable
+    public MappedByteIterable getMappedIterable(final long blockAddress, final long position, final int length) {
+        final FileBlock file = getBlock(blockAddress);
+        if (!useNio || !((log != null && log.isImmutableFile(blockAddress)) || (log == null && !file.canWrite()))) {
+            return null;
+        }
+        try {
+            try (SharedRandomAccessFile f = SharedOpenFilesCache.getInstance().getCachedFile(file)) {
+                final SharedMappedByteBuffer mappedBuffer = SharedMappedFilesCache.getInstance().getFileBuffer(f);
+                final ByteBuffer buffer = mappedBuffer.getBuffer();
+                if (position + length > buffer.limit()) {
+                    mappedBuffer.close();
+                    return null;
+                }
+                buffer.position((int) position).limit((int) position + length);
+                return new MappedByteIterable(buffer.slice(), mappedBuffer);
+            }
+        } catch (Throwable t) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Failed to map file " + file.getAbsolutePath(), t);
+            }
+            return null;
+        }
+    }
+
     public static void sortBlocks(Block[] result) {
         Arrays.sort(result, new Comparator<Block>() {
             @Override
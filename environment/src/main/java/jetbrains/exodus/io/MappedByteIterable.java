@@ -0,0 +1,146 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.io;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.ExodusException;
+import jetbrains.exodus.ByteIterator;
+import jetbrains.exodus.util.ByteIterableUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@code ByteIterable} which is a view of a memory mapped immutable {@code Log} file. It doesn't copy bytes
+ * unless {@link #getBytesUnsafe()} is called. The view is valid until its owner is closed, after that the file
+ * can be unmapped, and accessing the bytes of the iterable or of its sub-iterables throws {@link ExodusException}.
+ *
+ * @see FileDataReader#getMappedIterable(long, long, int)
+ */
+public final class MappedByteIterable implements ByteIterable, AutoCloseable {
+
+    @NotNull
+    private final ByteBuffer buffer; // read-only buffer with position = 0
+    @Nullable
+    private SharedMappedByteBuffer owner; // null if closed or if the iterable is a sub-iterable
+    @Nullable
+    private final MappedByteIterable root; // null if the iterable isn't a sub-iterable
+    @Nullable
+    private byte[] bytes;
+
+    MappedByteIterable(@NotNull final ByteBuffer buffer, @NotNull final SharedMappedByteBuffer owner) {
+        this.buffer = buffer;
+        this.owner = owner;
+        root = null;
+    }
+
+    private MappedByteIterable(@NotNull final ByteBuffer buffer, @NotNull final MappedByteIterable root) {
+        this.buffer = buffer;
+        owner = null;
+        this.root = root;
+    }
+
+    /**
+     * @return read-only {@code ByteBuffer} with the bytes of the iterable.
+     */
+    @NotNull
+    public ByteBuffer getByteBuffer() {
+        checkNotClosed();
+        return buffer.duplicate();
+    }
+
+    @Override
+    public ByteIterator iterator() {
+        checkNotClosed();
+        final ByteBuffer buffer = this.buffer;
+        final int length = buffer.limit();
+        return new ByteIterator() {
+
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+
+            @Override
+            public byte next() {
+                return buffer.get(index++);
+            }
+
+            @Override
+            public long skip(final long bytes) {
+                final int result = (int) Math.min(bytes, length - index);
+                index += result;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Copies bytes of the iterable to a byte array on first call.
+     */
+    @Override
+    public byte[] getBytesUnsafe() {
+        byte[] result = bytes;
+        if (result == null) {
+            checkNotClosed();
+            result = new byte[buffer.limit()];
+            buffer.duplicate().get(result);
+            bytes = result;
+        }
+        return result;
+    }
+
+    @Override
+    public int getLength() {
+        return buffer.limit();
+    }
+
+    @NotNull
+    @Override
+    public ByteIterable subIterable(final int offset, final int length) {
+        checkNotClosed();
+        final ByteBuffer copy = buffer.duplicate();
+        copy.position(offset).limit(Math.min(buffer.limit(), offset + length));
+        return new MappedByteIterable(copy.slice(), root == null ? this : root);
+    }
+
+    @Override
+    public int compareTo(@NotNull final ByteIterable right) {
+        checkNotClosed();
+        return ByteIterableUtil.compare(this, right);
+    }
+
+    /**
+     * Releases the mapped file. Sub-iterables and buffers obtained from the iterable can't be used after that.
+     */
+    @Override
+    public void close() {
+        final SharedMappedByteBuffer owner = this.owner;
+        if (owner != null) {
+            this.owner = null;
+            owner.close();
+        }
+    }
+
+    private void checkNotClosed() {
+        if ((root == null ? this : root).owner == null) {
+            throw new ExodusException("Mapped iterable is accessed after it was closed");
+        }
+    }
+}
@@ -23,6 +23,8 @@ import jetbrains.exodus.bindings.LongBinding;
 import jetbrains.exodus.util.ByteIterableUtil;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
+
 class ArrayByteIterableWithAddress extends ByteIterableWithAddress {
 
     @NotNull
@@ -75,6 +77,11 @@ class ArrayByteIterableWithAddress extends ByteIterableWithAddress {
         return ByteIterableBase.toString(bytes, start, end);
     }
 
+    @NotNull
+    byte[] copyBytes() {
+        return Arrays.copyOfRange(bytes, start, end);
+    }
+
     private class ArrayByteIteratorWithAddress extends ByteIteratorWithAddress {
 
         private int i;
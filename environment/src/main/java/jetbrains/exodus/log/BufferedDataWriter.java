@@ -126,9 +126,15 @@ class BufferedDataWriter implements TransactionalDataWriter {
                 fullPages.add(0, previousPage);
                 previousPage = previousPage.previousPage;
             } while (previousPage != null);
+            final PageChecksums pageChecksums = log.pageChecksums;
             for (final MutablePage mutablePage : fullPages) {
                 final int off = mutablePage.flushedCount;
-                child.write(mutablePage.bytes, off, pageSize - off);
+                if (off < pageSize) {
+                    child.write(mutablePage.bytes, off, pageSize - off);
+                    if (pageChecksums != null) {
+                        pageChecksums.pageWritten(mutablePage.pageAddress, mutablePage.bytes);
+                    }
+                }
             }
             currentPage.previousPage = null;
         }
@@ -158,6 +164,10 @@ class BufferedDataWriter implements TransactionalDataWriter {
         if (committedCount > flushedCount) {
             child.write(currentPage.bytes, flushedCount, committedCount - flushedCount);
             currentPage.flushedCount = committedCount;
+            final PageChecksums pageChecksums = log.pageChecksums;
+            if (pageChecksums != null && committedCount == pageSize) {
+                pageChecksums.pageWritten(currentPage.pageAddress, currentPage.bytes);
+            }
         }
     }
 
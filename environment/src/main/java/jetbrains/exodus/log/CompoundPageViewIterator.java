@@ -0,0 +1,89 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.log;
+
+import jetbrains.exodus.ExodusException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The same as {@linkplain CompoundByteIterator}, but reads views of pages of off-heap log cache.
+ */
+class CompoundPageViewIterator extends ByteIteratorWithAddress {
+
+    @NotNull
+    private final Log log;
+    @Nullable
+    private ByteBuffer page;
+    private long pageAddress;
+    private int offset;
+    private int length;
+
+    CompoundPageViewIterator(final long address, @NotNull final Log log) {
+        this.log = log;
+        pageAddress = address;
+        offset = 0;
+        length = 0;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return (page != null && offset < length) || nextPage();
+    }
+
+    @Override
+    public byte next() {
+        if (!hasNext()) {
+            throw new ExodusException("CompoundPageViewIterator: no more bytes available");
+        }
+        //noinspection ConstantConditions
+        return page.get(offset++);
+    }
+
+    @Override
+    public long skip(final long bytes) {
+        long skipped = 0;
+        while (skipped < bytes && hasNext()) {
+            final int step = (int) Math.min(bytes - skipped, (long) (length - offset));
+            offset += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public long getAddress() {
+        return pageAddress + offset;
+    }
+
+    private boolean nextPage() {
+        final long address = pageAddress + offset;
+        final int alignment = ((int) address) & (log.getCachePageSize() - 1);
+        pageAddress = address - alignment;
+        offset = alignment;
+        final ByteBuffer page = log.cache.getPageView(log, pageAddress);
+        final int length = page.limit();
+        if (length <= alignment) { // alignment is >= 0 for sure
+            this.page = null;
+            return false;
+        }
+        this.page = page;
+        this.length = length;
+        return true;
+    }
+}
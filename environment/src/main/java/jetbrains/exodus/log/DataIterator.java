@@ -19,13 +19,20 @@ import jetbrains.exodus.ByteIterator;
 import jetbrains.exodus.ExodusException;
 import jetbrains.exodus.bindings.LongBinding;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
 
 public final class DataIterator extends ByteIterator {
 
     @NotNull
     private final Log log;
+    private final boolean offHeap;
     private long pageAddress;
     private byte[] page;
+    // is used instead of page if the log cache keeps pages off-heap
+    @Nullable
+    private ByteBuffer pageView;
     private int offset;
     private int length;
 
@@ -35,6 +42,7 @@ public final class DataIterator extends ByteIterator {
 
     public DataIterator(@NotNull final Log log, final long startAddress) {
         this.log = log;
+        offHeap = log.cache.isOffHeap();
         pageAddress = -1L;
         if (startAddress >= 0) {
             checkPage(startAddress);
@@ -43,7 +51,7 @@ public final class DataIterator extends ByteIterator {
 
     @Override
     public boolean hasNext() {
-        if (page == null) {
+        if (page == null && pageView == null) {
             return false;
         }
         if (offset >= length) {
@@ -59,13 +67,14 @@ public final class DataIterator extends ByteIterator {
             throw new ExodusException("DataIterator: no more bytes available" +
                 LogUtil.getWrongAddressErrorMessage(getHighAddress(), log.getFileSize()));
         }
-        return page[offset++];
+        final ByteBuffer pageView = this.pageView;
+        return pageView == null ? page[offset++] : pageView.get(offset++);
     }
 
     @Override
     public long skip(final long bytes) {
         long skipped = 0;
-        while (page != null && skipped < bytes) {
+        while ((page != null || pageView != null) && skipped < bytes) {
             final long pageBytesToSkip = Math.min(bytes - skipped, length - offset);
             skipped += pageBytesToSkip;
             offset += pageBytesToSkip;
@@ -79,11 +88,19 @@ public final class DataIterator extends ByteIterator {
 
     @Override
     public long nextLong(final int length) {
-        if (page == null || this.length - offset < length) {
+        if (this.length - offset < length || (page == null && pageView == null)) {
             return LongBinding.entryToUnsignedLong(this, length);
         }
-        final long result = LongBinding.entryToUnsignedLong(page, offset, length);
-        offset += length;
+        final ByteBuffer pageView = this.pageView;
+        if (pageView == null) {
+            final long result = LongBinding.entryToUnsignedLong(page, offset, length);
+            offset += length;
+            return result;
+        }
+        long result = 0;
+        for (int i = 0; i < length; ++i) {
+            result = (result << 8) + ((int) pageView.get(offset++) & 0xff);
+        }
         return result;
     }
 
@@ -93,11 +110,16 @@ public final class DataIterator extends ByteIterator {
         final long pageAddress = highAddress - offset;
         if (this.pageAddress != pageAddress) {
             try {
-                page = log.cache.getPage(log, pageAddress);
+                if (offHeap) {
+                    pageView = log.cache.getPageView(log, pageAddress);
+                } else {
+                    page = log.cache.getPage(log, pageAddress);
+                }
                 this.pageAddress = pageAddress;
             } catch (BlockNotFoundException e) {
                 this.pageAddress = -1L;
                 page = null;
+                pageView = null;
                 return;
             }
         }
@@ -105,6 +127,7 @@ public final class DataIterator extends ByteIterator {
         if (len <= offset) { // offset is >= 0 for sure
             this.pageAddress = -1L;
             page = null;
+            pageView = null;
             return;
         }
         this.length = len;
@@ -115,6 +138,14 @@ public final class DataIterator extends ByteIterator {
         return page;
     }
 
+    /**
+     * @return view of current page if the log cache keeps pages off-heap, otherwise {@code null}.
+     */
+    @Nullable
+    ByteBuffer getCurrentPageView() {
+        return pageView;
+    }
+
     int getOffset() {
         return offset;
     }
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.log;
+
+import jetbrains.exodus.core.dataStructures.ConcurrentLongObjectCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Cache of immutable objects decoded from loggables (e.g., pages and nodes of immutable trees) keyed by address of
+ * loggable. As the log is append-only, an address identifies the same loggable until the log is truncated, so cached
+ * objects can be shared by all transactions. The cache is invalidated on truncation of the log.
+ *
+ * @see Log#getDecodedLoggablesCache()
+ */
+public final class DecodedLoggablesCache {
+
+    @NotNull
+    private final ConcurrentLongObjectCache<Object> cache;
+
+    DecodedLoggablesCache(final int cacheSize) {
+        cache = new ConcurrentLongObjectCache<>(cacheSize);
+    }
+
+    @Nullable
+    public Object tryKey(final long address) {
+        return cache.tryKey(address);
+    }
+
+    public void cacheObject(final long address, @NotNull final Object decoded) {
+        cache.cacheObject(address, decoded);
+    }
+
+    public float hitRate() {
+        return cache.hitRate();
+    }
+
+    /**
+     * Decoded objects reference data of loggables, so in order to not keep whole pages of the LogCache by the
+     * cached objects, they should be decoded from compact loggables.
+     *
+     * @param loggable loggable read from the log
+     * @return loggable with the same data which doesn't reference a page of the LogCache
+     */
+    @NotNull
+    public static RandomAccessLoggable compact(@NotNull final RandomAccessLoggable loggable) {
+        return loggable instanceof RandomAccessLoggableAndArrayByteIterable ?
+            ((RandomAccessLoggableAndArrayByteIterable) loggable).compact() : loggable;
+    }
+
+    void clear() {
+        cache.clear();
+    }
+
+    void close() {
+        cache.close();
+    }
+}
@@ -27,6 +27,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -46,6 +48,8 @@ public final class Log implements Closeable {
     private final String location;
     private final LongSkipList blockAddrs;
     final LogCache cache;
+    @Nullable
+    private final DecodedLoggablesCache decodedLoggablesCache;
 
     private int logIdentity;
     @SuppressWarnings("NullableProblems")
@@ -73,6 +77,12 @@ public final class Log implements Closeable {
     private final long fileLengthBound; // and in bytes
     private long highAddress;
     private long approvedHighAddress; // high address approved on a higher layer (by Environment transactions)
+    @Nullable
+    private final File checkpointDir; // directory to save log tail checkpoints in
+    private long checkpointHighAddress;
+    private long lastCheckpointTicks;
+    @Nullable
+    final PageChecksums pageChecksums;
 
     @Nullable
     private LogTestConfig testConfig;
@@ -94,6 +104,13 @@ public final class Log implements Closeable {
         reader.setLog(this);
         location = reader.getLocation();
 
+        final File dir = new File(location);
+        checkpointDir = config.getTailCheckpointPeriod() > 0 && dir.isDirectory() ? dir : null;
+        final LogTailCheckpoint checkpoint = checkpointDir == null ?
+            null : LogTailCheckpoint.load(checkpointDir, reader, fileLengthBound);
+        checkpointHighAddress = checkpoint == null ? 0 : checkpoint.getHighAddress();
+        pageChecksums = config.isPageChecksums() && dir.isDirectory() ? new PageChecksums(this, dir) : null;
+
         checkLogConsistency();
 
         newFileListeners = new ArrayList<>(2);
@@ -101,16 +118,28 @@ public final class Log implements Closeable {
         removeFileListeners = new ArrayList<>(2);
         final long memoryUsage = config.getMemoryUsage();
         final boolean nonBlockingCache = config.isNonBlockingCache();
+        final boolean offHeapCache = config.isOffHeapCache();
+        final boolean frequencyAwareCache = config.isFrequencyAwareCache();
         if (memoryUsage != 0) {
-            cache = config.isSharedCache() ?
-                getSharedCache(memoryUsage, cachePageSize, nonBlockingCache) :
-                new SeparateLogCache(memoryUsage, cachePageSize, nonBlockingCache);
+            if (config.isSharedCache()) {
+                cache = getSharedCache(memoryUsage, cachePageSize, nonBlockingCache, offHeapCache, frequencyAwareCache);
+            } else {
+                cache = offHeapCache ?
+                    new OffHeapLogCache(memoryUsage, cachePageSize, false, frequencyAwareCache) :
+                    new SeparateLogCache(memoryUsage, cachePageSize, nonBlockingCache, frequencyAwareCache);
+            }
         } else {
             final int memoryUsagePercentage = config.getMemoryUsagePercentage();
-            cache = config.isSharedCache() ?
-                getSharedCache(memoryUsagePercentage, cachePageSize, nonBlockingCache) :
-                new SeparateLogCache(memoryUsagePercentage, cachePageSize, nonBlockingCache);
+            if (config.isSharedCache()) {
+                cache = getSharedCache(memoryUsagePercentage, cachePageSize, nonBlockingCache, offHeapCache, frequencyAwareCache);
+            } else {
+                cache = offHeapCache ?
+                    new OffHeapLogCache(memoryUsagePercentage, cachePageSize, false, frequencyAwareCache) :
+                    new SeparateLogCache(memoryUsagePercentage, cachePageSize, nonBlockingCache, frequencyAwareCache);
+            }
         }
+        final int decodedLoggablesCacheSize = config.getDecodedLoggablesCacheSize();
+        decodedLoggablesCache = decodedLoggablesCacheSize == 0 ? null : new DecodedLoggablesCache(decodedLoggablesCacheSize);
         DeferredIO.getJobProcessor();
         highAddress = 0;
         approvedHighAddress = 0;
@@ -126,27 +155,30 @@ public final class Log implements Closeable {
             final byte[] highPageContent = new byte[cachePageSize];
             setBufferedWriter(createBufferedWriter(baseWriter, highPageAddress,
                 highPageContent, highAddress == 0 ? 0 : readBytes(highPageContent, highPageAddress)));
-            // here we should check whether last loggable is written correctly
-            final Iterator<RandomAccessLoggable> lastFileLoggables = new LoggableIterator(this, lastFileAddress);
-            long approvedHighAddress = lastFileAddress;
-            try {
-                while (lastFileLoggables.hasNext()) {
-                    final RandomAccessLoggable loggable = lastFileLoggables.next();
-                    final int dataLength = NullLoggable.isNullLoggable(loggable) ? 0 : loggable.getDataLength();
-                    if (dataLength > 0) {
-                        // if not null loggable read all data to the end
-                        final ByteIteratorWithAddress data = loggable.getData().iterator();
-                        for (int i = 0; i < dataLength; ++i) {
-                            if (!data.hasNext()) {
-                                throw new ExodusException("Can't read loggable fully" + LogUtil.getWrongAddressErrorMessage(data.getAddress(), fileSize));
+            // here we should check whether last loggable is written correctly,
+            // loggables below the tail checkpoint are already checked
+            long approvedHighAddress = Math.max(lastFileAddress, checkpointHighAddress);
+            if (approvedHighAddress < highAddress) {
+                final Iterator<RandomAccessLoggable> lastFileLoggables = new LoggableIterator(this, approvedHighAddress);
+                try {
+                    while (lastFileLoggables.hasNext()) {
+                        final RandomAccessLoggable loggable = lastFileLoggables.next();
+                        final int dataLength = NullLoggable.isNullLoggable(loggable) ? 0 : loggable.getDataLength();
+                        if (dataLength > 0) {
+                            // if not null loggable read all data to the end
+                            final ByteIteratorWithAddress data = loggable.getData().iterator();
+                            for (int i = 0; i < dataLength; ++i) {
+                                if (!data.hasNext()) {
+                                    throw new ExodusException("Can't read loggable fully" + LogUtil.getWrongAddressErrorMessage(data.getAddress(), fileSize));
+                                }
+                                data.next();
                             }
-                            data.next();
                         }
+                        approvedHighAddress = loggable.getAddress() + loggable.length();
                     }
-                    approvedHighAddress = loggable.getAddress() + loggable.length();
+                } catch (ExodusException e) { // if an exception is thrown then last loggable wasn't read correctly
+                    logger.error("Exception on Log recovery. Approved high address = " + approvedHighAddress, e);
                 }
-            } catch (ExodusException e) { // if an exception is thrown then last loggable wasn't read correctly
-                logger.error("Exception on Log recovery. Approved high address = " + approvedHighAddress, e);
             }
             setHighAddress(approvedHighAddress);
             this.approvedHighAddress = approvedHighAddress;
@@ -159,7 +191,8 @@ public final class Log implements Closeable {
         for (int i = 0; i < blocks.length; ++i) {
             final Block block = blocks[i];
             final long address = block.getAddress();
-            final long blockLength = block.length();
+            // length of a file below the tail checkpoint is known
+            final long blockLength = address + fileLengthBound <= checkpointHighAddress ? fileLengthBound : block.length();
             String clearLogReason = null;
             // if it is not the last file and its size is not as expected
             if (blockLength > fileLengthBound || (i < blocks.length - 1 && blockLength != fileLengthBound)) {
@@ -181,6 +214,9 @@ public final class Log implements Closeable {
                 logger.error("Clearing log due to: " + clearLogReason);
                 blockAddrs.clear();
                 reader.clear();
+                if (pageChecksums != null) {
+                    pageChecksums.clear();
+                }
                 break;
             }
             blockAddrs.add(address);
@@ -254,6 +290,14 @@ public final class Log implements Closeable {
         }
         // end of test-only code
 
+        // addresses above highAddress will be reused, so decoded loggables can't be cached anymore
+        if (decodedLoggablesCache != null) {
+            decodedLoggablesCache.clear();
+        }
+        if (highAddress < checkpointHighAddress) {
+            deleteTailCheckpoint();
+        }
+
         // at first, remove all files which are higher than highAddress
         bufferedWriter.close();
         final LongArrayList blocksToDelete = new LongArrayList();
@@ -385,6 +429,17 @@ public final class Log implements Closeable {
         return cache.getPage(this, pageAddress);
     }
 
+    /**
+     * @return view of the page if {@linkplain #isCacheOffHeap()}, otherwise the cached page wrapped by a buffer.
+     */
+    public ByteBuffer getCachedPageView(final long pageAddress) {
+        return cache.getPageView(this, pageAddress);
+    }
+
+    public boolean isCacheOffHeap() {
+        return cache.isOffHeap();
+    }
+
     public final int getCachePageSize() {
         return cachePageSize;
     }
@@ -393,6 +448,19 @@ public final class Log implements Closeable {
         return cache == null ? 0 : cache.hitRate();
     }
 
+    public long getCacheAdmissionRejects() {
+        return cache == null ? 0 : cache.admissionRejects();
+    }
+
+    /**
+     * @return cache of objects decoded from loggables or {@code null} if it is not configured.
+     * @see LogConfig#setDecodedLoggablesCacheSize(int)
+     */
+    @Nullable
+    public DecodedLoggablesCache getDecodedLoggablesCache() {
+        return decodedLoggablesCache;
+    }
+
     public void addNewFileListener(@NotNull final NewFileListener listener) {
         synchronized (newFileListeners) {
             newFileListeners.add(listener);
@@ -446,6 +514,16 @@ public final class Log implements Closeable {
         final int dataLength = CompressedUnsignedLongByteIterable.getInt(it);
         final long dataAddress = it.getHighAddress();
         if (dataLength > 0 && it.availableInCurrentPage(dataLength)) {
+            final ByteBuffer pageView = it.getCurrentPageView();
+            if (pageView != null) {
+                // loggable can live long, so it shouldn't keep the off-heap page reachable
+                final byte[] data = new byte[dataLength];
+                final ByteBuffer source = pageView.duplicate();
+                source.position(it.getOffset());
+                source.get(data);
+                return new RandomAccessLoggableAndArrayByteIterable(
+                    address, type, structureId, dataAddress, data, 0, dataLength);
+            }
             return new RandomAccessLoggableAndArrayByteIterable(
                 address, type, structureId, dataAddress, it.getCurrentPage(), it.getOffset(), dataLength);
         }
@@ -600,28 +678,82 @@ public final class Log implements Closeable {
         return fileAddress + fileLengthBound <= approvedHighAddress;
     }
 
+    /**
+     * Returns a view of the bytes of specified iterable read from the log which doesn't copy them,
+     * if the bytes belong to a memory mapped immutable file and span more than one log cache page. Bytes within
+     * a single page are cheaper to read through the log cache. Checksums of pages are not verified for
+     * such views, so nothing is mapped if page checksums are on.
+     *
+     * @param iterable iterable read from the log
+     * @return {@code null} if bytes of the iterable can't be mapped
+     */
+    @Nullable
+    public MappedByteIterable getMappedIterable(@NotNull final ByteIterable iterable) {
+        if (!(iterable instanceof LogAwareFixedLengthByteIterable) || !(reader instanceof FileDataReader) || pageChecksums != null) {
+            return null;
+        }
+        final LogAwareFixedLengthByteIterable logAware = (LogAwareFixedLengthByteIterable) iterable;
+        final long address = logAware.getSource().getDataAddress() + logAware.getOffset();
+        final int length = logAware.getLength();
+        final long pageMask = ~((long) cachePageSize - 1);
+        if (length <= 0 || (address & pageMask) == ((address + length - 1) & pageMask)) {
+            return null;
+        }
+        final long fileAddress = getFileAddress(address);
+        return ((FileDataReader) reader).getMappedIterable(fileAddress, address - fileAddress, length);
+    }
+
     public void flush() {
         flush(false);
     }
 
+    /**
+     * Flushes buffered data to the underlying writer without syncing it regardless of durable write mode.
+     * The caller is responsible for further syncing by {@linkplain #flush(boolean)}.
+     */
+    public void flushWithoutSync() {
+        bufferedWriter.flush();
+    }
+
+    /**
+     * Syncs data already flushed to the underlying writer. Unlike {@linkplain #flush(boolean)}, can be called
+     * concurrently with writing to the log, since a file is always synced before it is closed.
+     */
+    public void syncFlushed() {
+        bufferedWriter.sync();
+    }
+
     public void flush(boolean forceSync) {
         final TransactionalDataWriter bufferedWriter = this.bufferedWriter;
         bufferedWriter.flush();
         if ((forceSync || config.isDurableWrite()) && !config.isFsyncSuppressed()) {
             bufferedWriter.sync();
             lastSyncTicks = System.currentTimeMillis();
+            if (checkpointDir != null && lastSyncTicks > lastCheckpointTicks + config.getTailCheckpointPeriod()) {
+                saveTailCheckpoint();
+            }
         }
     }
 
     @Override
     public void close() {
         flush(true);
+        if (checkpointDir != null) {
+            saveTailCheckpoint();
+        }
         reader.close();
         bufferedWriter.close();
+        if (pageChecksums != null) {
+            pageChecksums.close();
+        }
         release();
         synchronized (blockAddrs) {
             blockAddrs.clear();
         }
+        if (decodedLoggablesCache != null) {
+            decodedLoggablesCache.close();
+        }
+        cache.close();
     }
 
     public void release() {
@@ -629,12 +761,21 @@ public final class Log implements Closeable {
     }
 
     public void clear() {
+        if (checkpointHighAddress > 0) {
+            deleteTailCheckpoint();
+        }
         bufferedWriter.close();
         synchronized (blockAddrs) {
             blockAddrs.clear();
         }
         cache.clear();
+        if (decodedLoggablesCache != null) {
+            decodedLoggablesCache.clear();
+        }
         reader.clear();
+        if (pageChecksums != null) {
+            pageChecksums.clear();
+        }
         setBufferedWriter(createEmptyBufferedWriter(bufferedWriter.getChildWriter()));
         highAddress = 0;
     }
@@ -654,6 +795,9 @@ public final class Log implements Closeable {
         try {
             // remove physical file
             reader.removeBlock(address, rbt);
+            if (pageChecksums != null) {
+                pageChecksums.removeFile(address);
+            }
             // remove address of file of the list
             synchronized (blockAddrs) {
                 blockAddrs.remove(address);
@@ -672,6 +816,9 @@ public final class Log implements Closeable {
     private void truncateFile(final long address, final long length) {
         // truncate physical file
         reader.truncateBlock(address, length);
+        if (pageChecksums != null) {
+            pageChecksums.truncateFile(address, length);
+        }
         // clear cache
         for (long offset = length - (length % cachePageSize); offset < fileLengthBound; offset += cachePageSize) {
             cache.removePage(this, address + offset);
@@ -758,12 +905,18 @@ public final class Log implements Closeable {
     }
 
     @NotNull
-    private static LogCache getSharedCache(final long memoryUsage, final int pageSize, final boolean nonBlocking) {
+    private static LogCache getSharedCache(final long memoryUsage,
+                                           final int pageSize,
+                                           final boolean nonBlocking,
+                                           final boolean offHeap,
+                                           final boolean frequencyAware) {
         LogCache result = sharedCache;
         if (result == null) {
             synchronized (Log.class) {
                 if (sharedCache == null) {
-                    sharedCache = new SharedLogCache(memoryUsage, pageSize, nonBlocking);
+                    sharedCache = offHeap ?
+                        new OffHeapLogCache(memoryUsage, pageSize, true, frequencyAware) :
+                        new SharedLogCache(memoryUsage, pageSize, nonBlocking, frequencyAware);
                 }
                 result = sharedCache;
             }
@@ -773,12 +926,18 @@ public final class Log implements Closeable {
     }
 
     @NotNull
-    private static LogCache getSharedCache(final int memoryUsagePercentage, final int pageSize, final boolean nonBlocking) {
+    private static LogCache getSharedCache(final int memoryUsagePercentage,
+                                           final int pageSize,
+                                           final boolean nonBlocking,
+                                           final boolean offHeap,
+                                           final boolean frequencyAware) {
         LogCache result = sharedCache;
         if (result == null) {
             synchronized (Log.class) {
                 if (sharedCache == null) {
-                    sharedCache = new SharedLogCache(memoryUsagePercentage, pageSize, nonBlocking);
+                    sharedCache = offHeap ?
+                        new OffHeapLogCache(memoryUsagePercentage, pageSize, true, frequencyAware) :
+                        new SharedLogCache(memoryUsagePercentage, pageSize, nonBlocking, frequencyAware);
                 }
                 result = sharedCache;
             }
@@ -818,6 +977,26 @@ public final class Log implements Closeable {
         return new BufferedDataWriter(this, writer, highPageAddress, highPageContent, highPageSize);
     }
 
+    /**
+     * Saves checkpoint of the log tail, so next opening of the log won't check bytes below current high address.
+     * Should be called only if the log is synced.
+     */
+    private void saveTailCheckpoint() {
+        final long highAddress = this.highAddress;
+        lastCheckpointTicks = System.currentTimeMillis();
+        if (checkpointDir != null && highAddress > checkpointHighAddress) {
+            LogTailCheckpoint.create(this, highAddress).save(checkpointDir, fileLengthBound);
+            checkpointHighAddress = highAddress;
+        }
+    }
+
+    private void deleteTailCheckpoint() {
+        if (checkpointDir != null) {
+            LogTailCheckpoint.delete(checkpointDir);
+        }
+        checkpointHighAddress = 0;
+    }
+
     private long getHighPageAddress() {
         final long highAddress = this.highAddress;
         int alignment = ((int) highAddress) & (cachePageSize - 1);
@@ -903,6 +1082,10 @@ public final class Log implements Closeable {
             // Don't forget to fsync the old file before closing it, otherwise will get a corrupted DB in the case of a
             // system failure:
             flush(true);
+            if (config.isFsyncSuppressed()) {
+                // the file can contain transactions waiting for group commit which syncs only the last file
+                bufferedWriter.sync();
+            }
 
             bufferedWriter.close();
             if (config.isFullFileReadonly()) {
@@ -34,4 +34,8 @@ class LogAwareFixedLengthByteIterable extends FixedLengthByteIterable {
     public ByteIterableWithAddress getSource() {
         return (ByteIterableWithAddress) super.getSource();
     }
+
+    int getOffset() {
+        return offset;
+    }
 }
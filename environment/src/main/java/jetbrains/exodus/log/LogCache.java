@@ -19,10 +19,14 @@ import jetbrains.exodus.ArrayByteIterable;
 import jetbrains.exodus.ExodusException;
 import jetbrains.exodus.InvalidSettingException;
 import jetbrains.exodus.core.dataStructures.ConcurrentLongObjectCache;
+import jetbrains.exodus.core.dataStructures.LongObjectCache;
+import jetbrains.exodus.core.dataStructures.LongObjectCacheBase;
 import jetbrains.exodus.util.MathUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.ByteBuffer;
+
 @SuppressWarnings("WeakerAccess")
 abstract class LogCache {
 
@@ -31,6 +35,7 @@ abstract class LogCache {
     protected static final int MINIMUM_MEM_USAGE_PERCENT = 5;
     protected static final int MAXIMUM_MEM_USAGE_PERCENT = 95;
     protected static final int CONCURRENT_CACHE_GENERATION_COUNT = 2;
+    protected static final int FREQUENCY_AWARE_CACHE_GENERATION_COUNT = 4;
 
     private static final ConcurrentLongObjectCache<byte[]> TAIL_PAGES_CACHE = new ConcurrentLongObjectCache<>(10);
 
@@ -44,13 +49,23 @@ abstract class LogCache {
      * @throws InvalidSettingException if settings are invalid.
      */
     protected LogCache(final long memoryUsage, final int pageSize) {
+        this(memoryUsage, pageSize, true);
+    }
+
+    /**
+     * @param memoryUsage     amount of memory which the cache is allowed to occupy (in bytes).
+     * @param pageSize        number of bytes in a bytes.
+     * @param isHeapAllocated {@code true} if the cache keeps pages in Java heap, so memory usage cannot be greater
+     *                        than JVM maximum memory.
+     * @throws InvalidSettingException if settings are invalid.
+     */
+    protected LogCache(final long memoryUsage, final int pageSize, final boolean isHeapAllocated) {
         checkPageSize(pageSize);
         this.pageSize = pageSize;
         if (integerLogarithm(pageSize) < 0) {
             throw new InvalidSettingException("Log cache bytes size should be a power of 2: " + pageSize);
         }
-        final long maxMemory = Runtime.getRuntime().maxMemory();
-        if (maxMemory <= memoryUsage) {
+        if (isHeapAllocated && Runtime.getRuntime().maxMemory() <= memoryUsage) {
             throw new InvalidSettingException("Memory usage cannot be greater than JVM maximum memory");
         }
         this.memoryUsage = memoryUsage;
@@ -63,6 +78,16 @@ abstract class LogCache {
      * @throws InvalidSettingException if settings are invalid.
      */
     protected LogCache(final int memoryUsagePercentage, final int pageSize) {
+        this(memoryUsagePercentage, pageSize, Runtime.getRuntime().maxMemory());
+    }
+
+    /**
+     * @param memoryUsagePercentage amount of memory which the cache is allowed to occupy (in percents to the max memory value).
+     * @param pageSize              number of bytes in a bytes.
+     * @param maxMemory             max amount of memory of the kind the cache keeps pages in.
+     * @throws InvalidSettingException if settings are invalid.
+     */
+    protected LogCache(final int memoryUsagePercentage, final int pageSize, final long maxMemory) {
         checkPageSize(pageSize);
         if (memoryUsagePercentage < MINIMUM_MEM_USAGE_PERCENT) {
             throw new InvalidSettingException("Memory usage percent cannot be less than " + MINIMUM_MEM_USAGE_PERCENT);
@@ -74,7 +99,6 @@ abstract class LogCache {
         if (integerLogarithm(pageSize) < 0) {
             throw new InvalidSettingException("Log cache bytes size should be a power of 2: " + pageSize);
         }
-        final long maxMemory = Runtime.getRuntime().maxMemory();
         memoryUsage = maxMemory == Long.MAX_VALUE ? Long.MAX_VALUE : maxMemory / 100L * (long) memoryUsagePercentage;
         this.memoryUsagePercentage = memoryUsagePercentage;
     }
@@ -83,6 +107,12 @@ abstract class LogCache {
 
     abstract float hitRate();
 
+    /**
+     * @return number of pages which weren't cached by the eviction policy in order to keep more frequently
+     * accessed pages in the cache.
+     */
+    abstract long admissionRejects();
+
     abstract void cachePage(@NotNull final Log log, final long pageAddress, @NotNull final byte[] page);
 
     @NotNull
@@ -93,15 +123,59 @@ abstract class LogCache {
 
     abstract void removePage(@NotNull final Log log, final long pageAddress);
 
+    /**
+     * @return {@code true} if the cache keeps pages out of Java heap, so reading them by
+     * {@linkplain #getPageView(Log, long)} doesn't copy their contents.
+     */
+    boolean isOffHeap() {
+        return false;
+    }
+
+    /**
+     * Returns contents of the page as a buffer whose limit is the number of bytes available in the page.
+     * Returned buffer can be read-only, it's never shared.
+     */
+    @NotNull
+    ByteBuffer getPageView(@NotNull final Log log, final long pageAddress) {
+        final ArrayByteIterable page = getPageIterable(log, pageAddress);
+        return ByteBuffer.wrap(page.getBytesUnsafe(), 0, page.getLength());
+    }
+
+    /**
+     * Releases resources of the cache on closing the log.
+     */
+    void close() {
+    }
+
     @NotNull
     protected byte[] readFullPage(Log log, long pageAddress) {
         final byte[] page = allocPage();
         if (log.readBytes(page, pageAddress) != pageSize) {
             throw new ExodusException("Can't read full bytes from log [" + log.getLocation() + "] with address " + pageAddress);
         }
+        final PageChecksums pageChecksums = log.pageChecksums;
+        if (pageChecksums != null) {
+            pageChecksums.verify(pageAddress, page);
+        }
         return page;
     }
 
+    protected static <V> LongObjectCacheBase<V> createPagesCache(final int pagesCount,
+                                                                 final boolean nonBlocking,
+                                                                 final boolean frequencyAware) {
+        if (frequencyAware) {
+            return new ConcurrentLongObjectCache<V>(pagesCount, FREQUENCY_AWARE_CACHE_GENERATION_COUNT, true);
+        }
+        return nonBlocking ?
+            new ConcurrentLongObjectCache<V>(pagesCount, CONCURRENT_CACHE_GENERATION_COUNT) :
+            new LongObjectCache<V>(pagesCount);
+    }
+
+    protected static long admissionRejects(@NotNull final LongObjectCacheBase<?> pagesCache) {
+        return pagesCache instanceof ConcurrentLongObjectCache ?
+            ((ConcurrentLongObjectCache) pagesCache).getAdmissionRejects() : 0;
+    }
+
     @NotNull
     byte[] allocPage() {
         return new byte[pageSize];
@@ -138,6 +212,10 @@ abstract class LogCache {
         return TAIL_PAGES_CACHE.tryKey(cachePageSize);
     }
 
+    static long getLogPageFingerPrint(final int logIdentity, final long address) {
+        return ((address + logIdentity) << 32) + address + logIdentity;
+    }
+
     private static boolean isTailPage(@NotNull final byte[] page) {
         for (byte b : page) {
             if (b != (byte) 0x80) {
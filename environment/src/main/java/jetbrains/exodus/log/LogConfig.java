@@ -41,6 +41,10 @@ public class LogConfig {
     private boolean isFsyncSuppressed;
     private boolean sharedCache;
     private boolean nonBlockingCache;
+    private boolean offHeapCache;
+    private boolean frequencyAwareCache;
+    private int decodedLoggablesCacheSize;
+    private boolean patriciaChildrenBitmap;
     private int cachePageSize;
     private int cacheOpenFilesCount;
     private boolean cacheUseNio;
@@ -48,6 +52,8 @@ public class LogConfig {
     private boolean cleanDirectoryExpected;
     private boolean clearInvalidLog;
     private long syncPeriod;
+    private long tailCheckpointPeriod;
+    private boolean pageChecksums;
     private boolean fullFileReadonly;
 
     public LogConfig() {
@@ -170,6 +176,42 @@ public class LogConfig {
         return this;
     }
 
+    public boolean isOffHeapCache() {
+        return offHeapCache;
+    }
+
+    public LogConfig setOffHeapCache(boolean offHeapCache) {
+        this.offHeapCache = offHeapCache;
+        return this;
+    }
+
+    public boolean isFrequencyAwareCache() {
+        return frequencyAwareCache;
+    }
+
+    public LogConfig setFrequencyAwareCache(boolean frequencyAwareCache) {
+        this.frequencyAwareCache = frequencyAwareCache;
+        return this;
+    }
+
+    public int getDecodedLoggablesCacheSize() {
+        return decodedLoggablesCacheSize;
+    }
+
+    public LogConfig setDecodedLoggablesCacheSize(int decodedLoggablesCacheSize) {
+        this.decodedLoggablesCacheSize = decodedLoggablesCacheSize;
+        return this;
+    }
+
+    public boolean isPatriciaChildrenBitmap() {
+        return patriciaChildrenBitmap;
+    }
+
+    public LogConfig setPatriciaChildrenBitmap(boolean patriciaChildrenBitmap) {
+        this.patriciaChildrenBitmap = patriciaChildrenBitmap;
+        return this;
+    }
+
     public int getCachePageSize() {
         if (cachePageSize == 0) {
             cachePageSize = LogCache.MINIMUM_PAGE_SIZE;
@@ -241,6 +283,24 @@ public class LogConfig {
         return this;
     }
 
+    public long getTailCheckpointPeriod() {
+        return tailCheckpointPeriod;
+    }
+
+    public LogConfig setTailCheckpointPeriod(long tailCheckpointPeriod) {
+        this.tailCheckpointPeriod = tailCheckpointPeriod;
+        return this;
+    }
+
+    public boolean isPageChecksums() {
+        return pageChecksums;
+    }
+
+    public LogConfig setPageChecksums(boolean pageChecksums) {
+        this.pageChecksums = pageChecksums;
+        return this;
+    }
+
     public boolean isFullFileReadonly() {
         return fullFileReadonly;
     }
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.log;
+
+import jetbrains.exodus.ExodusException;
+import jetbrains.exodus.io.Block;
+import jetbrains.exodus.io.DataReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoint of the {@code Log} tail which is saved in the database directory after the log is synced.
+ * It holds high address of the log at the moment of saving and checksum of several last bytes before it.
+ * Opening the log, bytes below the checkpoint high address are not validated if the checksum matches.
+ */
+final class LogTailCheckpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogTailCheckpoint.class);
+
+    static final String CHECKPOINT_FILE_NAME = "xd.tail";
+    private static final String CHECKPOINT_TMP_FILE_NAME = "xd.tail.tmp";
+    private static final long MAGIC = 0x78642e7461696cL; // "xd.tail"
+    private static final int CHECKSUM_LENGTH = 256;
+
+    private final long highAddress;
+    private final long checksumAddress;
+    private final long checksum;
+
+    private LogTailCheckpoint(final long highAddress, final long checksumAddress, final long checksum) {
+        this.highAddress = highAddress;
+        this.checksumAddress = checksumAddress;
+        this.checksum = checksum;
+    }
+
+    long getHighAddress() {
+        return highAddress;
+    }
+
+    /**
+     * Creates checkpoint of the log at specified high address. All the bytes below the high address
+     * should be already synced.
+     */
+    @NotNull
+    static LogTailCheckpoint create(@NotNull final Log log, final long highAddress) {
+        final long checksumAddress = getChecksumAddress(log.getFileAddress(highAddress - 1), highAddress);
+        final byte[] bytes = new byte[(int) (highAddress - checksumAddress)];
+        if (log.readBytes(bytes, checksumAddress) < bytes.length) {
+            throw new ExodusException("Can't read log tail to create checkpoint");
+        }
+        return new LogTailCheckpoint(highAddress, checksumAddress, getChecksum(bytes, bytes.length));
+    }
+
+    /**
+     * Loads checkpoint saved in specified directory and checks if it matches the log data.
+     *
+     * @return checkpoint or {@code null} if there is no valid checkpoint
+     */
+    @Nullable
+    static LogTailCheckpoint load(@NotNull final File dir, @NotNull final DataReader reader, final long fileLengthBound) {
+        final File file = new File(dir, CHECKPOINT_FILE_NAME);
+        if (!file.exists()) {
+            return null;
+        }
+        final LogTailCheckpoint result;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readLong() != MAGIC || input.readLong() != fileLengthBound) {
+                return null;
+            }
+            final long highAddress = input.readLong();
+            final long checksumAddress = input.readLong();
+            final long checksum = input.readLong();
+            if (input.readLong() != getRecordChecksum(fileLengthBound, highAddress, checksumAddress, checksum)) {
+                return null;
+            }
+            result = new LogTailCheckpoint(highAddress, checksumAddress, checksum);
+        } catch (IOException e) {
+            logger.warn("Failed to read log tail checkpoint", e);
+            return null;
+        }
+        // check if the log data matches the checkpoint
+        final long fileAddress = result.highAddress - 1 - (result.highAddress - 1) % fileLengthBound;
+        if (result.highAddress <= 0 || result.checksumAddress != getChecksumAddress(fileAddress, result.highAddress)) {
+            return null;
+        }
+        final Block block = reader.getBlock(fileAddress);
+        final byte[] bytes = new byte[(int) (result.highAddress - result.checksumAddress)];
+        try {
+            if (block.length() < result.highAddress - fileAddress ||
+                block.read(bytes, result.checksumAddress - fileAddress, bytes.length) < bytes.length ||
+                getChecksum(bytes, bytes.length) != result.checksum) {
+                return null;
+            }
+        } catch (Exception e) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Atomically replaces checkpoint saved in specified directory with this one.
+     */
+    void save(@NotNull final File dir, final long fileLengthBound) {
+        final File tmpFile = new File(dir, CHECKPOINT_TMP_FILE_NAME);
+        try {
+            try (FileOutputStream output = new FileOutputStream(tmpFile)) {
+                final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+                data.writeLong(MAGIC);
+                data.writeLong(fileLengthBound);
+                data.writeLong(highAddress);
+                data.writeLong(checksumAddress);
+                data.writeLong(checksum);
+                data.writeLong(getRecordChecksum(fileLengthBound, highAddress, checksumAddress, checksum));
+                data.flush();
+                output.getFD().sync();
+            }
+            final File file = new File(dir, CHECKPOINT_FILE_NAME);
+            if (!tmpFile.renameTo(file) && !(file.delete() && tmpFile.renameTo(file))) {
+                throw new IOException("Failed to rename " + tmpFile + " to " + file);
+            }
+        } catch (IOException e) {
+            // not saved checkpoint only makes next opening of the log slower
+            logger.warn("Failed to save log tail checkpoint", e);
+        }
+    }
+
+    static void delete(@NotNull final File dir) {
+        final File file = new File(dir, CHECKPOINT_FILE_NAME);
+        if (file.exists() && !file.delete()) {
+            throw new ExodusException("Failed to delete log tail checkpoint " + file);
+        }
+    }
+
+    private static long getChecksumAddress(final long fileAddress, final long highAddress) {
+        return Math.max(fileAddress, highAddress - CHECKSUM_LENGTH);
+    }
+
+    private static long getChecksum(@NotNull final byte[] bytes, final int length) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return crc.getValue();
+    }
+
+    private static long getRecordChecksum(final long fileLengthBound,
+                                          final long highAddress,
+                                          final long checksumAddress,
+                                          final long checksum) {
+        final CRC32 crc = new CRC32();
+        for (final long value : new long[]{MAGIC, fileLengthBound, highAddress, checksumAddress, checksum}) {
+            for (int i = 0; i < 8; ++i) {
+                crc.update((int) (value >>> (i << 3)));
+            }
+        }
+        return crc.getValue();
+    }
+}
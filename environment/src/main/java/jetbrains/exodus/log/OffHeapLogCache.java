@@ -0,0 +1,525 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.log;
+
+import jetbrains.exodus.ArrayByteIterable;
+import jetbrains.exodus.InvalidSettingException;
+import jetbrains.exodus.core.dataStructures.CacheHitRateable;
+import jetbrains.exodus.core.dataStructures.FrequencySketch;
+import jetbrains.exodus.core.dataStructures.IntArrayList;
+import jetbrains.exodus.core.dataStructures.ObjectCacheBase;
+import jetbrains.exodus.core.dataStructures.hash.LongHashMap;
+import jetbrains.exodus.util.MathUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+
+/**
+ * LogCache keeping pages in direct (off-heap) memory. Memory is allocated in slabs at once, each slab is owned by
+ * a segment having its own lock, index of cached pages and CLOCK eviction. On cache hit, a read-only view of the
+ * off-heap page is returned, so cached pages are never copied to heap. A region of the slab holding an evicted page
+ * is reused only after all views of the page are garbage collected. Slabs are freed explicitly on {@link #close()}.
+ * If the cache is frequency-aware, CLOCK victim is replaced only by a page which is accessed at least as frequently
+ * (TinyLFU admission).
+ */
+final class OffHeapLogCache extends LogCache {
+
+    private static final int MAX_SEGMENT_COUNT = 64;
+    private static final int MAX_SLAB_SIZE = 1 << 30;
+    private static final String MAX_DIRECT_MEMORY_SIZE_OPTION = "-XX:MaxDirectMemorySize=";
+
+    private final boolean shared;
+    private final int pageSizeLog;
+    @NotNull
+    private final Segment[] segments;
+    private final int segmentsMask;
+
+    OffHeapLogCache(final long memoryUsage, final int pageSize, final boolean shared, final boolean frequencyAware) {
+        super(memoryUsage, pageSize, false);
+        if (memoryUsage > getMaxDirectMemory()) {
+            throw new InvalidSettingException("Memory usage cannot be greater than JVM maximum direct memory");
+        }
+        this.shared = shared;
+        pageSizeLog = MathUtil.integerLogarithm(pageSize);
+        segments = createSegments(memoryUsage / pageSize, pageSize, frequencyAware);
+        segmentsMask = segments.length - 1;
+    }
+
+    OffHeapLogCache(final int memoryUsagePercentage, final int pageSize, final boolean shared, final boolean frequencyAware) {
+        super(memoryUsagePercentage, pageSize, getMaxDirectMemory());
+        this.shared = shared;
+        pageSizeLog = MathUtil.integerLogarithm(pageSize);
+        segments = createSegments(memoryUsage == Long.MAX_VALUE ?
+            ObjectCacheBase.DEFAULT_SIZE : memoryUsage / pageSize, pageSize, frequencyAware);
+        segmentsMask = segments.length - 1;
+    }
+
+    @Override
+    void clear() {
+        // do nothing on clear if the cache is shared since it can contain pages of different environments
+        if (!shared) {
+            for (final Segment segment : segments) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    void close() {
+        // shared cache lives as long as the JVM does
+        if (!shared) {
+            for (final Segment segment : segments) {
+                segment.release();
+            }
+        }
+    }
+
+    @Override
+    float hitRate() {
+        long hits = 0;
+        long attempts = 0;
+        for (final Segment segment : segments) {
+            hits += segment.getHits();
+            attempts += segment.getAttempts();
+        }
+        // due to lack of thread-safety there can appear not that consistent results
+        if (hits > attempts) {
+            attempts = hits;
+        }
+        return attempts > 0 ? (float) hits / (float) attempts : 0;
+    }
+
+    @Override
+    long admissionRejects() {
+        long result = 0;
+        for (final Segment segment : segments) {
+            result += segment.admissionRejects();
+        }
+        return result;
+    }
+
+    @Override
+    boolean isOffHeap() {
+        return true;
+    }
+
+    @Override
+    void cachePage(@NotNull final Log log, final long pageAddress, @NotNull final byte[] page) {
+        final int logIdentity = log.getIdentity();
+        getSegment(logIdentity, pageAddress).cachePage(logIdentity, pageAddress, page);
+    }
+
+    @NotNull
+    @Override
+    byte[] getPage(@NotNull final Log log, final long pageAddress) {
+        final int logIdentity = log.getIdentity();
+        final Segment segment = getSegment(logIdentity, pageAddress);
+        byte[] page = segment.getPage(logIdentity, pageAddress, this);
+        if (page != null) {
+            return page;
+        }
+        page = log.getHighPage(pageAddress);
+        if (page != null) {
+            return page;
+        }
+        page = readFullPage(log, pageAddress);
+        segment.cachePage(logIdentity, pageAddress, page);
+        return page;
+    }
+
+    @NotNull
+    @Override
+    ArrayByteIterable getPageIterable(@NotNull final Log log, final long pageAddress) {
+        final int logIdentity = log.getIdentity();
+        final Segment segment = getSegment(logIdentity, pageAddress);
+        byte[] page = segment.getPage(logIdentity, pageAddress, this);
+        if (page != null) {
+            return new ArrayByteIterable(page);
+        }
+        page = log.getHighPage(pageAddress);
+        if (page != null) {
+            return new ArrayByteIterable(page, (int) Math.min(log.getHighAddress() - pageAddress, (long) pageSize));
+        }
+        page = readFullPage(log, pageAddress);
+        segment.cachePage(logIdentity, pageAddress, page);
+        return new ArrayByteIterable(page);
+    }
+
+    @NotNull
+    @Override
+    ByteBuffer getPageView(@NotNull final Log log, final long pageAddress) {
+        final int logIdentity = log.getIdentity();
+        final Segment segment = getSegment(logIdentity, pageAddress);
+        final ByteBuffer view = segment.getView(logIdentity, pageAddress);
+        if (view != null) {
+            return view;
+        }
+        byte[] page = log.getHighPage(pageAddress);
+        if (page != null) {
+            return ByteBuffer.wrap(page, 0, (int) Math.min(log.getHighAddress() - pageAddress, (long) pageSize));
+        }
+        page = readFullPage(log, pageAddress);
+        segment.cachePage(logIdentity, pageAddress, page);
+        // the page is already on heap, so there is no need to create a view of just cached copy
+        return ByteBuffer.wrap(page);
+    }
+
+    @Override
+    void removePage(@NotNull final Log log, final long pageAddress) {
+        final int logIdentity = log.getIdentity();
+        getSegment(logIdentity, pageAddress).removePage(logIdentity, pageAddress);
+    }
+
+    private Segment getSegment(final int logIdentity, final long pageAddress) {
+        return segments[(int) ((pageAddress >>> pageSizeLog) + logIdentity) & segmentsMask];
+    }
+
+    /**
+     * @return maximum amount of direct memory the JVM is allowed to allocate. If it can't be determined,
+     * JVM maximum memory is returned since it's the default value of {@code -XX:MaxDirectMemorySize}.
+     */
+    static long getMaxDirectMemory() {
+        try {
+            return (Long) Class.forName("sun.misc.VM").getMethod("maxDirectMemory").invoke(null);
+        } catch (Throwable ignore) {
+            // no sun.misc.VM since Java 9
+        }
+        try {
+            for (final String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+                if (arg.startsWith(MAX_DIRECT_MEMORY_SIZE_OPTION)) {
+                    return parseMemorySize(arg.substring(MAX_DIRECT_MEMORY_SIZE_OPTION.length()));
+                }
+            }
+        } catch (Throwable ignore) {
+            // JVM arguments are not available
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    private static long parseMemorySize(@NotNull final String size) {
+        final int last = size.length() - 1;
+        final long multiplier;
+        switch (Character.toLowerCase(size.charAt(last))) {
+            case 'k':
+                multiplier = 1L << 10;
+                break;
+            case 'm':
+                multiplier = 1L << 20;
+                break;
+            case 'g':
+                multiplier = 1L << 30;
+                break;
+            case 't':
+                multiplier = 1L << 40;
+                break;
+            default:
+                return Long.parseLong(size);
+        }
+        return Long.parseLong(size.substring(0, last)) * multiplier;
+    }
+
+    private static Segment[] createSegments(final long pagesCount, final int pageSize, final boolean frequencyAware) {
+        final long maxPagesPerSlab = MAX_SLAB_SIZE / pageSize;
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENT_COUNT && segmentCount * 2 <= pagesCount) {
+            segmentCount *= 2;
+        }
+        while (pagesCount / segmentCount > maxPagesPerSlab) {
+            segmentCount *= 2;
+        }
+        final int pagesPerSegment = (int) Math.max(1L, pagesCount / segmentCount);
+        final Segment[] result = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; ++i) {
+            result[i] = new Segment(pagesPerSegment, pageSize, frequencyAware);
+        }
+        return result;
+    }
+
+    /**
+     * Weak reference to a view of the slab region, all references are linked in a list so that they are reachable
+     * until they are enqueued.
+     */
+    private static final class ViewReference extends WeakReference<ByteBuffer> {
+
+        private final int region;
+        @Nullable
+        private ViewReference prev;
+        @Nullable
+        private ViewReference next;
+
+        private ViewReference(@NotNull final ByteBuffer view,
+                              final int region,
+                              @NotNull final ReferenceQueue<ByteBuffer> queue) {
+            super(view, queue);
+            this.region = region;
+        }
+    }
+
+    private static final class Segment extends CacheHitRateable {
+
+        private final int pageSize;
+        private final int capacity;
+        @Nullable
+        private ByteBuffer slab;
+        @NotNull
+        private final ByteBuffer[] regions;
+        @NotNull
+        private final LongHashMap<Integer> index;
+        @NotNull
+        private final long[] keys;
+        @NotNull
+        private final int[] logIdentities;
+        @NotNull
+        private final long[] addresses;
+        @NotNull
+        private final boolean[] cached;
+        @NotNull
+        private final boolean[] referenced;
+        // number of views of a region which can still be reachable
+        @NotNull
+        private final int[] views;
+        @NotNull
+        private final ReferenceQueue<ByteBuffer> queue;
+        @Nullable
+        private ViewReference viewsHead;
+        @NotNull
+        private final IntArrayList freeRegions;
+        @Nullable
+        private final FrequencySketch sketch;
+        private int allocatedRegions;
+        private int clockHand;
+
+        private Segment(final int capacity, final int pageSize, final boolean frequencyAware) {
+            this.pageSize = pageSize;
+            this.capacity = capacity;
+            final ByteBuffer slab = ByteBuffer.allocateDirect(capacity * pageSize);
+            this.slab = slab;
+            regions = new ByteBuffer[capacity];
+            for (int i = 0; i < capacity; ++i) {
+                slab.limit((i + 1) * pageSize);
+                slab.position(i * pageSize);
+                regions[i] = slab.slice();
+            }
+            index = new LongHashMap<>(capacity);
+            keys = new long[capacity];
+            logIdentities = new int[capacity];
+            addresses = new long[capacity];
+            cached = new boolean[capacity];
+            referenced = new boolean[capacity];
+            views = new int[capacity];
+            queue = new ReferenceQueue<>();
+            freeRegions = new IntArrayList();
+            sketch = frequencyAware ? new FrequencySketch(capacity) : null;
+            allocatedRegions = 0;
+            clockHand = 0;
+        }
+
+        @Nullable
+        private synchronized byte[] getPage(final int logIdentity, final long address, @NotNull final LogCache cache) {
+            final int i = lookup(logIdentity, address);
+            if (i < 0) {
+                return null;
+            }
+            final byte[] result = cache.allocPage();
+            regions[i].duplicate().get(result, 0, pageSize);
+            return result;
+        }
+
+        @Nullable
+        private synchronized ByteBuffer getView(final int logIdentity, final long address) {
+            final int i = lookup(logIdentity, address);
+            if (i < 0) {
+                return null;
+            }
+            final ByteBuffer result = regions[i].asReadOnlyBuffer();
+            final ViewReference ref = new ViewReference(result, i, queue);
+            final ViewReference head = viewsHead;
+            if (head != null) {
+                head.prev = ref;
+                ref.next = head;
+            }
+            viewsHead = ref;
+            ++views[i];
+            return result;
+        }
+
+        private synchronized void cachePage(final int logIdentity, final long address, @NotNull final byte[] page) {
+            if (slab == null) {
+                return;
+            }
+            expungeViews();
+            final long key = getLogPageFingerPrint(logIdentity, address);
+            if (index.containsKey(key)) {
+                return;
+            }
+            final int i = allocateRegion(key);
+            if (i < 0) {
+                return;
+            }
+            final ByteBuffer dest = regions[i].duplicate();
+            dest.put(page, 0, pageSize);
+            keys[i] = key;
+            logIdentities[i] = logIdentity;
+            addresses[i] = address;
+            cached[i] = true;
+            referenced[i] = false;
+            index.put(key, Integer.valueOf(i));
+        }
+
+        private synchronized void removePage(final int logIdentity, final long address) {
+            final long key = getLogPageFingerPrint(logIdentity, address);
+            final Integer slot = index.get(key);
+            if (slot != null) {
+                final int i = slot;
+                if (logIdentities[i] == logIdentity && addresses[i] == address) {
+                    index.remove(key);
+                    uncache(i);
+                }
+            }
+        }
+
+        private synchronized void clear() {
+            index.clear();
+            for (int i = 0; i < allocatedRegions; ++i) {
+                if (cached[i]) {
+                    uncache(i);
+                }
+            }
+            clockHand = 0;
+        }
+
+        /**
+         * Frees the slab if there are no reachable views of its regions, otherwise it's left for garbage collector.
+         */
+        private synchronized void release() {
+            clear();
+            expungeViews();
+            final ByteBuffer slab = this.slab;
+            if (slab != null) {
+                this.slab = null;
+                if (viewsHead == null && slab instanceof DirectBuffer) {
+                    final Cleaner cleaner = ((DirectBuffer) slab).cleaner();
+                    if (cleaner != null) {
+                        cleaner.clean();
+                    }
+                }
+            }
+            close();
+        }
+
+        private synchronized long admissionRejects() {
+            return sketch == null ? 0 : sketch.getRejects();
+        }
+
+        /**
+         * @return index of the region holding the page or {@code -1} if the page is not cached.
+         */
+        private int lookup(final int logIdentity, final long address) {
+            if (slab == null) {
+                return -1;
+            }
+            incAttempts();
+            expungeViews();
+            final long key = getLogPageFingerPrint(logIdentity, address);
+            if (sketch != null) {
+                sketch.increment(key);
+            }
+            final Integer slot = index.get(key);
+            if (slot == null) {
+                return -1;
+            }
+            final int i = slot;
+            if (logIdentities[i] != logIdentity || addresses[i] != address) {
+                return -1;
+            }
+            referenced[i] = true;
+            incHits();
+            return i;
+        }
+
+        private void uncache(final int i) {
+            cached[i] = false;
+            referenced[i] = false;
+            if (views[i] == 0) {
+                freeRegions.add(i);
+            }
+        }
+
+        /**
+         * Unlinks references to garbage collected views, regions having no more views and no cached pages become free.
+         */
+        private void expungeViews() {
+            ViewReference ref;
+            while ((ref = (ViewReference) queue.poll()) != null) {
+                final ViewReference prev = ref.prev;
+                final ViewReference next = ref.next;
+                if (prev == null) {
+                    viewsHead = next;
+                } else {
+                    prev.next = next;
+                }
+                if (next != null) {
+                    next.prev = prev;
+                }
+                ref.prev = ref.next = null;
+                final int i = ref.region;
+                if (--views[i] == 0 && !cached[i]) {
+                    freeRegions.add(i);
+                }
+            }
+        }
+
+        /**
+         * @return index of allocated region or {@code -1} if the page with specified key is not admitted to the cache
+         * or if all regions are still used by views of evicted pages.
+         */
+        private int allocateRegion(final long key) {
+            if (!freeRegions.isEmpty()) {
+                return freeRegions.remove(freeRegions.size() - 1);
+            }
+            if (allocatedRegions < capacity) {
+                return allocatedRegions++;
+            }
+            // CLOCK eviction: skip and unmark recently referenced pages, skip pages having reachable views
+            int victim = -1;
+            for (int i = 0; i < capacity * 2; ++i) {
+                final int hand = clockHand;
+                clockHand = (hand + 1) % capacity;
+                if (!cached[hand] || views[hand] != 0) {
+                    continue;
+                }
+                if (referenced[hand]) {
+                    referenced[hand] = false;
+                    continue;
+                }
+                victim = hand;
+                break;
+            }
+            if (victim < 0 || (sketch != null && !sketch.admit(key, keys[victim]))) {
+                return -1;
+            }
+            index.remove(keys[victim]);
+            cached[victim] = false;
+            return victim;
+        }
+    }
+}
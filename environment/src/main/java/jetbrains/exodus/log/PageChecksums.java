@@ -0,0 +1,268 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.log;
+
+import jetbrains.exodus.ExodusException;
+import jetbrains.exodus.core.dataStructures.hash.LongHashMap;
+import jetbrains.exodus.util.IOUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Checksums of full pages of the {@code Log}. Checksums of pages of a .xd file are saved in the file
+ * with the same name and the {@code .crc} extension appended. Checksum of a page is saved after the page
+ * is completely written, and is verified each time the page is read to the {@code LogCache}.
+ * Pages without saved checksums (e.g., written before checksums were turned on) are not verified.
+ */
+final class PageChecksums {
+
+    static final String CHECKSUMS_FILE_EXTENSION = ".crc";
+    private static final int HEADER_LENGTH = 4; // page size
+    private static final int CHECKSUM_LENGTH = 4;
+
+    private static final FilenameFilter CHECKSUMS_FILE_NAME_FILTER = new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+            return name.endsWith(LogUtil.LOG_FILE_EXTENSION + CHECKSUMS_FILE_EXTENSION);
+        }
+    };
+
+    @NotNull
+    private final Log log;
+    @NotNull
+    private final File dir;
+    private final int pageSize;
+    @NotNull
+    private final LongHashMap<FileChecksums> files;
+    @Nullable
+    private RandomAccessFile output;
+    private long outputFileAddress;
+
+    PageChecksums(@NotNull final Log log, @NotNull final File dir) {
+        this.log = log;
+        this.dir = dir;
+        pageSize = log.getCachePageSize();
+        files = new LongHashMap<>();
+        outputFileAddress = -1L;
+    }
+
+    /**
+     * Verifies the page just read from the storage.
+     *
+     * @throws ExodusException if checksum of the page doesn't match the saved one
+     */
+    void verify(final long pageAddress, @NotNull final byte[] page) {
+        final long fileAddress = log.getFileAddress(pageAddress);
+        final int index = (int) ((pageAddress - fileAddress) / pageSize);
+        final int checksum;
+        synchronized (this) {
+            final FileChecksums fileChecksums = getFileChecksums(fileAddress);
+            if (index >= fileChecksums.count) {
+                return;
+            }
+            checksum = fileChecksums.values[index];
+        }
+        if (getChecksum(page) != checksum) {
+            throw new ExodusException("Page checksum mismatch, log [" + log.getLocation() +
+                "], page address " + pageAddress + LogUtil.getWrongAddressErrorMessage(pageAddress, log.getFileSize()));
+        }
+    }
+
+    /**
+     * Saves checksum of the page which is completely written to the underlying writer.
+     */
+    void pageWritten(final long pageAddress, @NotNull final byte[] page) {
+        final int checksum = getChecksum(page);
+        final long fileAddress = log.getFileAddress(pageAddress);
+        final int index = (int) ((pageAddress - fileAddress) / pageSize);
+        synchronized (this) {
+            final FileChecksums fileChecksums = getFileChecksums(fileAddress);
+            if (index < fileChecksums.count) {
+                fileChecksums.count = index;
+            }
+            // checksums of preceding pages could be not saved, e.g. if they were written before
+            // checksums were turned on, so compute them from the written data
+            while (fileChecksums.count < index) {
+                final byte[] writtenPage = new byte[pageSize];
+                if (log.readBytes(writtenPage, fileAddress + (long) fileChecksums.count * pageSize) != pageSize) {
+                    throw new ExodusException("Can't read full page to compute checksum");
+                }
+                fileChecksums.add(getChecksum(writtenPage));
+            }
+            fileChecksums.add(checksum);
+            save(fileAddress, fileChecksums);
+        }
+    }
+
+    /**
+     * Removes checksums of the pages which are no longer full after the file is truncated.
+     */
+    synchronized void truncateFile(final long fileAddress, final long length) {
+        final FileChecksums fileChecksums = getFileChecksums(fileAddress);
+        final int count = (int) (length / pageSize);
+        if (count < fileChecksums.count) {
+            fileChecksums.count = count;
+            save(fileAddress, fileChecksums);
+        }
+    }
+
+    synchronized void removeFile(final long fileAddress) {
+        files.remove(fileAddress);
+        if (fileAddress == outputFileAddress) {
+            closeOutput();
+        }
+        deleteFile(getFile(fileAddress));
+    }
+
+    synchronized void clear() {
+        files.clear();
+        closeOutput();
+        for (final File file : IOUtil.listFiles(dir, CHECKSUMS_FILE_NAME_FILTER)) {
+            deleteFile(file);
+        }
+    }
+
+    synchronized void close() {
+        files.clear();
+        closeOutput();
+    }
+
+    static int getChecksum(@NotNull final byte[] page) {
+        final CRC32 crc = new CRC32();
+        crc.update(page, 0, page.length);
+        return (int) crc.getValue();
+    }
+
+    @NotNull
+    private FileChecksums getFileChecksums(final long fileAddress) {
+        FileChecksums result = files.get(fileAddress);
+        if (result == null) {
+            result = load(getFile(fileAddress));
+            files.put(fileAddress, result);
+        }
+        return result;
+    }
+
+    @NotNull
+    private FileChecksums load(@NotNull final File file) {
+        final FileChecksums result = new FileChecksums();
+        if (file.exists()) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (input.readInt() == pageSize) {
+                    final long maxCount = log.getFileLengthBound() / pageSize;
+                    final long count = Math.min((file.length() - HEADER_LENGTH) / CHECKSUM_LENGTH, maxCount);
+                    for (int i = 0; i < count; ++i) {
+                        result.add(input.readInt());
+                    }
+                    result.savedCount = result.count;
+                }
+            } catch (IOException e) {
+                throw new ExodusException("Failed to load page checksums from " + file, e);
+            }
+        }
+        return result;
+    }
+
+    private void save(final long fileAddress, @NotNull final FileChecksums fileChecksums) {
+        try {
+            final RandomAccessFile output = getOutput(fileAddress);
+            int savedCount = fileChecksums.savedCount;
+            if (savedCount < 0) {
+                // the file has no valid header
+                output.setLength(0);
+                output.writeInt(pageSize);
+                savedCount = 0;
+            } else if (savedCount > fileChecksums.count) {
+                savedCount = fileChecksums.count;
+                output.setLength(HEADER_LENGTH + (long) savedCount * CHECKSUM_LENGTH);
+            }
+            final int count = fileChecksums.count;
+            if (savedCount < count) {
+                final byte[] bytes = new byte[(count - savedCount) * CHECKSUM_LENGTH];
+                for (int i = savedCount, j = 0; i < count; ++i) {
+                    final int checksum = fileChecksums.values[i];
+                    bytes[j++] = (byte) (checksum >>> 24);
+                    bytes[j++] = (byte) (checksum >>> 16);
+                    bytes[j++] = (byte) (checksum >>> 8);
+                    bytes[j++] = (byte) checksum;
+                }
+                output.seek(HEADER_LENGTH + (long) savedCount * CHECKSUM_LENGTH);
+                output.write(bytes);
+            }
+            fileChecksums.savedCount = count;
+        } catch (IOException e) {
+            throw new ExodusException("Failed to save page checksums of " + LogUtil.getLogFilename(fileAddress), e);
+        }
+    }
+
+    @NotNull
+    private RandomAccessFile getOutput(final long fileAddress) throws IOException {
+        RandomAccessFile output = this.output;
+        if (output == null || fileAddress != outputFileAddress) {
+            closeOutput();
+            this.output = output = new RandomAccessFile(getFile(fileAddress), "rw");
+            outputFileAddress = fileAddress;
+        }
+        return output;
+    }
+
+    private void closeOutput() {
+        final RandomAccessFile output = this.output;
+        if (output != null) {
+            this.output = null;
+            outputFileAddress = -1L;
+            try {
+                output.close();
+            } catch (IOException e) {
+                throw new ExodusException("Failed to close page checksums file", e);
+            }
+        }
+    }
+
+    @NotNull
+    private File getFile(final long fileAddress) {
+        return new File(dir, LogUtil.getLogFilename(fileAddress) + CHECKSUMS_FILE_EXTENSION);
+    }
+
+    private static void deleteFile(@NotNull final File file) {
+        if (file.exists() && !file.delete()) {
+            throw new ExodusException("Failed to delete page checksums file " + file);
+        }
+    }
+
+    private static class FileChecksums {
+
+        private int[] values;
+        private int count;
+        private int savedCount; // number of checksums saved to the file, -1 if the file has no valid header
+
+        FileChecksums() {
+            values = new int[16];
+            savedCount = -1;
+        }
+
+        void add(final int checksum) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count << 1);
+            }
+            values[count++] = checksum;
+        }
+    }
+}
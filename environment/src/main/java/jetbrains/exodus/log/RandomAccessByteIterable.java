@@ -19,6 +19,8 @@ import jetbrains.exodus.ArrayByteIterable;
 import jetbrains.exodus.ByteIterable;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.ByteBuffer;
+
 class RandomAccessByteIterable extends ByteIterableWithAddress {
 
     @NotNull
@@ -31,11 +33,11 @@ class RandomAccessByteIterable extends ByteIterableWithAddress {
 
     @Override
     public ByteIteratorWithAddress iterator() {
-        return new CompoundByteIterator(getDataAddress(), log);
+        return iterator(getDataAddress(), log);
     }
 
     public ByteIteratorWithAddress iterator(final int offset) {
-        return new CompoundByteIterator(getDataAddress() + offset, log);
+        return iterator(getDataAddress() + offset, log);
     }
 
     public int compareTo(final int offset, final int len, @NotNull final ByteIterable right) {
@@ -47,8 +49,15 @@ class RandomAccessByteIterable extends ByteIterableWithAddress {
         return new RandomAccessByteIterable(getDataAddress() + offset, log);
     }
 
+    private static ByteIteratorWithAddress iterator(final long address, @NotNull final Log log) {
+        return log.cache.isOffHeap() ? new CompoundPageViewIterator(address, log) : new CompoundByteIterator(address, log);
+    }
+
     private static int compare(final int offset, final int len, final ByteIterable right, Log log, final long address) {
         final LogCache cache = log.cache;
+        if (cache.isOffHeap()) {
+            return compareOffHeap(offset, len, right, log, address);
+        }
         final int pageSize = log.getCachePageSize();
         final int mask = pageSize - 1;
         long alignedAddress = address + offset;
@@ -86,4 +95,42 @@ class RandomAccessByteIterable extends ByteIterableWithAddress {
             limit = Math.min(len, Math.min(left.getLength() + rightStep, rightLen));
         }
     }
+
+    private static int compareOffHeap(final int offset, final int len, final ByteIterable right, Log log, final long address) {
+        final LogCache cache = log.cache;
+        final int pageSize = log.getCachePageSize();
+        final int mask = pageSize - 1;
+        long alignedAddress = address + offset;
+        long endAddress = alignedAddress + len;
+        endAddress -= ((int) endAddress) & mask;
+        int leftStep = ((int) alignedAddress) & mask;
+        alignedAddress -= leftStep;
+        ByteBuffer left = cache.getPageView(log, alignedAddress);
+
+        final int leftLen = left.limit();
+        if (leftLen <= leftStep) { // alignment is >= 0 for sure
+            throw new BlockNotFoundException(alignedAddress, log.getFileLengthBound());
+        }
+        final byte[] rightArray = right.getBytesUnsafe();
+        final int rightLen = right.getLength();
+        int rightStep = 0;
+        int limit = Math.min(len, Math.min(leftLen - leftStep, rightLen));
+
+        while (true) {
+            while (rightStep < limit) {
+                byte b1 = left.get(leftStep++);
+                byte b2 = rightArray[rightStep++];
+                if (b1 != b2) {
+                    return (b1 & 0xff) - (b2 & 0xff);
+                }
+            }
+            if (rightStep == rightLen || alignedAddress >= endAddress) {
+                return len - rightLen;
+            }
+            // move left view to next cache page
+            left = cache.getPageView(log, alignedAddress += pageSize);
+            leftStep = 0;
+            limit = Math.min(len, Math.min(left.limit() + rightStep, rightLen));
+        }
+    }
 }
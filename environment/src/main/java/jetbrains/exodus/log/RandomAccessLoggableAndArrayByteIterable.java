@@ -66,4 +66,14 @@ class RandomAccessLoggableAndArrayByteIterable extends ArrayByteIterableWithAddr
     public int getStructureId() {
         return structureId;
     }
+
+    /**
+     * @return the same loggable which doesn't reference the whole page of the LogCache.
+     */
+    @NotNull
+    RandomAccessLoggableAndArrayByteIterable compact() {
+        final int dataLength = getDataLength();
+        return new RandomAccessLoggableAndArrayByteIterable(
+            getAddress(), type, structureId, getDataAddress(), copyBytes(), 0, dataLength);
+    }
 }
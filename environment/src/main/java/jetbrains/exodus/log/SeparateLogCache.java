@@ -16,8 +16,6 @@
 package jetbrains.exodus.log;
 
 import jetbrains.exodus.ArrayByteIterable;
-import jetbrains.exodus.core.dataStructures.ConcurrentLongObjectCache;
-import jetbrains.exodus.core.dataStructures.LongObjectCache;
 import jetbrains.exodus.core.dataStructures.LongObjectCacheBase;
 import org.jetbrains.annotations.NotNull;
 
@@ -29,27 +27,21 @@ final class SeparateLogCache extends LogCache {
     @NotNull
     private final LongObjectCacheBase<byte[]> pagesCache;
 
-    SeparateLogCache(final long memoryUsage, final int pageSize, final boolean nonBlocking) {
+    SeparateLogCache(final long memoryUsage, final int pageSize, final boolean nonBlocking, final boolean frequencyAware) {
         super(memoryUsage, pageSize);
         final int pagesCount = (int) (memoryUsage / (pageSize +
                 /* each page consumes additionally nearly 80 bytes in the cache */ 80));
-        pagesCache = nonBlocking ?
-            new ConcurrentLongObjectCache<byte[]>(pagesCount, CONCURRENT_CACHE_GENERATION_COUNT) :
-            new LongObjectCache<byte[]>(pagesCount);
+        pagesCache = createPagesCache(pagesCount, nonBlocking, frequencyAware);
     }
 
-    SeparateLogCache(final int memoryUsagePercentage, final int pageSize, final boolean nonBlocking) {
+    SeparateLogCache(final int memoryUsagePercentage, final int pageSize, final boolean nonBlocking, final boolean frequencyAware) {
         super(memoryUsagePercentage, pageSize);
         if (memoryUsage == Long.MAX_VALUE) {
-            pagesCache = nonBlocking ?
-                new ConcurrentLongObjectCache<byte[]>(DEFAULT_SIZE, CONCURRENT_CACHE_GENERATION_COUNT) :
-                new LongObjectCache<byte[]>();
+            pagesCache = createPagesCache(DEFAULT_SIZE, nonBlocking, frequencyAware);
         } else {
             final int pagesCount = (int) (memoryUsage / (pageSize +
                     /* each page consumes additionally nearly 80 bytes in the cache */ 80));
-            pagesCache = nonBlocking ?
-                new ConcurrentLongObjectCache<byte[]>(pagesCount, CONCURRENT_CACHE_GENERATION_COUNT) :
-                new LongObjectCache<byte[]>(pagesCount);
+            pagesCache = createPagesCache(pagesCount, nonBlocking, frequencyAware);
         }
     }
 
@@ -65,6 +57,11 @@ final class SeparateLogCache extends LogCache {
         return pagesCache.hitRate();
     }
 
+    @Override
+    long admissionRejects() {
+        return admissionRejects(pagesCache);
+    }
+
     @Override
     void cachePage(@NotNull final Log log, final long pageAddress, @NotNull final byte[] page) {
         cachePage(pageAddress, page);
@@ -16,8 +16,6 @@
 package jetbrains.exodus.log;
 
 import jetbrains.exodus.ArrayByteIterable;
-import jetbrains.exodus.core.dataStructures.ConcurrentLongObjectCache;
-import jetbrains.exodus.core.dataStructures.LongObjectCache;
 import jetbrains.exodus.core.dataStructures.LongObjectCacheBase;
 import jetbrains.exodus.core.dataStructures.ObjectCacheBase;
 import org.jetbrains.annotations.NotNull;
@@ -29,27 +27,21 @@ final class SharedLogCache extends LogCache {
     @NotNull
     private final LongObjectCacheBase<CachedValue> pagesCache;
 
-    SharedLogCache(final long memoryUsage, final int pageSize, final boolean nonBlocking) {
+    SharedLogCache(final long memoryUsage, final int pageSize, final boolean nonBlocking, final boolean frequencyAware) {
         super(memoryUsage, pageSize);
         final int pagesCount = (int) (memoryUsage / (pageSize +
                 /* each page consumes additionally 96 bytes in the cache */ 96));
-        pagesCache = nonBlocking ?
-            new ConcurrentLongObjectCache<CachedValue>(pagesCount, CONCURRENT_CACHE_GENERATION_COUNT) :
-            new LongObjectCache<CachedValue>(pagesCount);
+        pagesCache = createPagesCache(pagesCount, nonBlocking, frequencyAware);
     }
 
-    SharedLogCache(final int memoryUsagePercentage, final int pageSize, final boolean nonBlocking) {
+    SharedLogCache(final int memoryUsagePercentage, final int pageSize, final boolean nonBlocking, final boolean frequencyAware) {
         super(memoryUsagePercentage, pageSize);
         if (memoryUsage == Long.MAX_VALUE) {
-            pagesCache = nonBlocking ?
-                new ConcurrentLongObjectCache<CachedValue>(ObjectCacheBase.DEFAULT_SIZE, CONCURRENT_CACHE_GENERATION_COUNT) :
-                new LongObjectCache<CachedValue>();
+            pagesCache = createPagesCache(ObjectCacheBase.DEFAULT_SIZE, nonBlocking, frequencyAware);
         } else {
             final int pagesCount = (int) (memoryUsage / (pageSize +
                     /* each page consumes additionally 96 bytes in the cache */ 96));
-            pagesCache = nonBlocking ?
-                new ConcurrentLongObjectCache<CachedValue>(pagesCount, CONCURRENT_CACHE_GENERATION_COUNT) :
-                new LongObjectCache<CachedValue>(pagesCount);
+            pagesCache = createPagesCache(pagesCount, nonBlocking, frequencyAware);
         }
     }
 
@@ -63,6 +55,11 @@ final class SharedLogCache extends LogCache {
         return pagesCache.hitRate();
     }
 
+    @Override
+    long admissionRejects() {
+        return admissionRejects(pagesCache);
+    }
+
     @Override
     void cachePage(@NotNull final Log log, final long pageAddress, @NotNull final byte[] page) {
         final int logIdentity = log.getIdentity();
@@ -121,10 +118,6 @@ final class SharedLogCache extends LogCache {
         }
     }
 
-    private static long getLogPageFingerPrint(final int logIdentity, final long address) {
-        return ((address + logIdentity) << 32) + address + logIdentity;
-    }
-
     private static final class CachedValue {
 
         private final int logIdentity;
@@ -41,6 +41,16 @@ public interface ITree {
     @Nullable
     ByteIterable get(@NotNull final ByteIterable key);
 
+    /**
+     * Gets values of several keys at once traversing the tree only once, so the path from the root
+     * is reused for adjacent keys.
+     *
+     * @param sortedKeys keys sorted in strictly ascending order
+     * @return array of values, the value is {@code null} if corresponding key doesn't exist
+     */
+    @NotNull
+    ByteIterable[] getAll(@NotNull final ByteIterable[] sortedKeys);
+
     boolean hasPair(@NotNull final ByteIterable key, @NotNull final ByteIterable value);
 
     boolean hasKey(@NotNull final ByteIterable key);
@@ -22,15 +22,28 @@ public class BTreeBalancePolicy {
     public static BTreeBalancePolicy DEFAULT = new BTreeBalancePolicy(256);
 
     private final int maxSize;
+    private final int keyPrefixLength;
 
     public BTreeBalancePolicy(int maxSize) {
+        this(maxSize, 0);
+    }
+
+    public BTreeBalancePolicy(int maxSize, int keyPrefixLength) {
         this.maxSize = maxSize;
+        this.keyPrefixLength = keyPrefixLength;
     }
 
     public int getPageMaxSize() {
         return maxSize;
     }
 
+    /**
+     * @return length of key prefixes inlined in saved pages, {@code 0} if pages are saved without key prefixes.
+     */
+    public int getKeyPrefixLength() {
+        return keyPrefixLength;
+    }
+
     /**
      * @param page page to check whether it has to be split.
      * @return true if specified page has to be split before inserting new item.
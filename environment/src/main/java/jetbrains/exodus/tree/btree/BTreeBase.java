@@ -121,7 +121,20 @@ public abstract class BTreeBase implements ITree {
 
     @NotNull
     protected final BasePageImmutable loadPage(final long address) {
-        final RandomAccessLoggable loggable = getLoggable(address);
+        final DecodedLoggablesCache decodedCache = log.getDecodedLoggablesCache();
+        final RandomAccessLoggable loggable;
+        if (decodedCache == null) {
+            loggable = getLoggable(address);
+        } else {
+            // pages are bound to the tree, so only their loggables can be shared
+            final Object cached = decodedCache.tryKey(address);
+            if (cached instanceof RandomAccessLoggable) {
+                loggable = (RandomAccessLoggable) cached;
+            } else {
+                loggable = DecodedLoggablesCache.compact(getLoggable(address));
+                decodedCache.cacheObject(address, loggable);
+            }
+        }
         return loadPage(loggable.getType(), loggable.getData());
     }
 
@@ -149,9 +162,20 @@ public abstract class BTreeBase implements ITree {
 
     @NotNull
     protected LeafNode loadLeaf(final long address) {
+        final DecodedLoggablesCache decodedCache = log.getDecodedLoggablesCache();
+        if (decodedCache != null) {
+            final LeafNode cached = getCachedLeaf(decodedCache, address);
+            if (cached != null) {
+                return cached;
+            }
+        }
         final RandomAccessLoggable loggable = getLoggable(address);
         switch (loggable.getType()) {
             case LEAF:
+                if (decodedCache != null) {
+                    return cacheLeaf(decodedCache, address, loggable);
+                }
+                return new LeafNode(loggable);
             case DUP_LEAF:
                 return new LeafNode(loggable);
             case LEAF_DUP_BOTTOM_ROOT:
@@ -167,7 +191,17 @@ public abstract class BTreeBase implements ITree {
     }
 
     int compareLeafToKey(final long address, @NotNull final ByteIterable key) {
+        final DecodedLoggablesCache decodedCache = log.getDecodedLoggablesCache();
+        if (decodedCache != null) {
+            final LeafNode cached = getCachedLeaf(decodedCache, address);
+            if (cached != null) {
+                return cached.compareKeyTo(key);
+            }
+        }
         final RandomAccessLoggable loggable = getLoggable(address);
+        if (decodedCache != null && loggable.getType() == LEAF) {
+            return cacheLeaf(decodedCache, address, loggable).compareKeyTo(key);
+        }
         final ByteIterableWithAddress data = loggable.getData();
         final ByteIteratorWithAddress iterator = data.iterator();
         final int keyLength = CompressedUnsignedLongByteIterable.getInt(iterator);
@@ -175,6 +209,22 @@ public abstract class BTreeBase implements ITree {
         return data.compareTo(keyRecordSize, keyLength, key);
     }
 
+    @Nullable
+    private static LeafNode getCachedLeaf(@NotNull final DecodedLoggablesCache decodedCache, final long address) {
+        final Object cached = decodedCache.tryKey(address);
+        // only leaves which are not bound to a tree (not dup leaves) are cached
+        return cached != null && cached.getClass() == LeafNode.class ? (LeafNode) cached : null;
+    }
+
+    @NotNull
+    private static LeafNode cacheLeaf(@NotNull final DecodedLoggablesCache decodedCache,
+                                      final long address,
+                                      @NotNull final RandomAccessLoggable loggable) {
+        final LeafNode result = new LeafNode(DecodedLoggablesCache.compact(loggable));
+        decodedCache.cacheObject(address, result);
+        return result;
+    }
+
     @Override
     @Nullable
     public ByteIterable get(final @NotNull ByteIterable key) {
@@ -182,6 +232,14 @@ public abstract class BTreeBase implements ITree {
         return leaf == null ? null : leaf.getValue();
     }
 
+    @NotNull
+    @Override
+    public ByteIterable[] getAll(@NotNull final ByteIterable[] sortedKeys) {
+        final ByteIterable[] result = new ByteIterable[sortedKeys.length];
+        getRoot().getAll(sortedKeys, 0, sortedKeys.length, result);
+        return result;
+    }
+
     @Override
     public boolean hasKey(@NotNull final ByteIterable key) {
         return getRoot().keyExists(key);
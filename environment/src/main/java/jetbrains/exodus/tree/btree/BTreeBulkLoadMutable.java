@@ -0,0 +1,106 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.tree.btree;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.CompoundByteIterable;
+import jetbrains.exodus.ExodusException;
+import jetbrains.exodus.core.dataStructures.Pair;
+import jetbrains.exodus.log.CompressedUnsignedLongByteIterable;
+import jetbrains.exodus.log.Loggable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Mutable BTree without duplicates which is filled with key/value pairs from a sorted iterator on saving.
+ * The tree is built bottom-up: leaves and fully packed pages are written to the log as soon as they are filled,
+ * so only the rightmost page of each level is kept in memory. Until saved, the tree is empty.
+ */
+public class BTreeBulkLoadMutable extends BTreeMutable {
+
+    @NotNull
+    private final Iterator<Pair<ByteIterable, ByteIterable>> sortedPairs;
+
+    public BTreeBulkLoadMutable(@NotNull final BTreeBase tree,
+                                @NotNull final Iterator<Pair<ByteIterable, ByteIterable>> sortedPairs) {
+        super(tree);
+        if (allowsDuplicates) {
+            throw new ExodusException("Bulk load of BTree with duplicates is not supported");
+        }
+        if (!tree.isEmpty()) {
+            throw new ExodusException("Bulk load is possible only to empty BTree");
+        }
+        this.sortedPairs = sortedPairs;
+    }
+
+    @Override
+    public long save() {
+        final List<BasePageMutable> levels = new ArrayList<>();
+        levels.add(new BottomPageMutable(this));
+        ByteIterable prevKey = null;
+        long size = 0;
+        while (sortedPairs.hasNext()) {
+            final Pair<ByteIterable, ByteIterable> pair = sortedPairs.next();
+            final ByteIterable key = pair.getFirst();
+            if (prevKey != null && prevKey.compareTo(key) >= 0) {
+                throw new IllegalArgumentException("Key must be greater");
+            }
+            prevKey = key;
+            append(levels, 0, createMutableLeaf(key, pair.getSecond()), Loggable.NULL_ADDRESS);
+            ++size;
+        }
+        // save rightmost pages of all levels below the root
+        for (int i = 0; i < levels.size() - 1; ++i) {
+            final BasePageMutable page = levels.get(i);
+            append(levels, i + 1, page.getMinKey(), page.save());
+        }
+        this.size = size;
+        final BasePageMutable root = levels.get(levels.size() - 1);
+        final ByteIterable[] iterables = {
+            CompressedUnsignedLongByteIterable.getIterable(size),
+            root.getData()
+        };
+        return log.write(root.isBottom() ? BOTTOM_ROOT : INTERNAL_ROOT, structureId, new CompoundByteIterable(iterables));
+    }
+
+    /**
+     * Appends key to the rightmost page of specified level. If the page is full, it is saved and replaced
+     * with a new one.
+     *
+     * @param childAddress address of saved child page for internal levels
+     */
+    private void append(@NotNull final List<BasePageMutable> levels,
+                        final int level,
+                        @NotNull final ILeafNode key,
+                        final long childAddress) {
+        if (level == levels.size()) {
+            levels.add(new InternalPageMutable(this));
+        }
+        BasePageMutable page = levels.get(level);
+        if (page.size == balancePolicy.getPageMaxSize()) {
+            append(levels, level + 1, page.getMinKey(), page.save());
+            page = level == 0 ? new BottomPageMutable(this) : new InternalPageMutable(this);
+            levels.set(level, page);
+        }
+        page.insertDirectly(page.size, key, null);
+        if (childAddress != Loggable.NULL_ADDRESS) {
+            ((InternalPageMutable) page).childrenAddresses[page.size - 1] = childAddress;
+        }
+    }
+}
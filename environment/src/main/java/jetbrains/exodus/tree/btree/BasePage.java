@@ -94,6 +94,39 @@ abstract class BasePage implements Dumpable {
     protected abstract ILeafNode find(@NotNull BTreeTraverser stack, int depth,
                                       @NotNull ByteIterable key, @Nullable ByteIterable value, boolean equalOrNext);
 
+    /**
+     * Gets values of sorted keys in the range [from, to). Each child page is descended once for all the keys
+     * belonging to it, and binary search in a page continues from the position of the previous key.
+     */
+    protected void getAll(@NotNull final ByteIterable[] sortedKeys, int from, final int to, @NotNull final ByteIterable[] values) {
+        int index = 0;
+        while (from < to && index < size) {
+            final ByteIterable key = sortedKeys[from];
+            final int found = binarySearch(key, index);
+            if (found >= 0) {
+                values[from++] = getKey(found).getValue();
+                index = isBottom() ? found + 1 : found;
+            } else if (isBottom()) {
+                ++from;
+                index = -found - 1;
+            } else {
+                index = Math.max(-found - 2, 0);
+                // all the keys less than minimum key of next child belong to the same child
+                int next = from + 1;
+                if (index < size - 1) {
+                    final ILeafNode bound = getKey(index + 1);
+                    while (next < to && bound.compareKeyTo(sortedKeys[next]) > 0) {
+                        ++next;
+                    }
+                } else {
+                    next = to;
+                }
+                getChild(index).getAll(sortedKeys, from, next, values);
+                from = next;
+            }
+        }
+    }
+
     protected abstract boolean keyExists(@NotNull ByteIterable key);
 
     protected abstract boolean exists(@NotNull ByteIterable key, @NotNull ByteIterable value);
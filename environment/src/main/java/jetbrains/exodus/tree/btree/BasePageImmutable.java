@@ -22,6 +22,9 @@ import jetbrains.exodus.ExodusException;
 import jetbrains.exodus.bindings.LongBinding;
 import jetbrains.exodus.log.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
 
 abstract class BasePageImmutable extends BasePage {
 
@@ -29,6 +32,8 @@ abstract class BasePageImmutable extends BasePage {
     protected final ByteIterableWithAddress data;
     private long dataAddress;
     byte keyAddressLen;
+    int keyPrefixLength;
+    private int keyPrefixesOffset;
 
     /**
      * Create empty page
@@ -72,9 +77,14 @@ abstract class BasePageImmutable extends BasePage {
 
     private void init(@NotNull final ByteIteratorWithAddress itr) {
         if (size > 0) {
-            final int next = itr.next();
+            final byte next = itr.next();
             dataAddress = itr.getAddress();
-            loadAddressLengths(next);
+            loadAddressLengths(next & (KeyPrefixes.PREFIXED_PAGE_FLAG - 1));
+            if (KeyPrefixes.isPrefixedPage(next)) {
+                final int offset = getKeyPrefixesOffset();
+                keyPrefixLength = getDataIterator(offset).next() & 0xff;
+                keyPrefixesOffset = offset + 1;
+            }
         } else {
             dataAddress = itr.getAddress();
         }
@@ -94,6 +104,26 @@ abstract class BasePageImmutable extends BasePage {
         checkAddressLength(keyAddressLen = (byte) length);
     }
 
+    /**
+     * @return offset of inlined key prefixes in the data of prefixed page
+     */
+    protected int getKeyPrefixesOffset() {
+        return size * keyAddressLen;
+    }
+
+    /**
+     * @param index index of the key
+     * @return record of the key prefix, or {@code null} if the page has no inlined key prefixes
+     */
+    @Nullable
+    byte[] getKeyPrefixRecord(final int index) {
+        if (keyPrefixLength == 0) {
+            return null;
+        }
+        return KeyPrefixes.readRecord(getDataIterator(
+            keyPrefixesOffset + index * KeyPrefixes.getRecordLength(keyPrefixLength)), keyPrefixLength);
+    }
+
     static void checkAddressLength(byte addressLen) {
         if (addressLen < 0 || addressLen > 8) {
             throw new ExodusException("Invalid length of address: " + addressLen);
@@ -131,36 +161,38 @@ abstract class BasePageImmutable extends BasePage {
         final int cachePageSize = log.getCachePageSize();
         final int bytesPerAddress = keyAddressLen;
         int high = size - 1;
-        long leftAddress = -1L;
-        byte[] leftPage = null;
-        long rightAddress = -1L;
-        byte[] rightPage = null;
-        final BinarySearchIterator it = new BinarySearchIterator();
+        final BinarySearchIterator it = new BinarySearchIterator(log);
+        final int keyPrefixLength = this.keyPrefixLength;
+        final int keyPrefixRecordLength = KeyPrefixes.getRecordLength(keyPrefixLength);
+        final byte[] keyBytes = keyPrefixLength == 0 ? null : key.getBytesUnsafe();
+        final int keyLength = keyPrefixLength == 0 ? 0 : key.getLength();
 
         while (low <= high) {
             final int mid = (low + high) >>> 1;
+            if (keyBytes != null) {
+                // try to resolve comparison with inlined key prefix without loading the leaf
+                final int cmp = KeyPrefixes.compare(
+                    getDataIterator(keyPrefixesOffset + mid * keyPrefixRecordLength), keyPrefixLength, keyBytes, keyLength);
+                if (cmp != KeyPrefixes.UNDEFINED) {
+                    if (cmp < 0) {
+                        low = mid + 1;
+                    } else if (cmp > 0) {
+                        high = mid - 1;
+                    } else {
+                        return mid;
+                    }
+                    continue;
+                }
+            }
             final long midAddress = dataAddress + (mid * bytesPerAddress);
             final int offset;
             it.offset = offset = ((int) midAddress) & (cachePageSize - 1); // cache page size is always a power of 2
             final long pageAddress = midAddress - offset;
-            if (pageAddress == leftAddress) {
-                it.page = leftPage;
-            } else if (pageAddress == rightAddress) {
-                it.page = rightPage;
-            } else {
-                it.page = leftPage = log.getCachedPage(pageAddress);
-                leftAddress = pageAddress;
-            }
+            it.setPage(pageAddress);
 
             final long leafAddress;
             if (cachePageSize - offset < bytesPerAddress) {
-                final long nextPageAddress = pageAddress + cachePageSize;
-                if (rightAddress == nextPageAddress) {
-                    it.nextPage = rightPage;
-                } else {
-                    it.nextPage = rightPage = log.getCachedPage(nextPageAddress);
-                    rightAddress = nextPageAddress;
-                }
+                it.setNextPage(pageAddress + cachePageSize);
                 leafAddress = it.asCompound().nextLong(bytesPerAddress);
             } else {
                 leafAddress = it.nextLong(bytesPerAddress);
@@ -180,17 +212,71 @@ abstract class BasePageImmutable extends BasePage {
         return -(low + 1);
     }
 
+    /**
+     * Reads addresses of leaves from at most two last used pages. If the log cache keeps pages off-heap,
+     * views of pages are read instead of their copies.
+     */
     private static class BinarySearchIterator extends ByteIterator {
 
+        @NotNull
+        private final Log log;
+        private final boolean offHeap;
+        private long leftAddress;
+        private byte[] leftPage;
+        private ByteBuffer leftView;
+        private long rightAddress;
+        private byte[] rightPage;
+        private ByteBuffer rightView;
         private byte[] page;
+        private ByteBuffer pageView;
         private byte[] nextPage;
+        private ByteBuffer nextPageView;
         private int offset;
 
+        private BinarySearchIterator(@NotNull final Log log) {
+            this.log = log;
+            offHeap = log.isCacheOffHeap();
+            leftAddress = -1L;
+            rightAddress = -1L;
+        }
+
+        private void setPage(final long pageAddress) {
+            if (pageAddress == leftAddress) {
+                page = leftPage;
+                pageView = leftView;
+            } else if (pageAddress == rightAddress) {
+                page = rightPage;
+                pageView = rightView;
+            } else {
+                if (offHeap) {
+                    pageView = leftView = log.getCachedPageView(pageAddress);
+                } else {
+                    page = leftPage = log.getCachedPage(pageAddress);
+                }
+                leftAddress = pageAddress;
+            }
+        }
+
+        private void setNextPage(final long nextPageAddress) {
+            if (rightAddress == nextPageAddress) {
+                nextPage = rightPage;
+                nextPageView = rightView;
+            } else {
+                if (offHeap) {
+                    nextPageView = rightView = log.getCachedPageView(nextPageAddress);
+                } else {
+                    nextPage = rightPage = log.getCachedPage(nextPageAddress);
+                }
+                rightAddress = nextPageAddress;
+            }
+        }
+
         private CompoundByteIteratorBase asCompound() {
             return new CompoundByteIteratorBase(this) {
                 @Override
                 protected ByteIterator nextIterator() {
                     page = nextPage;
+                    pageView = nextPageView;
                     offset = 0;
                     return BinarySearchIterator.this;
                 }
@@ -199,12 +285,12 @@ abstract class BasePageImmutable extends BasePage {
 
         @Override
         public boolean hasNext() {
-            return offset < page.length;
+            return offset < (pageView == null ? page.length : pageView.limit());
         }
 
         @Override
         public byte next() {
-            return page[offset++];
+            return pageView == null ? page[offset++] : pageView.get(offset++);
         }
 
         @Override
@@ -214,7 +300,15 @@ abstract class BasePageImmutable extends BasePage {
 
         @Override
         public long nextLong(final int length) {
-            return LongBinding.entryToUnsignedLong(page, offset, length);
+            final ByteBuffer pageView = this.pageView;
+            if (pageView == null) {
+                return LongBinding.entryToUnsignedLong(page, offset, length);
+            }
+            long result = 0;
+            for (int i = 0; i < length; ++i) {
+                result = (result << 8) + ((int) pageView.get(offset + i) & 0xff);
+            }
+            return result;
         }
     }
 
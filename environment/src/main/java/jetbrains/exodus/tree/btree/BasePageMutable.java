@@ -15,6 +15,7 @@
  */
 package jetbrains.exodus.tree.btree;
 
+import jetbrains.exodus.ArrayByteIterable;
 import jetbrains.exodus.ByteIterable;
 import jetbrains.exodus.ByteIterator;
 import jetbrains.exodus.CompoundByteIterable;
@@ -32,6 +33,9 @@ abstract class BasePageMutable extends BasePage implements MutableTreeRoot {
 
     protected BaseLeafNodeMutable[] keys;
     protected long[] keysAddresses;
+    // records of key prefixes to be inlined in saved page, null if key prefixes are not inlined
+    @Nullable
+    protected byte[][] keysPrefixes;
 
     protected BasePageMutable(BTreeMutable tree) {
         super(tree);
@@ -43,6 +47,12 @@ abstract class BasePageMutable extends BasePage implements MutableTreeRoot {
         createChildren(Math.max(page.size, getBalancePolicy().getPageMaxSize()));
         if (size > 0) {
             load(page.getDataIterator(0), page.keyAddressLen);
+            final byte[][] keysPrefixes = this.keysPrefixes;
+            if (keysPrefixes != null && page.keyPrefixLength == getKeyPrefixLength()) {
+                for (int i = 0; i < size; ++i) {
+                    keysPrefixes[i] = page.getKeyPrefixRecord(i);
+                }
+            }
         }
     }
 
@@ -66,6 +76,13 @@ abstract class BasePageMutable extends BasePage implements MutableTreeRoot {
     protected void createChildren(int max) {
         keys = new BaseLeafNodeMutable[max];
         keysAddresses = new long[max];
+        if (getKeyPrefixLength() > 0) {
+            keysPrefixes = new byte[max][];
+        }
+    }
+
+    protected int getKeyPrefixLength() {
+        return getBalancePolicy().getKeyPrefixLength();
     }
 
     /**
@@ -104,6 +121,42 @@ abstract class BasePageMutable extends BasePage implements MutableTreeRoot {
 
     protected abstract ByteIterable[] getByteIterables(ReclaimFlag flag);
 
+    /**
+     * @return serialized keys addresses, marked if the page is saved with inlined key prefixes
+     */
+    protected ByteIterable getKeysAddressesIterable() {
+        final ByteIterable result = CompressedUnsignedLongArrayByteIterable.getIterable(keysAddresses, size);
+        if (keysPrefixes == null || size == 0) {
+            return result;
+        }
+        final byte[] bytes = result.getBytesUnsafe();
+        bytes[0] |= KeyPrefixes.PREFIXED_PAGE_FLAG;
+        return new ArrayByteIterable(bytes, result.getLength());
+    }
+
+    /**
+     * @return serialized inlined key prefixes, empty if the page is saved without key prefixes
+     */
+    protected ByteIterable getKeysPrefixesIterable() {
+        final byte[][] keysPrefixes = this.keysPrefixes;
+        if (keysPrefixes == null || size == 0) {
+            return ByteIterable.EMPTY;
+        }
+        final int prefixLength = getKeyPrefixLength();
+        final int recordLength = KeyPrefixes.getRecordLength(prefixLength);
+        final byte[] bytes = new byte[size * recordLength + 1];
+        bytes[0] = (byte) prefixLength;
+        for (int i = 0; i < size; ++i) {
+            byte[] record = keysPrefixes[i];
+            if (record == null) {
+                // the key came from a page saved without key prefixes
+                keysPrefixes[i] = record = KeyPrefixes.getRecord(getKey(i).getKey(), prefixLength);
+            }
+            System.arraycopy(record, 0, bytes, i * recordLength + 1, recordLength);
+        }
+        return new ArrayByteIterable(bytes);
+    }
+
     /**
      * Save page to log
      *
@@ -196,6 +249,9 @@ abstract class BasePageMutable extends BasePage implements MutableTreeRoot {
             keys[pos] = null; // forget previous mutable leaf
         }
         keysAddresses[pos] = key.getAddress();
+        if (keysPrefixes != null) {
+            keysPrefixes[pos] = KeyPrefixes.getRecord(key.getKey(), getKeyPrefixLength());
+        }
     }
 
     protected void insertDirectly(final int pos, @NotNull ILeafNode key, @Nullable BasePageMutable child) {
@@ -210,6 +266,9 @@ abstract class BasePageMutable extends BasePage implements MutableTreeRoot {
         if (from >= size) return;
         System.arraycopy(keys, from, keys, to, size - from);
         System.arraycopy(keysAddresses, from, keysAddresses, to, size - from);
+        if (keysPrefixes != null) {
+            System.arraycopy(keysPrefixes, from, keysPrefixes, to, size - from);
+        }
     }
 
     @Override
@@ -231,6 +290,9 @@ abstract class BasePageMutable extends BasePage implements MutableTreeRoot {
         for (int i = size; i < initialSize; ++i) {
             keys[i] = null;
             keysAddresses[i] = 0L;
+            if (keysPrefixes != null) {
+                keysPrefixes[i] = null;
+            }
         }
     }
 
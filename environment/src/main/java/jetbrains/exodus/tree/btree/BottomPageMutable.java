@@ -16,7 +16,6 @@
 package jetbrains.exodus.tree.btree;
 
 import jetbrains.exodus.ByteIterable;
-import jetbrains.exodus.bindings.CompressedUnsignedLongArrayByteIterable;
 import jetbrains.exodus.log.CompressedUnsignedLongByteIterable;
 import jetbrains.exodus.log.Loggable;
 import jetbrains.exodus.tree.LongIterator;
@@ -33,15 +32,21 @@ class BottomPageMutable extends BasePageMutable {
         super(tree, page);
     }
 
+    BottomPageMutable(BTreeMutable tree) {
+        super(tree);
+        createChildren(getBalancePolicy().getPageMaxSize());
+    }
+
     private BottomPageMutable(BottomPageMutable page, int from, int length) {
         super((BTreeMutable) page.getTree());
 
-        final int max = Math.max(length, getBalancePolicy().getPageMaxSize());
-        keys = new BaseLeafNodeMutable[max];
-        keysAddresses = new long[max];
+        createChildren(Math.max(length, getBalancePolicy().getPageMaxSize()));
 
         System.arraycopy(page.keys, from, keys, 0, length);
         System.arraycopy(page.keysAddresses, from, keysAddresses, 0, length);
+        if (keysPrefixes != null) {
+            System.arraycopy(page.keysPrefixes, from, keysPrefixes, 0, length);
+        }
 
         size = length;
     }
@@ -175,7 +180,8 @@ class BottomPageMutable extends BasePageMutable {
     protected ByteIterable[] getByteIterables(@NotNull final ReclaimFlag flag) {
         return new ByteIterable[]{
                 CompressedUnsignedLongByteIterable.getIterable((size << 1) + flag.value), // store flag bit
-                CompressedUnsignedLongArrayByteIterable.getIterable(keysAddresses, size)
+                getKeysAddressesIterable(),
+                getKeysPrefixesIterable()
         };
     }
 
@@ -263,6 +269,9 @@ class BottomPageMutable extends BasePageMutable {
     protected void mergeWithRight(BasePageMutable page) {
         System.arraycopy(page.keys, 0, keys, size, page.size);
         System.arraycopy(page.keysAddresses, 0, keysAddresses, size, page.size);
+        if (keysPrefixes != null) {
+            System.arraycopy(page.keysPrefixes, 0, keysPrefixes, size, page.size);
+        }
         size += page.size;
     }
 
@@ -271,6 +280,7 @@ class BottomPageMutable extends BasePageMutable {
         page.mergeWithRight(this);
         keys = page.keys;
         keysAddresses = page.keysAddresses;
+        keysPrefixes = page.keysPrefixes;
         size = page.size;
     }
 
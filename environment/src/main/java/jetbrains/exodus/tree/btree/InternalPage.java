@@ -44,6 +44,11 @@ class InternalPage extends BasePageImmutable {
         checkAddressLength(childAddressLen = it.next());
     }
 
+    @Override
+    protected int getKeyPrefixesOffset() {
+        return super.getKeyPrefixesOffset() + size * childAddressLen + 1;
+    }
+
     @Override
     @NotNull
     protected BasePageMutable getMutableCopy(BTreeMutable treeMutable) {
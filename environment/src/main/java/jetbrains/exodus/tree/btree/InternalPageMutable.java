@@ -35,6 +35,11 @@ public class InternalPageMutable extends BasePageMutable {
         super(tree, page);
     }
 
+    InternalPageMutable(BTreeMutable tree) {
+        super(tree);
+        createChildren(getBalancePolicy().getPageMaxSize());
+    }
+
     private InternalPageMutable(InternalPageMutable page, int from, int length) {
         super((BTreeMutable) page.getTree());
 
@@ -42,6 +47,9 @@ public class InternalPageMutable extends BasePageMutable {
 
         System.arraycopy(page.keys, from, keys, 0, length);
         System.arraycopy(page.keysAddresses, from, keysAddresses, 0, length);
+        if (keysPrefixes != null) {
+            System.arraycopy(page.keysPrefixes, from, keysPrefixes, 0, length);
+        }
         System.arraycopy(page.children, from, children, 0, length);
         System.arraycopy(page.childrenAddresses, from, childrenAddresses, 0, length);
 
@@ -125,6 +133,9 @@ public class InternalPageMutable extends BasePageMutable {
         if (key != null) { // first key is mutable ==> changed, no merges or reclaims allowed
             keys[index] = key;
             keysAddresses[index] = key.getAddress();
+            if (keysPrefixes != null) {
+                keysPrefixes[index] = child.keysPrefixes[0];
+            }
         }
         children[index] = child;
         ((BTreeMutable) getTree()).addExpiredLoggable(childrenAddresses[index]);
@@ -250,6 +261,9 @@ public class InternalPageMutable extends BasePageMutable {
             if (childrenAddresses[i] == Loggable.NULL_ADDRESS) {
                 childrenAddresses[i] = children[i].save();
                 keysAddresses[i] = children[i].keysAddresses[0];
+                if (keysPrefixes != null) {
+                    keysPrefixes[i] = children[i].keysPrefixes[0];
+                }
                 result = ReclaimFlag.PRESERVE;
             }
         }
@@ -260,8 +274,9 @@ public class InternalPageMutable extends BasePageMutable {
     protected ByteIterable[] getByteIterables(@NotNull final ReclaimFlag flag) {
         return new ByteIterable[]{
                 CompressedUnsignedLongByteIterable.getIterable((size << 1) + flag.value),
-                CompressedUnsignedLongArrayByteIterable.getIterable(keysAddresses, size),
+                getKeysAddressesIterable(),
                 CompressedUnsignedLongArrayByteIterable.getIterable(childrenAddresses, size),
+                getKeysPrefixesIterable()
         };
     }
 
@@ -280,6 +295,9 @@ public class InternalPageMutable extends BasePageMutable {
         InternalPageMutable page = (InternalPageMutable) _page;
         System.arraycopy(page.keys, 0, keys, size, page.size);
         System.arraycopy(page.keysAddresses, 0, keysAddresses, size, page.size);
+        if (keysPrefixes != null) {
+            System.arraycopy(page.keysPrefixes, 0, keysPrefixes, size, page.size);
+        }
         System.arraycopy(page.children, 0, children, size, page.size);
         System.arraycopy(page.childrenAddresses, 0, childrenAddresses, size, page.size);
         size += page.size;
@@ -291,6 +309,7 @@ public class InternalPageMutable extends BasePageMutable {
         page.mergeWithRight(this);
         keys = page.keys;
         keysAddresses = page.keysAddresses;
+        keysPrefixes = page.keysPrefixes;
         children = page.children;
         childrenAddresses = page.childrenAddresses;
         size = page.size;
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.tree.btree;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.ByteIterator;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Key prefixes inlined in pages of B+Tree. The page having inlined key prefixes is marked by the highest bit of
+ * the byte holding length of key addresses, so pages saved without key prefixes are read as before. Prefixes are
+ * saved at the end of the page: prefix length {@code P} followed by {@code P + 1}-byte record per key. First byte of
+ * the record is key length if it is not greater than {@code P} (the key is inlined entirely), or {@code P + 1} if
+ * the key is truncated. It's followed by {@code P} bytes of the key padded with zeros.
+ */
+final class KeyPrefixes {
+
+    static final int PREFIXED_PAGE_FLAG = 0x80;
+    static final int UNDEFINED = Integer.MIN_VALUE;
+
+    private KeyPrefixes() {
+    }
+
+    static boolean isPrefixedPage(final byte keyAddressLen) {
+        return (keyAddressLen & PREFIXED_PAGE_FLAG) != 0;
+    }
+
+    static int getRecordLength(final int prefixLength) {
+        return prefixLength + 1;
+    }
+
+    @NotNull
+    static byte[] getRecord(@NotNull final ByteIterable key, final int prefixLength) {
+        final byte[] result = new byte[prefixLength + 1];
+        final int keyLength = key.getLength();
+        final int length;
+        if (keyLength <= prefixLength) {
+            result[0] = (byte) keyLength;
+            length = keyLength;
+        } else {
+            result[0] = (byte) (prefixLength + 1);
+            length = prefixLength;
+        }
+        System.arraycopy(key.getBytesUnsafe(), 0, result, 1, length);
+        return result;
+    }
+
+    @NotNull
+    static byte[] readRecord(@NotNull final ByteIterator it, final int prefixLength) {
+        final byte[] result = new byte[prefixLength + 1];
+        for (int i = 0; i <= prefixLength; ++i) {
+            result[i] = it.next();
+        }
+        return result;
+    }
+
+    /**
+     * Compares key prefix record with the key.
+     *
+     * @param it           iterator pointing to the record
+     * @param prefixLength length of prefixes
+     * @param key          bytes of the key
+     * @param keyLength    length of the key
+     * @return result of comparison of the key whose prefix is in the record with the key, or {@linkplain #UNDEFINED}
+     * if the record is not sufficient to compare
+     */
+    static int compare(@NotNull final ByteIterator it, final int prefixLength,
+                       @NotNull final byte[] key, final int keyLength) {
+        final int recordKeyLength = it.next() & 0xff;
+        final boolean truncated = recordKeyLength > prefixLength;
+        final int min = Math.min(truncated ? prefixLength : recordKeyLength, keyLength);
+        for (int i = 0; i < min; ++i) {
+            final byte b1 = it.next();
+            final byte b2 = key[i];
+            if (b1 != b2) {
+                return (b1 & 0xff) - (b2 & 0xff);
+            }
+        }
+        if (!truncated) {
+            return recordKeyLength - keyLength;
+        }
+        // truncated key is longer than the prefix, so it's greater than the key if the key is a part of the prefix
+        return keyLength < prefixLength ? 1 : UNDEFINED;
+    }
+}
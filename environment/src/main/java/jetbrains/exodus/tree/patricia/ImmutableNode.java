@@ -30,6 +30,15 @@ final class ImmutableNode extends NodeBase {
 
     private static final int CHILDREN_COUNT_TO_TRIGGER_BINARY_SEARCH = 8;
     private static final int LAZY_KEY_VALUE_ITERABLE_MIN_LENGTH = 16;
+    /**
+     * Nodes with at least this number of children are saved with 256-bit bitmap of children's first bytes
+     * followed by children's addresses, otherwise each child is saved as its first byte and address.
+     * Bitmap takes no more space than the first bytes since the threshold is equal to bitmap length in bytes.
+     * The bitmap lets find a child by its first byte without search. Nodes are saved with bitmap only if
+     * {@linkplain jetbrains.exodus.log.LogConfig#isPatriciaChildrenBitmap()} is on, both encodings are read.
+     */
+    static final int CHILDREN_COUNT_TO_TRIGGER_BITMAP = 32;
+    static final int CHILDREN_BITMAP_WORDS = 4;
 
     private final long address;
     @NotNull
@@ -37,6 +46,8 @@ final class ImmutableNode extends NodeBase {
     private final int dataOffset;
     private final short childrenCount;
     private final byte childAddressLength;
+    @Nullable
+    private final long[] childrenBitmap;
 
     ImmutableNode(final long address, final byte type, @NotNull final ByteIterableWithAddress data) {
         this(address, type, data, data.iterator());
@@ -51,11 +62,23 @@ final class ImmutableNode extends NodeBase {
         this.data = data;
         if (PatriciaTreeBase.nodeHasChildren(type)) {
             final int i = CompressedUnsignedLongByteIterable.getInt(it);
-            childrenCount = (short) (i >> 3);
             checkAddressLength(childAddressLength = (byte) ((i & 7) + 1));
+            if ((i >> 3) == 0) {
+                // children count is not saved if there is bitmap of children's first bytes
+                childrenBitmap = new long[CHILDREN_BITMAP_WORDS];
+                int count = 0;
+                for (int j = 0; j < CHILDREN_BITMAP_WORDS; ++j) {
+                    count += Long.bitCount(childrenBitmap[j] = it.nextLong(8));
+                }
+                childrenCount = (short) count;
+            } else {
+                childrenBitmap = null;
+                childrenCount = (short) (i >> 3);
+            }
         } else {
             childrenCount = (short) 0;
             childAddressLength = (byte) 0;
+            childrenBitmap = null;
         }
         dataOffset = (int) (it.getAddress() - data.getDataAddress());
     }
@@ -70,6 +93,7 @@ final class ImmutableNode extends NodeBase {
         dataOffset = 0;
         childrenCount = (short) 0;
         childAddressLength = (byte) 0;
+        childrenBitmap = null;
     }
 
     @Override
@@ -91,6 +115,13 @@ final class ImmutableNode extends NodeBase {
     @Nullable
     NodeBase getChild(@NotNull final PatriciaTreeBase tree, final byte b) {
         final int key = b & 0xff;
+        final long[] bitmap = childrenBitmap;
+        if (bitmap != null) {
+            if (!hasChild(bitmap, key)) {
+                return null;
+            }
+            return tree.loadNode(getDataIterator(getChildIndex(bitmap, key) * childAddressLength).nextLong(childAddressLength));
+        }
         int low = 0;
         int high = childrenCount - 1;
         while (low + CHILDREN_COUNT_TO_TRIGGER_BINARY_SEARCH - 1 <= high) {
@@ -125,6 +156,16 @@ final class ImmutableNode extends NodeBase {
     @NotNull
     NodeChildrenIterator getChildren(final byte b) {
         final int key = b & 0xff;
+        final long[] bitmap = childrenBitmap;
+        if (bitmap != null) {
+            if (!hasChild(bitmap, key)) {
+                return new EmptyNodeChildrenIterator();
+            }
+            final int index = getChildIndex(bitmap, key);
+            final ByteIterator it = getDataIterator(index * childAddressLength);
+            final long suffixAddress = it.nextLong(childAddressLength);
+            return new ImmutableNodeChildrenIterator(it, index + 1, new ChildReference(b, suffixAddress));
+        }
         int low = 0;
         int high = childrenCount - 1;
         while (low + CHILDREN_COUNT_TO_TRIGGER_BINARY_SEARCH - 1 <= high) {
@@ -147,7 +188,16 @@ final class ImmutableNode extends NodeBase {
     @NotNull
     NodeChildrenIterator getChildrenRange(final byte b) {
         final int key = b & 0xff;
-        if (childrenCount < CHILDREN_COUNT_TO_TRIGGER_BINARY_SEARCH) {
+        final long[] bitmap = childrenBitmap;
+        if (bitmap != null) {
+            final int next = getNextChildFirstByte(bitmap, key + 1);
+            if (next >= 0) {
+                final int index = getChildIndex(bitmap, next);
+                final ByteIterator it = getDataIterator(index * childAddressLength);
+                final long suffixAddress = it.nextLong(childAddressLength);
+                return new ImmutableNodeChildrenIterator(it, index + 1, new ChildReference((byte) next, suffixAddress));
+            }
+        } else if (childrenCount < CHILDREN_COUNT_TO_TRIGGER_BINARY_SEARCH) {
             // linear search
             final ByteIterator it = getDataIterator(0);
             for (int i = 0; i < childrenCount; ++i) {
@@ -203,6 +253,58 @@ final class ImmutableNode extends NodeBase {
         return address == Loggable.NULL_ADDRESS ? ByteIterable.EMPTY_ITERATOR : data.iterator(dataOffset + offset);
     }
 
+    private int getChildRecordLength() {
+        return childrenBitmap == null ? childAddressLength + 1 : childAddressLength;
+    }
+
+    private static boolean hasChild(@NotNull final long[] bitmap, final int firstByte) {
+        return (bitmap[firstByte >>> 6] & (1L << (firstByte & 63))) != 0;
+    }
+
+    /**
+     * @return number of children with first byte less than specified one
+     */
+    private static int getChildIndex(@NotNull final long[] bitmap, final int firstByte) {
+        final int word = firstByte >>> 6;
+        int result = 0;
+        for (int i = 0; i < word; ++i) {
+            result += Long.bitCount(bitmap[i]);
+        }
+        return result + Long.bitCount(bitmap[word] & ((1L << (firstByte & 63)) - 1));
+    }
+
+    /**
+     * @return the least first byte of a child which is greater than or equal to specified one, or -1
+     */
+    private static int getNextChildFirstByte(@NotNull final long[] bitmap, final int firstByte) {
+        for (int i = firstByte >>> 6; i < CHILDREN_BITMAP_WORDS; ++i) {
+            long bits = bitmap[i];
+            if (i == firstByte >>> 6) {
+                bits &= -1L << (firstByte & 63);
+            }
+            if (bits != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the greatest first byte of a child which is less than or equal to specified one, or -1
+     */
+    private static int getPrevChildFirstByte(@NotNull final long[] bitmap, final int firstByte) {
+        for (int i = firstByte >> 6; i >= 0; --i) {
+            long bits = bitmap[i];
+            if (i == firstByte >>> 6) {
+                bits &= -1L >>> (63 - (firstByte & 63));
+            }
+            if (bits != 0) {
+                return (i << 6) + 63 - Long.numberOfLeadingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
     @Nullable
     private NodeBase getChildUsingLinearSearch(@NotNull final PatriciaTreeBase tree,
                                                final int key,
@@ -304,7 +406,7 @@ final class ImmutableNode extends NodeBase {
         @Override
         public ChildReference next() {
             ++index;
-            return node = new ChildReference(itr.next(), itr.nextLong(childAddressLength));
+            return node = new ChildReference(nextFirstByte(), itr.nextLong(childAddressLength));
         }
 
         @Override
@@ -315,8 +417,8 @@ final class ImmutableNode extends NodeBase {
         @Override
         public ChildReference prev() {
             --index;
-            itr = getDataIterator(index * (childAddressLength + 1));
-            return node = new ChildReference(itr.next(), itr.nextLong(childAddressLength));
+            final byte firstByte = prevFirstByte();
+            return node = new ChildReference(firstByte, itr.nextLong(childAddressLength));
         }
 
         @Override
@@ -328,7 +430,7 @@ final class ImmutableNode extends NodeBase {
         public void nextInPlace() {
             ++index;
             final ChildReference node = this.node;
-            node.firstByte = itr.next();
+            node.firstByte = nextFirstByte();
             node.suffixAddress = itr.nextLong(childAddressLength);
         }
 
@@ -336,8 +438,7 @@ final class ImmutableNode extends NodeBase {
         public void prevInPlace() {
             --index;
             final ChildReference node = this.node;
-            itr = getDataIterator(index * (childAddressLength + 1));
-            node.firstByte = itr.next();
+            node.firstByte = prevFirstByte();
             node.suffixAddress = itr.nextLong(childAddressLength);
         }
 
@@ -365,5 +466,31 @@ final class ImmutableNode extends NodeBase {
         public ByteIterable getKey() {
             return keySequence;
         }
+
+        /**
+         * Reads first byte of the child next to current one, positions the iterator to its address.
+         */
+        private byte nextFirstByte() {
+            final long[] bitmap = childrenBitmap;
+            if (bitmap == null) {
+                return itr.next();
+            }
+            final ChildReference node = this.node;
+            return (byte) getNextChildFirstByte(bitmap, node == null ? 0 : (node.firstByte & 0xff) + 1);
+        }
+
+        /**
+         * Reads first byte of the child at current index which is previous to current child,
+         * positions the iterator to its address.
+         */
+        private byte prevFirstByte() {
+            itr = getDataIterator(index * getChildRecordLength());
+            final long[] bitmap = childrenBitmap;
+            if (bitmap == null) {
+                return itr.next();
+            }
+            final ChildReference node = this.node;
+            return (byte) getPrevChildFirstByte(bitmap, node == null ? 255 : (node.firstByte & 0xff) - 1);
+        }
     }
 }
\ No newline at end of file
@@ -295,10 +295,26 @@ class MutableNode extends NodeBase {
         }
         if (!children.isEmpty()) {
             // save references to children
-            CompressedUnsignedLongByteIterable.fillBytes((childrenCount << 3) + bytesPerAddress - 1, nodeStream);
-            for (final ChildReference ref : children) {
-                nodeStream.write(ref.firstByte);
-                LongBinding.writeUnsignedLong(ref.suffixAddress, bytesPerAddress, nodeStream);
+            if (childrenCount >= ImmutableNode.CHILDREN_COUNT_TO_TRIGGER_BITMAP && log.getConfig().isPatriciaChildrenBitmap()) {
+                // zero children count means that bitmap of children's first bytes is saved
+                CompressedUnsignedLongByteIterable.fillBytes(bytesPerAddress - 1, nodeStream);
+                final long[] bitmap = new long[ImmutableNode.CHILDREN_BITMAP_WORDS];
+                for (final ChildReference ref : children) {
+                    final int firstByte = ref.firstByte & 0xff;
+                    bitmap[firstByte >>> 6] |= 1L << (firstByte & 63);
+                }
+                for (final long word : bitmap) {
+                    LongBinding.writeUnsignedLong(word, 8, nodeStream);
+                }
+                for (final ChildReference ref : children) {
+                    LongBinding.writeUnsignedLong(ref.suffixAddress, bytesPerAddress, nodeStream);
+                }
+            } else {
+                CompressedUnsignedLongByteIterable.fillBytes((childrenCount << 3) + bytesPerAddress - 1, nodeStream);
+                for (final ChildReference ref : children) {
+                    nodeStream.write(ref.firstByte);
+                    LongBinding.writeUnsignedLong(ref.suffixAddress, bytesPerAddress, nodeStream);
+                }
             }
         }
         // finally, write loggable
@@ -18,6 +18,7 @@ package jetbrains.exodus.tree.patricia;
 import jetbrains.exodus.ByteIterable;
 import jetbrains.exodus.ByteIterator;
 import jetbrains.exodus.log.DataIterator;
+import jetbrains.exodus.log.DecodedLoggablesCache;
 import jetbrains.exodus.log.Log;
 import jetbrains.exodus.log.RandomAccessLoggable;
 import jetbrains.exodus.tree.INode;
@@ -82,6 +83,22 @@ public abstract class PatriciaTreeBase implements ITree {
         return node == null ? null : node.getValue();
     }
 
+    @NotNull
+    @Override
+    public ByteIterable[] getAll(@NotNull final ByteIterable[] sortedKeys) {
+        final int count = sortedKeys.length;
+        final ByteIterable[] result = new ByteIterable[count];
+        final byte[][] keys = new byte[count][];
+        final int[] lengths = new int[count];
+        for (int i = 0; i < count; ++i) {
+            final ByteIterable key = sortedKeys[i];
+            keys[i] = key.getBytesUnsafe();
+            lengths[i] = key.getLength();
+        }
+        getAll(getRoot(), keys, lengths, 0, 0, count, result);
+        return result;
+    }
+
     @Override
     public boolean hasPair(@NotNull final ByteIterable key, @NotNull final ByteIterable value) {
         final ByteIterable val = get(key);
@@ -128,8 +145,20 @@ public abstract class PatriciaTreeBase implements ITree {
 
     @NotNull
     final ImmutableNode loadNode(final long address) {
-        final RandomAccessLoggable loggable = getLoggable(address);
-        return new ImmutableNode(address, loggable.getType(), loggable.getData());
+        final DecodedLoggablesCache decodedCache = log.getDecodedLoggablesCache();
+        if (decodedCache == null) {
+            final RandomAccessLoggable loggable = getLoggable(address);
+            return new ImmutableNode(address, loggable.getType(), loggable.getData());
+        }
+        // immutable nodes are not bound to the tree, so they can be shared
+        final Object cached = decodedCache.tryKey(address);
+        if (cached instanceof ImmutableNode) {
+            return (ImmutableNode) cached;
+        }
+        final RandomAccessLoggable loggable = DecodedLoggablesCache.compact(getLoggable(address));
+        final ImmutableNode result = new ImmutableNode(address, loggable.getType(), loggable.getData());
+        decodedCache.cacheObject(address, result);
+        return result;
     }
 
     static boolean nodeHasKey(final byte type) {
@@ -169,4 +198,55 @@ public abstract class PatriciaTreeBase implements ITree {
         } while (node != null);
         return node;
     }
+
+    /**
+     * Gets values of sorted keys in the range [from, to) which all match the path to the node up to specified offset.
+     * A child is visited once for all adjacent keys having the same next byte.
+     */
+    private void getAll(@NotNull final NodeBase node,
+                        @NotNull final byte[][] keys,
+                        @NotNull final int[] lengths,
+                        final int offset,
+                        final int from,
+                        final int to,
+                        @NotNull final ByteIterable[] values) {
+        final byte[] keySequence = node.keySequence.getBytesUnsafe();
+        final int keySequenceLength = node.keySequence.getLength();
+        final int childOffset = offset + keySequenceLength;
+        int i = from;
+        while (i < to) {
+            final int length = lengths[i];
+            if (length < childOffset || !matchesKeySequence(keys[i], offset, keySequence, keySequenceLength)) {
+                ++i;
+                continue;
+            }
+            if (length == childOffset) {
+                values[i++] = node.getValue();
+                continue;
+            }
+            final byte nextByte = keys[i][childOffset];
+            int next = i + 1;
+            while (next < to && lengths[next] > childOffset && keys[next][childOffset] == nextByte &&
+                matchesKeySequence(keys[next], offset, keySequence, keySequenceLength)) {
+                ++next;
+            }
+            final NodeBase child = node.getChild(this, nextByte);
+            if (child != null) {
+                getAll(child, keys, lengths, childOffset + 1, i, next, values);
+            }
+            i = next;
+        }
+    }
+
+    private static boolean matchesKeySequence(@NotNull final byte[] key,
+                                              final int offset,
+                                              @NotNull final byte[] keySequence,
+                                              final int keySequenceLength) {
+        for (int i = 0; i < keySequenceLength; ++i) {
+            if (key[offset + i] != keySequence[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -52,21 +52,38 @@ public class PatriciaTreeWithDuplicates extends PatriciaTreeDecorator {
     @Override
     public ByteIterable get(@NotNull final ByteIterable key) {
         try (ITreeCursor cursor = treeNoDuplicates.openCursor()) {
-            final ByteIterable value = cursor.getSearchKeyRange(getEscapedKeyWithSeparator(key));
-            if (value != null && value != ByteIterable.EMPTY) {
-                int keyLength = CompressedUnsignedLongByteIterable.getInt(value);
-                if (key.getLength() == keyLength) {
-                    final ByteIterable noDupKey = new UnEscapingByteIterable(cursor.getKey());
-                    final byte[] noDupKeyBytes = noDupKey.getBytesUnsafe();
-                    if (ByteIterableUtil.compare(key.getBytesUnsafe(), keyLength, noDupKeyBytes, keyLength) == 0) {
-                        return new ArrayByteIterable(Arrays.copyOfRange(noDupKeyBytes,
-                                keyLength + 1, // skip separator
-                                noDupKey.getLength()));
-                    }
+            return get(cursor, key);
+        }
+    }
+
+    @NotNull
+    @Override
+    public ByteIterable[] getAll(@NotNull final ByteIterable[] sortedKeys) {
+        final ByteIterable[] result = new ByteIterable[sortedKeys.length];
+        try (ITreeCursor cursor = treeNoDuplicates.openCursor()) {
+            for (int i = 0; i < sortedKeys.length; ++i) {
+                result[i] = get(cursor, sortedKeys[i]);
+            }
+        }
+        return result;
+    }
+
+    @Nullable
+    private static ByteIterable get(@NotNull final ITreeCursor cursor, @NotNull final ByteIterable key) {
+        final ByteIterable value = cursor.getSearchKeyRange(getEscapedKeyWithSeparator(key));
+        if (value != null && value != ByteIterable.EMPTY) {
+            int keyLength = CompressedUnsignedLongByteIterable.getInt(value);
+            if (key.getLength() == keyLength) {
+                final ByteIterable noDupKey = new UnEscapingByteIterable(cursor.getKey());
+                final byte[] noDupKeyBytes = noDupKey.getBytesUnsafe();
+                if (ByteIterableUtil.compare(key.getBytesUnsafe(), keyLength, noDupKeyBytes, keyLength) == 0) {
+                    return new ArrayByteIterable(Arrays.copyOfRange(noDupKeyBytes,
+                            keyLength + 1, // skip separator
+                            noDupKey.getLength()));
                 }
             }
-            return null;
         }
+        return null;
     }
 
     @Override
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.bindings.IntegerBinding;
+import jetbrains.exodus.bindings.StringBinding;
+import jetbrains.exodus.compress.Codec;
+import jetbrains.exodus.compress.DeflateCodec;
+import jetbrains.exodus.compress.LZ77Codec;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompressedStoreTest extends EnvironmentTestsBase {
+
+    private static final int COUNT = 100;
+
+    @Test
+    public void deflate() {
+        putGet(new DeflateCodec());
+    }
+
+    @Test
+    public void lz77() {
+        putGet(new LZ77Codec());
+    }
+
+    @Test
+    public void smallValuesAreNotCompressed() {
+        final CompressedStore store = new CompressedStore(openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES), new DeflateCodec(), 100);
+        final ByteIterable value = StringBinding.stringToEntry("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+        putAutoCommit(store, IntegerBinding.intToEntry(0), value);
+        Assert.assertEquals(value, getAutoCommit(store, IntegerBinding.intToEntry(0)));
+        Assert.assertEquals(value.getLength() + 1, getAutoCommit(store.getStore(), IntegerBinding.intToEntry(0)).getLength());
+    }
+
+    @Test
+    public void changeCodec() {
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        final CompressedStore deflateStore = new CompressedStore(store, new DeflateCodec(), 0);
+        final ByteIterable value = textValue(0);
+        putAutoCommit(deflateStore, IntegerBinding.intToEntry(0), value);
+        final CompressedStore lz77Store = new CompressedStore(store, new LZ77Codec(), 0);
+        Assert.assertEquals(value, getAutoCommit(lz77Store, IntegerBinding.intToEntry(0)));
+    }
+
+    @Test
+    public void searchValuesWrittenWithOtherSettings() {
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITH_DUPLICATES);
+        final CompressedStore deflateStore = new CompressedStore(store, new DeflateCodec(), 0);
+        final ByteIterable key = IntegerBinding.intToEntry(0);
+        putAutoCommit(deflateStore, key, textValue(0));
+        putAutoCommit(deflateStore, key, textValue(1));
+        final CompressedStore lz77Store = new CompressedStore(store, new LZ77Codec(), 0);
+        final CompressedStore uncompressedStore = new CompressedStore(store, new LZ77Codec(), Integer.MAX_VALUE);
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                for (final CompressedStore s : new CompressedStore[]{lz77Store, uncompressedStore}) {
+                    Assert.assertTrue(s.exists(txn, key, textValue(0)));
+                    Assert.assertTrue(s.exists(txn, key, textValue(1)));
+                    Assert.assertFalse(s.exists(txn, key, textValue(2)));
+                    try (Cursor cursor = s.openCursor(txn)) {
+                        Assert.assertTrue(cursor.getSearchBoth(key, textValue(1)));
+                        Assert.assertEquals(textValue(1), cursor.getValue());
+                        Assert.assertFalse(cursor.getSearchBoth(key, textValue(2)));
+                        Assert.assertEquals(textValue(0), cursor.getSearchBothRange(key, textValue(0)));
+                        Assert.assertEquals(textValue(0), cursor.getValue());
+                    }
+                }
+            }
+        });
+    }
+
+    private void putGet(@NotNull final Codec codec) {
+        final Store rawStore = openStoreAutoCommit("raw", StoreConfig.WITHOUT_DUPLICATES);
+        final CompressedStore store = new CompressedStore(openStoreAutoCommit("compressed", StoreConfig.WITHOUT_DUPLICATES), codec, 64);
+        env.executeInTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                for (int i = 0; i < COUNT; ++i) {
+                    rawStore.put(txn, IntegerBinding.intToEntry(i), textValue(i));
+                    store.put(txn, IntegerBinding.intToEntry(i), textValue(i));
+                }
+            }
+        });
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                long rawLength = 0;
+                long compressedLength = 0;
+                for (int i = 0; i < COUNT; ++i) {
+                    final ByteIterable key = IntegerBinding.intToEntry(i);
+                    Assert.assertEquals(textValue(i), store.get(txn, key));
+                    Assert.assertTrue(store.exists(txn, key, textValue(i)));
+                    Assert.assertFalse(store.exists(txn, key, textValue(i + 1)));
+                    //noinspection ConstantConditions
+                    rawLength += rawStore.get(txn, key).getLength();
+                    //noinspection ConstantConditions
+                    compressedLength += store.getStore().get(txn, key).getLength();
+                }
+                Assert.assertTrue(compressedLength * 3 < rawLength);
+                try (Cursor cursor = store.openCursor(txn)) {
+                    int i = 0;
+                    while (cursor.getNext()) {
+                        Assert.assertEquals(i, IntegerBinding.entryToInt(cursor.getKey()));
+                        Assert.assertEquals(textValue(i), cursor.getValue());
+                        ++i;
+                    }
+                    Assert.assertEquals(COUNT, i);
+                    Assert.assertEquals(textValue(10), cursor.getSearchKey(IntegerBinding.intToEntry(10)));
+                    Assert.assertTrue(cursor.getSearchBoth(IntegerBinding.intToEntry(20), textValue(20)));
+                    Assert.assertEquals(textValue(20), cursor.getValue());
+                }
+            }
+        });
+    }
+
+    private static ByteIterable textValue(final int i) {
+        final StringBuilder builder = new StringBuilder();
+        for (int j = 0; j < 50; ++j) {
+            builder.append("Value #").append(i).append(" of the compressed store, line ").append(j).append(".\n");
+        }
+        return StringBinding.stringToEntry(builder.toString());
+    }
+}
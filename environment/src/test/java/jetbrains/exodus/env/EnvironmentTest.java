@@ -26,6 +26,7 @@ import jetbrains.exodus.io.DataReader;
 import jetbrains.exodus.io.DataWriter;
 import jetbrains.exodus.io.FileDataReader;
 import jetbrains.exodus.io.FileDataWriter;
+import jetbrains.exodus.io.MappedByteIterable;
 import jetbrains.exodus.log.Log;
 import jetbrains.exodus.log.LogConfig;
 import jetbrains.exodus.log.LogTestConfig;
@@ -40,10 +41,12 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Future;
 
 import static jetbrains.exodus.env.EnvironmentStatistics.Type.*;
 
@@ -92,6 +95,7 @@ public class EnvironmentTest extends EnvironmentTestsBase {
         Assert.assertNotNull(statistics.getStatisticsItem(DISK_USAGE));
         Assert.assertNotNull(statistics.getStatisticsItem(UTILIZATION_PERCENT));
         Assert.assertNotNull(statistics.getStatisticsItem(LOG_CACHE_HIT_RATE));
+        Assert.assertNotNull(statistics.getStatisticsItem(LOG_CACHE_ADMISSION_REJECTS));
         Assert.assertNotNull(statistics.getStatisticsItem(STORE_GET_CACHE_HIT_RATE));
     }
 
@@ -143,6 +147,72 @@ public class EnvironmentTest extends EnvironmentTestsBase {
         testEmptyEnvironment();
     }
 
+    @Test
+    public void testMappedValues() {
+        env.getEnvironmentConfig().setLogCachePageSize(1024);
+        setLogFileSize(16);
+        env.getEnvironmentConfig().setGcEnabled(false);
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        final int count = 20;
+        final byte[][] values = new byte[count][];
+        for (int i = 0; i < count; ++i) {
+            values[i] = new byte[4000];
+            for (int j = 0; j < values[i].length; ++j) {
+                values[i][j] = (byte) (i + j);
+            }
+            putAutoCommit(store, IntegerBinding.intToEntry(i), new ArrayByteIterable(values[i]));
+        }
+        env.getEnvironmentConfig().setEnvMappedValueMinLength(4000);
+        final List<MappedByteIterable> mappedValues = new ArrayList<>();
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                int mapped = 0;
+                for (int i = 0; i < count; ++i) {
+                    final ByteIterable value = store.get(txn, IntegerBinding.intToEntry(i));
+                    Assert.assertNotNull(value);
+                    if (value instanceof MappedByteIterable) {
+                        ++mapped;
+                        Assert.assertEquals(values[i].length, ((MappedByteIterable) value).getByteBuffer().remaining());
+                        mappedValues.add((MappedByteIterable) value);
+                    }
+                    Assert.assertEquals(0, value.compareTo(new ArrayByteIterable(values[i])));
+                    Assert.assertEquals(0, new ArrayByteIterable(value).compareTo(new ArrayByteIterable(values[i])));
+                }
+                if (reader instanceof FileDataReader) {
+                    Assert.assertTrue(mapped > 0);
+                } else {
+                    // there are no files to map
+                    Assert.assertEquals(0, mapped);
+                }
+            }
+        });
+        // mapped values are closed with the transaction
+        for (final MappedByteIterable value : mappedValues) {
+            TestUtil.runWithExpectedException(new Runnable() {
+                @Override
+                public void run() {
+                    value.iterator();
+                }
+            }, ExodusException.class);
+            TestUtil.runWithExpectedException(new Runnable() {
+                @Override
+                public void run() {
+                    value.subIterable(0, 1).compareTo(ArrayByteIterable.EMPTY);
+                }
+            }, ExodusException.class);
+        }
+        env.getEnvironmentConfig().setEnvMappedValueMinLength(4001);
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                for (int i = 0; i < count; ++i) {
+                    Assert.assertFalse(store.get(txn, IntegerBinding.intToEntry(i)) instanceof MappedByteIterable);
+                }
+            }
+        });
+    }
+
     @Test
     @TestFor(issues = "XD-457")
     public void testClearWithTransaction_XD_457() throws InterruptedException {
@@ -401,6 +471,82 @@ public class EnvironmentTest extends EnvironmentTestsBase {
         }
     }
 
+    @Test
+    public void testGroupCommit() throws InterruptedException {
+        final EnvironmentConfig ec = env.getEnvironmentConfig();
+        ec.setLogDurableWrite(true);
+        ec.setEnvGroupCommit(true);
+        ec.setEnvGroupCommitMaxDelay(10);
+        reopenEnvironment();
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        final int threadCount = 8;
+        final int txnCount = 50;
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; ++t) {
+            final int threadNumber = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < txnCount; ++i) {
+                        final int key = threadNumber * txnCount + i;
+                        putAutoCommit(store, IntegerBinding.intToEntry(key), IntegerBinding.intToEntry(key));
+                    }
+                }
+            });
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(threadCount * txnCount, countAutoCommit(store));
+        final GroupCommit groupCommit = env.getGroupCommit();
+        Assert.assertNotNull(groupCommit);
+        Assert.assertTrue(groupCommit.getSyncs() > 0);
+        Assert.assertTrue(groupCommit.getSyncs() < threadCount * txnCount);
+        Assert.assertTrue(groupCommit.getAverageBatchSize() > 1);
+        reopenEnvironment();
+        Assert.assertEquals(threadCount * txnCount, countAutoCommit(openStoreAutoCommit("store", StoreConfig.USE_EXISTING)));
+    }
+
+    @Test
+    public void testCommitAsync() throws Exception {
+        final EnvironmentConfig ec = env.getEnvironmentConfig();
+        ec.setLogDurableWrite(true);
+        reopenEnvironment();
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        final int txnCount = 100;
+        final List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < txnCount; ++i) {
+            final Transaction txn = env.beginTransaction();
+            store.put(txn, IntegerBinding.intToEntry(i), IntegerBinding.intToEntry(i));
+            results.add(txn.commitAsync());
+            Assert.assertTrue(txn.isFinished());
+        }
+        for (final Future<Boolean> result : results) {
+            Assert.assertTrue(result.get());
+        }
+        Assert.assertEquals(txnCount, countAutoCommit(store));
+        // conflicting transaction is not committed
+        final Transaction txn = env.beginTransaction();
+        store.put(txn, IntegerBinding.intToEntry(txnCount), IntegerBinding.intToEntry(txnCount));
+        putAutoCommit(store, IntegerBinding.intToEntry(txnCount + 1), IntegerBinding.intToEntry(txnCount + 1));
+        final Future<Boolean> result = txn.commitAsync();
+        Assert.assertTrue(result.isDone());
+        Assert.assertFalse(result.get());
+        Assert.assertFalse(txn.isFinished());
+        txn.abort();
+        // pending syncs are completed on close
+        final Transaction last = env.beginTransaction();
+        store.put(last, IntegerBinding.intToEntry(txnCount + 2), IntegerBinding.intToEntry(txnCount + 2));
+        final Future<Boolean> lastResult = last.commitAsync();
+        reopenEnvironment();
+        Assert.assertTrue(lastResult.isDone());
+        Assert.assertTrue(lastResult.get());
+        Assert.assertEquals(txnCount + 2, countAutoCommit(openStoreAutoCommit("store", StoreConfig.USE_EXISTING)));
+    }
+
     @Test
     public void testSetHighAddress() {
         final Store store = openStoreAutoCommit("new_store", StoreConfig.WITHOUT_DUPLICATES);
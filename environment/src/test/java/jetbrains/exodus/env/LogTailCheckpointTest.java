@@ -0,0 +1,103 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.bindings.IntegerBinding;
+import jetbrains.exodus.io.Block;
+import jetbrains.exodus.log.Log;
+import jetbrains.exodus.log.LogConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class LogTailCheckpointTest extends EnvironmentTestsBase {
+
+    private static final long CHECKPOINT_PERIOD = 60000L;
+
+    @Override
+    protected void createEnvironment() {
+        env = newEnvironmentInstance(LogConfig.create(reader, writer),
+            new EnvironmentConfig().setGcEnabled(false).setLogTailCheckpointPeriod(CHECKPOINT_PERIOD));
+    }
+
+    @Test
+    public void checkpointIsSavedOnClose() {
+        final Store store = fill();
+        final long highAddress = getLog().getHighAddress();
+        reopenEnvironment();
+        Assert.assertTrue(new File(reader.getLocation(), "xd.tail").exists());
+        Assert.assertEquals(highAddress, getLog().getHighAddress());
+        check(openStoreAutoCommit(store.getName(), StoreConfig.USE_EXISTING));
+    }
+
+    @Test
+    public void incompleteLoggableAfterCheckpoint() {
+        fill();
+        final long highAddress = getLog().getHighAddress();
+        env.close();
+        env = null;
+        // append the header of a loggable without its data
+        final Block lastBlock = getLastBlock();
+        final byte[] header = new byte[3];
+        Assert.assertEquals(header.length, reader.getBlock(0).read(header, 0, header.length));
+        writer.openOrCreateBlock(lastBlock.getAddress(), lastBlock.length());
+        writer.write(header, 0, header.length);
+        writer.close();
+        Assert.assertEquals(highAddress + header.length, getLastBlock().getAddress() + getLastBlock().length());
+        final Log log = newLog();
+        Assert.assertEquals(highAddress, log.getHighAddress());
+        log.close();
+    }
+
+    @Test
+    public void staleCheckpointIsIgnored() {
+        fill();
+        final long highAddress = getLog().getHighAddress();
+        env.close();
+        env = null;
+        final Block lastBlock = getLastBlock();
+        writer.openOrCreateBlock(lastBlock.getAddress(), lastBlock.length() - 1);
+        writer.close();
+        final Log log = newLog();
+        Assert.assertTrue(log.getHighAddress() < highAddress);
+        log.close();
+    }
+
+    private Store fill() {
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        for (int i = 0; i < 1000; ++i) {
+            putAutoCommit(store, IntegerBinding.intToEntry(i), IntegerBinding.intToEntry(i));
+        }
+        return store;
+    }
+
+    private void check(final Store store) {
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertEquals(IntegerBinding.intToEntry(i), getAutoCommit(store, IntegerBinding.intToEntry(i)));
+        }
+    }
+
+    private Block getLastBlock() {
+        final Block[] blocks = reader.getBlocks();
+        return blocks[blocks.length - 1];
+    }
+
+    private Log newLog() {
+        return Environments.newLogInstance(LogConfig.create(reader, writer).
+            setFileSize(EnvironmentConfig.DEFAULT.getLogFileSize()).setTailCheckpointPeriod(CHECKPOINT_PERIOD));
+    }
+}
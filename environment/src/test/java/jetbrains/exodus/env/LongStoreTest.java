@@ -0,0 +1,128 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.ArrayByteIterable;
+import jetbrains.exodus.ByteBufferByteIterable;
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.bindings.LongBinding;
+import jetbrains.exodus.bindings.StringBinding;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class LongStoreTest extends EnvironmentTestsBase {
+
+    private static final long[] KEYS = {Long.MIN_VALUE, -1000000000000L, -256, -1, 0, 1, 255, 256, 1000000000000L, Long.MAX_VALUE};
+
+    @Test
+    public void keysAreCompatibleWithLongBinding() {
+        for (final long key : KEYS) {
+            Assert.assertEquals(LongBinding.BINDING.objectToEntry(key), LongBinding.longToEntry(key));
+            Assert.assertEquals(key, LongBinding.entryToLong(LongBinding.BINDING.objectToEntry(key)));
+        }
+    }
+
+    @Test
+    public void entryWithoutByteArray() {
+        for (final long key : KEYS) {
+            final ByteIterable entry = new ByteBufferByteIterable(ByteBuffer.wrap(LongBinding.longToEntry(key).getBytesUnsafe()));
+            Assert.assertEquals(key, LongBinding.entryToLong(entry));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shortEntry() {
+        LongBinding.entryToLong(new ArrayByteIterable(new byte[7]));
+    }
+
+    @Test
+    public void putGet() {
+        putGet(StoreConfig.WITHOUT_DUPLICATES);
+    }
+
+    @Test
+    public void putGetWithPrefixing() {
+        putGet(StoreConfig.WITHOUT_DUPLICATES_WITH_PREFIXING);
+    }
+
+    @Test
+    public void cursor() {
+        final LongStore store = new LongStore(openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES));
+        env.executeInTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                // put in reverse order
+                for (int i = KEYS.length - 1; i >= 0; --i) {
+                    store.put(txn, KEYS[i], StringBinding.stringToEntry(Long.toString(KEYS[i])));
+                }
+            }
+        });
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                try (LongCursor cursor = store.openCursor(txn)) {
+                    int i = 0;
+                    while (cursor.getNext()) {
+                        Assert.assertEquals(KEYS[i], cursor.getLongKey());
+                        Assert.assertEquals(Long.toString(KEYS[i]), StringBinding.entryToString(cursor.getValue()));
+                        ++i;
+                    }
+                    Assert.assertEquals(KEYS.length, i);
+                    Assert.assertNotNull(cursor.getSearchKeyRange(2));
+                    Assert.assertEquals(255, cursor.getLongKey());
+                    Assert.assertNull(cursor.getSearchKey(2));
+                    Assert.assertNotNull(cursor.getSearchKey(-256));
+                    Assert.assertEquals(-256, cursor.getLongKey());
+                }
+            }
+        });
+    }
+
+    private void putGet(@NotNull final StoreConfig config) {
+        final LongStore store = new LongStore(openStoreAutoCommit("store", config));
+        env.executeInTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                for (final long key : KEYS) {
+                    Assert.assertTrue(store.put(txn, key, StringBinding.stringToEntry(Long.toString(key))));
+                }
+            }
+        });
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                Assert.assertEquals(KEYS.length, store.count(txn));
+                for (final long key : KEYS) {
+                    Assert.assertEquals(Long.toString(key), StringBinding.entryToString(store.get(txn, key)));
+                    // the store is accessible using LongBinding as well
+                    Assert.assertEquals(store.get(txn, key), store.getStore().get(txn, LongBinding.longToEntry(key)));
+                }
+                Assert.assertNull(store.get(txn, 2));
+            }
+        });
+        env.executeInTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                Assert.assertTrue(store.delete(txn, 0));
+                Assert.assertFalse(store.delete(txn, 0));
+                Assert.assertNull(store.get(txn, 0));
+            }
+        });
+    }
+}
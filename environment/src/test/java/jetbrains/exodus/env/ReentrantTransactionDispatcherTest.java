@@ -36,28 +36,28 @@ public class ReentrantTransactionDispatcherTest {
 
     @Test(expected = ExodusException.class)
     public void cantAcquireMoreTransaction() {
-        dispatcher.acquireExclusiveTransaction(Thread.currentThread());
+        dispatcher.acquireExclusiveTransaction(TransactionContext.current());
         Assert.assertEquals(0, dispatcher.getAvailablePermits());
-        dispatcher.acquireTransaction(Thread.currentThread());
+        dispatcher.acquireTransaction(TransactionContext.current());
     }
 
     @Test(expected = ExodusException.class)
     public void cantReleaseMorePermits() {
-        dispatcher.acquireTransaction(Thread.currentThread());
-        dispatcher.releaseTransaction(Thread.currentThread(), 2);
+        dispatcher.acquireTransaction(TransactionContext.current());
+        dispatcher.releaseTransaction(TransactionContext.current(), 2);
     }
 
     @Test
     public void exclusiveTransaction() {
-        dispatcher.acquireExclusiveTransaction(Thread.currentThread());
+        dispatcher.acquireExclusiveTransaction(TransactionContext.current());
         Assert.assertEquals(0, dispatcher.getAvailablePermits());
     }
 
     @Test
     public void exclusiveTransaction2() {
-        dispatcher.acquireTransaction(Thread.currentThread());
+        dispatcher.acquireTransaction(TransactionContext.current());
         Assert.assertEquals(9, dispatcher.getAvailablePermits());
-        dispatcher.acquireExclusiveTransaction(Thread.currentThread());
+        dispatcher.acquireExclusiveTransaction(TransactionContext.current());
         // nested transaction always gets 1 permit
         Assert.assertEquals(8, dispatcher.getAvailablePermits());
     }
@@ -65,11 +65,26 @@ public class ReentrantTransactionDispatcherTest {
     @Test
     public void downgrade() {
         exclusiveTransaction();
-        dispatcher.downgradeTransaction(Thread.currentThread(), 9);
+        dispatcher.downgradeTransaction(TransactionContext.current(), 9);
         Assert.assertEquals(8, dispatcher.getAvailablePermits());
-        dispatcher.downgradeTransaction(Thread.currentThread(), 1);
+        dispatcher.downgradeTransaction(TransactionContext.current(), 1);
         Assert.assertEquals(8, dispatcher.getAvailablePermits());
-        dispatcher.downgradeTransaction(Thread.currentThread(), 2);
+        dispatcher.downgradeTransaction(TransactionContext.current(), 2);
+        Assert.assertEquals(9, dispatcher.getAvailablePermits());
+    }
+
+    @Test
+    public void differentContexts() {
+        final TransactionContext context = new TransactionContext("another");
+        dispatcher.acquireTransaction(TransactionContext.current());
+        Assert.assertEquals(9, dispatcher.getAvailablePermits());
+        // another context holds no permits, so it acquires regular transaction rather than nested one
+        dispatcher.acquireTransaction(context);
+        Assert.assertEquals(8, dispatcher.getAvailablePermits());
+        Assert.assertEquals(1, dispatcher.getContextPermits(context));
+        dispatcher.releaseTransaction(context, 1);
+        Assert.assertEquals(0, dispatcher.getContextPermits(context));
+        Assert.assertEquals(1, dispatcher.getContextPermits(TransactionContext.current()));
         Assert.assertEquals(9, dispatcher.getAvailablePermits());
     }
 }
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.ArrayByteIterable;
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.bindings.IntegerBinding;
+import jetbrains.exodus.bindings.StringBinding;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StoreGetCacheTest extends EnvironmentTestsBase {
+
+    @Test
+    public void exactKeys() {
+        env.getEnvironmentConfig().setEnvStoreGetCacheSize(1000);
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        for (int i = 0; i < 100; ++i) {
+            putAutoCommit(store, IntegerBinding.intToEntry(i), StringBinding.stringToEntry(Integer.toString(i)));
+        }
+        for (int j = 0; j < 2; ++j) {
+            env.executeInReadonlyTransaction(new TransactionalExecutable() {
+                @Override
+                public void execute(@NotNull final Transaction txn) {
+                    for (int i = 0; i < 100; ++i) {
+                        Assert.assertEquals(Integer.toString(i), StringBinding.entryToString(store.get(txn, IntegerBinding.intToEntry(i))));
+                    }
+                    Assert.assertNull(store.get(txn, IntegerBinding.intToEntry(100)));
+                }
+            });
+        }
+        final StoreGetCache storeGetCache = env.getStoreGetCache();
+        Assert.assertNotNull(storeGetCache);
+        Assert.assertEquals(101, storeGetCache.count());
+        Assert.assertTrue(storeGetCache.hitRate() >= 0.5f);
+    }
+
+    @Test
+    public void memoryUsage() {
+        final int memoryUsage = 16 * 1024;
+        env.getEnvironmentConfig().setEnvStoreGetCacheSize(1000).setEnvStoreGetCacheMemoryUsage(memoryUsage).
+            setEnvStoreGetCacheMaxValueSize(512);
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        final ByteIterable value = new ArrayByteIterable(new byte[100]);
+        final ByteIterable largeValue = new ArrayByteIterable(new byte[1000]);
+        env.executeInTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                for (int i = 0; i < 1000; ++i) {
+                    store.put(txn, IntegerBinding.intToEntry(i), value);
+                }
+                store.put(txn, IntegerBinding.intToEntry(1000), largeValue);
+            }
+        });
+        final StoreGetCache storeGetCache = env.getStoreGetCache();
+        Assert.assertNotNull(storeGetCache);
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                for (int i = 0; i < 1000; ++i) {
+                    Assert.assertEquals(value, store.get(txn, IntegerBinding.intToEntry(i)));
+                }
+                final int count = storeGetCache.count();
+                Assert.assertTrue(count > 0);
+                Assert.assertTrue(count * 100 < memoryUsage);
+                // values larger than max value size are not cached
+                Assert.assertEquals(largeValue, store.get(txn, IntegerBinding.intToEntry(1000)));
+                Assert.assertEquals(largeValue, store.get(txn, IntegerBinding.intToEntry(1000)));
+                Assert.assertTrue(storeGetCache.count() <= count);
+            }
+        });
+    }
+
+    @Test
+    public void perStoreOptIn() {
+        env.getEnvironmentConfig().setEnvStoreGetCacheSize(1000).setEnvStoreGetCacheStores("hot, cached*");
+        final Store hot = openStoreAutoCommit("hot", StoreConfig.WITHOUT_DUPLICATES);
+        final Store cached = openStoreAutoCommit("cached1", StoreConfig.WITHOUT_DUPLICATES);
+        final Store cold = openStoreAutoCommit("cold", StoreConfig.WITHOUT_DUPLICATES);
+        final Store[] stores = {hot, cached, cold};
+        for (final Store store : stores) {
+            putAutoCommit(store, IntegerBinding.intToEntry(0), StringBinding.stringToEntry(store.getName()));
+        }
+        for (int i = 0; i < 10; ++i) {
+            for (final Store store : stores) {
+                Assert.assertEquals(store.getName(), StringBinding.entryToString(getAutoCommit(store, IntegerBinding.intToEntry(0))));
+            }
+        }
+        final StoreGetCache storeGetCache = env.getStoreGetCache();
+        Assert.assertNotNull(storeGetCache);
+        Assert.assertNotNull(storeGetCache.getCachedStore("hot"));
+        Assert.assertNotNull(storeGetCache.getCachedStore("cached1"));
+        Assert.assertNull(storeGetCache.getCachedStore("cold"));
+        Assert.assertEquals(2, storeGetCache.count());
+        Assert.assertEquals(0.9f, storeGetCache.hitRate("hot"), 0.01f);
+        Assert.assertEquals(0.9f, env.getStatistics().getStoreGetCacheHitRate("cached1").getMean(), 0.01f);
+        Assert.assertEquals(0f, env.getStatistics().getStoreGetCacheHitRate("cold").getMean(), 0.01f);
+        // changing the setting invalidates the cache
+        env.getEnvironmentConfig().setEnvStoreGetCacheStores("");
+        final StoreGetCache newStoreGetCache = env.getStoreGetCache();
+        Assert.assertNotNull(newStoreGetCache);
+        Assert.assertEquals(0, newStoreGetCache.count());
+        Assert.assertNotNull(newStoreGetCache.getCachedStore("cold"));
+    }
+}
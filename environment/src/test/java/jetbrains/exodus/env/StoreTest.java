@@ -18,6 +18,7 @@ package jetbrains.exodus.env;
 import jetbrains.exodus.*;
 import jetbrains.exodus.bindings.LongBinding;
 import jetbrains.exodus.bindings.StringBinding;
+import jetbrains.exodus.core.dataStructures.Pair;
 import jetbrains.exodus.core.dataStructures.hash.HashSet;
 import jetbrains.exodus.core.dataStructures.hash.LongHashSet;
 import jetbrains.exodus.core.dataStructures.hash.LongSet;
@@ -34,7 +35,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class StoreTest extends EnvironmentTestsBase {
 
@@ -58,6 +61,82 @@ public class StoreTest extends EnvironmentTestsBase {
         successivePutRightWithoutDuplicates(StoreConfig.WITHOUT_DUPLICATES_WITH_PREFIXING);
     }
 
+    @Test
+    public void testGetAll() {
+        getAll(StoreConfig.WITHOUT_DUPLICATES);
+    }
+
+    @Test
+    public void testGetAllWithPrefixing() {
+        getAll(StoreConfig.WITHOUT_DUPLICATES_WITH_PREFIXING);
+    }
+
+    @Test
+    public void testGetAllUnsortedKeys() {
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                TestUtil.runWithExpectedException(new Runnable() {
+                    @Override
+                    public void run() {
+                        store.getAll(txn, new ByteIterable[]{LongBinding.longToEntry(1), LongBinding.longToEntry(0)});
+                    }
+                }, IllegalArgumentException.class);
+            }
+        });
+    }
+
+    @Test
+    public void testGetAllDuplicateKeys() {
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                TestUtil.runWithExpectedException(new Runnable() {
+                    @Override
+                    public void run() {
+                        store.getAll(txn, new ByteIterable[]{LongBinding.longToEntry(1), LongBinding.longToEntry(1)});
+                    }
+                }, IllegalArgumentException.class);
+            }
+        });
+    }
+
+    @Test
+    public void testBulkLoad() {
+        bulkLoad(StoreConfig.WITHOUT_DUPLICATES);
+    }
+
+    @Test
+    public void testBulkLoadWithPrefixing() {
+        bulkLoad(StoreConfig.WITHOUT_DUPLICATES_WITH_PREFIXING);
+    }
+
+    @Test
+    public void testBulkLoadWithDuplicates() {
+        bulkLoad(StoreConfig.WITH_DUPLICATES);
+    }
+
+    @Test
+    public void testBulkLoadUnsortedKeys() {
+        final List<Pair<ByteIterable, ByteIterable>> pairs = new ArrayList<>();
+        pairs.add(new Pair<ByteIterable, ByteIterable>(LongBinding.longToEntry(1), getValue()));
+        pairs.add(new Pair<ByteIterable, ByteIterable>(LongBinding.longToEntry(0), getValue()));
+        TestUtil.runWithExpectedException(new Runnable() {
+            @Override
+            public void run() {
+                env.bulkLoad("store", StoreConfig.WITHOUT_DUPLICATES, pairs.iterator());
+            }
+        }, IllegalArgumentException.class);
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                Assert.assertFalse(env.storeExists("store", txn));
+            }
+        });
+    }
+
     @Test
     public void testTruncateWithinTxn() {
         truncateWithinTxn(StoreConfig.WITHOUT_DUPLICATES);
@@ -437,6 +516,83 @@ public class StoreTest extends EnvironmentTestsBase {
         assertNotNullStringValue(store, getKey(), "value2");
     }
 
+    private void getAll(final StoreConfig config) {
+        final int count = 10000;
+        final ByteIterable[] keys = new ByteIterable[count];
+        final ByteIterable[] values = new ByteIterable[count];
+        for (int i = 0; i < count; ++i) {
+            keys[i] = LongBinding.longToEntry(i * 2);
+            values[i] = StringBinding.stringToEntry(Integer.toString(i));
+        }
+        final Store store = openStoreAutoCommit("store", config);
+        env.executeInTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                for (int i = 0; i < count; ++i) {
+                    Assert.assertTrue(store.put(txn, keys[i], values[i]));
+                }
+            }
+        });
+        // every second key doesn't exist
+        final ByteIterable[] sortedKeys = new ByteIterable[count * 2];
+        for (int i = 0; i < sortedKeys.length; ++i) {
+            sortedKeys[i] = LongBinding.longToEntry(i);
+        }
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                Assert.assertEquals(count, store.count(txn));
+                final ByteIterable[] result = store.getAll(txn, sortedKeys);
+                for (int i = 0; i < result.length; ++i) {
+                    if (i % 2 == 0) {
+                        Assert.assertEquals(Integer.toString(i / 2), StringBinding.entryToString(result[i]));
+                    } else {
+                        Assert.assertNull(result[i]);
+                    }
+                }
+            }
+        });
+    }
+
+    private void bulkLoad(final StoreConfig config) {
+        final Store store = openStoreAutoCommit("store", config);
+        putAutoCommit(store, LongBinding.longToEntry(-1), getValue());
+        final int count = 100000;
+        final List<Pair<ByteIterable, ByteIterable>> pairs = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            pairs.add(new Pair<ByteIterable, ByteIterable>(LongBinding.longToEntry(i * 2), LongBinding.longToEntry(i)));
+        }
+        env.bulkLoad("store", config, pairs.iterator());
+        reopenEnvironment();
+        final Store loaded = openStoreAutoCommit("store", StoreConfig.USE_EXISTING);
+        env.executeInReadonlyTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                Assert.assertEquals(count, loaded.count(txn));
+                Assert.assertNull(loaded.get(txn, LongBinding.longToEntry(-1)));
+                for (int i = 0; i < count * 2; ++i) {
+                    final ByteIterable value = loaded.get(txn, LongBinding.longToEntry(i));
+                    if (i % 2 == 0) {
+                        Assert.assertEquals(i / 2, LongBinding.entryToLong(value));
+                    } else {
+                        Assert.assertNull(value);
+                    }
+                }
+                try (Cursor cursor = loaded.openCursor(txn)) {
+                    int i = 0;
+                    while (cursor.getNext()) {
+                        Assert.assertEquals(i * 2, LongBinding.entryToLong(cursor.getKey()));
+                        ++i;
+                    }
+                    Assert.assertEquals(count, i);
+                }
+            }
+        });
+        // the store is modifiable after loading
+        putAutoCommit(loaded, LongBinding.longToEntry(1), getValue());
+        Assert.assertEquals(getValue(), getAutoCommit(loaded, LongBinding.longToEntry(1)));
+    }
+
     private void successivePutRightWithoutDuplicates(final StoreConfig config) {
         final Environment env = getEnvironment();
         Transaction txn = env.beginTransaction();
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.bindings.IntegerBinding;
+import jetbrains.exodus.bindings.StringBinding;
+import jetbrains.exodus.log.LogConfig;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StoreTestOffHeapCache extends StoreTest {
+
+    @Override
+    protected void createEnvironment() {
+        // small cache in order to make pages be evicted
+        env = newEnvironmentInstance(LogConfig.create(reader, writer), new EnvironmentConfig().
+            setLogCacheShared(false).setLogCacheOffHeap(true).setMemoryUsage(1024 * 1024));
+    }
+
+    @Test
+    public void testReadAfterEviction() {
+        final int count = 20000;
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES_WITH_PREFIXING);
+        env.executeInTransaction(new TransactionalExecutable() {
+            @Override
+            public void execute(@NotNull final Transaction txn) {
+                for (int i = 0; i < count; ++i) {
+                    store.put(txn, IntegerBinding.intToEntry(i), StringBinding.stringToEntry(value(i)));
+                }
+            }
+        });
+        // log is several times larger than the cache, so pages are evicted while views of them can be reachable
+        for (int pass = 0; pass < 2; ++pass) {
+            env.executeInReadonlyTransaction(new TransactionalExecutable() {
+                @Override
+                public void execute(@NotNull final Transaction txn) {
+                    for (int i = count - 1; i >= 0; i -= 7) {
+                        final ByteIterable value = store.get(txn, IntegerBinding.intToEntry(i));
+                        Assert.assertNotNull(value);
+                        Assert.assertEquals(value(i), StringBinding.entryToString(value));
+                    }
+                    try (Cursor cursor = store.openCursor(txn)) {
+                        int i = 0;
+                        while (cursor.getNext()) {
+                            Assert.assertEquals(i, IntegerBinding.entryToInt(cursor.getKey()));
+                            Assert.assertEquals(value(i++), StringBinding.entryToString(cursor.getValue()));
+                        }
+                        Assert.assertEquals(count, i);
+                    }
+                }
+            });
+        }
+    }
+
+    private static String value(final int i) {
+        return "value of the key number " + i + " which is long enough to make the log larger";
+    }
+}
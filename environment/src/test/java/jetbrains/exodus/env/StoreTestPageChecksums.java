@@ -0,0 +1,77 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.ExodusException;
+import jetbrains.exodus.TestUtil;
+import jetbrains.exodus.bindings.IntegerBinding;
+import jetbrains.exodus.log.LogConfig;
+import jetbrains.exodus.log.LogUtil;
+import jetbrains.exodus.log.RandomAccessLoggable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+
+public class StoreTestPageChecksums extends StoreTest {
+
+    @Override
+    protected void createEnvironment() {
+        // small cache in order to make pages be evicted and read again
+        env = newEnvironmentInstance(LogConfig.create(reader, writer), newEnvironmentConfig());
+    }
+
+    @Test
+    public void corruptedPageIsDetected() throws IOException {
+        env.close();
+        // several files, so the corrupted page is not in the last one which is checked on opening
+        env = newEnvironmentInstance(LogConfig.create(reader, writer), newEnvironmentConfig().setLogFileSize(256));
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        for (int i = 0; i < 10000; ++i) {
+            putAutoCommit(store, IntegerBinding.intToEntry(i), IntegerBinding.intToEntry(i));
+        }
+        final int pageSize = getLog().getCachePageSize();
+        Assert.assertTrue(getLog().getNumberOfFiles() > 1);
+        env.close();
+        final File file = new File(reader.getLocation(), LogUtil.getLogFilename(0));
+        Assert.assertTrue(new File(reader.getLocation(), LogUtil.getLogFilename(0) + ".crc").exists());
+        // flip a byte in the second page of the first file
+        Assert.assertTrue(file.setWritable(true));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(pageSize + 1);
+            final int b = raf.read();
+            raf.seek(pageSize + 1);
+            raf.write(b ^ 0xff);
+        }
+        env = newEnvironmentInstance(LogConfig.create(reader, writer), newEnvironmentConfig().setLogFileSize(256));
+        TestUtil.runWithExpectedException(new Runnable() {
+            @Override
+            public void run() {
+                final Iterator<RandomAccessLoggable> loggables = getLog().getLoggableIterator(0);
+                while (loggables.hasNext()) {
+                    loggables.next();
+                }
+            }
+        }, ExodusException.class);
+    }
+
+    private static EnvironmentConfig newEnvironmentConfig() {
+        return new EnvironmentConfig().setLogCacheShared(false).setMemoryUsage(1024 * 1024).setLogPageChecksums(true);
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.bindings.IntegerBinding;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionSetTest extends EnvironmentTestsBase {
+
+    @Test
+    public void oldestAndNewest() {
+        final TransactionSet set = new TransactionSet(4);
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertNull(set.getOldestTransaction());
+        Assert.assertNull(set.getNewestTransaction());
+        final List<TransactionBase> txns = new ArrayList<>();
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        for (int i = 0; i < 20; ++i) {
+            final TransactionBase txn = (TransactionBase) env.beginReadonlyTransaction();
+            txns.add(txn);
+            set.add(txn);
+            putAutoCommit(store, IntegerBinding.intToEntry(i), IntegerBinding.intToEntry(i));
+        }
+        Assert.assertEquals(20, set.size());
+        for (int i = 0; i < 20; ++i) {
+            final TransactionBase txn = txns.get(i);
+            Assert.assertTrue(set.contains(txn));
+            Assert.assertEquals(txn.getRoot(), set.getOldestTransaction().getRoot());
+            Assert.assertEquals(txns.get(19).getRoot(), set.getNewestTransaction().getRoot());
+            set.remove(txn);
+            Assert.assertFalse(set.contains(txn));
+            txn.abort();
+        }
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertNull(set.getOldestTransaction());
+        Assert.assertNull(set.getNewestTransaction());
+    }
+
+    @Test
+    public void newestIsRemovedFirst() {
+        final TransactionSet set = new TransactionSet(4);
+        final List<TransactionBase> txns = new ArrayList<>();
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        for (int i = 0; i < 20; ++i) {
+            final TransactionBase txn = (TransactionBase) env.beginReadonlyTransaction();
+            txns.add(txn);
+            set.add(txn);
+            putAutoCommit(store, IntegerBinding.intToEntry(i), IntegerBinding.intToEntry(i));
+        }
+        for (int i = 19; i >= 0; --i) {
+            final TransactionBase txn = txns.get(i);
+            Assert.assertEquals(txns.get(0).getRoot(), set.getOldestTransaction().getRoot());
+            Assert.assertEquals(txn.getRoot(), set.getNewestTransaction().getRoot());
+            set.remove(txn);
+            txn.abort();
+        }
+        Assert.assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void rootChanged() {
+        final TransactionSet set = new TransactionSet(1);
+        final Store store = openStoreAutoCommit("store", StoreConfig.WITHOUT_DUPLICATES);
+        final TransactionBase first = (TransactionBase) env.beginTransaction();
+        set.add(first);
+        putAutoCommit(store, IntegerBinding.intToEntry(0), IntegerBinding.intToEntry(0));
+        final TransactionBase second = (TransactionBase) env.beginReadonlyTransaction();
+        set.add(second);
+        Assert.assertSame(first, set.getOldestTransaction());
+        Assert.assertSame(second, set.getNewestTransaction());
+        putAutoCommit(store, IntegerBinding.intToEntry(1), IntegerBinding.intToEntry(1));
+        // revert() makes the transaction newest
+        first.revert();
+        set.add(first);
+        Assert.assertEquals(2, set.size());
+        Assert.assertSame(second, set.getOldestTransaction());
+        Assert.assertSame(first, set.getNewestTransaction());
+        first.abort();
+        second.abort();
+    }
+}
@@ -57,6 +57,45 @@ public class TransactionTest extends EnvironmentTestsBase {
         Assert.assertEquals(null, env.getCurrentTransaction());
     }
 
+    @Test
+    public void testCurrentTransactionInExplicitContext() throws InterruptedException {
+        final ContextualEnvironment env = (ContextualEnvironment) getEnvironment();
+        final ContextualStore store = env.openStore("store", StoreConfig.WITHOUT_DUPLICATES);
+        final TransactionContext context = new TransactionContext("request");
+        final Transaction[] txn = {null};
+        context.execute(new Runnable() {
+            @Override
+            public void run() {
+                txn[0] = env.beginTransaction();
+                Assert.assertEquals(txn[0], env.getCurrentTransaction());
+            }
+        });
+        Assert.assertEquals(null, env.getCurrentTransaction());
+        // finish transaction in another thread with the same context bound
+        final Throwable[] error = {null};
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    context.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            Assert.assertEquals(txn[0], env.getCurrentTransaction());
+                            store.put(StringBinding.stringToEntry("key"), StringBinding.stringToEntry("value"));
+                            Assert.assertTrue(txn[0].commit());
+                            Assert.assertEquals(null, env.getCurrentTransaction());
+                        }
+                    });
+                } catch (Throwable t) {
+                    error[0] = t;
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        Assert.assertNull(error[0]);
+    }
+
     @Test
     public void testCommitTwice() {
         TestUtil.runWithExpectedException(new Runnable() {
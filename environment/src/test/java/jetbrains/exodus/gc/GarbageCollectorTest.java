@@ -316,6 +316,28 @@ public class GarbageCollectorTest extends EnvironmentTestsBase {
         Assert.assertEquals(1L, env.getLog().getNumberOfFiles());
     }
 
+    @Test
+    public void restoreUtilizationSavedIncrementally() {
+        set1KbFileWithoutGC();
+        env.getEnvironmentConfig().setGcUtilizationIncremental(true);
+        final Store store = openStoreAutoCommit("store");
+        for (int i = 0; i < 1000; ++i) {
+            putAutoCommit(store, IntegerBinding.intToEntry(i % 100), IntegerBinding.intToEntry(i));
+        }
+        final long[] files = env.getLog().getAllFileAddresses();
+        final long[] freeBytes = new long[files.length];
+        for (int i = 0; i < files.length; ++i) {
+            freeBytes[i] = env.getGC().getFileFreeBytes(files[i]);
+        }
+        // utilization changed by a txn is saved by the next one
+        putAutoCommit(store, IntegerBinding.intToEntry(0), IntegerBinding.intToEntry(0));
+        // GC is disabled, so utilization profile isn't saved on closing the environment
+        reopenEnvironment();
+        for (int i = 0; i < files.length; ++i) {
+            Assert.assertEquals(freeBytes[i], env.getGC().getFileFreeBytes(files[i]));
+        }
+    }
+
     protected StoreImpl openStoreAutoCommit(final String name) {
         return (StoreImpl) openStoreAutoCommit(name, getStoreConfig(false));
     }
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.gc;
+
+import jetbrains.exodus.bindings.IntegerBinding;
+import jetbrains.exodus.core.execution.Job;
+import jetbrains.exodus.core.execution.JobProcessorAdapter;
+import jetbrains.exodus.env.Store;
+import jetbrains.exodus.env.StoreConfig;
+import jetbrains.exodus.log.Log;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GarbageCollectorTestParallelReading extends GarbageCollectorTest {
+
+    @Override
+    protected void createEnvironment() {
+        super.createEnvironment();
+        env.getEnvironmentConfig().setGcReaderThreads(4);
+    }
+
+    @Test
+    public void cleanSeveralFilesInSingleTxn() {
+        set1KbFileWithoutGC();
+        env.getEnvironmentConfig().setGcTransactionTimeout(Integer.MAX_VALUE);
+        final int count = 300;
+        Store store = openStoreAutoCommit("store");
+        for (int i = 0; i < count; ++i) {
+            putAutoCommit(store, IntegerBinding.intToEntry(i), IntegerBinding.intToEntry(i));
+        }
+        for (int i = 0; i < count; i += 2) {
+            putAutoCommit(store, IntegerBinding.intToEntry(i), IntegerBinding.intToEntry(-i));
+        }
+        final Log log = env.getLog();
+        final long[] allFiles = log.getAllFileAddresses();
+        // files are sorted in descending order, don't clean the last one
+        final List<Long> files = new ArrayList<>();
+        for (int i = 1; i < allFiles.length; ++i) {
+            files.add(allFiles[i]);
+        }
+        Assert.assertTrue(files.size() > 4);
+        final GarbageCollector gc = env.getGC();
+        final boolean[] result = {false};
+        final JobProcessorAdapter processor = gc.getCleaner().getJobProcessor();
+        processor.queue(new Job() {
+            @Override
+            protected void execute() throws Throwable {
+                result[0] = gc.cleanFiles(files.iterator());
+            }
+        });
+        processor.waitForJobs(10);
+        Assert.assertTrue(result[0]);
+        for (final long file : files) {
+            Assert.assertTrue(gc.isFileCleaned(file));
+        }
+        gc.testDeletePendingFiles();
+        reopenEnvironment();
+        store = openStoreAutoCommit("store", StoreConfig.USE_EXISTING);
+        Assert.assertEquals(count, countAutoCommit(store));
+        for (int i = 0; i < count; ++i) {
+            Assert.assertEquals(IntegerBinding.intToEntry(i % 2 == 0 ? -i : i),
+                getAutoCommit(store, IntegerBinding.intToEntry(i)));
+        }
+    }
+}
@@ -22,10 +22,12 @@ import jetbrains.exodus.bindings.IntegerBinding;
 import jetbrains.exodus.bindings.LongBinding;
 import jetbrains.exodus.core.dataStructures.hash.IntHashMap;
 import jetbrains.exodus.core.dataStructures.hash.IntHashSet;
+import org.jetbrains.annotations.NotNull;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -40,6 +42,16 @@ public abstract class TreePutTest extends TreeBaseTest {
         assertEquals(null, t.get(key(1)));
     }
 
+    @Test
+    public void testGetAll() {
+        getAll(false);
+    }
+
+    @Test
+    public void testGetAllWithDuplicates() {
+        getAll(true);
+    }
+
     @Test
     public void testPutOverwriteWithoutDuplicates() {
         tm = createMutableTree(false, 1);
@@ -504,4 +516,41 @@ public abstract class TreePutTest extends TreeBaseTest {
             }
         });
     }
+
+    private void getAll(final boolean hasDuplicates) {
+        tm = createMutableTree(hasDuplicates, 1);
+        final int count = 5000;
+        // keys with common prefixes of different lengths, only even ones exist
+        final String[] keys = new String[count];
+        for (int i = 0; i < count; ++i) {
+            keys[i] = Integer.toString(i);
+        }
+        Arrays.sort(keys);
+        final ByteIterable[] sortedKeys = new ByteIterable[count];
+        for (int i = 0; i < count; ++i) {
+            sortedKeys[i] = key(keys[i]);
+            if (Integer.parseInt(keys[i]) % 2 == 0) {
+                tm.put(sortedKeys[i], value("v" + keys[i]));
+                if (hasDuplicates) {
+                    tm.put(sortedKeys[i], value("w" + keys[i]));
+                }
+            }
+        }
+        checkGetAll(tm, keys, sortedKeys);
+        t = openTree(tm.save(), hasDuplicates);
+        checkGetAll(t, keys, sortedKeys);
+        checkGetAll(t, new String[0], new ByteIterable[0]);
+    }
+
+    private static void checkGetAll(@NotNull final ITree tree, @NotNull final String[] keys, @NotNull final ByteIterable[] sortedKeys) {
+        final ByteIterable[] values = tree.getAll(sortedKeys);
+        assertEquals(keys.length, values.length);
+        for (int i = 0; i < keys.length; ++i) {
+            if (Integer.parseInt(keys[i]) % 2 == 0) {
+                valueEquals("v" + keys[i], values[i]);
+            } else {
+                assertNull(values[i]);
+            }
+        }
+    }
 }
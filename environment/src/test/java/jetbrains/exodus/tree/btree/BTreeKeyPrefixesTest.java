@@ -0,0 +1,104 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.tree.btree;
+
+import jetbrains.exodus.ArrayByteIterable;
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.util.ByteIterableUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class BTreeKeyPrefixesTest extends BTreeTestBase {
+
+    private static final int PREFIX_LENGTH = 4;
+
+    @Test
+    public void testPutSaveGet() throws IOException {
+        final BTreeBalancePolicy policy = new BTreeBalancePolicy(16, PREFIX_LENGTH);
+        tm = new BTreeEmpty(log, policy, false, 1).getMutableCopy();
+        for (int i = 0; i < 1000; ++i) {
+            getTreeMutable().put(key(getKey(i)), value("v" + i));
+        }
+        final long address = tm.save();
+        reopen();
+        t = new BTree(log, policy, address, false, 1);
+        Assert.assertEquals(PREFIX_LENGTH, ((BasePageImmutable) getTree().getRoot()).keyPrefixLength);
+        checkTree(1000);
+    }
+
+    @Test
+    public void testMixedPages() throws IOException {
+        // save tree without key prefixes, then modify it saving pages with key prefixes
+        tm = new BTreeEmpty(log, new BTreeBalancePolicy(16), false, 1).getMutableCopy();
+        for (int i = 0; i < 1000; i += 2) {
+            getTreeMutable().put(key(getKey(i)), value("v" + i));
+        }
+        long address = tm.save();
+        final BTreeBalancePolicy policy = new BTreeBalancePolicy(16, PREFIX_LENGTH);
+        tm = new BTree(log, policy, address, false, 1).getMutableCopy();
+        for (int i = 1; i < 1000; i += 2) {
+            getTreeMutable().put(key(getKey(i)), value("v" + i));
+        }
+        address = tm.save();
+        reopen();
+        t = new BTree(log, policy, address, false, 1);
+        checkTree(1000);
+        // and read it back without key prefixes
+        tm = new BTree(log, new BTreeBalancePolicy(16), address, false, 1).getMutableCopy();
+        getTreeMutable().delete(key(getKey(0)));
+        address = tm.save();
+        t = new BTree(log, policy, address, false, 1);
+        Assert.assertEquals(0, ((BasePageImmutable) getTree().getRoot()).keyPrefixLength);
+        Assert.assertNull(t.get(key(getKey(0))));
+        valueEquals("v1", t.get(key(getKey(1))));
+    }
+
+    @Test
+    public void testCompare() {
+        final String[] keys = {"", "a", "ab", "abc", "abcd", "abcde", "abcdef", "abd", "b", "abcc", "abcdd", "ÿ"};
+        for (final String k1 : keys) {
+            for (final String k2 : keys) {
+                final ArrayByteIterable key1 = key(k1);
+                final ArrayByteIterable key2 = key(k2);
+                final int expected = Integer.signum(ByteIterableUtil.compare(key1, key2));
+                final int actual = KeyPrefixes.compare(new ArrayByteIterable(KeyPrefixes.getRecord(key1, PREFIX_LENGTH)).iterator(),
+                    PREFIX_LENGTH, key2.getBytesUnsafe(), key2.getLength());
+                if (actual != KeyPrefixes.UNDEFINED) {
+                    Assert.assertEquals(k1 + " vs " + k2, expected, Integer.signum(actual));
+                } else {
+                    Assert.assertTrue(k1.length() > PREFIX_LENGTH && k2.length() >= PREFIX_LENGTH);
+                }
+            }
+        }
+    }
+
+    private void checkTree(final int count) {
+        for (int i = 0; i < count; ++i) {
+            final ByteIterable value = t.get(key(getKey(i)));
+            Assert.assertNotNull(value);
+            valueEquals("v" + i, value);
+            Assert.assertNull(t.get(key(getKey(i) + 'x')));
+        }
+        Assert.assertEquals(count, t.getSize());
+    }
+
+    private static String getKey(final int i) {
+        // short keys are inlined in pages entirely, long ones are not
+        return (i % 3 == 0 ? "" : "prefix") + i;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.tree.patricia;
+
+import jetbrains.exodus.ArrayByteIterable;
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.log.LogConfig;
+import jetbrains.exodus.tree.ITreeCursor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PatriciaChildrenBitmapTest extends PatriciaTestBase {
+
+    private boolean childrenBitmap = true;
+
+    @Override
+    protected LogConfig createLogConfig() {
+        return super.createLogConfig().setPatriciaChildrenBitmap(childrenBitmap);
+    }
+
+    @Test
+    public void highFanOut() throws IOException {
+        checkFanOut(86, 3);
+    }
+
+    @Test
+    public void allFirstBytes() throws IOException {
+        checkFanOut(256, 1);
+    }
+
+    @Test
+    public void bitmapThreshold() throws IOException {
+        checkFanOut(ImmutableNode.CHILDREN_COUNT_TO_TRIGGER_BITMAP - 1, 5);
+        checkFanOut(ImmutableNode.CHILDREN_COUNT_TO_TRIGGER_BITMAP, 5);
+    }
+
+    @Test
+    public void fanOutDecreases() throws IOException {
+        final List<ByteIterable> keys = putKeys(100, 2);
+        t = openTree(tm.save(), false);
+        tm = t.getMutableCopy();
+        final List<ByteIterable> remaining = new ArrayList<>();
+        for (int i = 0; i < keys.size(); ++i) {
+            final ByteIterable key = keys.get(i);
+            if (i % 20 == 0) {
+                remaining.add(key);
+            } else {
+                Assert.assertTrue(tm.delete(key));
+            }
+        }
+        t = openTree(tm.save(), false);
+        reopen();
+        t = openTree(t.getRootAddress(), false);
+        checkTree(remaining);
+    }
+
+    @Test
+    public void bitmapSettingOff() throws IOException {
+        final List<ByteIterable> keys = putKeys(86, 2);
+        t = openTree(tm.save(), false);
+        // nodes saved with bitmap are read and modified with the setting off
+        childrenBitmap = false;
+        reopen();
+        t = openTree(t.getRootAddress(), false);
+        checkTree(keys);
+        tm = t.getMutableCopy();
+        final ByteIterable key = new ArrayByteIterable(new byte[]{(byte) 172, 0, 0});
+        tm.put(key, key);
+        keys.add(key);
+        t = openTree(tm.save(), false);
+        reopen();
+        t = openTree(t.getRootAddress(), false);
+        checkTree(keys);
+    }
+
+    private void checkFanOut(final int childrenCount, final int step) throws IOException {
+        final List<ByteIterable> keys = putKeys(childrenCount, step);
+        t = openTree(tm.save(), false);
+        reopen();
+        t = openTree(t.getRootAddress(), false);
+        checkTree(keys);
+    }
+
+    private List<ByteIterable> putKeys(final int childrenCount, final int step) {
+        tm = createMutableTree(false, 1);
+        final List<ByteIterable> keys = new ArrayList<>();
+        for (int i = 0; i < childrenCount; ++i) {
+            // root with given fan-out, each child has its own children
+            for (int j = 0; j < 3; ++j) {
+                final ByteIterable key = new ArrayByteIterable(new byte[]{(byte) (i * step), (byte) j, (byte) i});
+                tm.put(key, key);
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private void checkTree(final List<ByteIterable> keys) {
+        Assert.assertEquals(keys.size(), t.getSize());
+        for (final ByteIterable key : keys) {
+            Assert.assertEquals(key, t.get(key));
+            final byte[] bytes = key.getBytesUnsafe();
+            final ArrayByteIterable absent = new ArrayByteIterable(new byte[]{(byte) (bytes[0] + 1), (byte) 3});
+            if (!keys.contains(absent)) {
+                Assert.assertNull(t.get(absent));
+            }
+        }
+        try (ITreeCursor cursor = t.openCursor()) {
+            for (final ByteIterable key : keys) {
+                Assert.assertTrue(cursor.getNext());
+                Assert.assertEquals(key, cursor.getKey());
+            }
+            Assert.assertFalse(cursor.getNext());
+        }
+        try (ITreeCursor cursor = t.openCursor()) {
+            for (int i = keys.size() - 1; i >= 0; --i) {
+                Assert.assertTrue(cursor.getPrev());
+                Assert.assertEquals(keys.get(i), cursor.getKey());
+            }
+            Assert.assertFalse(cursor.getPrev());
+        }
+        try (ITreeCursor cursor = t.openCursor()) {
+            for (int i = 0; i < keys.size(); i += 3) {
+                final byte firstByte = keys.get(i).getBytesUnsafe()[0];
+                // the least key greater than (firstByte - 1, 0xff) is the first key with firstByte
+                final ArrayByteIterable prevKey = new ArrayByteIterable(new byte[]{(byte) (firstByte - 1), (byte) 0xff});
+                if ((firstByte & 0xff) > 0 && !keys.contains(prevKey)) {
+                    Assert.assertEquals(keys.get(i), cursor.getSearchKeyRange(prevKey));
+                    Assert.assertEquals(keys.get(i), cursor.getKey());
+                }
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@ package jetbrains.exodus.bindings;
 
 import jetbrains.exodus.ArrayByteIterable;
 import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.ByteIterableBase;
 import jetbrains.exodus.ByteIterator;
 import jetbrains.exodus.util.LightOutputStream;
 import org.jetbrains.annotations.NotNull;
@@ -65,7 +66,15 @@ public class LongBinding extends ComparableBinding {
      * @see #signedLongToCompressedEntry(long)
      */
     public static long entryToLong(@NotNull final ByteIterable entry) {
-        return (Long) BINDING.entryToObject(entry);
+        // the same as BindingUtils.readLong(), but without boxing and intermediate stream
+        final int length = entry.getLength();
+        if (length < 8) {
+            throw new IndexOutOfBoundsException("Entry of length " + length + " can't be read as long, 8 bytes expected");
+        }
+        // only ByteIterableBase descendants are known to provide byte arrays, others (e.g. log-based iterables) may not
+        final long value = entry instanceof ByteIterableBase ?
+                entryToUnsignedLong(entry.getBytesUnsafe(), 0, 8) : entryToUnsignedLong(entry.iterator(), 8);
+        return value ^ 0x8000000000000000L;
     }
 
     /**
@@ -80,7 +89,13 @@ public class LongBinding extends ComparableBinding {
      * @see #signedLongToCompressedEntry(long)
      */
     public static ArrayByteIterable longToEntry(final long object) {
-        return BINDING.objectToEntry(object);
+        // the same as writeObject(), but without boxing and intermediate stream
+        final long value = object ^ 0x8000000000000000L;
+        final byte[] bytes = new byte[8];
+        for (int i = 0, shift = 56; i < 8; ++i, shift -= 8) {
+            bytes[i] = (byte) (value >>> shift);
+        }
+        return new ArrayByteIterable(bytes);
     }
 
     /**
@@ -214,6 +214,36 @@ public final class PersistentEntityStoreConfig extends AbstractConfig {
      */
     public static final String ENTITY_ITERABLE_CACHE_USE_HUMAN_READABLE = "exodus.entityStore.entityIterableCache.useHumanReadable";
 
+    /**
+     * If is set to {@code true} then EntityIterableCache instantiates independent operands of a tree of binary
+     * operators (intersection, union, difference) in parallel using all its threads, and then combines cached
+     * operands. This reduces latency of caching of complex queries, e.g. while the cache is being warmed up after
+     * restart, if {@linkplain #ENTITY_ITERABLE_CACHE_THREAD_COUNT} is greater than {@code 1}.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: yes
+     *
+     * @see #ENTITY_ITERABLE_CACHE_THREAD_COUNT
+     */
+    public static final String ENTITY_ITERABLE_CACHE_PARALLEL_INSTANTIATION = "exodus.entityStore.entityIterableCache.parallelInstantiation";
+
+    /**
+     * If is set to {@code true} then EntityIterableCache saves cached results of queries to a dedicated store on
+     * closing of the {@linkplain PersistentEntityStore}, and lazily loads them on first access after the store is
+     * reopened. This avoids recomputing of all expensive queries after restart. If the store was not closed
+     * properly, saved results are discarded. Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     */
+    public static final String ENTITY_ITERABLE_CACHE_PERSISTENT = "exodus.entityStore.entityIterableCache.persistent";
+
+    /**
+     * If is set to {@code true} then the query engine estimates sizes of operands of conjunctions using counts of
+     * iterables known to EntityIterableCache and intersects them in ascending order of estimated sizes, uses
+     * composite indices to find entities by conjunctions of equality conditions, and sorts small results in memory.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: yes
+     */
+    public static final String QUERY_PLANNER_ENABLED = "exodus.entityStore.queryPlannerEnabled";
+
     /**
      * Defines the size of "property values" cache held by each {@linkplain StoreTransaction} instance. This cache
      * reduces load created by de-serialization of property values. Default value is {@code 1024}.
@@ -287,6 +317,9 @@ public final class PersistentEntityStoreConfig extends AbstractConfig {
             new Pair(ENTITY_ITERABLE_CACHE_DEFERRED_DELAY, 2000),
             new Pair(ENTITY_ITERABLE_CACHE_MAX_SIZE_OF_DIRECT_VALUE, 512),
             new Pair(ENTITY_ITERABLE_CACHE_USE_HUMAN_READABLE, false),
+            new Pair(ENTITY_ITERABLE_CACHE_PARALLEL_INSTANTIATION, false),
+            new Pair(ENTITY_ITERABLE_CACHE_PERSISTENT, false),
+            new Pair(QUERY_PLANNER_ENABLED, false),
             new Pair(TRANSACTION_PROPS_CACHE_SIZE, 1024),
             new Pair(TRANSACTION_LINKS_CACHE_SIZE, 1024),
             new Pair(TRANSACTION_BLOB_STRINGS_CACHE_SIZE, 256),
@@ -478,6 +511,30 @@ public final class PersistentEntityStoreConfig extends AbstractConfig {
         return setSetting(ENTITY_ITERABLE_CACHE_USE_HUMAN_READABLE, useHumanReadable);
     }
 
+    public boolean getEntityIterableCacheParallelInstantiation() {
+        return (Boolean) getSetting(ENTITY_ITERABLE_CACHE_PARALLEL_INSTANTIATION);
+    }
+
+    public PersistentEntityStoreConfig setEntityIterableCacheParallelInstantiation(final boolean parallelInstantiation) {
+        return setSetting(ENTITY_ITERABLE_CACHE_PARALLEL_INSTANTIATION, parallelInstantiation);
+    }
+
+    public boolean getEntityIterableCachePersistent() {
+        return (Boolean) getSetting(ENTITY_ITERABLE_CACHE_PERSISTENT);
+    }
+
+    public PersistentEntityStoreConfig setEntityIterableCachePersistent(final boolean persistent) {
+        return setSetting(ENTITY_ITERABLE_CACHE_PERSISTENT, persistent);
+    }
+
+    public boolean isQueryPlannerEnabled() {
+        return (Boolean) getSetting(QUERY_PLANNER_ENABLED);
+    }
+
+    public PersistentEntityStoreConfig setQueryPlannerEnabled(final boolean enabled) {
+        return setSetting(QUERY_PLANNER_ENABLED, enabled);
+    }
+
     public int getTransactionPropsCacheSize() {
         return (Integer) getSetting(TRANSACTION_PROPS_CACHE_SIZE);
     }
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.ByteIterable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@linkplain Cursor} of a {@linkplain CompressedStore} which decompresses values.
+ *
+ * @see CompressedStore#openCursor(Transaction)
+ */
+final class CompressedCursor implements Cursor {
+
+    @NotNull
+    private final CompressedStore store;
+    @NotNull
+    private final Transaction txn;
+    @NotNull
+    private final Cursor cursor;
+
+    CompressedCursor(@NotNull final CompressedStore store, @NotNull final Transaction txn, @NotNull final Cursor cursor) {
+        this.store = store;
+        this.txn = txn;
+        this.cursor = cursor;
+    }
+
+    @Override
+    public boolean getNext() {
+        return cursor.getNext();
+    }
+
+    @Override
+    public boolean getNextDup() {
+        return cursor.getNextDup();
+    }
+
+    @Override
+    public boolean getNextNoDup() {
+        return cursor.getNextNoDup();
+    }
+
+    @Override
+    public boolean getLast() {
+        return cursor.getLast();
+    }
+
+    @Override
+    public boolean getPrev() {
+        return cursor.getPrev();
+    }
+
+    @Override
+    public boolean getPrevDup() {
+        return cursor.getPrevDup();
+    }
+
+    @Override
+    public boolean getPrevNoDup() {
+        return cursor.getPrevNoDup();
+    }
+
+    @NotNull
+    @Override
+    public ByteIterable getKey() {
+        return cursor.getKey();
+    }
+
+    @NotNull
+    @Override
+    public ByteIterable getValue() {
+        return store.decompress(cursor.getValue());
+    }
+
+    @Nullable
+    @Override
+    public ByteIterable getSearchKey(@NotNull final ByteIterable key) {
+        return decompress(cursor.getSearchKey(key));
+    }
+
+    @Nullable
+    @Override
+    public ByteIterable getSearchKeyRange(@NotNull final ByteIterable key) {
+        return decompress(cursor.getSearchKeyRange(key));
+    }
+
+    @Override
+    public boolean getSearchBoth(@NotNull final ByteIterable key, @NotNull final ByteIterable value) {
+        if (cursor.getSearchBoth(key, store.compress(value))) {
+            return true;
+        }
+        // the value could be written with another codec or minValueLength
+        final ByteIterable stored = store.findStoredValue(txn, key, value);
+        return stored != null && cursor.getSearchBoth(key, stored);
+    }
+
+    @Nullable
+    @Override
+    public ByteIterable getSearchBothRange(@NotNull final ByteIterable key, @NotNull final ByteIterable value) {
+        final ByteIterable compressed = store.compress(value);
+        final ByteIterable result = decompress(cursor.getSearchBothRange(key, compressed));
+        if (result == null || result.compareTo(value) != 0) {
+            // an equal value could be written with another codec or minValueLength
+            final ByteIterable stored = store.findStoredValue(txn, key, value);
+            if (stored != null && cursor.getSearchBoth(key, stored)) {
+                return value;
+            }
+            return decompress(cursor.getSearchBothRange(key, compressed));
+        }
+        return result;
+    }
+
+    @Override
+    public int count() {
+        return cursor.count();
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+
+    @Override
+    public boolean deleteCurrent() {
+        return cursor.deleteCurrent();
+    }
+
+    @Nullable
+    private ByteIterable decompress(@Nullable final ByteIterable value) {
+        return value == null ? null : store.decompress(value);
+    }
+}
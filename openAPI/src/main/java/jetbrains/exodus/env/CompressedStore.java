@@ -0,0 +1,245 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.ArrayByteIterable;
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.ByteIterator;
+import jetbrains.exodus.CompoundByteIterable;
+import jetbrains.exodus.ExodusException;
+import jetbrains.exodus.bindings.IntegerBinding;
+import jetbrains.exodus.compress.Codec;
+import jetbrains.exodus.compress.DeflateCodec;
+import jetbrains.exodus.compress.LZ77Codec;
+import jetbrains.exodus.util.LightOutputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@code CompressedStore} is a {@linkplain Store} decorator which transparently compresses values using
+ * specified {@linkplain Codec}. Values shorter than {@code minValueLength} and values which cannot be compressed
+ * are saved as is. Each saved value starts with a byte identifying the codec used ({@code 0} for uncompressed values),
+ * so codec and {@code minValueLength} can be changed for a store anytime. Values of an existing store cannot be read
+ * using {@code CompressedStore} unless they were written using {@code CompressedStore}, and vice versa.
+ *
+ * <p>{@linkplain #exists(Transaction, ByteIterable, ByteIterable)} and search methods of the
+ * {@linkplain #openCursor(Transaction) cursor} accepting values first search for the value compressed with current
+ * codec and {@code minValueLength}. If it's not found, they compare the value with decompressed values of the key,
+ * so values written with other settings are found as well. For stores with duplicates, values are ordered by their
+ * compressed representations, so if there is no equal value {@code getSearchBothRange()} returns the next one in
+ * that order.
+ *
+ * @see Codec
+ * @see DeflateCodec
+ * @see LZ77Codec
+ */
+public final class CompressedStore implements Store {
+
+    private static final int UNCOMPRESSED = 0;
+    private static final ByteIterable UNCOMPRESSED_HEADER = ArrayByteIterable.fromByte((byte) UNCOMPRESSED);
+    private static final Codec DEFLATE_CODEC = new DeflateCodec();
+    private static final Codec LZ77_CODEC = new LZ77Codec();
+
+    @NotNull
+    private final Store store;
+    @NotNull
+    private final Codec codec;
+    private final int minValueLength;
+
+    public CompressedStore(@NotNull final Store store, @NotNull final Codec codec, final int minValueLength) {
+        final int codecId = codec.getId();
+        if (codecId <= UNCOMPRESSED || codecId > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Codec id should be in the range [1..127]");
+        }
+        this.store = store;
+        this.codec = codec;
+        this.minValueLength = minValueLength;
+    }
+
+    /**
+     * @return underlying {@linkplain Store}
+     */
+    @NotNull
+    public Store getStore() {
+        return store;
+    }
+
+    @NotNull
+    public Codec getCodec() {
+        return codec;
+    }
+
+    public int getMinValueLength() {
+        return minValueLength;
+    }
+
+    @NotNull
+    @Override
+    public Environment getEnvironment() {
+        return store.getEnvironment();
+    }
+
+    @Nullable
+    @Override
+    public ByteIterable get(@NotNull final Transaction txn, @NotNull final ByteIterable key) {
+        final ByteIterable value = store.get(txn, key);
+        return value == null ? null : decompress(value);
+    }
+
+    @NotNull
+    @Override
+    public ByteIterable[] getAll(@NotNull final Transaction txn, @NotNull final ByteIterable[] sortedKeys) {
+        final ByteIterable[] result = store.getAll(txn, sortedKeys);
+        for (int i = 0; i < result.length; ++i) {
+            final ByteIterable value = result[i];
+            if (value != null) {
+                result[i] = decompress(value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean exists(@NotNull final Transaction txn, @NotNull final ByteIterable key, @NotNull final ByteIterable value) {
+        return store.exists(txn, key, compress(value)) || findStoredValue(txn, key, value) != null;
+    }
+
+    @Override
+    public boolean put(@NotNull final Transaction txn, @NotNull final ByteIterable key, @NotNull final ByteIterable value) {
+        return store.put(txn, key, compress(value));
+    }
+
+    @Override
+    public void putRight(@NotNull final Transaction txn, @NotNull final ByteIterable key, @NotNull final ByteIterable value) {
+        store.putRight(txn, key, compress(value));
+    }
+
+    @Override
+    public boolean add(@NotNull final Transaction txn, @NotNull final ByteIterable key, @NotNull final ByteIterable value) {
+        return store.add(txn, key, compress(value));
+    }
+
+    @Override
+    public boolean delete(@NotNull final Transaction txn, @NotNull final ByteIterable key) {
+        return store.delete(txn, key);
+    }
+
+    @Override
+    public long count(@NotNull final Transaction txn) {
+        return store.count(txn);
+    }
+
+    @Override
+    public Cursor openCursor(@NotNull final Transaction txn) {
+        return new CompressedCursor(this, txn, store.openCursor(txn));
+    }
+
+    @Deprecated
+    @Override
+    public void close() {
+        store.close();
+    }
+
+    @NotNull
+    @Override
+    public String getName() {
+        return store.getName();
+    }
+
+    @NotNull
+    @Override
+    public StoreConfig getConfig() {
+        return store.getConfig();
+    }
+
+    @NotNull
+    ByteIterable compress(@NotNull final ByteIterable value) {
+        final int length = value.getLength();
+        if (length >= minValueLength && length > 0) {
+            final byte[] compressed = codec.compress(value.getBytesUnsafe(), 0, length);
+            // one byte for the header and at least one byte for original length
+            if (compressed.length + 2 < length) {
+                final LightOutputStream output = new LightOutputStream(compressed.length + 6);
+                output.write(codec.getId());
+                IntegerBinding.writeCompressed(output, length);
+                output.write(compressed);
+                return output.asArrayByteIterable();
+            }
+        }
+        return new CompoundByteIterable(new ByteIterable[]{UNCOMPRESSED_HEADER, value});
+    }
+
+    @NotNull
+    ByteIterable decompress(@NotNull final ByteIterable value) {
+        final int length = value.getLength();
+        if (length == 0) {
+            throw new ExodusException("Value is not written by CompressedStore");
+        }
+        final ByteIterator it = value.iterator();
+        final int codecId = it.next();
+        if (codecId == UNCOMPRESSED) {
+            return value.subIterable(1, length - 1);
+        }
+        final int decompressedLength = IntegerBinding.readCompressed(it);
+        final byte[] bytes = value.getBytesUnsafe();
+        // the header byte and compressed int whose first byte contains the number of bytes following it
+        final int offset = 2 + ((bytes[1] & 0xff) >> 5);
+        return new ArrayByteIterable(getCodec(codecId).decompress(bytes, offset, length - offset, decompressedLength));
+    }
+
+    /**
+     * Looks for the value of specified key whose decompressed contents equal to specified value regardless of
+     * codec and {@code minValueLength} used to write it.
+     *
+     * @return the value as it is saved in underlying store or {@code null} if nothing is found
+     */
+    @Nullable
+    ByteIterable findStoredValue(@NotNull final Transaction txn,
+                                 @NotNull final ByteIterable key,
+                                 @NotNull final ByteIterable value) {
+        final int length = value.getLength();
+        try (Cursor cursor = store.openCursor(txn)) {
+            ByteIterable stored = cursor.getSearchKey(key);
+            while (stored != null) {
+                // decompress only values of matching length
+                if (getDecompressedLength(stored) == length && decompress(stored).compareTo(value) == 0) {
+                    return new ArrayByteIterable(stored);
+                }
+                stored = cursor.getNextDup() ? cursor.getValue() : null;
+            }
+        }
+        return null;
+    }
+
+    private static int getDecompressedLength(@NotNull final ByteIterable value) {
+        final ByteIterator it = value.iterator();
+        return it.next() == UNCOMPRESSED ? value.getLength() - 1 : IntegerBinding.readCompressed(it);
+    }
+
+    @NotNull
+    private Codec getCodec(final int codecId) {
+        if (codecId == codec.getId()) {
+            return codec;
+        }
+        if (codecId == DeflateCodec.ID) {
+            return DEFLATE_CODEC;
+        }
+        if (codecId == LZ77Codec.ID) {
+            return LZ77_CODEC;
+        }
+        throw new ExodusException("Unknown codec: " + codecId);
+    }
+}
@@ -47,6 +47,18 @@ public interface ContextualStore extends Store {
     @Nullable
     ByteIterable get(@NotNull final ByteIterable key);
 
+    /**
+     * Batched version of {@link #get(ByteIterable)}. As keys are sorted, the search tree is traversed only once,
+     * and the path from the root of the tree is reused for adjacent keys.
+     *
+     * @param sortedKeys keys sorted in ascending order, without duplicates
+     * @return array of the same length as {@code sortedKeys}, i-th element of the array is the value associated
+     * with i-th key or null if the key doesn't exist
+     * @throws IllegalArgumentException if keys are not sorted or contain duplicates
+     */
+    @NotNull
+    ByteIterable[] getAll(@NotNull final ByteIterable[] sortedKeys);
+
     /**
      * Checks if specified key/value pair exists in the {@code ContextualStore}.
      *
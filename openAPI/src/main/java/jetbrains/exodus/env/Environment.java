@@ -15,13 +15,16 @@
  */
 package jetbrains.exodus.env;
 
+import jetbrains.exodus.ByteIterable;
 import jetbrains.exodus.ExodusException;
 import jetbrains.exodus.backup.Backupable;
+import jetbrains.exodus.core.dataStructures.Pair;
 import jetbrains.exodus.management.Statistics;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -158,6 +161,27 @@ public interface Environment extends Closeable, Backupable {
      */
     void removeStore(@NotNull String storeName, @NotNull Transaction txn);
 
+    /**
+     * Loads key/value pairs sorted by key into the {@linkplain Store store} with specified name in a single
+     * exclusive transaction. The store is created if it doesn't exist, otherwise it is truncated. All earlier opened
+     * {@linkplain Store} instances should be invalidated and re-opened.
+     *
+     * <p>For stores without duplicates and without key prefixing, the search tree is built bottom-up right as
+     * the pairs are written to the log, so loading requires neither a lot of memory nor extra copies of tree pages.
+     * Keys and values returned by the iterator shouldn't be changed after they are returned, since they are
+     * written to the log a bit later.
+     *
+     * @param storeName   name of store
+     * @param config      {@linkplain StoreConfig} used to create the store if it doesn't exist
+     * @param sortedPairs key/value pairs sorted in ascending order of keys, for stores with duplicates
+     *                    pairs with equal keys should be sorted in ascending order of values
+     * @throws IllegalArgumentException if the pairs are not sorted
+     * @see StoreConfig
+     */
+    void bulkLoad(@NotNull String storeName,
+                  @NotNull StoreConfig config,
+                  @NotNull Iterator<Pair<ByteIterable, ByteIterable>> sortedPairs);
+
     /**
      * Says environment to quicken background database garbage collector activity. Invocation of this method
      * doesn't have immediate consequences like freeing disk space, deleting particular files, etc.
@@ -156,6 +156,41 @@ public final class EnvironmentConfig extends AbstractConfig {
      */
     public static final String LOG_CACHE_NON_BLOCKING = "exodus.log.cache.nonBlocking";
 
+    /**
+     * If is set to {@code true} the LogCache keeps pages in direct (off-heap) memory instead of Java heap. This allows
+     * to have big LogCache without increasing heap size and GC pauses. Memory usage of off-heap LogCache is limited
+     * by the JVM option {@code -XX:MaxDirectMemorySize} as well. Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     *
+     * @see #MEMORY_USAGE
+     * @see #MEMORY_USAGE_PERCENTAGE
+     */
+    public static final String LOG_CACHE_OFF_HEAP = "exodus.log.cache.offHeap";
+
+    /**
+     * Defines eviction policy of the LogCache. Possible values are {@linkplain #LOG_CACHE_EVICTION_POLICY_GENERATIONAL}
+     * and {@linkplain #LOG_CACHE_EVICTION_POLICY_TINY_LFU}. Default value is {@code "generational"}.
+     * <p>Mutable at runtime: no
+     *
+     * @see #LOG_CACHE_EVICTION_POLICY_GENERATIONAL
+     * @see #LOG_CACHE_EVICTION_POLICY_TINY_LFU
+     */
+    public static final String LOG_CACHE_EVICTION_POLICY = "exodus.log.cache.evictionPolicy";
+
+    /**
+     * Value of {@linkplain #LOG_CACHE_EVICTION_POLICY}: recently accessed pages are kept in the LogCache, a page
+     * which is read for the first time always pushes out a page which was not accessed for a while.
+     */
+    public static final String LOG_CACHE_EVICTION_POLICY_GENERATIONAL = "generational";
+
+    /**
+     * Value of {@linkplain #LOG_CACHE_EVICTION_POLICY}: access frequencies of pages are tracked, a page is cached
+     * only if it is accessed at least as frequently as the page which it would push out. Such policy is
+     * scan-resistant: sequential reads of a Cursor over a big Store or of the database GC over an old file don't push
+     * out hot pages.
+     */
+    public static final String LOG_CACHE_EVICTION_POLICY_TINY_LFU = "tinyLFU";
+
     /**
      * If is set to {@code true} then the Log constructor fails if the database directory is not clean. Can be useful
      * if an applications expects that the database should always be newly created. Default value is {@code false}.
@@ -179,6 +214,27 @@ public final class EnvironmentConfig extends AbstractConfig {
      */
     public static final String LOG_SYNC_PERIOD = "exodus.log.syncPeriod";
 
+    /**
+     * Defines the period in milliseconds to save checkpoint of the {@code Log} tail after the log is synced.
+     * The checkpoint is saved in the database directory, it holds the high address of the log and checksum
+     * of several bytes before it. Opening the database, only the data after the checkpoint is validated, so
+     * the database is opened faster. The checkpoint is also saved when the database is closed. {@code 0} turns
+     * the checkpoint off. Default value is {@code 0L}.
+     * <p>Mutable at runtime: no
+     *
+     * @see #LOG_SYNC_PERIOD
+     */
+    public static final String LOG_TAIL_CHECKPOINT_PERIOD = "exodus.log.tailCheckpointPeriod";
+
+    /**
+     * If is set to {@code true} then checksum of each completely written page of the {@code Log} is saved
+     * in the file next to the .xd file, and it is verified each time the page is read from the storage
+     * to the log cache. Reading a page with mismatching checksum results in {@linkplain jetbrains.exodus.ExodusException}.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     */
+    public static final String LOG_PAGE_CHECKSUMS = "exodus.log.pageChecksums";
+
     /**
      * If is set to {@code true} then each complete and immutable {@code Log} file (.xd file) is marked with read-only
      * attribute. Default value is {@code true}.
@@ -210,6 +266,47 @@ public final class EnvironmentConfig extends AbstractConfig {
      */
     public static final String ENV_STOREGET_CACHE_SIZE = "exodus.env.storeGetCacheSize";
 
+    /**
+     * Defines the maximum amount of memory in bytes which the "store-get" cache can use for keys and values.
+     * If the setting is not {@code 0} then the cache is bounded by memory rather than by the number of entries, and
+     * {@linkplain #ENV_STOREGET_CACHE_SIZE} is ignored. Default value is {@code 0}. If the setting is mutated at
+     * runtime the cache is invalidated.
+     * <p>Mutable at runtime: yes
+     *
+     * @see #ENV_STOREGET_CACHE_SIZE
+     */
+    public static final String ENV_STOREGET_CACHE_MEMORY_USAGE = "exodus.env.storeGetCacheMemoryUsage";
+
+    /**
+     * Defines the maximum length in bytes of a value which can be cached in the "store-get" cache. If it is positive,
+     * larger values are never cached, so they don't crowd small ones out of the cache. Default value is {@code 0},
+     * i.e. the length of cached values is not limited. If the setting is mutated at runtime the cache is invalidated.
+     * <p>Mutable at runtime: yes
+     */
+    public static final String ENV_STOREGET_CACHE_MAX_VALUE_SIZE = "exodus.env.storeGetCacheMaxValueSize";
+
+    /**
+     * Defines comma-separated list of names of {@linkplain Store stores} which {@linkplain Store#get(Transaction,
+     * ByteIterable)} results can be cached in the "store-get" cache. A name ending with {@code '*'} matches all stores
+     * whose names start with the characters preceding the asterisk. Default value is empty string what means that
+     * results of all stores can be cached. If the setting is mutated at runtime the cache is invalidated.
+     * <p>Mutable at runtime: yes
+     */
+    public static final String ENV_STOREGET_CACHE_STORES = "exodus.env.storeGetCacheStores";
+
+    /**
+     * Defines the minimum length in bytes of a value which {@linkplain Store#get(Transaction, ByteIterable)} returns
+     * as a view of memory mapped {@code Log} file instead of reading it through the log cache. Only values
+     * located in immutable files spanning more than one log cache page can be returned as such views. The views
+     * are valid until the transaction is finished. The setting has effect if {@linkplain #LOG_CACHE_USE_NIO} is
+     * {@code true} and {@linkplain #LOG_PAGE_CHECKSUMS} is {@code false}. Default value is {@code 0} what means
+     * that values are never returned as views of mapped files.
+     * <p>Mutable at runtime: yes
+     *
+     * @see #LOG_CACHE_USE_NIO
+     */
+    public static final String ENV_MAPPED_VALUE_MIN_LENGTH = "exodus.env.mappedValueMinLength";
+
     /**
      * If is set to {@code true} then {@linkplain Environment#close()} doest't check if there are unfinished
      * transactions. Otherwise it checks and throws {@linkplain ExodusException} if there are.
@@ -274,6 +371,42 @@ public final class EnvironmentConfig extends AbstractConfig {
      */
     public static final String ENV_MAX_PARALLEL_READONLY_TXNS = "exodus.env.maxParallelReadonlyTxns";
 
+    /**
+     * If is set to {@code true} and {@linkplain #LOG_DURABLE_WRITE} is also {@code true} then concurrent
+     * {@linkplain Transaction transactions} are committed in groups: transactions which are flushed while an fsync
+     * is in progress don't perform their own fsync, they are batched and acknowledged together after a single
+     * fsync instead. Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     *
+     * @see #LOG_DURABLE_WRITE
+     * @see #ENV_GROUP_COMMIT_MAX_DELAY
+     * @see #ENV_GROUP_COMMIT_MAX_BATCH_SIZE
+     */
+    public static final String ENV_GROUP_COMMIT = "exodus.env.groupCommit";
+
+    /**
+     * If {@linkplain #ENV_GROUP_COMMIT} is {@code true} then defines the maximum time in milliseconds which the
+     * fsync of a group commit can be postponed in order to gather more {@linkplain Transaction transactions} to the
+     * batch. Default value is {@code 0}, i.e. only transactions flushed while the previous fsync was in progress are
+     * batched.
+     * <p>Mutable at runtime: yes
+     *
+     * @see #ENV_GROUP_COMMIT
+     * @see #ENV_GROUP_COMMIT_MAX_BATCH_SIZE
+     */
+    public static final String ENV_GROUP_COMMIT_MAX_DELAY = "exodus.env.groupCommit.maxDelay";
+
+    /**
+     * If {@linkplain #ENV_GROUP_COMMIT} is {@code true} then defines the number of {@linkplain Transaction
+     * transactions} waiting for fsync which is enough to perform it without waiting for
+     * {@linkplain #ENV_GROUP_COMMIT_MAX_DELAY}. Default value is {@code 64}.
+     * <p>Mutable at runtime: yes
+     *
+     * @see #ENV_GROUP_COMMIT
+     * @see #ENV_GROUP_COMMIT_MAX_DELAY
+     */
+    public static final String ENV_GROUP_COMMIT_MAX_BATCH_SIZE = "exodus.env.groupCommit.maxBatchSize";
+
     /**
      * Defines {@linkplain Transaction} timeout in milliseconds. If transaction doesn't finish in this timeout then
      * it is reported in logs as stuck along with stack trace which it was created with. Default value is {@code 0}
@@ -316,12 +449,33 @@ public final class EnvironmentConfig extends AbstractConfig {
     public static final String TREE_MAX_PAGE_SIZE = "exodus.tree.maxPageSize";
 
     /**
-     * As of 1.0.5, is deprecated and has no effect.
+     * Defines the length of key prefixes which are inlined in pages of B+Trees. If it is positive, each saved page
+     * contains first bytes of its keys (or whole keys if they are not longer than the prefix length), so most key
+     * comparisons during the binary search in the page are resolved without loading leaf nodes from the log. Pages
+     * are saved with key prefixes only if this setting is positive, pages saved without key prefixes are read as
+     * well. Databases containing pages with inlined key prefixes can't be opened by older versions of Xodus.
+     * Default value is {@code 0}, i.e. key prefixes are not inlined. Only values in the range [0..64] are accepted.
+     * <p>Mutable at runtime: no
+     */
+    public static final String TREE_KEY_PREFIX_LENGTH = "exodus.tree.keyPrefixLength";
+
+    /**
+     * Defines the number of decoded immutable pages of B+Trees and nodes of Patricia trees which are cached and shared
+     * by all {@linkplain Transaction transactions}. Cached pages and nodes are not re-read and re-parsed from the log
+     * on each tree traversal. Default value is {@code 0}, i.e. the cache is not used.
      * <p>Mutable at runtime: no
      */
-    @Deprecated
     public static final String TREE_NODES_CACHE_SIZE = "exodus.tree.nodesCacheSize";
 
+    /**
+     * If is set to {@code true} then nodes of Patricia trees having at least 32 children are saved with the bitmap
+     * of children's first bytes, so a child is found by its first byte without search. Nodes saved with or without
+     * the bitmap are read regardless of the setting. Databases containing nodes with the bitmap can't be opened by
+     * older versions of Xodus. Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     */
+    public static final String TREE_PATRICIA_CHILDREN_BITMAP = "exodus.tree.patriciaChildrenBitmap";
+
     /**
      * If is set to {@code true} then the database garbage collector is enabled. Default value is {@code true}.
      * Switching GC off makes sense only for debugging and troubleshooting purposes.
@@ -403,6 +557,19 @@ public final class EnvironmentConfig extends AbstractConfig {
      */
     public static final String GC_UTILIZATION_FROM_FILE = "exodus.gc.utilization.fromFile";
 
+    /**
+     * If is set to {@code true} then database utilization changed by committed transactions is saved incrementally,
+     * i.e. each {@linkplain Transaction} saves free bytes of the {@code Log} files (.xd files) changed since
+     * previous saving. That allows to restore actual utilization after the database was not closed properly
+     * without computing it from scratch, for the price of a slightly larger amount of data written by each
+     * transaction. Otherwise, utilization is saved after each cleaning cycle and on closing the database.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: yes
+     *
+     * @see #GC_UTILIZATION_FROM_SCRATCH
+     */
+    public static final String GC_UTILIZATION_INCREMENTAL = "exodus.gc.utilization.incremental";
+
     /**
      * If is set to {@code true} the database garbage collector tries to acquire exclusive {@linkplain Transaction}
      * for its purposes. In that case, GC transaction never re-plays. In order to not block background cleaner thread
@@ -448,6 +615,17 @@ public final class EnvironmentConfig extends AbstractConfig {
      */
     public static final String GC_FILES_DELETION_DELAY = "exodus.gc.filesDeletionDelay";
 
+    /**
+     * Defines the number of threads which the database garbage collector uses to read {@code Log} files
+     * (.xd files) being cleaned. If is greater than {@code 1}, several files are read in parallel ahead of
+     * reclaiming their non-expired data, and the data from several files is reclaimed inside single GC
+     * {@linkplain Transaction} even if it is not exclusive. Default value is {@code 1}.
+     * <p>Mutable at runtime: yes
+     *
+     * @see #GC_TRANSACTION_TIMEOUT
+     */
+    public static final String GC_READER_THREADS = "exodus.gc.readerThreads";
+
     /**
      * If is set to {@code true} then the {@linkplain Environment} exposes two JMX managed beans. One for
      * {@linkplain Environment#getStatistics() environment statistics} and second for controlling the
@@ -477,23 +655,37 @@ public final class EnvironmentConfig extends AbstractConfig {
             new Pair(LOG_CACHE_FREE_PHYSICAL_MEMORY_THRESHOLD, 1_000_000_000L), // ~1GB
             new Pair(LOG_CACHE_SHARED, true),
             new Pair(LOG_CACHE_NON_BLOCKING, true),
+            new Pair(LOG_CACHE_OFF_HEAP, false),
+            new Pair(LOG_CACHE_EVICTION_POLICY, LOG_CACHE_EVICTION_POLICY_GENERATIONAL),
             new Pair(LOG_CLEAN_DIRECTORY_EXPECTED, false),
             new Pair(LOG_CLEAR_INVALID, false),
             new Pair(LOG_SYNC_PERIOD, 10000L),
+            new Pair(LOG_TAIL_CHECKPOINT_PERIOD, 0L),
+            new Pair(LOG_PAGE_CHECKSUMS, false),
             new Pair(LOG_FULL_FILE_READ_ONLY, true),
             new Pair(ENV_IS_READONLY, false),
             new Pair(ENV_READONLY_EMPTY_STORES, false),
             new Pair(ENV_STOREGET_CACHE_SIZE, 0),
+            new Pair(ENV_STOREGET_CACHE_MEMORY_USAGE, 0),
+            new Pair(ENV_STOREGET_CACHE_MAX_VALUE_SIZE, 0),
+            new Pair(ENV_STOREGET_CACHE_STORES, ""),
+            new Pair(ENV_MAPPED_VALUE_MIN_LENGTH, 0),
             new Pair(ENV_CLOSE_FORCEDLY, false),
             new Pair(ENV_TXN_REPLAY_TIMEOUT, 2000L),
             new Pair(ENV_TXN_REPLAY_MAX_COUNT, 2),
             new Pair(ENV_TXN_DOWNGRADE_AFTER_FLUSH, true),
             new Pair(ENV_MAX_PARALLEL_TXNS, Integer.MAX_VALUE),
             new Pair(ENV_MAX_PARALLEL_READONLY_TXNS, Integer.MAX_VALUE),
+            new Pair(ENV_GROUP_COMMIT, false),
+            new Pair(ENV_GROUP_COMMIT_MAX_DELAY, 0),
+            new Pair(ENV_GROUP_COMMIT_MAX_BATCH_SIZE, 64),
             new Pair(ENV_MONITOR_TXNS_TIMEOUT, 0),
             new Pair(ENV_MONITOR_TXNS_CHECK_FREQ, 60000),
             new Pair(ENV_GATHER_STATISTICS, true),
             new Pair(TREE_MAX_PAGE_SIZE, 128),
+            new Pair(TREE_KEY_PREFIX_LENGTH, 0),
+            new Pair(TREE_NODES_CACHE_SIZE, 0),
+            new Pair(TREE_PATRICIA_CHILDREN_BITMAP, false),
             new Pair(GC_ENABLED, true),
             new Pair(GC_START_IN, 10000),
             new Pair(GC_MIN_UTILIZATION, 50),
@@ -503,7 +695,9 @@ public final class EnvironmentConfig extends AbstractConfig {
             new Pair(GC_RUN_PERIOD, 30000),
             new Pair(GC_UTILIZATION_FROM_SCRATCH, false),
             new Pair(GC_UTILIZATION_FROM_FILE, ""),
+            new Pair(GC_UTILIZATION_INCREMENTAL, false),
             new Pair(GC_FILES_DELETION_DELAY, 5000),
+            new Pair(GC_READER_THREADS, 1),
             new Pair(GC_USE_EXCLUSIVE_TRANSACTION, true),
             new Pair(GC_TRANSACTION_ACQUIRE_TIMEOUT, 1000),
             new Pair(GC_TRANSACTION_TIMEOUT, 1000),
@@ -832,6 +1026,58 @@ public final class EnvironmentConfig extends AbstractConfig {
         return setSetting(LOG_CACHE_NON_BLOCKING, nonBlocking);
     }
 
+    /**
+     * Returns {@code true} if the LogCache keeps pages in direct (off-heap) memory instead of Java heap.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     *
+     * @return {@code true} if the LogCache is off-heap
+     */
+    public boolean isLogCacheOffHeap() {
+        return (Boolean) getSetting(LOG_CACHE_OFF_HEAP);
+    }
+
+    /**
+     * Set {@code true} if the LogCache should keep pages in direct (off-heap) memory instead of Java heap. Memory usage
+     * of off-heap LogCache is limited by the JVM option {@code -XX:MaxDirectMemorySize} as well.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     *
+     * @param offHeap {@code true} if the LogCache should be off-heap
+     * @return this {@code EnvironmentConfig} instance
+     */
+    public EnvironmentConfig setLogCacheOffHeap(final boolean offHeap) {
+        return setSetting(LOG_CACHE_OFF_HEAP, offHeap);
+    }
+
+    /**
+     * Returns eviction policy of the LogCache, either {@linkplain #LOG_CACHE_EVICTION_POLICY_GENERATIONAL} or
+     * {@linkplain #LOG_CACHE_EVICTION_POLICY_TINY_LFU}. Default value is {@code "generational"}.
+     * <p>Mutable at runtime: no
+     *
+     * @return eviction policy of the LogCache
+     */
+    public String getLogCacheEvictionPolicy() {
+        return (String) getSetting(LOG_CACHE_EVICTION_POLICY);
+    }
+
+    /**
+     * Sets eviction policy of the LogCache, either {@linkplain #LOG_CACHE_EVICTION_POLICY_GENERATIONAL} or
+     * {@linkplain #LOG_CACHE_EVICTION_POLICY_TINY_LFU}. Default value is {@code "generational"}.
+     * <p>Mutable at runtime: no
+     *
+     * @param evictionPolicy eviction policy of the LogCache
+     * @return this {@code EnvironmentConfig} instance
+     * @throws InvalidSettingException unknown eviction policy
+     */
+    public EnvironmentConfig setLogCacheEvictionPolicy(@NotNull final String evictionPolicy) throws InvalidSettingException {
+        if (!LOG_CACHE_EVICTION_POLICY_GENERATIONAL.equals(evictionPolicy) &&
+            !LOG_CACHE_EVICTION_POLICY_TINY_LFU.equals(evictionPolicy)) {
+            throw new InvalidSettingException("Unknown LogCache eviction policy: " + evictionPolicy);
+        }
+        return setSetting(LOG_CACHE_EVICTION_POLICY, evictionPolicy);
+    }
+
     /**
      * Returns {@code true} if the Log constructor fails if the database directory is not clean. Can be useful
      * if an applications expects that the database should always be newly created. Default value is {@code false}.
@@ -903,6 +1149,67 @@ public final class EnvironmentConfig extends AbstractConfig {
         return setSetting(LOG_SYNC_PERIOD, millis);
     }
 
+    /**
+     * Returns the period in milliseconds to save checkpoint of the {@code Log} tail after the log is synced.
+     * The checkpoint is saved in the database directory, it holds the high address of the log and checksum
+     * of several bytes before it. Opening the database, only the data after the checkpoint is validated, so
+     * the database is opened faster. The checkpoint is also saved when the database is closed. {@code 0} turns
+     * the checkpoint off. Default value is {@code 0L}.
+     * <p>Mutable at runtime: no
+     *
+     * @return milliseconds to save checkpoint of the log tail that often
+     * @see #getLogSyncPeriod()
+     */
+    public long getLogTailCheckpointPeriod() {
+        return (Long) getSetting(LOG_TAIL_CHECKPOINT_PERIOD);
+    }
+
+    /**
+     * Sets the period in milliseconds to save checkpoint of the {@code Log} tail after the log is synced.
+     * The checkpoint is saved in the database directory, it holds the high address of the log and checksum
+     * of several bytes before it. Opening the database, only the data after the checkpoint is validated, so
+     * the database is opened faster. The checkpoint is also saved when the database is closed. {@code 0} turns
+     * the checkpoint off. Default value is {@code 0L}.
+     * <p>Mutable at runtime: no
+     *
+     * @param millis milliseconds to save checkpoint of the log tail that often
+     * @return this {@code EnvironmentConfig} instance
+     * @throws InvalidSettingException {@code millis} is less than {@code 0}.
+     * @see #setLogSyncPeriod(long)
+     */
+    public EnvironmentConfig setLogTailCheckpointPeriod(final long millis) throws InvalidSettingException {
+        if (millis < 0) {
+            throw new InvalidSettingException("Invalid log tail checkpoint period: " + millis);
+        }
+        return setSetting(LOG_TAIL_CHECKPOINT_PERIOD, millis);
+    }
+
+    /**
+     * Returns {@code true} if checksum of each completely written page of the {@code Log} is saved in the file
+     * next to the .xd file, and it is verified each time the page is read from the storage to the log cache.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     *
+     * @return {@code true} if checksums of log pages are saved and verified
+     */
+    public boolean isLogPageChecksums() {
+        return (Boolean) getSetting(LOG_PAGE_CHECKSUMS);
+    }
+
+    /**
+     * Set {@code true} if checksum of each completely written page of the {@code Log} should be saved in the file
+     * next to the .xd file, and it should be verified each time the page is read from the storage to the log cache.
+     * Reading a page with mismatching checksum results in {@linkplain jetbrains.exodus.ExodusException}.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     *
+     * @param pageChecksums {@code true} if checksums of log pages should be saved and verified
+     * @return this {@code EnvironmentConfig} instance
+     */
+    public EnvironmentConfig setLogPageChecksums(final boolean pageChecksums) {
+        return setSetting(LOG_PAGE_CHECKSUMS, pageChecksums);
+    }
+
     /**
      * Returns {@code true} if each complete and immutable {@code Log} file (.xd file) should marked with read-only
      * attribute. Default value is {@code true}.
@@ -1000,6 +1307,125 @@ public final class EnvironmentConfig extends AbstractConfig {
         return setSetting(ENV_STOREGET_CACHE_SIZE, storeGetCacheSize);
     }
 
+    /**
+     * Returns the maximum amount of memory in bytes which the "store-get" cache can use for keys and values.
+     * If the setting is not {@code 0} then the cache is bounded by memory rather than by the number of entries, and
+     * {@linkplain #getEnvStoreGetCacheSize()} is ignored. Default value is {@code 0}. If the setting is mutated at
+     * runtime the cache is invalidated.
+     * <p>Mutable at runtime: yes
+     *
+     * @return maximum amount of memory in bytes used by the "store-get" cache
+     */
+    public int getEnvStoreGetCacheMemoryUsage() {
+        return (Integer) getSetting(ENV_STOREGET_CACHE_MEMORY_USAGE);
+    }
+
+    /**
+     * Sets the maximum amount of memory in bytes which the "store-get" cache can use for keys and values.
+     * If the setting is not {@code 0} then the cache is bounded by memory rather than by the number of entries, and
+     * {@linkplain #setEnvStoreGetCacheSize(int)} is ignored. Default value is {@code 0}. If the setting is mutated at
+     * runtime the cache is invalidated.
+     * <p>Mutable at runtime: yes
+     *
+     * @param memoryUsage maximum amount of memory in bytes used by the "store-get" cache
+     * @return this {@code EnvironmentConfig} instance
+     */
+    public EnvironmentConfig setEnvStoreGetCacheMemoryUsage(final int memoryUsage) {
+        if (memoryUsage < 0) {
+            throw new InvalidSettingException("Negative StoreGetCache memory usage");
+        }
+        return setSetting(ENV_STOREGET_CACHE_MEMORY_USAGE, memoryUsage);
+    }
+
+    /**
+     * Returns the maximum length in bytes of a value which can be cached in the "store-get" cache. If it is positive,
+     * larger values are never cached. Default value is {@code 0}, i.e. the length of cached values is not limited.
+     * If the setting is mutated at runtime the cache is invalidated.
+     * <p>Mutable at runtime: yes
+     *
+     * @return maximum length of a value cached in the "store-get" cache
+     */
+    public int getEnvStoreGetCacheMaxValueSize() {
+        return (Integer) getSetting(ENV_STOREGET_CACHE_MAX_VALUE_SIZE);
+    }
+
+    /**
+     * Sets the maximum length in bytes of a value which can be cached in the "store-get" cache. If it is positive,
+     * larger values are never cached. Default value is {@code 0}, i.e. the length of cached values is not limited.
+     * If the setting is mutated at runtime the cache is invalidated.
+     * <p>Mutable at runtime: yes
+     *
+     * @param maxValueSize maximum length of a value cached in the "store-get" cache
+     * @return this {@code EnvironmentConfig} instance
+     */
+    public EnvironmentConfig setEnvStoreGetCacheMaxValueSize(final int maxValueSize) {
+        if (maxValueSize < 0) {
+            throw new InvalidSettingException("Negative StoreGetCache max value size");
+        }
+        return setSetting(ENV_STOREGET_CACHE_MAX_VALUE_SIZE, maxValueSize);
+    }
+
+    /**
+     * Returns comma-separated list of names of {@linkplain Store stores} which {@linkplain Store#get(Transaction,
+     * ByteIterable)} results can be cached in the "store-get" cache. A name ending with {@code '*'} matches all stores
+     * whose names start with the characters preceding the asterisk. Default value is empty string what means that
+     * results of all stores can be cached. If the setting is mutated at runtime the cache is invalidated.
+     * <p>Mutable at runtime: yes
+     *
+     * @return comma-separated list of names of stores cached in the "store-get" cache
+     */
+    public String getEnvStoreGetCacheStores() {
+        return (String) getSetting(ENV_STOREGET_CACHE_STORES);
+    }
+
+    /**
+     * Sets comma-separated list of names of {@linkplain Store stores} which {@linkplain Store#get(Transaction,
+     * ByteIterable)} results can be cached in the "store-get" cache. A name ending with {@code '*'} matches all stores
+     * whose names start with the characters preceding the asterisk. Default value is empty string what means that
+     * results of all stores can be cached. If the setting is mutated at runtime the cache is invalidated.
+     * <p>Mutable at runtime: yes
+     *
+     * @param storeNames comma-separated list of names of stores cached in the "store-get" cache
+     * @return this {@code EnvironmentConfig} instance
+     */
+    public EnvironmentConfig setEnvStoreGetCacheStores(@NotNull final String storeNames) {
+        return setSetting(ENV_STOREGET_CACHE_STORES, storeNames);
+    }
+
+    /**
+     * Returns the minimum length in bytes of a value which {@linkplain Store#get(Transaction, ByteIterable)} returns
+     * as a view of memory mapped {@code Log} file instead of reading it through the log cache. Only values
+     * located in immutable files spanning more than one log cache page can be returned as such views. The views
+     * are valid until the transaction is finished. Default value is {@code 0} what means that values are never
+     * returned as views of mapped files.
+     * <p>Mutable at runtime: yes
+     *
+     * @return minimum length of a value returned as a view of memory mapped file
+     * @see #getLogCacheUseNio()
+     */
+    public int getEnvMappedValueMinLength() {
+        return (Integer) getSetting(ENV_MAPPED_VALUE_MIN_LENGTH);
+    }
+
+    /**
+     * Sets the minimum length in bytes of a value which {@linkplain Store#get(Transaction, ByteIterable)} returns
+     * as a view of memory mapped {@code Log} file instead of reading it through the log cache. Only values
+     * located in immutable files spanning more than one log cache page can be returned as such views. The views
+     * are valid until the transaction is finished. Default value is {@code 0} what means that values are never
+     * returned as views of mapped files.
+     * <p>Mutable at runtime: yes
+     *
+     * @param minLength minimum length of a value returned as a view of memory mapped file, {@code 0} to turn off
+     * @return this {@code EnvironmentConfig} instance
+     * @see #setLogCacheUseNio(boolean)
+     */
+    public EnvironmentConfig setEnvMappedValueMinLength(final int minLength) {
+        if (minLength < 0) {
+            throw new InvalidSettingException("Negative mapped value min length");
+        }
+        return setSetting(ENV_MAPPED_VALUE_MIN_LENGTH, minLength);
+    }
+
     /**
      * Returns {@code true} if {@linkplain Environment#close()} shouldn't check if there are unfinished
      * transactions. Otherwise it should check and throw {@linkplain ExodusException} if there are.
@@ -1156,6 +1582,91 @@ public final class EnvironmentConfig extends AbstractConfig {
         return setSetting(ENV_MAX_PARALLEL_TXNS, maxParallelReadonlyTxns);
     }
 
+    /**
+     * Returns {@code true} if concurrent {@linkplain Transaction transactions} are committed in groups sharing
+     * a single fsync. Group commit takes effect only if {@linkplain #LOG_DURABLE_WRITE} is {@code true}.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     *
+     * @return {@code true} if group commit is enabled
+     * @see #getLogDurableWrite()
+     */
+    public boolean getEnvGroupCommit() {
+        return (Boolean) getSetting(ENV_GROUP_COMMIT);
+    }
+
+    /**
+     * Set {@code true} if concurrent {@linkplain Transaction transactions} should be committed in groups sharing
+     * a single fsync. Group commit takes effect only if {@linkplain #LOG_DURABLE_WRITE} is {@code true}.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     *
+     * @param groupCommit {@code true} if group commit should be enabled
+     * @return this {@code EnvironmentConfig} instance
+     * @see #setLogDurableWrite(boolean)
+     */
+    public EnvironmentConfig setEnvGroupCommit(final boolean groupCommit) {
+        return setSetting(ENV_GROUP_COMMIT, groupCommit);
+    }
+
+    /**
+     * Returns the maximum time in milliseconds which the fsync of a group commit can be postponed in order to
+     * gather more {@linkplain Transaction transactions} to the batch. Default value is {@code 0}.
+     * <p>Mutable at runtime: yes
+     *
+     * @return maximum delay of group commit fsync in milliseconds
+     * @see #getEnvGroupCommit()
+     */
+    public int getEnvGroupCommitMaxDelay() {
+        return (Integer) getSetting(ENV_GROUP_COMMIT_MAX_DELAY);
+    }
+
+    /**
+     * Sets the maximum time in milliseconds which the fsync of a group commit can be postponed in order to
+     * gather more {@linkplain Transaction transactions} to the batch. Default value is {@code 0}.
+     * <p>Mutable at runtime: yes
+     *
+     * @param maxDelay maximum delay of group commit fsync in milliseconds
+     * @return this {@code EnvironmentConfig} instance
+     * @throws InvalidSettingException maxDelay is negative
+     * @see #setEnvGroupCommit(boolean)
+     */
+    public EnvironmentConfig setEnvGroupCommitMaxDelay(final int maxDelay) throws InvalidSettingException {
+        if (maxDelay < 0) {
+            throw new InvalidSettingException("Invalid group commit max delay: " + maxDelay);
+        }
+        return setSetting(ENV_GROUP_COMMIT_MAX_DELAY, maxDelay);
+    }
+
+    /**
+     * Returns the number of {@linkplain Transaction transactions} waiting for fsync which is enough to perform
+     * group commit fsync without waiting for {@linkplain #ENV_GROUP_COMMIT_MAX_DELAY}. Default value is {@code 64}.
+     * <p>Mutable at runtime: yes
+     *
+     * @return maximum size of group commit batch
+     * @see #getEnvGroupCommit()
+     */
+    public int getEnvGroupCommitMaxBatchSize() {
+        return (Integer) getSetting(ENV_GROUP_COMMIT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Sets the number of {@linkplain Transaction transactions} waiting for fsync which is enough to perform
+     * group commit fsync without waiting for {@linkplain #ENV_GROUP_COMMIT_MAX_DELAY}. Default value is {@code 64}.
+     * <p>Mutable at runtime: yes
+     *
+     * @param maxBatchSize maximum size of group commit batch
+     * @return this {@code EnvironmentConfig} instance
+     * @throws InvalidSettingException maxBatchSize is not positive
+     * @see #setEnvGroupCommit(boolean)
+     */
+    public EnvironmentConfig setEnvGroupCommitMaxBatchSize(final int maxBatchSize) throws InvalidSettingException {
+        if (maxBatchSize < 1) {
+            throw new InvalidSettingException("Invalid group commit max batch size: " + maxBatchSize);
+        }
+        return setSetting(ENV_GROUP_COMMIT_MAX_BATCH_SIZE, maxBatchSize);
+    }
+
     /**
      * Returns {@linkplain Transaction} timeout in milliseconds. If transaction doesn't finish in this timeout then
      * it is reported in logs as stuck along with stack trace which it was created with. Default value is {@code 0}
@@ -1275,25 +1786,90 @@ public final class EnvironmentConfig extends AbstractConfig {
     }
 
     /**
-     * As of 1.0.5, is deprecated and has no effect.
+     * Returns the length of key prefixes which are inlined in pages of B+Trees. If it is positive, each saved page
+     * contains first bytes of its keys (or whole keys if they are not longer than the prefix length), so most key
+     * comparisons during the binary search in the page are resolved without loading leaf nodes from the log.
+     * Default value is {@code 0}, i.e. key prefixes are not inlined.
      * <p>Mutable at runtime: no
      *
-     * @return {@code 0}
+     * @return length of key prefixes inlined in pages of B+Trees
+     */
+    public int getTreeKeyPrefixLength() {
+        return (Integer) getSetting(TREE_KEY_PREFIX_LENGTH);
+    }
+
+    /**
+     * Sets the length of key prefixes which are inlined in pages of B+Trees. If it is positive, each saved page
+     * contains first bytes of its keys (or whole keys if they are not longer than the prefix length), so most key
+     * comparisons during the binary search in the page are resolved without loading leaf nodes from the log. Pages
+     * saved without key prefixes are read as well, but databases containing pages with inlined key prefixes can't be
+     * opened by older versions of Xodus. Default value is {@code 0}, i.e. key prefixes are not inlined. Only values in
+     * the range [0..64] are accepted.
+     * <p>Mutable at runtime: no
+     *
+     * @param prefixLength length of key prefixes inlined in pages of B+Trees
+     * @return this {@code EnvironmentConfig} instance
+     * @throws InvalidSettingException prefix length is not in the range [0..64]
+     */
+    public EnvironmentConfig setTreeKeyPrefixLength(final int prefixLength) throws InvalidSettingException {
+        if (prefixLength < 0 || prefixLength > 64) {
+            throw new InvalidSettingException("Invalid tree key prefix length: " + prefixLength);
+        }
+        return setSetting(TREE_KEY_PREFIX_LENGTH, prefixLength);
+    }
+
+    /**
+     * Returns the number of decoded immutable pages of B+Trees and nodes of Patricia trees which are cached and
+     * shared by all {@linkplain Transaction transactions}. Default value is {@code 0}, i.e. the cache is not used.
+     * <p>Mutable at runtime: no
+     *
+     * @return size of the tree nodes cache
      */
-    @Deprecated
     public int getTreeNodesCacheSize() {
-        return 0;
+        return (Integer) getSetting(TREE_NODES_CACHE_SIZE);
     }
 
     /**
-     * As of 1.0.5, is deprecated and has no effect.
+     * Sets the number of decoded immutable pages of B+Trees and nodes of Patricia trees which are cached and
+     * shared by all {@linkplain Transaction transactions}. Default value is {@code 0}, i.e. the cache is not used.
      * <p>Mutable at runtime: no
      *
+     * @param cacheSize size of the tree nodes cache
      * @return this {@code EnvironmentConfig} instance
+     * @throws InvalidSettingException cacheSize is negative
      */
-    @Deprecated
-    public EnvironmentConfig setTreeNodesCacheSize(final int cacheSize) {
-        return this;
+    public EnvironmentConfig setTreeNodesCacheSize(final int cacheSize) throws InvalidSettingException {
+        if (cacheSize < 0) {
+            throw new InvalidSettingException("Negative tree nodes cache size");
+        }
+        return setSetting(TREE_NODES_CACHE_SIZE, cacheSize);
+    }
+
+    /**
+     * Returns {@code true} if nodes of Patricia trees having at least 32 children are saved with the bitmap of
+     * children's first bytes. Nodes saved with or without the bitmap are read regardless of the setting.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     *
+     * @return {@code true} if nodes of Patricia trees with high fan-out are saved with the bitmap of children
+     */
+    public boolean isTreePatriciaChildrenBitmap() {
+        return (Boolean) getSetting(TREE_PATRICIA_CHILDREN_BITMAP);
+    }
+
+    /**
+     * Set {@code true} if nodes of Patricia trees having at least 32 children should be saved with the bitmap of
+     * children's first bytes, so a child is found by its first byte without search. Nodes saved with or without
+     * the bitmap are read regardless of the setting. Databases containing nodes with the bitmap can't be opened by
+     * older versions of Xodus. Default value is {@code false}.
+     * <p>Mutable at runtime: no
+     *
+     * @param childrenBitmap {@code true} if nodes of Patricia trees with high fan-out should be saved with the bitmap
+     *                       of children
+     * @return this {@code EnvironmentConfig} instance
+     */
+    public EnvironmentConfig setTreePatriciaChildrenBitmap(final boolean childrenBitmap) {
+        return setSetting(TREE_PATRICIA_CHILDREN_BITMAP, childrenBitmap);
     }
 
     /**
@@ -1571,6 +2147,37 @@ public final class EnvironmentConfig extends AbstractConfig {
         return setSetting(GC_UTILIZATION_FROM_FILE, file);
     }
 
+    /**
+     * Returns {@code true} if database utilization changed by committed transactions is saved incrementally,
+     * i.e. each {@linkplain Transaction} saves free bytes of the {@code Log} files (.xd files) changed since
+     * previous saving. That allows to restore actual utilization after the database was not closed properly
+     * without computing it from scratch, for the price of a slightly larger amount of data written by each
+     * transaction. Otherwise, utilization is saved after each cleaning cycle and on closing the database.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: yes
+     *
+     * @return {@code true} if database utilization is saved incrementally by each transaction
+     */
+    public boolean getGcUtilizationIncremental() {
+        return (Boolean) getSetting(GC_UTILIZATION_INCREMENTAL);
+    }
+
+    /**
+     * Set {@code true} if database utilization changed by committed transactions should be saved incrementally,
+     * i.e. each {@linkplain Transaction} saves free bytes of the {@code Log} files (.xd files) changed since
+     * previous saving. That allows to restore actual utilization after the database was not closed properly
+     * without computing it from scratch, for the price of a slightly larger amount of data written by each
+     * transaction. Otherwise, utilization is saved after each cleaning cycle and on closing the database.
+     * Default value is {@code false}.
+     * <p>Mutable at runtime: yes
+     *
+     * @param incremental {@code true} if database utilization should be saved incrementally by each transaction
+     * @return this {@code EnvironmentConfig} instance
+     */
+    public EnvironmentConfig setGcUtilizationIncremental(final boolean incremental) {
+        return setSetting(GC_UTILIZATION_INCREMENTAL, incremental);
+    }
+
     /**
      * Returns {@code true} if the database garbage collector tries to acquire exclusive {@linkplain Transaction}
      * for its purposes. In that case, GC transaction never re-plays. In order to not block background cleaner thread
@@ -1691,6 +2298,37 @@ public final class EnvironmentConfig extends AbstractConfig {
         return setSetting(GC_FILES_DELETION_DELAY, delay);
     }
 
+    /**
+     * Returns the number of threads which the database garbage collector uses to read {@code Log} files
+     * (.xd files) being cleaned. If is greater than {@code 1}, several files are read in parallel ahead of
+     * reclaiming their non-expired data, and the data from several files is reclaimed inside single GC
+     * {@linkplain Transaction} even if it is not exclusive. Default value is {@code 1}.
+     * <p>Mutable at runtime: yes
+     *
+     * @return number of threads which the database garbage collector uses to read .xd files being cleaned
+     */
+    public int getGcReaderThreads() {
+        return (Integer) getSetting(GC_READER_THREADS);
+    }
+
+    /**
+     * Sets the number of threads which the database garbage collector uses to read {@code Log} files
+     * (.xd files) being cleaned. If is greater than {@code 1}, several files are read in parallel ahead of
+     * reclaiming their non-expired data, and the data from several files is reclaimed inside single GC
+     * {@linkplain Transaction} even if it is not exclusive. Default value is {@code 1}.
+     * <p>Mutable at runtime: yes
+     *
+     * @param threads number of threads which the database garbage collector uses to read .xd files being cleaned
+     * @return this {@code EnvironmentConfig} instance
+     * @throws InvalidSettingException {@code threads} is less than {@code 1}.
+     */
+    public EnvironmentConfig setGcReaderThreads(final int threads) throws InvalidSettingException {
+        if (threads < 1) {
+            throw new InvalidSettingException("Invalid number of GC reader threads: " + threads);
+        }
+        return setSetting(GC_READER_THREADS, threads);
+    }
+
     /**
      * Return {@code true} if the {@linkplain Environment} exposes two JMX managed beans. One for
      * {@linkplain Environment#getStatistics() environment statistics} and second for controlling the
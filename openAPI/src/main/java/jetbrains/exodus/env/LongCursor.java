@@ -0,0 +1,160 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.bindings.LongBinding;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@linkplain Cursor} of a {@linkplain LongStore}. In addition to {@code Cursor}'s methods, it has methods
+ * accepting and returning {@code long} keys.
+ *
+ * @see LongStore#openCursor(Transaction)
+ */
+public final class LongCursor implements Cursor {
+
+    @NotNull
+    private final Cursor cursor;
+
+    LongCursor(@NotNull final Cursor cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * @return current key as {@code long}
+     * @see #getKey()
+     */
+    public long getLongKey() {
+        return LongBinding.entryToLong(cursor.getKey());
+    }
+
+    /**
+     * @param key the key to search for
+     * @return first (leftmost) value associated with the key or {@code null} if no such value exists
+     * @see #getSearchKey(ByteIterable)
+     */
+    @Nullable
+    public ByteIterable getSearchKey(final long key) {
+        return cursor.getSearchKey(LongBinding.longToEntry(key));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return not-null value if it succeeds or {@code null} if nothing is found
+     * @see #getSearchKeyRange(ByteIterable)
+     */
+    @Nullable
+    public ByteIterable getSearchKeyRange(final long key) {
+        return cursor.getSearchKeyRange(LongBinding.longToEntry(key));
+    }
+
+    /**
+     * @param key   the key to search for
+     * @param value the value to search for
+     * @return {@code true} if the pair with the specified key and value exists in the {@linkplain Store}
+     * @see #getSearchBoth(ByteIterable, ByteIterable)
+     */
+    public boolean getSearchBoth(final long key, @NotNull final ByteIterable value) {
+        return cursor.getSearchBoth(LongBinding.longToEntry(key), value);
+    }
+
+    @Override
+    public boolean getNext() {
+        return cursor.getNext();
+    }
+
+    @Override
+    public boolean getNextDup() {
+        return cursor.getNextDup();
+    }
+
+    @Override
+    public boolean getNextNoDup() {
+        return cursor.getNextNoDup();
+    }
+
+    @Override
+    public boolean getLast() {
+        return cursor.getLast();
+    }
+
+    @Override
+    public boolean getPrev() {
+        return cursor.getPrev();
+    }
+
+    @Override
+    public boolean getPrevDup() {
+        return cursor.getPrevDup();
+    }
+
+    @Override
+    public boolean getPrevNoDup() {
+        return cursor.getPrevNoDup();
+    }
+
+    @NotNull
+    @Override
+    public ByteIterable getKey() {
+        return cursor.getKey();
+    }
+
+    @NotNull
+    @Override
+    public ByteIterable getValue() {
+        return cursor.getValue();
+    }
+
+    @Nullable
+    @Override
+    public ByteIterable getSearchKey(@NotNull final ByteIterable key) {
+        return cursor.getSearchKey(key);
+    }
+
+    @Nullable
+    @Override
+    public ByteIterable getSearchKeyRange(@NotNull final ByteIterable key) {
+        return cursor.getSearchKeyRange(key);
+    }
+
+    @Override
+    public boolean getSearchBoth(@NotNull final ByteIterable key, @NotNull final ByteIterable value) {
+        return cursor.getSearchBoth(key, value);
+    }
+
+    @Nullable
+    @Override
+    public ByteIterable getSearchBothRange(@NotNull final ByteIterable key, @NotNull final ByteIterable value) {
+        return cursor.getSearchBothRange(key, value);
+    }
+
+    @Override
+    public int count() {
+        return cursor.count();
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+
+    @Override
+    public boolean deleteCurrent() {
+        return cursor.deleteCurrent();
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.env;
+
+import jetbrains.exodus.ByteIterable;
+import jetbrains.exodus.bindings.LongBinding;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@code LongStore} is a facade of a {@linkplain Store} whose keys are {@code long} values serialized by
+ * {@linkplain LongBinding#longToEntry(long)}. So {@code LongStore} can be used for existing stores created
+ * using {@code LongBinding}, and vice versa. It saves the caller from converting keys to and from
+ * {@linkplain ByteIterable} on each call, including keys read by the {@linkplain LongCursor cursor}.
+ *
+ * <p>{@code LongStore} is a typed facade only, it doesn't provide a cheaper lookup path. Each call encodes the
+ * key to an 8-byte entry by {@linkplain LongBinding#longToEntry(long)} and the underlying tree compares it as
+ * any other {@linkplain ByteIterable} key, so performance is the same as that of the {@code Store} used directly
+ * with {@code LongBinding}.
+ *
+ * @see Store
+ * @see LongCursor
+ * @see LongBinding#longToEntry(long)
+ */
+public final class LongStore {
+
+    @NotNull
+    private final Store store;
+
+    public LongStore(@NotNull final Store store) {
+        this.store = store;
+    }
+
+    /**
+     * @return underlying {@linkplain Store}
+     */
+    @NotNull
+    public Store getStore() {
+        return store;
+    }
+
+    /**
+     * @param txn {@linkplain Transaction transaction} instance
+     * @param key requested key
+     * @return not-null value if key.value pair with the specified key exists, otherwise null
+     * @see Store#get(Transaction, ByteIterable)
+     */
+    @Nullable
+    public ByteIterable get(@NotNull final Transaction txn, final long key) {
+        return store.get(txn, LongBinding.longToEntry(key));
+    }
+
+    /**
+     * @param txn   {@linkplain Transaction transaction} instance
+     * @param key   key
+     * @param value value
+     * @return {@code true} if the key/value pair exists in the {@code Store}
+     * @see Store#exists(Transaction, ByteIterable, ByteIterable)
+     */
+    public boolean exists(@NotNull final Transaction txn, final long key, @NotNull final ByteIterable value) {
+        return store.exists(txn, LongBinding.longToEntry(key), value);
+    }
+
+    /**
+     * @param txn   {@linkplain Transaction transaction} instance
+     * @param key   key
+     * @param value not null value
+     * @return {@code true} if specified pair was added or value by the key was overwritten.
+     * @see Store#put(Transaction, ByteIterable, ByteIterable)
+     */
+    public boolean put(@NotNull final Transaction txn, final long key, @NotNull final ByteIterable value) {
+        return store.put(txn, LongBinding.longToEntry(key), value);
+    }
+
+    /**
+     * @param txn   {@linkplain Transaction transaction} instance
+     * @param key   key which is greater than any other key in the {@code Store}
+     * @param value value
+     * @see Store#putRight(Transaction, ByteIterable, ByteIterable)
+     */
+    public void putRight(@NotNull final Transaction txn, final long key, @NotNull final ByteIterable value) {
+        store.putRight(txn, LongBinding.longToEntry(key), value);
+    }
+
+    /**
+     * @param txn   {@linkplain Transaction transaction} instance
+     * @param key   key
+     * @param value value
+     * @return {@code true} if key/value pair was added
+     * @see Store#add(Transaction, ByteIterable, ByteIterable)
+     */
+    public boolean add(@NotNull final Transaction txn, final long key, @NotNull final ByteIterable value) {
+        return store.add(txn, LongBinding.longToEntry(key), value);
+    }
+
+    /**
+     * @param txn {@linkplain Transaction transaction} instance
+     * @param key key
+     * @return {@code true} if a key/value pair was deleted.
+     * @see Store#delete(Transaction, ByteIterable)
+     */
+    public boolean delete(@NotNull final Transaction txn, final long key) {
+        return store.delete(txn, LongBinding.longToEntry(key));
+    }
+
+    /**
+     * @param txn {@linkplain Transaction transaction} instance
+     * @return the number of key/value pairs in the {@code Store}
+     */
+    public long count(@NotNull final Transaction txn) {
+        return store.count(txn);
+    }
+
+    /**
+     * @param txn {@linkplain Transaction transaction} instance
+     * @return {@linkplain LongCursor cursor}
+     * @see Store#openCursor(Transaction)
+     */
+    @NotNull
+    public LongCursor openCursor(@NotNull final Transaction txn) {
+        return new LongCursor(store.openCursor(txn));
+    }
+}
@@ -66,6 +66,21 @@ public interface Store {
     @Nullable
     ByteIterable get(@NotNull Transaction txn, @NotNull ByteIterable key);
 
+    /**
+     * Batched version of {@link #get(Transaction, ByteIterable)}. As keys are sorted, the search tree is traversed
+     * only once, and the path from the root of the tree is reused for adjacent keys. So getting values of many keys
+     * using {@code getAll()} is faster than calling {@link #get(Transaction, ByteIterable)} for each key.
+     *
+     * @param txn        {@linkplain Transaction transaction} instance
+     * @param sortedKeys keys sorted in ascending order, without duplicates
+     * @return array of the same length as {@code sortedKeys}, i-th element of the array is the value associated
+     * with i-th key or null if the key doesn't exist
+     * @throws IllegalArgumentException if keys are not sorted or contain duplicates
+     * @see #get(Transaction, ByteIterable)
+     */
+    @NotNull
+    ByteIterable[] getAll(@NotNull Transaction txn, @NotNull ByteIterable[] sortedKeys);
+
     /**
      * Checks if specified key/value pair exists in the {@code Store}.
      *
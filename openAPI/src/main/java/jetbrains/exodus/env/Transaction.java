@@ -18,6 +18,8 @@ package jetbrains.exodus.env;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.Future;
+
 /**
  * Transaction is required for any access to data in database. Any transaction holds a database snapshot (version
  * of the database), thus providing <a href="https://en.wikipedia.org/wiki/Snapshot_isolation">snapshot isolation</a>.
@@ -86,6 +88,23 @@ public interface Transaction {
      */
     boolean commit();
 
+    /**
+     * Tries to flush all changes accumulated to the moment in the transaction and finish the transaction without
+     * waiting for the changes to be synced to the storage device. Like {@linkplain #commit()}, if the transaction
+     * can't be committed, nothing is flushed and transaction is not finished. The returned future is done with
+     * {@code false} in that case. Otherwise, the transaction is finished and its changes are visible to newer
+     * transactions at once, and the future is done with {@code true} as soon as the changes are durable. If
+     * durability is turned off, the future is done at once.
+     * <p>Syncs of transactions committed asynchronously are batched, so a single fsync can make durable several
+     * transactions, and the caller can prepare next transaction while the previous one is being synced.
+     *
+     * @return future result of the commit
+     * @see #commit()
+     * @see EnvironmentConfig#setLogDurableWrite(boolean)
+     */
+    @NotNull
+    Future<Boolean> commitAsync();
+
     /**
      * Tries to flush all changes accumulated to the moment in the transaction. Returns {@code true} if flush succeeded.
      * In that case, transaction remains unfinished and holds the newest database snapshot.
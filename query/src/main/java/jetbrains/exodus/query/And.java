@@ -51,6 +51,10 @@ public class And extends CommutativeOperator {
         if (right instanceof LinksEqualDecorator) {
             return instantiateCustom(entityType, queryEngine, metaData, left, (LinksEqualDecorator) right, directClosure);
         }
+        final QueryPlanner planner = queryEngine.getQueryPlanner();
+        if (planner.isEnabled()) {
+            return planner.instantiate(entityType, this, metaData);
+        }
         return directClosure.instantiate();
     }
 
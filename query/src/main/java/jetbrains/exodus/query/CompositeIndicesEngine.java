@@ -0,0 +1,127 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.query;
+
+import jetbrains.exodus.core.dataStructures.NanoSet;
+import jetbrains.exodus.core.dataStructures.hash.HashSet;
+import jetbrains.exodus.entitystore.*;
+import jetbrains.exodus.entitystore.tables.CompositeIndex;
+import jetbrains.exodus.env.Environment;
+import jetbrains.exodus.env.Transaction;
+import jetbrains.exodus.query.metadata.Index;
+import jetbrains.exodus.query.metadata.IndexField;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maintains composite indices of entity properties declared by {@linkplain Index} metadata. Unlike unique key
+ * indices, composite indices are not unique, are maintained by the entity store itself on each property change,
+ * and are used by {@linkplain QueryPlanner} to find entities by conjunction of equality conditions on leading
+ * properties of an index and optionally range condition on the next property by single cursor range scan.
+ */
+public class CompositeIndicesEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompositeIndicesEngine.class);
+
+    private final PersistentEntityStoreImpl persistentStore;
+
+    public CompositeIndicesEngine(@NotNull final PersistentEntityStoreImpl persistentStore) {
+        this.persistentStore = persistentStore;
+    }
+
+    /**
+     * Makes specified indices the only composite indices of the entity store. Missing indices are created
+     * and filled in by existing entities, obsolete ones are deleted. Declared indices are saved in the entity
+     * store, so this method is needed only if index metadata is changed.
+     */
+    public void updateCompositeIndices(@NotNull final Iterable<Index> indices) {
+        final Environment environment = persistentStore.getEnvironment();
+        environment.suspendGC();
+        try {
+            persistentStore.executeInTransaction(new StoreTransactionalExecutable() {
+                @Override
+                public void execute(@NotNull StoreTransaction txn) {
+                    final PersistentStoreTransaction t = (PersistentStoreTransaction) txn;
+                    final Transaction envTxn = t.getEnvironmentTransaction();
+                    final Collection<String> obsoleteNames = new HashSet<>();
+                    for (final String dbName : environment.getAllStoreNames(envTxn)) {
+                        if (isCompositeIndexName(dbName)) {
+                            obsoleteNames.add(dbName);
+                        }
+                    }
+                    final Collection<CompositeIndex> obsoleteIndices = new HashSet<>(persistentStore.getCompositeIndices());
+                    for (final Index index : indices) {
+                        final String[] propertyNames = getPropertyNames(index);
+                        for (final String entityType : getEntityTypesToIndex(index)) {
+                            if (logger.isDebugEnabled()) {
+                                logger.debug("Create composite index [" + entityType + ", " + index + ']');
+                            }
+                            final CompositeIndex compositeIndex = persistentStore.createCompositeIndex(t, entityType, propertyNames);
+                            obsoleteIndices.remove(compositeIndex);
+                            obsoleteNames.remove(compositeIndex.getName());
+                        }
+                    }
+                    for (final CompositeIndex index : obsoleteIndices) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Remove obsolete composite index [" + index + ']');
+                        }
+                        persistentStore.deleteCompositeIndex(t, index);
+                        obsoleteNames.remove(index.getName());
+                    }
+                    for (final String indexName : obsoleteNames) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Remove obsolete composite index [" + indexName + ']');
+                        }
+                        environment.removeStore(indexName, envTxn);
+                    }
+                    t.flush();
+                }
+            });
+        } finally {
+            environment.resumeGC();
+        }
+    }
+
+    protected Set<String> getEntityTypesToIndex(@NotNull final Index index) {
+        return new NanoSet<>(index.getOwnerEntityType());
+    }
+
+    private boolean isCompositeIndexName(@NotNull final String dbName) {
+        return dbName.startsWith(persistentStore.getName() + '.') && CompositeIndex.isIndexName(dbName);
+    }
+
+    private static String[] getPropertyNames(@NotNull final Index index) {
+        final List<IndexField> fields = index.getFields();
+        final int fieldCount = fields.size();
+        if (fieldCount < 1) {
+            throw new EntityStoreException("Can't define composite index on empty set of fields");
+        }
+        final String[] result = new String[fieldCount];
+        for (int i = 0; i < fieldCount; ++i) {
+            final IndexField field = fields.get(i);
+            if (!field.isProperty()) {
+                throw new EntityStoreException("Can't define composite index on link: " + field.getName());
+            }
+            result[i] = field.getName();
+        }
+        return result;
+    }
+}
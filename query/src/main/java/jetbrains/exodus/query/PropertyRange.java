@@ -49,6 +49,14 @@ public class PropertyRange extends NodeBase {
         return name;
     }
 
+    Comparable<?> getMin() {
+        return min;
+    }
+
+    Comparable<?> getMax() {
+        return max;
+    }
+
     @Override
     public NodeBase getClone() {
         return new PropertyRange(name, min, max);
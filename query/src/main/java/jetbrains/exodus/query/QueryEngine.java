@@ -37,12 +37,16 @@ public class QueryEngine {
     private final ModelMetaData mmd;
     private final PersistentEntityStoreImpl persistentStore;
     private final UniqueKeyIndicesEngine ukiEngine;
+    private final CompositeIndicesEngine compositeIndicesEngine;
+    private final QueryPlanner queryPlanner;
     private SortEngine sortEngine;
 
     public QueryEngine(final ModelMetaData mmd, final PersistentEntityStoreImpl persistentStore) {
         this.mmd = mmd;
         this.persistentStore = persistentStore;
         ukiEngine = new MetaDataAwareUniqueKeyIndicesEngine(persistentStore, mmd);
+        compositeIndicesEngine = new CompositeIndicesEngine(persistentStore);
+        queryPlanner = new QueryPlanner(this);
     }
 
     protected Iterable<Entity> inMemorySelectDistinct(Iterable<Entity> it, final String linkName) {
@@ -81,6 +85,14 @@ public class QueryEngine {
         return ukiEngine;
     }
 
+    public CompositeIndicesEngine getCompositeIndicesEngine() {
+        return compositeIndicesEngine;
+    }
+
+    public QueryPlanner getQueryPlanner() {
+        return queryPlanner;
+    }
+
     public SortEngine getSortEngine() {
         return sortEngine;
     }
@@ -0,0 +1,286 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.query;
+
+
+import jetbrains.exodus.entitystore.Entity;
+import jetbrains.exodus.core.dataStructures.hash.IntHashMap;
+import jetbrains.exodus.entitystore.EntityIterableCache;
+import jetbrains.exodus.entitystore.PersistentEntityStoreImpl;
+import jetbrains.exodus.entitystore.PersistentStoreTransaction;
+import jetbrains.exodus.entitystore.iterate.EntitiesOfTypeIterable;
+import jetbrains.exodus.entitystore.iterate.EntityIterableBase;
+import jetbrains.exodus.entitystore.tables.CompositeIndex;
+import jetbrains.exodus.query.metadata.ModelMetaData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Chooses how conjunctions are instantiated and how entities are sorted using estimated sizes of operands.
+ * Estimates are based on the number of entities of a type, which is available at once, and on the counts of
+ * iterables known to the {@linkplain EntityIterableCache} which are updated on each commit. If a count is not
+ * known, it's estimated by constant selectivity of the query tree node. The planner is used only if
+ * {@linkplain jetbrains.exodus.entitystore.PersistentEntityStoreConfig#QUERY_PLANNER_ENABLED} is on.
+ */
+public class QueryPlanner {
+
+    private static final int PROPERTY_READ_COST = Integer.getInteger("jetbrains.exodus.query.propertyReadCost", 4);
+
+    private static final int EQUAL_SELECTIVITY = 100;
+    private static final int STARTS_WITH_SELECTIVITY = 20;
+    private static final int RANGE_SELECTIVITY = 4;
+    private static final int NOT_NULL_SELECTIVITY = 2;
+
+    @NotNull
+    private final QueryEngine queryEngine;
+
+    public QueryPlanner(@NotNull final QueryEngine queryEngine) {
+        this.queryEngine = queryEngine;
+    }
+
+    public boolean isEnabled() {
+        return queryEngine.getPersistentStore().getConfig().isQueryPlannerEnabled();
+    }
+
+    /**
+     * Instantiates operands of the conjunction, then intersects them in ascending order of estimated sizes.
+     * Operands covered by a composite index are replaced with single lookup of the index.
+     * A {@linkplain PropertyEqual} operand is not intersected with the result if the result is estimated
+     * to be much less than the operand, the result is filtered by reading the property instead.
+     */
+    public Iterable<Entity> instantiate(@NotNull final String entityType,
+                                        @NotNull final And and,
+                                        @NotNull final ModelMetaData metaData) {
+        final List<NodeBase> nodes = new ArrayList<>();
+        collectOperands(and, nodes);
+        final long entitiesCount = getEntitiesCount(entityType);
+        final List<Operand> operands = new ArrayList<>(nodes.size());
+        final Iterable<Entity> indexed = findByCompositeIndex(entityType, nodes);
+        if (indexed != null) {
+            if (nodes.isEmpty()) {
+                return indexed;
+            }
+            // index lookup is considered the most selective unless its count is known
+            final long count = getKnownCount(indexed);
+            if (count == 0) {
+                return EntityIterableBase.EMPTY;
+            }
+            operands.add(new Operand(null, indexed, count > 0 ? count : 1L));
+        }
+        for (final NodeBase node : nodes) {
+            final Iterable<Entity> it = queryEngine.adjustEntityIterable(node.instantiate(entityType, queryEngine, metaData));
+            if (QueryEngine.isEmptyIterable(it)) {
+                return EntityIterableBase.EMPTY;
+            }
+            final long count = getKnownCount(it);
+            if (count == 0) {
+                return EntityIterableBase.EMPTY;
+            }
+            operands.add(new Operand(node, it, count >= 0 ? count : estimate(node, entitiesCount)));
+        }
+        Collections.sort(operands, new Comparator<Operand>() {
+            @Override
+            public int compare(Operand o1, Operand o2) {
+                return Long.compare(o1.estimate, o2.estimate);
+            }
+        });
+        final Operand first = operands.get(0);
+        Iterable<Entity> result = first.iterable;
+        long resultEstimate = first.estimate;
+        for (int i = 1; i < operands.size(); ++i) {
+            final Operand operand = operands.get(i);
+            final NodeBase node = operand.node;
+            if (node instanceof PropertyEqual && ((PropertyEqual) node).getValue() != null &&
+                    queryEngine.isPersistentIterable(result) && resultEstimate * PROPERTY_READ_COST < operand.estimate) {
+                final PropertyEqual propertyEqual = (PropertyEqual) node;
+                result = queryEngine.wrap(((EntityIterableBase) result).getSource().filterByPropertyValue(
+                        entityType, propertyEqual.getName(), propertyEqual.getValue()));
+            } else {
+                result = queryEngine.intersectAdjusted(result, operand.iterable);
+            }
+            resultEstimate = Math.min(resultEstimate, operand.estimate);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code true} if sorting of the source by property in memory is estimated to be cheaper than
+     * scanning property values of all entities of the type.
+     */
+    public boolean isInMemorySortCheaper(@NotNull final String entityType, @NotNull final EntityIterableBase source) {
+        if (!isEnabled() || !(source.isSortedById() || source.isSortResult())) {
+            return false;
+        }
+        final long count = getKnownCount(source);
+        if (count < 0) {
+            return false;
+        }
+        return count * (PROPERTY_READ_COST + 64 - Long.numberOfLeadingZeros(count)) < getEntitiesCount(entityType);
+    }
+
+    /**
+     * Looks for the composite index covering the most of operands by equality of leading properties and
+     * optionally by range of the next property. Covered operands are removed from the list.
+     *
+     * @return result of index lookup, or {@code null} if there is no index covering at least two operands
+     */
+    @Nullable
+    private Iterable<Entity> findByCompositeIndex(@NotNull final String entityType, @NotNull final List<NodeBase> nodes) {
+        final PersistentEntityStoreImpl store = queryEngine.getPersistentStore();
+        final PersistentStoreTransaction txn = store.getAndCheckCurrentTransaction();
+        final int entityTypeId = store.getEntityTypeId(txn, entityType, false);
+        if (entityTypeId < 0) {
+            return null;
+        }
+        final CompositeIndex[] indices = store.getCompositeIndices(txn, entityTypeId);
+        if (indices.length == 0) {
+            return null;
+        }
+        final IntHashMap<PropertyEqual> equals = new IntHashMap<>();
+        final IntHashMap<PropertyRange> ranges = new IntHashMap<>();
+        for (final NodeBase node : nodes) {
+            if (node instanceof PropertyEqual) {
+                final PropertyEqual propertyEqual = (PropertyEqual) node;
+                final int propertyId = store.getPropertyId(txn, propertyEqual.getName(), false);
+                if (propertyId >= 0 && propertyEqual.getValue() != null && !equals.containsKey(propertyId)) {
+                    equals.put(propertyId, propertyEqual);
+                }
+            } else if (node instanceof PropertyRange) {
+                final PropertyRange propertyRange = (PropertyRange) node;
+                final int propertyId = store.getPropertyId(txn, propertyRange.getPropertyName(), false);
+                if (propertyId >= 0 && propertyRange.getMin() != null && propertyRange.getMax() != null && !ranges.containsKey(propertyId)) {
+                    ranges.put(propertyId, propertyRange);
+                }
+            }
+        }
+        CompositeIndex bestIndex = null;
+        int bestEqualsCount = 0;
+        boolean bestHasRange = false;
+        for (final CompositeIndex index : indices) {
+            final int[] propertyIds = index.getPropertyIds();
+            int equalsCount = 0;
+            while (equalsCount < propertyIds.length && equals.containsKey(propertyIds[equalsCount])) {
+                ++equalsCount;
+            }
+            final boolean hasRange = equalsCount < propertyIds.length && ranges.containsKey(propertyIds[equalsCount]);
+            if (equalsCount + (hasRange ? 1 : 0) > bestEqualsCount + (bestHasRange ? 1 : 0)) {
+                bestIndex = index;
+                bestEqualsCount = equalsCount;
+                bestHasRange = hasRange;
+            }
+        }
+        if (bestIndex == null || bestEqualsCount + (bestHasRange ? 1 : 0) < 2) {
+            return null;
+        }
+        final int[] propertyIds = bestIndex.getPropertyIds();
+        final Comparable<?>[] values = new Comparable<?>[bestEqualsCount];
+        for (int i = 0; i < bestEqualsCount; ++i) {
+            final PropertyEqual propertyEqual = equals.get(propertyIds[i]);
+            values[i] = propertyEqual.getValue();
+            nodes.remove(propertyEqual);
+        }
+        Comparable<?> min = null;
+        Comparable<?> max = null;
+        if (bestHasRange) {
+            final PropertyRange propertyRange = ranges.get(propertyIds[bestEqualsCount]);
+            min = propertyRange.getMin();
+            max = propertyRange.getMax();
+            nodes.remove(propertyRange);
+        }
+        return queryEngine.wrap(txn.findByCompositeIndex(bestIndex, values, min, max));
+    }
+
+    private long getEntitiesCount(@NotNull final String entityType) {
+        return Math.max(queryEngine.instantiateGetAll(entityType).size(), 1L);
+    }
+
+    /**
+     * @return count of the iterable if it can be got at once, or {@code -1}
+     */
+    private long getKnownCount(@NotNull final Iterable<Entity> it) {
+        if (!queryEngine.isPersistentIterable(it)) {
+            return -1;
+        }
+        final EntityIterableBase source = ((EntityIterableBase) it).getSource();
+        if (source == EntityIterableBase.EMPTY) {
+            return 0;
+        }
+        if (source instanceof EntitiesOfTypeIterable || source.isCached()) {
+            return source.size();
+        }
+        final EntityIterableCache cache = source.getStore().getEntityIterableCache();
+        if (cache.isDispatcherThread()) {
+            final Long result = cache.getCachedCount(source.getHandle());
+            return result == null ? -1 : result;
+        }
+        // if the count is not known, it's queued to be calculated in background for further queries
+        return source.getRoughCount();
+    }
+
+    private static long estimate(@NotNull final NodeBase node, final long entitiesCount) {
+        final int selectivity;
+        if (node instanceof PropertyEqual || node instanceof LinkEqual || node instanceof And) {
+            selectivity = EQUAL_SELECTIVITY;
+        } else if (node instanceof PropertyStartsWith) {
+            selectivity = STARTS_WITH_SELECTIVITY;
+        } else if (node instanceof PropertyRange) {
+            selectivity = RANGE_SELECTIVITY;
+        } else if (node instanceof PropertyNotNull || node instanceof LinkNotNull) {
+            selectivity = NOT_NULL_SELECTIVITY;
+        } else {
+            selectivity = 1;
+        }
+        return Math.max(entitiesCount / selectivity, 1L);
+    }
+
+    /**
+     * Flattens the conjunction except nested ones having {@linkplain LinksEqualDecorator} operands,
+     * since they are instantiated in a custom way.
+     */
+    private static void collectOperands(@NotNull final NodeBase node, @NotNull final List<NodeBase> operands) {
+        if (node instanceof And) {
+            final And and = (And) node;
+            final NodeBase left = and.getLeft();
+            final NodeBase right = and.getRight();
+            if (!(left instanceof LinksEqualDecorator || right instanceof LinksEqualDecorator)) {
+                collectOperands(left, operands);
+                collectOperands(right, operands);
+                return;
+            }
+        }
+        operands.add(node);
+    }
+
+    private static final class Operand {
+
+        @Nullable
+        private final NodeBase node;
+        @NotNull
+        private final Iterable<Entity> iterable;
+        private final long estimate;
+
+        private Operand(@Nullable final NodeBase node, @NotNull final Iterable<Entity> iterable, final long estimate) {
+            this.node = node;
+            this.iterable = iterable;
+            this.estimate = estimate;
+        }
+    }
+}
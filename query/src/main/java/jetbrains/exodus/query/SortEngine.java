@@ -98,6 +98,11 @@ public class SortEngine {
                     if (it.getRoughCount() == 0 && it.count() == 0) {
                         return queryEngine.wrap(EntityIterableBase.EMPTY.asSortResult());
                     }
+                    // sorting by index places nulls last regardless of direction, so consider in-memory sort only if ascending
+                    if (ascending && !emd.hasSubTypes() &&
+                            queryEngine.getQueryPlanner().isInMemorySortCheaper(entityType, (EntityIterableBase) it)) {
+                        return sortInMemory(i, adjustedCmp);
+                    }
                     return mergeSorted(emd, new IterableGetter() {
                         @Override
                         public EntityIterableBase getIterable(String type) {
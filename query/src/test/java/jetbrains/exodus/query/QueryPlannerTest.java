@@ -0,0 +1,168 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.query;
+
+import jetbrains.exodus.entitystore.Entity;
+import jetbrains.exodus.entitystore.EntityStoreTestBase;
+import jetbrains.exodus.entitystore.PersistentStoreTransaction;
+import jetbrains.exodus.entitystore.iterate.CompositeIndexIterable;
+import jetbrains.exodus.entitystore.iterate.EntityIterableBase;
+import jetbrains.exodus.entitystore.iterate.FilterPropertyValueIterable;
+import jetbrains.exodus.query.metadata.Index;
+import jetbrains.exodus.query.metadata.IndexField;
+import jetbrains.exodus.query.metadata.IndexFieldImpl;
+import jetbrains.exodus.query.metadata.IndexImpl;
+import org.junit.Assert;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static jetbrains.exodus.query.metadata.MetaBuilder.clazz;
+import static jetbrains.exodus.query.metadata.MetaBuilder.model;
+
+public class QueryPlannerTest extends EntityStoreTestBase {
+
+    private static final int COUNT = 2000;
+
+    private QueryEngine queryEngine;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        getEntityStore().getConfig().setQueryPlannerEnabled(true);
+        queryEngine = new QueryEngine(model(
+                clazz("TstClass").
+                        prop("s", "string").
+                        prop("i", "int")
+        ), getEntityStore());
+        SortEngine sortEngine = new SortEngine();
+        queryEngine.setSortEngine(sortEngine);
+        sortEngine.setQueryEngine(queryEngine);
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        for (int k = 0; k < COUNT; ++k) {
+            final Entity e = txn.newEntity("TstClass");
+            e.setProperty("s", "v" + k % 100);
+            e.setProperty("i", k % 7);
+            if (k % 3 == 0) {
+                e.setProperty("n", k);
+            }
+        }
+        txn.flush();
+    }
+
+    public void testConjunction() {
+        Assert.assertEquals(expectedCount(1, 3, false), QueryUtil.getSize(instantiate(
+                new And(new PropertyEqual("s", "V1"), new PropertyEqual("i", 3)))));
+        Assert.assertEquals(expectedCount(1, 3, true), QueryUtil.getSize(instantiate(
+                new And(new PropertyEqual("i", 3), new And(new PropertyNotNull("n"), new PropertyEqual("s", "v1"))))));
+        Assert.assertEquals(expectedCount(1, 3, true), QueryUtil.getSize(instantiate(
+                new And(new And(new PropertyEqual("i", 3), new PropertyNotNull("n")), new PropertyEqual("s", "v1")))));
+    }
+
+    public void testFilterByPropertyValue() {
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        // make counts known
+        Assert.assertEquals(COUNT / 100, txn.find("TstClass", "s", "v1").getRoughSize());
+        Assert.assertTrue(txn.find("TstClass", "i", 3).getRoughSize() > COUNT / 100 * 4);
+        final Iterable<Entity> it = instantiate(new And(new PropertyEqual("i", 3), new PropertyEqual("s", "v1")));
+        Assert.assertTrue(((EntityIterableBase) it).getSource() instanceof FilterPropertyValueIterable);
+        Assert.assertEquals(expectedCount(1, 3, false), QueryUtil.getSize(it));
+    }
+
+    public void testEmptyOperand() {
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        Assert.assertEquals(0, txn.find("TstClass", "s", "v100").getRoughSize());
+        Assert.assertSame(EntityIterableBase.EMPTY,
+                instantiate(new And(new PropertyNotNull("n"), new PropertyEqual("s", "v100"))));
+    }
+
+    public void testInMemorySort() {
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        final EntityIterableBase source = (EntityIterableBase) txn.find("TstClass", "s", "v1");
+        Assert.assertEquals(COUNT / 100, source.getRoughSize());
+        Assert.assertTrue(queryEngine.getQueryPlanner().isInMemorySortCheaper("TstClass", source));
+        Assert.assertFalse(queryEngine.getQueryPlanner().isInMemorySortCheaper("TstClass", (EntityIterableBase) txn.getAll("TstClass")));
+        int count = 0;
+        Comparable prev = null;
+        boolean nullFound = false;
+        for (final Entity e : queryEngine.getSortEngine().sort("TstClass", "n", source, true)) {
+            final Comparable n = e.getProperty("n");
+            if (n == null) {
+                nullFound = true;
+            } else {
+                // nulls go last
+                Assert.assertFalse(nullFound);
+                Assert.assertTrue(prev == null || prev.compareTo(n) <= 0);
+                prev = n;
+            }
+            ++count;
+        }
+        Assert.assertEquals(COUNT / 100, count);
+    }
+
+    public void testCompositeIndex() {
+        final IndexImpl index = new IndexImpl();
+        index.setOwnerEnityType("TstClass");
+        index.setFields(Arrays.<IndexField>asList(property("i"), property("s"), property("n")));
+        queryEngine.getCompositeIndicesEngine().updateCompositeIndices(Collections.<Index>singletonList(index));
+        final PersistentStoreTransaction txn = getStoreTransaction();
+        txn.revert();
+        Iterable<Entity> it = instantiate(new And(new PropertyEqual("s", "v1"), new PropertyEqual("i", 3)));
+        Assert.assertTrue(((EntityIterableBase) it).getSource() instanceof CompositeIndexIterable);
+        Assert.assertEquals(expectedCount(1, 3, false), QueryUtil.getSize(it));
+        Assert.assertEquals(expectedCount(1, 3, true), QueryUtil.getSize(instantiate(
+                new And(new PropertyEqual("i", 3), new And(new PropertyEqual("s", "v1"), new PropertyNotNull("n"))))));
+        it = instantiate(new And(new PropertyRange("n", 0, COUNT / 2), new And(new PropertyEqual("i", 3), new PropertyEqual("s", "v1"))));
+        Assert.assertTrue(((EntityIterableBase) it).getSource() instanceof CompositeIndexIterable);
+        int expected = 0;
+        for (int k = 0; k <= COUNT / 2; ++k) {
+            if (k % 100 == 1 && k % 7 == 3 && k % 3 == 0) {
+                ++expected;
+            }
+        }
+        Assert.assertEquals(expected, QueryUtil.getSize(it));
+        // index doesn't cover the conjunction
+        it = instantiate(new And(new PropertyEqual("s", "v1"), new PropertyRange("n", 0, COUNT / 2)));
+        Assert.assertFalse(((EntityIterableBase) it).getSource() instanceof CompositeIndexIterable);
+        // index is maintained
+        final Entity e = txn.newEntity("TstClass");
+        e.setProperty("s", "v1");
+        e.setProperty("i", 3);
+        Assert.assertEquals(expectedCount(1, 3, false) + 1, QueryUtil.getSize(instantiate(
+                new And(new PropertyEqual("s", "v1"), new PropertyEqual("i", 3)))));
+    }
+
+    private Iterable<Entity> instantiate(final NodeBase tree) {
+        return tree.instantiate("TstClass", queryEngine, queryEngine.getModelMetaData());
+    }
+
+    private static IndexField property(final String name) {
+        final IndexFieldImpl result = new IndexFieldImpl();
+        result.setName(name);
+        result.setProperty(true);
+        return result;
+    }
+
+    private static int expectedCount(final int s, final int i, final boolean withN) {
+        int result = 0;
+        for (int k = 0; k < COUNT; ++k) {
+            if (k % 100 == s && k % 7 == i && (!withN || k % 3 == 0)) {
+                ++result;
+            }
+        }
+        return result;
+    }
+}
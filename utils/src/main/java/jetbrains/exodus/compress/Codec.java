@@ -0,0 +1,50 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.compress;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Compresses and decompresses arrays of bytes. Compressed data doesn't include length of original data,
+ * it should be saved separately and passed to {@link #decompress(byte[], int, int, int)}.
+ */
+public interface Codec {
+
+    /**
+     * @return identifier of the codec in the range [1..127], it is saved along with compressed data
+     * so it should never be changed
+     */
+    int getId();
+
+    /**
+     * @param bytes  source data
+     * @param offset offset of data in the source array
+     * @param length length of data
+     * @return array of compressed data of exact length
+     */
+    @NotNull
+    byte[] compress(@NotNull byte[] bytes, int offset, int length);
+
+    /**
+     * @param bytes              compressed data
+     * @param offset             offset of compressed data in the array
+     * @param length             length of compressed data
+     * @param decompressedLength length of original data
+     * @return array of original data of length {@code decompressedLength}
+     */
+    @NotNull
+    byte[] decompress(@NotNull byte[] bytes, int offset, int length, int decompressedLength);
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.compress;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link Codec} using {@link Deflater} and {@link Inflater} from the JDK.
+ */
+public class DeflateCodec implements Codec {
+
+    public static final int ID = 1;
+
+    private final int level;
+
+    public DeflateCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level compression level from 0 to 9, or -1 for default level
+     * @see Deflater#setLevel(int)
+     */
+    public DeflateCodec(final int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.level = level;
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @NotNull
+    @Override
+    public byte[] compress(@NotNull final byte[] bytes, final int offset, final int length) {
+        final Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(bytes, offset, length);
+            deflater.finish();
+            byte[] result = new byte[length / 2 + 16];
+            int count = 0;
+            while (!deflater.finished()) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, result.length << 1);
+                }
+                count += deflater.deflate(result, count, result.length - count);
+            }
+            return count == result.length ? result : Arrays.copyOf(result, count);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @NotNull
+    @Override
+    public byte[] decompress(@NotNull final byte[] bytes, final int offset, final int length, final int decompressedLength) {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, length);
+            final byte[] result = new byte[decompressedLength];
+            int count = 0;
+            while (count < decompressedLength) {
+                final int inflated = inflater.inflate(result, count, decompressedLength - count);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                count += inflated;
+            }
+            // make sure there is no more data, this also lets the inflater read the end of the stream
+            if (count == decompressedLength && !inflater.finished() && inflater.inflate(new byte[1]) > 0) {
+                ++count;
+            }
+            if (count != decompressedLength || !inflater.finished()) {
+                throw new IllegalArgumentException("Decompressed data length doesn't match expected length " + decompressedLength);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
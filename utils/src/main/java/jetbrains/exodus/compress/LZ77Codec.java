@@ -0,0 +1,104 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.compress;
+
+import jetbrains.exodus.util.LightByteArrayOutputStream;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link Codec} using {@link LZ77} coding. Matches are saved using {@link VLQUtil}. Window size of the coder
+ * depends only on the length of original data, so it is the same for compression and decompression.
+ * Since the coder is quite slow, the codec can be used as a fallback if no faster codec is available.
+ */
+public class LZ77Codec implements Codec {
+
+    public static final int ID = 2;
+
+    private static final int MIN_WINDOW_SIZE = 1024;
+    private static final int MAX_WINDOW_SIZE = 1 << 24;
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @NotNull
+    @Override
+    public byte[] compress(@NotNull final byte[] bytes, final int offset, final int length) {
+        try {
+            final List<LZ77.Match> matches = newCoder(length).encode(new ByteArrayInputStream(bytes, offset, length));
+            final LightByteArrayOutputStream output = new LightByteArrayOutputStream(length / 2 + 16);
+            VLQUtil.writeInt(matches.size(), output);
+            for (final LZ77.Match match : matches) {
+                VLQUtil.writeInt(match.length, output);
+                if (match.length == 0) {
+                    output.write(match.offset);
+                } else {
+                    VLQUtil.writeInt(match.offset, output);
+                }
+                VLQUtil.writeInt(match.count, output);
+            }
+            return toByteArray(output);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @NotNull
+    @Override
+    public byte[] decompress(@NotNull final byte[] bytes, final int offset, final int length, final int decompressedLength) {
+        try {
+            final InputStream input = new ByteArrayInputStream(bytes, offset, length);
+            final int matchesCount = VLQUtil.readInt(input);
+            final List<LZ77.Match> matches = new ArrayList<>(matchesCount);
+            for (int i = 0; i < matchesCount; ++i) {
+                final int matchLength = VLQUtil.readInt(input);
+                final LZ77.Match match = matchLength == 0 ?
+                    new LZ77.Match((byte) input.read()) : new LZ77.Match(VLQUtil.readInt(input), matchLength);
+                match.setCount(VLQUtil.readInt(input));
+                matches.add(match);
+            }
+            final LightByteArrayOutputStream output = new LightByteArrayOutputStream(decompressedLength);
+            newCoder(decompressedLength).decode(matches, output);
+            if (output.size() != decompressedLength) {
+                throw new IllegalArgumentException("Decompressed data length doesn't match expected length " + decompressedLength);
+            }
+            return toByteArray(output);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid compressed data", e);
+        }
+    }
+
+    private static byte[] toByteArray(@NotNull final LightByteArrayOutputStream output) {
+        final byte[] result = output.toByteArray();
+        final int size = output.size();
+        return result.length == size ? result : Arrays.copyOf(result, size);
+    }
+
+    private static LZ77 newCoder(final int length) {
+        final LZ77.Config config = new LZ77.Config();
+        config.setWindowSize(length <= MIN_WINDOW_SIZE ? MIN_WINDOW_SIZE :
+            (length > MAX_WINDOW_SIZE / 2 ? MAX_WINDOW_SIZE : Integer.highestOneBit(length - 1) << 1));
+        return new LZ77(config);
+    }
+}
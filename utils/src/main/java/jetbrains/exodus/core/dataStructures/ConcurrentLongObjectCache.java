@@ -29,6 +29,8 @@ public class ConcurrentLongObjectCache<V> extends LongObjectCacheBase<V> {
     private final int generationSize;
     private final int mask;
     private final CacheEntry<V>[] cache;
+    @Nullable
+    private final FrequencySketch sketch;
 
     public ConcurrentLongObjectCache() {
         this(DEFAULT_SIZE);
@@ -39,11 +41,23 @@ public class ConcurrentLongObjectCache<V> extends LongObjectCacheBase<V> {
     }
 
     public ConcurrentLongObjectCache(final int size, final int numberOfGenerations) {
+        this(size, numberOfGenerations, false);
+    }
+
+    /**
+     * @param size                cache size
+     * @param numberOfGenerations number of entries competing for a single cache bucket
+     * @param frequencyAware      if {@code true}, access frequencies of keys are tracked, a new value is cached only
+     *                            if its key is accessed at least as frequently as the key of the least frequently
+     *                            accessed value in the bucket, and namely that value is pushed out (TinyLFU admission)
+     */
+    public ConcurrentLongObjectCache(final int size, final int numberOfGenerations, final boolean frequencyAware) {
         super(size);
         this.numberOfGenerations = numberOfGenerations;
         generationSize = HashUtil.getFloorPrime(size / numberOfGenerations);
         mask = (1 << MathUtil.integerLogarithm(generationSize)) - 1;
         cache = new CacheEntry[numberOfGenerations * generationSize];
+        sketch = frequencyAware ? new FrequencySketch(numberOfGenerations * generationSize) : null;
         clear();
     }
 
@@ -78,7 +92,29 @@ public class ConcurrentLongObjectCache<V> extends LongObjectCacheBase<V> {
                 return null;
             }
         }
-        cache[cacheIndex - 1] = new CacheEntry<>(key, x);
+        if (sketch == null) {
+            cache[cacheIndex - 1] = new CacheEntry<>(key, x);
+            return null;
+        }
+        // choose the least frequently accessed victim preferring empty or removed entries
+        cacheIndex -= numberOfGenerations;
+        int victimIndex = cacheIndex;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < numberOfGenerations; ++i, ++cacheIndex) {
+            final CacheEntry<V> entry = cache[cacheIndex];
+            if (entry.value == null) {
+                cache[cacheIndex] = new CacheEntry<>(key, x);
+                return null;
+            }
+            final int frequency = sketch.frequency(entry.key);
+            if (frequency <= victimFrequency) {
+                victimFrequency = frequency;
+                victimIndex = cacheIndex;
+            }
+        }
+        if (sketch.admit(key, cache[victimIndex].key)) {
+            cache[victimIndex] = new CacheEntry<>(key, x);
+        }
         return null;
     }
 
@@ -99,6 +135,9 @@ public class ConcurrentLongObjectCache<V> extends LongObjectCacheBase<V> {
     @Override
     public V tryKey(final long key) {
         incAttempts();
+        if (sketch != null) {
+            sketch.increment(key);
+        }
         int cacheIndex = HashUtil.indexFor(key, generationSize, mask) * numberOfGenerations;
         CacheEntry<V> entry = cache[cacheIndex];
         if (entry.key == key) {
@@ -135,6 +174,14 @@ public class ConcurrentLongObjectCache<V> extends LongObjectCacheBase<V> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * @return number of values which weren't cached since their keys are accessed less frequently than the keys of
+     * cached values, always {@code 0} if the cache is not frequency-aware
+     */
+    public long getAdmissionRejects() {
+        return sketch == null ? 0 : sketch.getRejects();
+    }
+
     @Override
     public CriticalSection newCriticalSection() {
         return TRIVIAL_CRITICAL_SECTION;
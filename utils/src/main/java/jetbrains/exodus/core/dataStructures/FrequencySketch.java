@@ -0,0 +1,122 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.core.dataStructures;
+
+/**
+ * Approximate frequency of long keys based on count-min sketch with 4-bit counters. All counters are halved
+ * periodically, so the sketch reflects recent history of accesses. Used by caches to implement TinyLFU admission:
+ * a new key is admitted to a cache only if it is accessed at least as frequently as the key which would be pushed
+ * out. Sequential scans thus cannot push out hot entries, whereas keys which are equally cold (e.g. on cold start)
+ * replace each other. The sketch is not thread-safe, concurrent updates can lose
+ * increments, which only makes frequency estimation a bit less accurate.
+ */
+public class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0x97cb3127c3f1d3b5L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MIN_CAPACITY = 16;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+    private long rejects;
+
+    public FrequencySketch(final int capacity) {
+        final int length = Integer.highestOneBit(Math.max(capacity, MIN_CAPACITY) - 1) << 1;
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = Math.max(capacity, MIN_CAPACITY) * 10;
+        size = 0;
+        rejects = 0;
+    }
+
+    public int frequency(final long key) {
+        final int hash = spread(key);
+        final int start = (hash & 3) << 2;
+        int result = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; ++i) {
+            final int count = (int) ((table[indexOf(hash, i)] >>> ((start + i) << 2)) & 0xfL);
+            if (count < result) {
+                result = count;
+            }
+        }
+        return result;
+    }
+
+    public void increment(final long key) {
+        final int hash = spread(key);
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; ++i) {
+            final int index = indexOf(hash, i);
+            final int offset = (start + i) << 2;
+            final long mask = 0xfL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * @param candidate key which is going to be cached
+     * @param victim    key which would be pushed out of the cache
+     * @return {@code true} if candidate key is accessed at least as frequently as the victim one
+     */
+    public boolean admit(final long candidate, final long victim) {
+        if (frequency(candidate) >= frequency(victim)) {
+            return true;
+        }
+        ++rejects;
+        return false;
+    }
+
+    /**
+     * @return number of keys which weren't admitted to the cache
+     */
+    public long getRejects() {
+        return rejects;
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; ++i) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(final int hash, final int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    private static int spread(final long key) {
+        int x = (int) (key ^ (key >>> 32));
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,365 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.core.dataStructures;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent cache split into stripes by hash code of key. Each stripe holds a {@link ConcurrentHashMap}
+ * from keys to entries and evicts its entries using the CLOCK algorithm. {@link #tryKey(Object)} never blocks:
+ * it reads the map and marks the entry found as referenced unless it's already marked. Modifications are
+ * serialized per stripe, and each insertion to a full stripe evicts a single entry, so the eviction is amortized
+ * over insertions. Hits and attempts are counted in padded cells chosen by thread, so that lookups in different
+ * threads don't write to the same cache line.
+ *
+ * <p>By default, size of the cache is the maximum number of its entries. Subclasses can override
+ * {@link #weigh(Object, Object)} to bound the cache by total weight of entries (e.g., by their size in bytes).
+ * Then a single insertion can evict several entries, and an entry heavier than a stripe is never cached.
+ */
+public class StripedObjectCache<K, V> extends ObjectCacheBase<K, V> {
+
+    private static final int MIN_STRIPE_SIZE = 16;
+    private static final int MAX_COUNTER_CELLS = 64;
+    // distance between counter cells in ints, so that each cell occupies its own cache line(s)
+    private static final int COUNTER_CELL_STRIDE = 32;
+    private static final int ATTEMPTS = 0;
+    private static final int HITS = 1;
+
+    private final Stripe<K, V>[] stripes;
+    private final int mask;
+    // attempts and hits in cells chosen by thread id, the first cell starts after padding
+    private final int[] counters;
+    private final int countersMask;
+
+    public StripedObjectCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    public StripedObjectCache(final int size) {
+        this(size, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public StripedObjectCache(final int size, final int maxStripesCount) {
+        super(size);
+        final int stripesCount = Integer.highestOneBit(Math.max(1, Math.min(maxStripesCount, this.size / MIN_STRIPE_SIZE)));
+        stripes = newStripes(stripesCount);
+        final int stripeSize = (this.size + stripesCount - 1) / stripesCount;
+        for (int i = 0; i < stripesCount; ++i) {
+            stripes[i] = new Stripe<>(stripeSize);
+        }
+        mask = stripesCount - 1;
+        final int cellsCount = Math.min(MAX_COUNTER_CELLS,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1);
+        counters = new int[(cellsCount + 1) * COUNTER_CELL_STRIDE];
+        countersMask = cellsCount - 1;
+    }
+
+    @Override
+    public V tryKeyLocked(@NotNull final K key) {
+        return tryKey(key);
+    }
+
+    @Override
+    public void clear() {
+        for (final Stripe<K, V> stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    @Override
+    public void lock() {
+    }
+
+    @Override
+    public void unlock() {
+    }
+
+    @Override
+    public V cacheObject(@NotNull final K key, @NotNull final V x) {
+        return getStripe(key).cacheObject(key, x, Math.max(1, weigh(key, x)));
+    }
+
+    @Override
+    public V remove(@NotNull final K key) {
+        return getStripe(key).remove(key);
+    }
+
+    @Override
+    public V tryKey(@NotNull final K key) {
+        final int cell = getCounterCell();
+        ++counters[cell + ATTEMPTS];
+        final Entry<K, V> entry = getStripe(key).map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        ++counters[cell + HITS];
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public V getObject(@NotNull final K key) {
+        final Entry<K, V> entry = getStripe(key).map.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    @Override
+    public int count() {
+        int result = 0;
+        for (final Stripe<K, V> stripe : stripes) {
+            result += stripe.map.size();
+        }
+        return result;
+    }
+
+    @Override
+    public CriticalSection newCriticalSection() {
+        return TRIVIAL_CRITICAL_SECTION;
+    }
+
+    @Override
+    public int getAttempts() {
+        return sumCounters(ATTEMPTS);
+    }
+
+    @Override
+    public void setAttempts(final int attempts) {
+        setCounters(ATTEMPTS, attempts);
+    }
+
+    @Override
+    public int getHits() {
+        return sumCounters(HITS);
+    }
+
+    @Override
+    public void setHits(final int hits) {
+        setCounters(HITS, hits);
+    }
+
+    @Override
+    public float hitRate() {
+        final int hits = getHits();
+        // due to lack of thread-safety there can appear not that consistent results
+        final int attempts = Math.max(hits, getAttempts());
+        return attempts > 0 ? (float) hits / (float) attempts : 0;
+    }
+
+    @Override
+    public void adjustHitRate() {
+        for (int cell = COUNTER_CELL_STRIDE; cell < counters.length; cell += COUNTER_CELL_STRIDE) {
+            final int hits = counters[cell + HITS];
+            final int attempts = Math.max(hits, counters[cell + ATTEMPTS]);
+            if (attempts > 16) {
+                counters[cell + ATTEMPTS] = attempts >> 1;
+                counters[cell + HITS] = hits >> 1;
+            }
+        }
+    }
+
+    @Override
+    protected void incAttempts() {
+        ++counters[getCounterCell() + ATTEMPTS];
+    }
+
+    @Override
+    protected void incHits() {
+        ++counters[getCounterCell() + HITS];
+    }
+
+    /**
+     * Returns weight of the entry which is counted against size of the cache. Default weight of an entry is 1.
+     *
+     * @return positive weight of the entry
+     */
+    protected int weigh(@NotNull final K key, @NotNull final V value) {
+        return 1;
+    }
+
+    @NotNull
+    private Stripe<K, V> getStripe(@NotNull final K key) {
+        final int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * @return offset of the counter cell of current thread. Threads sharing a cell can lose increments of each
+     * other, which only makes the hit rate a bit less accurate.
+     */
+    private int getCounterCell() {
+        return (((int) Thread.currentThread().getId() & countersMask) + 1) * COUNTER_CELL_STRIDE;
+    }
+
+    private int sumCounters(final int counter) {
+        int result = 0;
+        for (int cell = COUNTER_CELL_STRIDE; cell < counters.length; cell += COUNTER_CELL_STRIDE) {
+            result += counters[cell + counter];
+        }
+        return result;
+    }
+
+    private void setCounters(final int counter, final int value) {
+        for (int cell = COUNTER_CELL_STRIDE; cell < counters.length; cell += COUNTER_CELL_STRIDE) {
+            counters[cell + counter] = 0;
+        }
+        counters[COUNTER_CELL_STRIDE + counter] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Stripe<K, V>[] newStripes(final int count) {
+        return (Stripe<K, V>[]) new Stripe<?, ?>[count];
+    }
+
+    private static final class Stripe<K, V> {
+
+        @NotNull
+        private final ConcurrentHashMap<K, Entry<K, V>> map;
+        private final int size;
+        // entries in the order of the clock, allocated lazily and grown up to the size of the stripe
+        @Nullable
+        private Entry<K, V>[] clock;
+        private int count;
+        private int weight;
+        private int hand;
+
+        private Stripe(final int size) {
+            map = new ConcurrentHashMap<>(16, 0.75f, 1);
+            this.size = size;
+        }
+
+        private synchronized V cacheObject(@NotNull final K key, @NotNull final V x, final int w) {
+            final Entry<K, V> existing = map.get(key);
+            if (existing != null) {
+                if (existing.weight == w) {
+                    existing.value = x;
+                    return null;
+                }
+                map.remove(key);
+                removeFromClock(existing);
+                weight -= existing.weight;
+            }
+            if (w > size) {
+                return null;
+            }
+            V result = null;
+            // advance the clock hand to entries which weren't referenced since last visit, and evict them
+            // until the new entry fits, the last victim is replaced with the new entry
+            Entry<K, V> victim = null;
+            while (weight + w > size) {
+                if (victim != null) {
+                    removeFromClock(victim);
+                }
+                victim = nextVictim();
+                map.remove(victim.key);
+                weight -= victim.weight;
+                result = victim.value;
+            }
+            final Entry<K, V> entry = new Entry<>(key, x, w);
+            if (victim != null) {
+                entry.index = victim.index;
+                // noinspection ConstantConditions
+                clock[victim.index] = entry;
+            } else {
+                Entry<K, V>[] clock = this.clock;
+                if (clock == null) {
+                    this.clock = clock = newEntries(Math.min(size, MIN_STRIPE_SIZE));
+                } else if (count == clock.length) {
+                    this.clock = clock = Arrays.copyOf(clock, (int) Math.min((long) size, (long) count << 1));
+                }
+                entry.index = count;
+                clock[count++] = entry;
+            }
+            weight += w;
+            map.put(key, entry);
+            return result;
+        }
+
+        private synchronized V remove(@NotNull final K key) {
+            final Entry<K, V> entry = map.remove(key);
+            if (entry == null) {
+                return null;
+            }
+            removeFromClock(entry);
+            weight -= entry.weight;
+            return entry.value;
+        }
+
+        private synchronized void clear() {
+            map.clear();
+            clock = null;
+            count = 0;
+            weight = 0;
+            hand = 0;
+        }
+
+        @NotNull
+        private Entry<K, V> nextVictim() {
+            final Entry<K, V>[] clock = this.clock;
+            Entry<K, V> victim;
+            // noinspection ConstantConditions
+            while ((victim = clock[hand]).referenced) {
+                victim.referenced = false;
+                hand = hand + 1 == count ? 0 : hand + 1;
+            }
+            hand = hand + 1 == count ? 0 : hand + 1;
+            return victim;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> Entry<K, V>[] newEntries(final int count) {
+            return (Entry<K, V>[]) new Entry<?, ?>[count];
+        }
+
+        private void removeFromClock(@NotNull final Entry<K, V> entry) {
+            final Entry<K, V>[] clock = this.clock;
+            // noinspection ConstantConditions
+            final Entry<K, V> last = clock[--count];
+            clock[count] = null;
+            if (last != entry) {
+                last.index = entry.index;
+                clock[entry.index] = last;
+                if (hand == count) {
+                    hand = entry.index;
+                }
+            }
+            if (hand >= count) {
+                hand = 0;
+            }
+        }
+    }
+
+    private static final class Entry<K, V> {
+
+        @NotNull
+        private final K key;
+        private volatile V value;
+        private volatile boolean referenced;
+        private final int weight;
+        private int index; // index in the clock, guarded by the stripe
+
+        private Entry(@NotNull final K key, @NotNull final V value, final int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.compress;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+public class CodecTest extends BaseCompressTest {
+
+    @Test
+    public void deflate() throws UnsupportedEncodingException {
+        testCodec(new DeflateCodec(), true);
+    }
+
+    @Test
+    public void deflateNoCompression() throws UnsupportedEncodingException {
+        testCodec(new DeflateCodec(0), false);
+    }
+
+    @Test
+    public void lz77() throws UnsupportedEncodingException {
+        testCodec(new LZ77Codec(), true);
+    }
+
+    private static void testCodec(@NotNull final Codec codec, final boolean compresses) throws UnsupportedEncodingException {
+        assertRoundTrip(codec, new byte[0]);
+        assertRoundTrip(codec, new byte[]{1});
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; ++i) {
+            text.append("The quick brown fox jumps over the lazy dog ").append(i).append(". ");
+        }
+        final byte[] textBytes = text.toString().getBytes(UTF8);
+        final byte[] compressed = assertRoundTrip(codec, textBytes);
+        if (compresses) {
+            Assert.assertTrue(compressed.length * 3 < textBytes.length);
+        }
+        final byte[] random = new byte[100000];
+        new Random(2017).nextBytes(random);
+        assertRoundTrip(codec, random);
+        // offset and length
+        final byte[] compressedPart = codec.compress(textBytes, 100, 5000);
+        final byte[] decompressedPart = codec.decompress(compressedPart, 0, compressedPart.length, 5000);
+        for (int i = 0; i < 5000; ++i) {
+            Assert.assertEquals(textBytes[i + 100], decompressedPart[i]);
+        }
+    }
+
+    private static byte[] assertRoundTrip(@NotNull final Codec codec, @NotNull final byte[] bytes) {
+        final byte[] compressed = codec.compress(bytes, 0, bytes.length);
+        final byte[] withOffset = new byte[compressed.length + 3];
+        System.arraycopy(compressed, 0, withOffset, 3, compressed.length);
+        Assert.assertArrayEquals(bytes, codec.decompress(withOffset, 3, compressed.length, bytes.length));
+        return compressed;
+    }
+}
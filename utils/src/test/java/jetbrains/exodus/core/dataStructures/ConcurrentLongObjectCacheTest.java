@@ -0,0 +1,72 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.core.dataStructures;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentLongObjectCacheTest {
+
+    @Test
+    public void scanResistance() {
+        final ConcurrentLongObjectCache<String> cache = new ConcurrentLongObjectCache<>(1000, 4, true);
+        for (int i = 0; i < 5; ++i) {
+            for (long key = 0; key < 500; ++key) {
+                access(cache, key);
+            }
+        }
+        // scan of keys which are never accessed again interleaved with accesses to hot keys
+        for (long key = 10000; key < 100000; ++key) {
+            access(cache, key);
+            access(cache, key % 500);
+        }
+        for (long key = 0; key < 500; ++key) {
+            Assert.assertNotNull(cache.getObject(key));
+        }
+        Assert.assertTrue(cache.getAdmissionRejects() > 0);
+    }
+
+    @Test
+    public void noAdmissionRejectsByDefault() {
+        final ConcurrentLongObjectCache<String> cache = new ConcurrentLongObjectCache<>(1000, 4);
+        for (long key = 0; key < 10000; ++key) {
+            access(cache, key);
+        }
+        Assert.assertEquals(0, cache.getAdmissionRejects());
+    }
+
+    @Test
+    public void coldKeysReplaceEachOther() {
+        final ConcurrentLongObjectCache<String> cache = new ConcurrentLongObjectCache<>(1000, 4, true);
+        for (long key = 0; key < 10000; ++key) {
+            access(cache, key);
+        }
+        // keys accessed once are equally cold, so the latest ones should be cached
+        int cached = 0;
+        for (long key = 9900; key < 10000; ++key) {
+            if (cache.getObject(key) != null) {
+                ++cached;
+            }
+        }
+        Assert.assertTrue(cached > 50);
+    }
+
+    private static void access(final ConcurrentLongObjectCache<String> cache, final long key) {
+        if (cache.tryKey(key) == null) {
+            cache.cacheObject(key, String.valueOf(key));
+        }
+    }
+}
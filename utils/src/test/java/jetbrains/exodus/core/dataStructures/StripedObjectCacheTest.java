@@ -0,0 +1,165 @@
+/**
+ * Copyright 2010 - 2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.exodus.core.dataStructures;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class StripedObjectCacheTest {
+
+    @Test
+    public void cacheFiniteness() {
+        final StripedObjectCache<Integer, String> cache = new StripedObjectCache<>(100, 4);
+        for (int i = 0; i < 1000; ++i) {
+            cache.cacheObject(i, Integer.toString(i));
+            Assert.assertTrue(cache.count() <= 100);
+        }
+        Assert.assertEquals(100, cache.count());
+        for (int i = 900; i < 1000; ++i) {
+            Assert.assertEquals(Integer.toString(i), cache.getObject(i));
+        }
+    }
+
+    @Test
+    public void referencedEntriesSurvive() {
+        final StripedObjectCache<Integer, String> cache = new StripedObjectCache<>(16, 1);
+        for (int i = 0; i < 16; ++i) {
+            cache.cacheObject(i, Integer.toString(i));
+        }
+        Assert.assertEquals("0", cache.tryKey(0));
+        // the second entry is pushed out since the first one is referenced
+        Assert.assertEquals("1", cache.cacheObject(16, "16"));
+        Assert.assertEquals("0", cache.getObject(0));
+        Assert.assertNull(cache.getObject(1));
+    }
+
+    @Test
+    public void removeAndClear() {
+        final StripedObjectCache<Integer, String> cache = new StripedObjectCache<>(64, 2);
+        for (int i = 0; i < 64; ++i) {
+            cache.cacheObject(i, Integer.toString(i));
+        }
+        for (int i = 0; i < 64; i += 2) {
+            Assert.assertEquals(Integer.toString(i), cache.remove(i));
+        }
+        Assert.assertEquals(32, cache.count());
+        for (int i = 0; i < 64; ++i) {
+            Assert.assertEquals(i % 2 == 0 ? null : Integer.toString(i), cache.tryKey(i));
+        }
+        for (int i = 64; i < 128; ++i) {
+            cache.cacheObject(i, Integer.toString(i));
+        }
+        Assert.assertEquals(64, cache.count());
+        cache.clear();
+        Assert.assertEquals(0, cache.count());
+        Assert.assertNull(cache.tryKey(127));
+    }
+
+    @Test
+    public void weighedEntries() {
+        final StripedObjectCache<Integer, String> cache = new StripedObjectCache<Integer, String>(100, 1) {
+            @Override
+            protected int weigh(@NotNull final Integer key, @NotNull final String value) {
+                return value.length();
+            }
+        };
+        for (int i = 0; i < 10; ++i) {
+            cache.cacheObject(i, "0123456789");
+        }
+        Assert.assertEquals(10, cache.count());
+        // a heavy entry pushes out several light ones
+        cache.cacheObject(10, "01234567890123456789012345678901234567890123456789");
+        Assert.assertEquals(6, cache.count());
+        Assert.assertNotNull(cache.getObject(10));
+        // an entry heavier than the cache is never cached
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 101; ++i) {
+            builder.append('x');
+        }
+        cache.cacheObject(11, builder.toString());
+        Assert.assertNull(cache.getObject(11));
+        Assert.assertEquals(6, cache.count());
+        // replacing value with a heavier one evicts other entries
+        cache.cacheObject(10, builder.substring(0, 100));
+        Assert.assertEquals(1, cache.count());
+        Assert.assertEquals(100, cache.getObject(10).length());
+        cache.cacheObject(12, "x");
+        Assert.assertEquals(1, cache.count());
+        Assert.assertEquals("x", cache.getObject(12));
+    }
+
+    @Test
+    public void hitRate() {
+        final StripedObjectCache<Integer, String> cache = new StripedObjectCache<>(64, 4);
+        for (int i = 0; i < 32; ++i) {
+            cache.cacheObject(i, Integer.toString(i));
+        }
+        for (int i = 0; i < 64; ++i) {
+            cache.tryKey(i);
+        }
+        Assert.assertEquals(64, cache.getAttempts());
+        Assert.assertEquals(32, cache.getHits());
+        Assert.assertEquals(0.5f, cache.hitRate(), 0.001f);
+        cache.adjustHitRate();
+        Assert.assertEquals(0.5f, cache.hitRate(), 0.1f);
+    }
+
+    @Test
+    public void concurrentAccess() throws InterruptedException {
+        final StripedObjectCache<Integer, String> cache = new StripedObjectCache<>(1000, 8);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; ++t) {
+            final int seed = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        final Random random = new Random(seed);
+                        for (int i = 0; i < 200000; ++i) {
+                            final int key = random.nextInt(3000);
+                            final String value = cache.tryKey(key);
+                            if (value == null) {
+                                cache.cacheObject(key, Integer.toString(key));
+                            } else if (!value.equals(Integer.toString(key))) {
+                                throw new IllegalStateException("Wrong value " + value + " for key " + key);
+                            }
+                            if (i % 100 == 0) {
+                                cache.remove(random.nextInt(3000));
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertNull(error.get());
+        Assert.assertTrue(cache.count() <= 1000);
+    }
+}